@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.benchmarks;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.gemstone.gemfire.cache.query.internal.AttributeDescriptor;
+
+/**
+ * Measures how the query engine reads an attribute of a domain object. The
+ * descriptor case goes through {@link AttributeDescriptor#read(Object)},
+ * which calls a method handle held by a per-class accessor. The reflection
+ * case calls the same field or getter through {@link Field#get(Object)} or
+ * {@link Method#invoke(Object, Object...)}, as the query engine used to.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class AttributeReadBenchmark {
+
+  /** A public field is read directly, the other attribute through its getter */
+  @Param({"quantity", "id"})
+  public String attribute;
+
+  private Position[] targets;
+  private int next;
+  private AttributeDescriptor descriptor;
+  private Member member;
+
+  public static class Position {
+    public int quantity;
+    private final long id;
+
+    public Position(long id) {
+      this.id = id;
+      this.quantity = (int)id * 10;
+    }
+
+    public long getId() {
+      return this.id;
+    }
+  }
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    this.targets = new Position[1024];
+    for (int i = 0; i < this.targets.length; i++) {
+      this.targets[i] = new Position(i);
+    }
+    this.descriptor = new AttributeDescriptor(this.attribute);
+    try {
+      this.member = Position.class.getField(this.attribute);
+    } catch (NoSuchFieldException e) {
+      this.member = Position.class.getMethod("get"
+          + Character.toUpperCase(this.attribute.charAt(0)) + this.attribute.substring(1));
+    }
+  }
+
+  private Position nextTarget() {
+    int i = this.next;
+    this.next = (i + 1) & (this.targets.length - 1);
+    return this.targets[i];
+  }
+
+  @Benchmark
+  public Object descriptor() throws Exception {
+    return this.descriptor.read(nextTarget());
+  }
+
+  @Benchmark
+  public Object reflection() throws Exception {
+    if (this.member instanceof Method) {
+      return ((Method)this.member).invoke(nextTarget(), (Object[])null);
+    }
+    return ((Field)this.member).get(nextTarget());
+  }
+}
@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.benchmarks;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import com.gemstone.gemfire.DataSerializable;
+import com.gemstone.gemfire.DataSerializer;
+
+/**
+ * A value serialized with {@link DataSerializable}. It has the same fields
+ * as {@link PdxValue}.
+ */
+public class DataSerializableValue implements DataSerializable {
+  private static final long serialVersionUID = 1L;
+
+  private long id;
+  private String name;
+  private double price;
+  private int[] quantities;
+
+  public DataSerializableValue() {
+  }
+
+  public DataSerializableValue(long id) {
+    this.id = id;
+    this.name = "value" + id;
+    this.price = id * 1.5;
+    this.quantities = new int[] {1, 2, 3, 4, 5, 6, 7, 8};
+  }
+
+  @Override
+  public void toData(DataOutput out) throws IOException {
+    out.writeLong(this.id);
+    DataSerializer.writeString(this.name, out);
+    out.writeDouble(this.price);
+    DataSerializer.writeIntArray(this.quantities, out);
+  }
+
+  @Override
+  public void fromData(DataInput in) throws IOException, ClassNotFoundException {
+    this.id = in.readLong();
+    this.name = DataSerializer.readString(in);
+    this.price = in.readDouble();
+    this.quantities = DataSerializer.readIntArray(in);
+  }
+}
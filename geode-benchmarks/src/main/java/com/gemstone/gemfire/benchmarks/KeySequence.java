@@ -0,0 +1,38 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.benchmarks;
+
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Hands out the keys of a fixed key space to a single benchmark thread.
+ * Every thread walks the whole key space so that puts update existing
+ * entries once the region has been filled.
+ */
+@State(Scope.Thread)
+public class KeySequence {
+  public static final int KEY_COUNT = 10000;
+
+  private int next;
+
+  public Long next() {
+    int key = this.next;
+    this.next = (key + 1) % KEY_COUNT;
+    return Long.valueOf(key);
+  }
+}
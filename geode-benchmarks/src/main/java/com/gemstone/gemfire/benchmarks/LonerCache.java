@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.benchmarks;
+
+import java.util.Properties;
+
+import com.gemstone.gemfire.cache.Cache;
+import com.gemstone.gemfire.cache.CacheFactory;
+import com.gemstone.gemfire.distributed.internal.DistributionConfig;
+
+/**
+ * Creates caches that are members of a loner distributed system so that
+ * benchmarks can run on a single machine without a locator.
+ */
+public final class LonerCache {
+
+  private LonerCache() {
+  }
+
+  /**
+   * Creates a cache without off-heap memory.
+   */
+  public static Cache create() {
+    return create(null);
+  }
+
+  /**
+   * Creates a cache.
+   * @param offHeapMemorySize the off-heap-memory-size of the cache,
+   * for example "256m", or null to not use off-heap memory.
+   */
+  public static Cache create(String offHeapMemorySize) {
+    Properties props = new Properties();
+    props.setProperty(DistributionConfig.MCAST_PORT_NAME, "0");
+    props.setProperty(DistributionConfig.LOCATORS_NAME, "");
+    props.setProperty(DistributionConfig.LOG_LEVEL_NAME, "warning");
+    if (offHeapMemorySize != null) {
+      props.setProperty(DistributionConfig.OFF_HEAP_MEMORY_SIZE_NAME, offHeapMemorySize);
+    }
+    return new CacheFactory(props).create();
+  }
+}
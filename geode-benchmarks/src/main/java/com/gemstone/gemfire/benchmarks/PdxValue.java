@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.benchmarks;
+
+import com.gemstone.gemfire.pdx.PdxReader;
+import com.gemstone.gemfire.pdx.PdxSerializable;
+import com.gemstone.gemfire.pdx.PdxWriter;
+
+/**
+ * A value serialized with PDX. It has the same fields as
+ * {@link DataSerializableValue}.
+ */
+public class PdxValue implements PdxSerializable {
+  private long id;
+  private String name;
+  private double price;
+  private int[] quantities;
+
+  public PdxValue() {
+  }
+
+  public PdxValue(long id) {
+    this.id = id;
+    this.name = "value" + id;
+    this.price = id * 1.5;
+    this.quantities = new int[] {1, 2, 3, 4, 5, 6, 7, 8};
+  }
+
+  @Override
+  public void toData(PdxWriter writer) {
+    writer.writeLong("id", this.id);
+    writer.writeString("name", this.name);
+    writer.writeDouble("price", this.price);
+    writer.writeIntArray("quantities", this.quantities);
+  }
+
+  @Override
+  public void fromData(PdxReader reader) {
+    this.id = reader.readLong("id");
+    this.name = reader.readString("name");
+    this.price = reader.readDouble("price");
+    this.quantities = reader.readIntArray("quantities");
+  }
+}
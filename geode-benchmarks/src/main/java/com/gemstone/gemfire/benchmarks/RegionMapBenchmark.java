@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.gemstone.gemfire.cache.Cache;
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.cache.RegionShortcut;
+
+/**
+ * Compares a region whose entries are kept in the default
+ * VMRegionMap with one kept in a PrimitiveKeyRegionMap, using
+ * Long keys.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class RegionMapBenchmark {
+
+  private static final String PRIMITIVE_KEY_REGIONS_PROPERTY = "gemfire.PRIMITIVE_KEY_REGIONS";
+
+  @Param({"VMRegionMap", "PrimitiveKeyRegionMap"})
+  public String regionMap;
+
+  @Param({"LOCAL", "PARTITION"})
+  public RegionShortcut shortcut;
+
+  private Cache cache;
+  private Region<Long, byte[]> region;
+  private byte[] value;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    if ("PrimitiveKeyRegionMap".equals(this.regionMap)) {
+      System.setProperty(PRIMITIVE_KEY_REGIONS_PROPERTY, "/region");
+    }
+    this.cache = LonerCache.create();
+    this.region = this.cache.<Long, byte[]>createRegionFactory(this.shortcut)
+        .create("region");
+    this.value = new byte[100];
+    for (long key = 0; key < KeySequence.KEY_COUNT; key++) {
+      this.region.put(key, this.value);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    this.cache.close();
+    System.clearProperty(PRIMITIVE_KEY_REGIONS_PROPERTY);
+  }
+
+  @Benchmark
+  public Object put(KeySequence keys) {
+    return this.region.put(keys.next(), this.value);
+  }
+
+  @Benchmark
+  public Object get(KeySequence keys) {
+    return this.region.get(keys.next());
+  }
+
+  @Benchmark
+  public boolean containsKey(KeySequence keys) {
+    return this.region.containsKey(keys.next());
+  }
+}
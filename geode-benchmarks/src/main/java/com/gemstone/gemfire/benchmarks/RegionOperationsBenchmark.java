@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.gemstone.gemfire.cache.Cache;
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.cache.RegionShortcut;
+
+/**
+ * Measures puts and gets on a local region whose values are stored on
+ * the heap or off-heap.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class RegionOperationsBenchmark {
+
+  @Param({"heap", "off-heap"})
+  public String memory;
+
+  @Param({"100", "10000"})
+  public int valueSize;
+
+  private Cache cache;
+  private Region<Long, byte[]> region;
+  private byte[] value;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    boolean offHeap = "off-heap".equals(this.memory);
+    this.cache = LonerCache.create(offHeap ? "512m" : null);
+    this.region = this.cache.<Long, byte[]>createRegionFactory(RegionShortcut.LOCAL)
+        .setOffHeap(offHeap)
+        .create("region");
+    this.value = new byte[this.valueSize];
+    for (long key = 0; key < KeySequence.KEY_COUNT; key++) {
+      this.region.put(key, this.value);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    this.cache.close();
+  }
+
+  @Benchmark
+  public Object put(KeySequence keys) {
+    return this.region.put(keys.next(), this.value);
+  }
+
+  @Benchmark
+  public Object get(KeySequence keys) {
+    return this.region.get(keys.next());
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.cache.client;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import com.gemstone.gemfire.cache.Region;
+
+/**
+ * An asynchronous view of a client {@link Region}. Each operation is handed
+ * to a bounded set of threads owned by the region's {@link Pool} and returns
+ * at once with a {@link CompletableFuture} that completes with the result of
+ * the corresponding {@link Region} operation, or exceptionally with the
+ * exception that operation threw.
+ * <p>
+ * The operations go through the region itself, so local caching, cache
+ * listeners and single-hop routing to the server hosting a key behave
+ * exactly as they do for the blocking calls. They do not take part in any
+ * transaction of the calling thread.
+ * <p>
+ * Instances are obtained from {@link ClientCache#getAsyncRegion(String)}.
+ * The number of threads serving each pool is set with the
+ * <code>gemfire.PoolImpl.ASYNC_OP_POOL_SIZE</code> system property, and the
+ * number of operations that may wait for one of them with
+ * <code>gemfire.PoolImpl.ASYNC_OP_QUEUE_SIZE</code>. An operation issued
+ * while that many are waiting, or after the pool is destroyed, returns a
+ * future that has already failed.
+ * 
+ * @param <K> the type of keys in the region
+ * @param <V> the type of values in the region
+ * @since Geode 1.0
+ */
+public interface AsyncRegion<K,V> {
+
+  /**
+   * Returns the region this view operates on.
+   */
+  public Region<K,V> getRegion();
+
+  /**
+   * Asynchronously performs {@link Region#get(Object)}.
+   */
+  public CompletableFuture<V> getAsync(K key);
+
+  /**
+   * Asynchronously performs {@link Region#get(Object, Object)}.
+   */
+  public CompletableFuture<V> getAsync(K key, Object aCallbackArgument);
+
+  /**
+   * Asynchronously performs {@link Region#put(Object, Object)}. The future
+   * completes with the previous value as described by that method.
+   */
+  public CompletableFuture<V> putAsync(K key, V value);
+
+  /**
+   * Asynchronously performs {@link Region#put(Object, Object, Object)}.
+   */
+  public CompletableFuture<V> putAsync(K key, V value, Object aCallbackArgument);
+
+  /**
+   * Asynchronously performs {@link Region#getAll(Collection)}.
+   */
+  public CompletableFuture<Map<K,V>> getAllAsync(Collection<?> keys);
+}
@@ -163,5 +163,19 @@ public interface ClientCache extends GemFireCache {
    * @see com.gemstone.gemfire.cache.client.Pool
    */
   public Pool getDefaultPool();
+
+  /**
+   * Returns an {@link AsyncRegion} view of the region with the given path.
+   * The region must use a {@link Pool} to connect to servers.
+   * <p>
+   * The default implementation throws {@link UnsupportedOperationException}.
+   * @param path the path to the region
+   * @return the asynchronous view, or null if the region does not exist
+   * @throws IllegalStateException if the region does not use a pool
+   * @since Geode 1.0
+   */
+  public default <K,V> AsyncRegion<K,V> getAsyncRegion(String path) {
+    throw new UnsupportedOperationException();
+  }
   
 }
@@ -19,6 +19,7 @@ package com.gemstone.gemfire.cache.client.internal;
 import java.io.ByteArrayInputStream;
 import java.io.DataInputStream;
 import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
 
 import org.apache.logging.log4j.Logger;
 
@@ -81,6 +82,18 @@ public abstract class AbstractOp implements Op {
    * @throws Exception if the send fails
    */
   protected void attemptSend(Connection cnx) throws Exception {
+    attemptSend(cnx, cnx.getCommBuffer());
+  }
+
+  /**
+   * Attempts to send this operation's message out on the
+   * given connection using the given buffer instead of the
+   * connection's own comm buffer
+   * @param cnx the connection to use when sending
+   * @param commBuffer the buffer to serialize the message into
+   * @throws Exception if the send fails
+   */
+  void attemptSend(Connection cnx, ByteBuffer commBuffer) throws Exception {
     setMsgTransactionId();
     if (logger.isTraceEnabled(LogMarker.DISTRIBUTION_BRIDGE_SERVER)) {
       if (logger.isDebugEnabled()) {
@@ -88,7 +101,7 @@ public abstract class AbstractOp implements Op {
       }
     }
     getMessage().setComms(cnx.getSocket(), cnx.getInputStream(),
-        cnx.getOutputStream(), cnx.getCommBuffer(), cnx.getStats());
+        cnx.getOutputStream(), commBuffer, cnx.getStats());
     try {
       sendMessage(cnx);
     } finally {
@@ -425,6 +438,19 @@ public abstract class AbstractOp implements Op {
     return true;
   }
 
+  /**
+   * Subclasses for AbstractOp should override this method to return
+   * true if the operation may share a connection with other outstanding
+   * operations. Such an operation must be a read that is safe to execute
+   * twice, must answer with a single non-chunked response message and must
+   * not override {@link #attemptSend(Connection)} or
+   * {@link #attemptReadResponse(Connection)}.
+   * @return true if the operation can be sent on a {@link PipelinedConnection}
+   */
+  protected boolean isPipelinable() {
+    return false;
+  }
+
   @Override
   public boolean useThreadLocalConnection() {
     return true;
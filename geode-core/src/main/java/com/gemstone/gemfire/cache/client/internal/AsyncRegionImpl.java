@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.cache.client.internal;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.cache.client.AsyncRegion;
+import com.gemstone.gemfire.distributed.PoolCancelledException;
+import com.gemstone.gemfire.internal.i18n.LocalizedStrings;
+
+/**
+ * Runs region operations on an executor, normally the async op executor of
+ * the pool the region uses.
+ * 
+ * @see PoolImpl#getAsyncOpExecutor()
+ * @since Geode 1.0
+ */
+public class AsyncRegionImpl<K,V> implements AsyncRegion<K,V> {
+  private final Region<K,V> region;
+  private final Executor executor;
+
+  public AsyncRegionImpl(Region<K,V> region, Executor executor) {
+    this.region = region;
+    this.executor = executor;
+  }
+
+  @Override
+  public Region<K,V> getRegion() {
+    return this.region;
+  }
+
+  @Override
+  public CompletableFuture<V> getAsync(K key) {
+    return submit(() -> this.region.get(key));
+  }
+
+  @Override
+  public CompletableFuture<V> getAsync(K key, Object aCallbackArgument) {
+    return submit(() -> this.region.get(key, aCallbackArgument));
+  }
+
+  @Override
+  public CompletableFuture<V> putAsync(K key, V value) {
+    return submit(() -> this.region.put(key, value));
+  }
+
+  @Override
+  public CompletableFuture<V> putAsync(K key, V value, Object aCallbackArgument) {
+    return submit(() -> this.region.put(key, value, aCallbackArgument));
+  }
+
+  @Override
+  public CompletableFuture<Map<K,V>> getAllAsync(Collection<?> keys) {
+    return submit(() -> this.region.getAll(keys));
+  }
+
+  /**
+   * Runs the operation on the executor. If the executor rejects it, because
+   * its queue is full or because the pool was destroyed, the returned future
+   * is already completed with that failure.
+   */
+  private <T> CompletableFuture<T> submit(Supplier<T> operation) {
+    try {
+      return CompletableFuture.supplyAsync(operation, this.executor);
+    } catch (RejectedExecutionException e) {
+      CompletableFuture<T> failed = new CompletableFuture<T>();
+      if (this.executor instanceof ExecutorService
+          && ((ExecutorService)this.executor).isShutdown()) {
+        failed.completeExceptionally(new PoolCancelledException(
+            LocalizedStrings.AsyncRegionImpl_THE_POOL_USED_BY_REGION_0_IS_DESTROYED
+                .toLocalizedString(this.region.getFullPath()), e));
+      } else {
+        failed.completeExceptionally(e);
+      }
+      return failed;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "AsyncRegion[" + this.region.getFullPath() + "]";
+  }
+}
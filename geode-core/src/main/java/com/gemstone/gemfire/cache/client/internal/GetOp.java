@@ -240,5 +240,9 @@ public class GetOp {
     protected void endAttempt(ConnectionStats stats, long start) {
       stats.endGet(start, hasTimedOut(), hasFailed());
     }
+    @Override
+    protected boolean isPipelinable() {
+      return true;
+    }
   }
 }
@@ -60,6 +60,7 @@ import com.gemstone.gemfire.internal.cache.TXManagerImpl;
 import com.gemstone.gemfire.internal.cache.TXStateProxy;
 import com.gemstone.gemfire.internal.cache.execute.InternalFunctionInvocationTargetException;
 import com.gemstone.gemfire.internal.cache.tier.BatchException;
+import com.gemstone.gemfire.internal.cache.tier.sockets.Message;
 import com.gemstone.gemfire.internal.cache.tier.sockets.MessageTooLargeException;
 import com.gemstone.gemfire.internal.cache.wan.BatchException70;
 import com.gemstone.gemfire.internal.logging.LogService;
@@ -78,6 +79,16 @@ public class OpExecutorImpl implements ExecutablePool {
   
   private static final boolean TRY_SERVERS_ONCE = Boolean.getBoolean("gemfire.PoolImpl.TRY_SERVERS_ONCE");
   private static final int TX_RETRY_ATTEMPT = Integer.getInteger("gemfire.txRetryAttempt", 500);
+  /**
+   * The maximum number of pipelinable operations that may be outstanding at
+   * once on the pool's shared pipelined connection. Zero, the default,
+   * disables pipelining. Not final so tests can change it before creating
+   * a pool.
+   * @see AbstractOp#isPipelinable()
+   */
+  static int PIPELINE_DEPTH = Integer.getInteger("gemfire.PoolImpl.PIPELINE_DEPTH", 0);
+  /** Returned by executePipelined when the op still needs to be executed */
+  private static final Object NOT_PIPELINED = new Object();
   
   private final ConnectionManager connectionManager;
   private final int retryAttempts;
@@ -99,6 +110,10 @@ public class OpExecutorImpl implements ExecutablePool {
       return Boolean.FALSE;};
   };
   private boolean serverAffinityFailover = false;
+  private final Object pipelineLock = new Object();
+  private volatile PipelinedConnection pipeline;
+  /** set once a server is found that requires credentials on every message */
+  private volatile boolean pipelineDisabled = false;
   private final ThreadLocal<ServerLocation> affinityServerLocation = new ThreadLocal<ServerLocation>();
   private final ThreadLocal<Integer> affinityRetryCount = new ThreadLocal<Integer>() {
     protected Integer initialValue() {
@@ -135,6 +150,14 @@ public class OpExecutorImpl implements ExecutablePool {
       }
       return executeWithServerAffinity(loc, op);
     }
+    if (PIPELINE_DEPTH > 0 && !threadLocalConnections && !pipelineDisabled
+        && op instanceof AbstractOp && ((AbstractOp)op).isPipelinable()
+        && TXManagerImpl.getCurrentTXUniqueId() == TXManagerImpl.NOTX) {
+      Object result = executePipelined((AbstractOp)op);
+      if (result != NOT_PIPELINED) {
+        return result;
+      }
+    }
     boolean success = false;
     
     Set attemptedServers = new HashSet();
@@ -220,6 +243,124 @@ public class OpExecutorImpl implements ExecutablePool {
     }
   }
 
+  /**
+   * Executes the given op on the pool's shared pipelined connection,
+   * creating one if needed.
+   * @return the result of the op, or NOT_PIPELINED if the pipeline was
+   *         full or unavailable or failed before the op's response was read.
+   *         In that case the op must be executed on a normal connection,
+   *         which also reports any error the way a non-pipelined op would.
+   */
+  private Object executePipelined(AbstractOp op) {
+    PipelinedConnection p = getPipelinedConnection();
+    if (p == null || !p.enter()) {
+      return NOT_PIPELINED;
+    }
+    try {
+      Message response;
+      try {
+        response = p.sendAndReceive(op);
+      } catch (Exception e) {
+        if (logger.isDebugEnabled()) {
+          logger.debug("Pipelined {} on {} failed; retrying it on a pooled connection", op, p.getServer(), e);
+        }
+        return NOT_PIPELINED;
+      }
+      try {
+        return p.processResponse(op, response);
+      } catch (Exception e) {
+        // The server has already executed the op, so handle the error like
+        // the first attempt on a normal connection would. Errors it does not
+        // throw are ones the normal path retries too.
+        try {
+          handleException(op, e, p.getConnection(), 0, false, false);
+        } finally {
+          if (p.getConnection().isDestroyed()) {
+            p.fail();
+          }
+        }
+        return NOT_PIPELINED;
+      }
+    } finally {
+      p.exit();
+    }
+  }
+
+  private PipelinedConnection getPipelinedConnection() {
+    PipelinedConnection p = this.pipeline;
+    if (p != null && p.isUsable()) {
+      return p;
+    }
+    synchronized (this.pipelineLock) {
+      p = this.pipeline;
+      if (p != null && p.isUsable()) {
+        return p;
+      }
+      if (p != null) {
+        p.retire();
+        this.pipeline = null;
+      }
+      Connection conn;
+      try {
+        conn = connectionManager.borrowConnection(0);
+      } catch (ServerConnectivityException e) {
+        return null;
+      }
+      try {
+        if (conn.getServer().getRequiresCredentials()) {
+          // every response carries a new connection id so requests can not overlap
+          this.pipelineDisabled = true;
+          connectionManager.returnConnection(conn);
+          return null;
+        }
+        p = new PipelinedConnection(conn, connectionManager, PIPELINE_DEPTH);
+      } catch (SocketException e) {
+        conn.destroy();
+        connectionManager.returnConnection(conn);
+        return null;
+      }
+      this.pipeline = p;
+      return p;
+    }
+  }
+
+  /**
+   * Retires the shared pipelined connection if it has outlived the pool's
+   * connection lifetime or idle timeout, the way the connection manager
+   * expires pooled connections. The next pipelinable op borrows a new one.
+   */
+  public void expirePipelinedConnection(long lifetime, long idleTimeout) {
+    synchronized (this.pipelineLock) {
+      PipelinedConnection p = this.pipeline;
+      if (p != null && p.isExpired(System.currentTimeMillis(), lifetime, idleTimeout)) {
+        this.pipeline = null;
+        p.retire();
+      }
+    }
+  }
+
+  /**
+   * test hook
+   * @return true if pipelinable operations currently share a connection
+   */
+  boolean hasPipelinedConnection() {
+    return this.pipeline != null;
+  }
+
+  /**
+   * Gives the shared pipelined connection, if any, back to the pool once
+   * its outstanding operations have completed.
+   */
+  public void releasePipelinedConnection() {
+    synchronized (this.pipelineLock) {
+      PipelinedConnection p = this.pipeline;
+      this.pipeline = null;
+      if (p != null) {
+        p.retire();
+      }
+    }
+  }
+
   /**
    * execute the given op on the given server. If the server cannot
    * be reached, sends a TXFailoverOp, then retries the given op
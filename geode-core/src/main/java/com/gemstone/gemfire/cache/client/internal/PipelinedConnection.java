@@ -0,0 +1,254 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.cache.client.internal;
+
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+
+import com.gemstone.gemfire.cache.client.ServerConnectivityException;
+import com.gemstone.gemfire.cache.client.internal.pooling.ConnectionManager;
+import com.gemstone.gemfire.distributed.internal.ServerLocation;
+import com.gemstone.gemfire.internal.cache.tier.sockets.Message;
+import com.gemstone.gemfire.internal.cache.tier.sockets.ServerConnection;
+
+/**
+ * Lets several threads have pipelinable operations outstanding on one
+ * pooled connection at the same time. Requests are written back to back
+ * under a send lock and every request that was written gets a ticket. A
+ * server reads the requests on a connection one at a time and answers them
+ * in that order, so the response to ticket n is the n-th message read from
+ * the socket. Readers wait for their turn, read their response into a buffer
+ * reserved for receiving and process it after letting the next reader in.
+ * <p>
+ * Any failure while writing or reading fails the whole pipeline. Waiting
+ * operations are woken up with an exception and the connection is destroyed
+ * once the last outstanding operation has left. An operation whose
+ * response was never read can be retried on a normal pooled connection; one
+ * whose response fails to process has already run on the server and must
+ * not be.
+ * 
+ * @see AbstractOp#isPipelinable()
+ */
+class PipelinedConnection {
+  private final Connection conn;
+  private final ConnectionManager connectionManager;
+  private final int maxDepth;
+  private final ByteBuffer receiveBuffer;
+
+  private final Object sendLock = new Object();
+  private final Object receiveLock = new Object();
+  /** guarded by sendLock */
+  private long nextSendTicket;
+  /** guarded by receiveLock */
+  private long nextReceiveTicket;
+
+  private final long createTime = System.currentTimeMillis();
+  private volatile long lastAccessTime = this.createTime;
+
+  /** number of operations that have entered and not yet exited */
+  private int inFlight;
+  private volatile boolean failed;
+  private boolean released;
+
+  /**
+   * @param conn a connection borrowed from connectionManager. It is returned
+   *          (destroyed) once the pipeline fails and has drained.
+   * @param maxDepth the maximum number of operations outstanding at once
+   */
+  PipelinedConnection(Connection conn, ConnectionManager connectionManager,
+      int maxDepth) throws SocketException {
+    this.conn = conn;
+    this.connectionManager = connectionManager;
+    this.maxDepth = maxDepth;
+    this.receiveBuffer = ServerConnection.allocateCommBuffer(
+        conn.getCommBuffer().capacity(), conn.getSocket());
+  }
+
+  /**
+   * Returns true if new operations can still be sent on this pipeline.
+   */
+  boolean isUsable() {
+    return !this.failed && !this.conn.isDestroyed();
+  }
+
+  ServerLocation getServer() {
+    return this.conn.getServer();
+  }
+
+  Connection getConnection() {
+    return this.conn;
+  }
+
+  /**
+   * Returns true if this pipeline has outlived the pool's connection
+   * lifetime or has been idle for longer than its idle timeout. A negative
+   * lifetime or idle timeout never expires.
+   */
+  synchronized boolean isExpired(long now, long lifetime, long idleTimeout) {
+    if (lifetime > 0 && now - this.createTime >= lifetime) {
+      return true;
+    }
+    return idleTimeout > 0 && this.inFlight == 0
+        && now - this.lastAccessTime >= idleTimeout;
+  }
+
+  /**
+   * Reserves a slot for an operation. Every successful call must be followed
+   * by a call to {@link #exit()}.
+   * @return false if the pipeline is full or no longer usable
+   */
+  synchronized boolean enter() {
+    if (!isUsable() || this.inFlight >= this.maxDepth) {
+      return false;
+    }
+    this.inFlight++;
+    this.lastAccessTime = System.currentTimeMillis();
+    return true;
+  }
+
+  /**
+   * Releases the slot reserved by {@link #enter()}. The last operation to
+   * leave a failed pipeline destroys its connection.
+   */
+  void exit() {
+    synchronized (this) {
+      this.inFlight--;
+      if (this.inFlight > 0 || !this.failed || this.released) {
+        return;
+      }
+      this.released = true;
+    }
+    this.conn.destroy();
+    this.connectionManager.returnConnection(this.conn);
+    ServerConnection.releaseCommBuffer(this.receiveBuffer);
+  }
+
+  /**
+   * Stops new operations from using this pipeline. Its connection is
+   * destroyed as soon as the outstanding operations have left.
+   */
+  void retire() {
+    this.failed = true;
+    synchronized (this) {
+      this.inFlight++;
+    }
+    wakeReceivers();
+    exit();
+  }
+
+  /**
+   * Sends op on this pipeline and waits for its response. Must be called
+   * between {@link #enter()} and {@link #exit()}.
+   * @throws Exception if the pipeline failed before op's response was read
+   */
+  Message sendAndReceive(AbstractOp op) throws Exception {
+    final ConnectionStats stats = this.conn.getStats();
+    Message response;
+    op.failed = true;
+    op.timedOut = false;
+    long start = op.startAttempt(stats);
+    try {
+      long ticket;
+      try {
+        synchronized (this.sendLock) {
+          checkFailed();
+          op.attemptSend(this.conn, this.conn.getCommBuffer());
+          ticket = this.nextSendTicket++;
+        }
+        op.failed = false;
+      } finally {
+        op.endSendAttempt(stats, start);
+      }
+      op.failed = true;
+      response = receive(op, ticket);
+      op.failed = false;
+    } catch (SocketTimeoutException ste) {
+      op.failed = false;
+      op.timedOut = true;
+      fail();
+      throw ste;
+    } catch (Exception e) {
+      fail();
+      throw e;
+    } finally {
+      op.endAttempt(stats, start);
+    }
+    return response;
+  }
+
+  /**
+   * Processes a response returned by {@link #sendAndReceive(AbstractOp)}.
+   * This is done outside the pipeline's locks so the next reader can
+   * already read its response.
+   */
+  Object processResponse(AbstractOp op, Message response) throws Exception {
+    return op.processResponse(response, this.conn);
+  }
+
+  /**
+   * Waits until every response ahead of ticket has been read and then reads
+   * the response for ticket.
+   */
+  private Message receive(AbstractOp op, long ticket) throws Exception {
+    synchronized (this.receiveLock) {
+      try {
+        while (this.nextReceiveTicket != ticket) {
+          checkFailed();
+          this.receiveLock.wait();
+        }
+        checkFailed();
+        Message msg = op.createResponseMessage();
+        msg.setComms(this.conn.getSocket(), this.conn.getInputStream(),
+            this.conn.getOutputStream(), this.receiveBuffer, this.conn.getStats());
+        try {
+          msg.recv();
+        } finally {
+          msg.unsetComms();
+        }
+        return msg;
+      } finally {
+        if (this.nextReceiveTicket == ticket) {
+          this.nextReceiveTicket++;
+          this.receiveLock.notifyAll();
+        }
+      }
+    }
+  }
+
+  private void checkFailed() {
+    if (this.failed) {
+      throw new ServerConnectivityException(
+          "Pipelined connection to " + this.conn.getServer() + " failed");
+    }
+  }
+
+  /**
+   * Fails the pipeline so that waiting operations give up and its
+   * connection is destroyed once they have left.
+   */
+  void fail() {
+    this.failed = true;
+    wakeReceivers();
+  }
+
+  private void wakeReceivers() {
+    synchronized (this.receiveLock) {
+      this.receiveLock.notifyAll();
+    }
+  }
+}
@@ -26,8 +26,11 @@ import java.util.Map.Entry;
 import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -86,6 +89,17 @@ public class PoolImpl implements InternalPool {
   public static final long SHUTDOWN_TIMEOUT = Long.getLong("gemfire.PoolImpl.SHUTDOWN_TIMEOUT", 30000).longValue();
   public static final int BACKGROUND_TASK_POOL_SIZE = Integer.getInteger("gemfire.PoolImpl.BACKGROUND_TASK_POOL_SIZE", 20).intValue();
   public static final int BACKGROUND_TASK_POOL_KEEP_ALIVE = Integer.getInteger("gemfire.PoolImpl.BACKGROUND_TASK_POOL_KEEP_ALIVE", 1000).intValue();
+  /**
+   * The number of threads that run the operations of {@link com.gemstone.gemfire.cache.client.AsyncRegion}s
+   * using this pool.
+   */
+  public static final int ASYNC_OP_POOL_SIZE = Integer.getInteger("gemfire.PoolImpl.ASYNC_OP_POOL_SIZE", 16).intValue();
+  /**
+   * The number of {@link com.gemstone.gemfire.cache.client.AsyncRegion}
+   * operations that may wait for a thread. Once it is reached further
+   * operations fail with a {@link java.util.concurrent.RejectedExecutionException}.
+   */
+  public static final int ASYNC_OP_QUEUE_SIZE = Integer.getInteger("gemfire.PoolImpl.ASYNC_OP_QUEUE_SIZE", 1000).intValue();
   //For durable client tests only. Connection Sources read this flag
   //and return an empty list of servers.
   public volatile static boolean TEST_DURABLE_IS_NET_DOWN = false;
@@ -123,6 +137,7 @@ public class PoolImpl implements InternalPool {
   protected volatile boolean destroyed;
   private final PoolStats stats;
   private ScheduledExecutorService backgroundProcessor; 
+  private ExecutorService asyncOpExecutor;
   private final OpExecutorImpl executor;
   private final RegisterInterestTracker riTracker = new RegisterInterestTracker();
   private final InternalDistributedSystem dsys; 
@@ -341,6 +356,11 @@ public class PoolImpl implements InternalPool {
     if (this.statisticInterval > 0 && this.dsys.getConfig().getStatisticSamplingEnabled()) {
       backgroundProcessor.scheduleWithFixedDelay(new PublishClientStatsTask(), statisticInterval, statisticInterval, TimeUnit.MILLISECONDS);
     }
+    long pipelineCheckInterval = getPipelineExpirationCheckInterval();
+    if (pipelineCheckInterval > 0) {
+      backgroundProcessor.scheduleWithFixedDelay(new ExpirePipelinedConnectionTask(),
+          pipelineCheckInterval, pipelineCheckInterval, TimeUnit.MILLISECONDS);
+    }
     // LOG: changed from config to info
     logger.info(LocalizedMessage.create(
             LocalizedStrings.PoolImpl_POOL_0_STARTED_WITH_MULTIUSER_SECURE_MODE_ENABLED_1,
@@ -528,6 +548,11 @@ public class PoolImpl implements InternalPool {
       // LOG: changed from config to info
       logger.info(LocalizedMessage.create(LocalizedStrings.PoolImpl_DESTROYING_CONNECTION_POOL_0, name));
 
+      if (this.asyncOpExecutor != null) {
+        // queued operations still run and fail because the pool is destroyed
+        this.asyncOpExecutor.shutdown();
+      }
+
       try {
         if (backgroundProcessor != null) {
           backgroundProcessor.shutdown();
@@ -557,6 +582,8 @@ public class PoolImpl implements InternalPool {
         logger.error(LocalizedMessage.create(LocalizedStrings.PoolImpl_ERROR_ENCOUNTERED_WHILE_STOPPING_SUBSCRIPTION_MANAGER), e);
       }
       
+      executor.releasePipelinedConnection();
+
       try {
         if(this.manager != null) {
           manager.close(keepAlive);
@@ -799,6 +826,34 @@ public class PoolImpl implements InternalPool {
   public ScheduledExecutorService getBackgroundProcessor() {
     return backgroundProcessor;
   }
+
+  /**
+   * Returns the executor that runs {@link com.gemstone.gemfire.cache.client.AsyncRegion}
+   * operations for regions using this pool. It is created on first use and
+   * shut down when the pool is destroyed. Its queue holds at most
+   * {@link #ASYNC_OP_QUEUE_SIZE} operations and it rejects any more.
+   */
+  public synchronized ExecutorService getAsyncOpExecutor() {
+    if (this.destroyed) {
+      throw new PoolCancelledException("Pool " + getName() + " is destroyed");
+    }
+    if (this.asyncOpExecutor == null) {
+      final String threadName = "asyncOp-" + getName() + "-";
+      ThreadPoolExecutor tpe = new ThreadPoolExecutor(ASYNC_OP_POOL_SIZE,
+          ASYNC_OP_POOL_SIZE, BACKGROUND_TASK_POOL_KEEP_ALIVE, TimeUnit.MILLISECONDS,
+          new LinkedBlockingQueue<Runnable>(ASYNC_OP_QUEUE_SIZE), new ThreadFactory() {
+        AtomicInteger threadNum = new AtomicInteger();
+        public Thread newThread(final Runnable r) {
+          Thread result = new Thread(r, threadName + threadNum.incrementAndGet());
+          result.setDaemon(true);
+          return result;
+        }
+      });
+      tpe.allowCoreThreadTimeOut(true);
+      this.asyncOpExecutor = tpe;
+    }
+    return this.asyncOpExecutor;
+  }
   
   public RegisterInterestTracker getRITracker() {
     return this.riTracker;
@@ -1050,6 +1105,13 @@ public class PoolImpl implements InternalPool {
   public int getConnectionCount() {
     return manager.getConnectionCount();
   }
+
+  /**
+   * Test hook to find out whether gets currently share a pipelined connection.
+   */
+  public boolean hasPipelinedConnection() {
+    return executor.hasPipelinedConnection();
+  }
   
   /**
    * Atomic counter used to keep track of services using this pool.
@@ -1279,6 +1341,32 @@ public class PoolImpl implements InternalPool {
   
   ///////////////////// end test hooks ///////////////////////
 
+  /**
+   * @return how often to check whether the pipelined connection has
+   *         outlived the load conditioning interval or idle timeout, or 0 if
+   *         pipelining is off or neither applies
+   */
+  private long getPipelineExpirationCheckInterval() {
+    if (OpExecutorImpl.PIPELINE_DEPTH <= 0) {
+      return 0;
+    }
+    long interval = 0;
+    if (getLoadConditioningInterval() > 0) {
+      interval = getLoadConditioningInterval();
+    }
+    if (getIdleTimeout() > 0 && (interval == 0 || getIdleTimeout() < interval)) {
+      interval = getIdleTimeout();
+    }
+    return interval;
+  }
+
+  protected class ExpirePipelinedConnectionTask extends PoolTask {
+    @Override
+    public void run2() {
+      executor.expirePipelinedConnection(getLoadConditioningInterval(), getIdleTimeout());
+    }
+  }
+
   protected class PublishClientStatsTask extends PoolTask {
     @Override
     public void run2() {
@@ -17,11 +17,14 @@
 
 package com.gemstone.gemfire.cache.query.internal;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.AccessibleObject;
 import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Member;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
@@ -30,11 +33,13 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
+import com.gemstone.gemfire.SystemFailure;
 import com.gemstone.gemfire.cache.EntryDestroyedException;
 import com.gemstone.gemfire.cache.query.NameNotFoundException;
 import com.gemstone.gemfire.cache.query.QueryInvocationTargetException;
 import com.gemstone.gemfire.cache.query.QueryService;
 import com.gemstone.gemfire.cache.query.types.ObjectType;
+import com.gemstone.gemfire.internal.cache.Token;
 import com.gemstone.gemfire.internal.i18n.LocalizedStrings;
 import com.gemstone.gemfire.pdx.PdxInstance;
 import com.gemstone.gemfire.pdx.PdxSerializationException;
@@ -51,14 +56,41 @@ import com.gemstone.gemfire.pdx.JSONFormatter;
 
 public class AttributeDescriptor {
   private final String _name;
-  /** cache for remembering the correct Member for a class and attribute */
+  /** cache for remembering the correct Accessor for a class and attribute */
   private static final ConcurrentMap _cache = new ConcurrentHashMap();
+
+  /** every accessor handle is adapted to (Object)Object so it can be invoked exactly */
+  private static final MethodType READ_TYPE = MethodType.methodType(Object.class, Object.class);
+
+  /**
+   * The accessor used for the last class read through this descriptor. A
+   * path evaluated over a region of one domain class then skips the cache
+   * lookup for every entry.
+   */
+  private volatile Accessor _lastAccessor;
   
   
   
   public AttributeDescriptor(String name) {
     _name = name;
   }
+
+  /**
+   * The field or method an attribute maps to in a class, with a method
+   * handle for it so reads skip the argument array and access checks of
+   * reflective invocation.
+   */
+  private static final class Accessor {
+    final Class targetClass;
+    final Member member;
+    final MethodHandle handle;
+
+    Accessor(Class targetClass, Member member, MethodHandle handle) {
+      this.targetClass = targetClass;
+      this.member = member;
+      this.handle = handle;
+    }
+  }
   
   
   
@@ -90,53 +122,32 @@ public class AttributeDescriptor {
   throws NameNotFoundException, QueryInvocationTargetException {
     Support.Assert(target != null);
     Support.Assert(target != QueryService.UNDEFINED);
-    Member m;
-    if (target.getClass().getName().startsWith("com.gemstone.gemfire.internal.cache.Token$")) {
+    if (target instanceof Token) {
       return QueryService.UNDEFINED;
-    } else {
-      m = getReadMember(resolutionClass);
+    }
+    Accessor accessor = _lastAccessor;
+    if (accessor == null || accessor.targetClass != resolutionClass) {
+      accessor = getReadAccessor(resolutionClass);
+      _lastAccessor = accessor;
     }
     try {
-      if (m instanceof Method) {
-        try {
-          if (target.getClass().getName().startsWith("com.gemstone.gemfire.internal.cache.Token$")) {
-            return QueryService.UNDEFINED;
-          } else {            
-            return ((Method)m).invoke(target, (Object[])null);
-          }
-        } catch (EntryDestroyedException e) {
-          //eat the Exception
-          return QueryService.UNDEFINED;
-        } catch (IllegalAccessException e) {
-          throw new NameNotFoundException(LocalizedStrings.AttributeDescriptor_METHOD_0_IN_CLASS_1_IS_NOT_ACCESSIBLE_TO_THE_QUERY_PROCESSOR.toLocalizedString(new Object[] {m.getName(), target.getClass().getName()}), e);
-        } catch (InvocationTargetException e) {
-          // if the target exception is Exception, wrap that,
-          // otherwise wrap the InvocationTargetException itself
-          Throwable t = e.getTargetException();
-          if ((t instanceof EntryDestroyedException)) {
-             //eat the exception
-             return QueryService.UNDEFINED;
-          }
-          if (t instanceof Exception)
-            throw new QueryInvocationTargetException(t);
-          throw new QueryInvocationTargetException(e);
-        }
-      } else {
-        try {
-          if (target.getClass().getName().startsWith("com.gemstone.gemfire.internal.cache.Token$")) {
-            return QueryService.UNDEFINED;
-          } else {
-            return ((Field)m).get(target);
-          }  
-        } catch (IllegalAccessException e) {
-          throw new NameNotFoundException(LocalizedStrings.AttributeDescriptor_FIELD_0_IN_CLASS_1_IS_NOT_ACCESSIBLE_TO_THE_QUERY_PROCESSOR.toLocalizedString(new Object[] {m.getName(), target.getClass().getName()}), e);
-        } catch (EntryDestroyedException e) {
-          return QueryService.UNDEFINED;
-        }
-      }
+      return (Object)accessor.handle.invokeExact(target);
     } catch (EntryDestroyedException e) {
       // eat the exception
       return QueryService.UNDEFINED;
+    } catch (VirtualMachineError err) {
+      SystemFailure.initiateFailure(err);
+      // If this ever returns, rethrow the error.  We're poisoned
+      // now, so don't let this thread continue.
+      throw err;
+    } catch (Error err) {
+      // Whenever you catch Error or Throwable, you must also
+      // check to see if the JVM is still usable
+      SystemFailure.checkFailure();
+      throw err;
+    } catch (Throwable t) {
+      // only exceptions thrown by the getter are wrapped
+      throw new QueryInvocationTargetException(t);
     }
   }
   
@@ -191,6 +202,11 @@ public class AttributeDescriptor {
   }
   
   Member getReadMember(Class targetClass)
+  throws NameNotFoundException {
+    return getReadAccessor(targetClass).member;
+  }
+
+  private Accessor getReadAccessor(Class targetClass)
   throws NameNotFoundException {
     // mapping: public field (same name), method (getAttribute()),
     // method (attribute())    
@@ -198,20 +214,42 @@ public class AttributeDescriptor {
     key.add(targetClass);
     key.add(_name);
     
-    Member m = (Member)_cache.get(key);
-    if (m != null)
-      return m;
+    Accessor accessor = (Accessor)_cache.get(key);
+    if (accessor != null)
+      return accessor;
     
-    m = getReadField(targetClass);
+    Member m = getReadField(targetClass);
     if (m == null)
       m = getReadMethod(targetClass);
-    if (m != null)
-      _cache.putIfAbsent(key, m);
-    else
+    if (m == null)
       throw new NameNotFoundException(LocalizedStrings.AttributeDescriptor_NO_PUBLIC_ATTRIBUTE_NAMED_0_WAS_FOUND_IN_CLASS_1.toLocalizedString(new Object[] {_name, targetClass.getName()}));
     // override security for nonpublic derived classes with public members
     ((AccessibleObject)m).setAccessible(true);
-    return m;
+    accessor = new Accessor(targetClass, m, getReadHandle(m, targetClass));
+    Accessor existing = (Accessor)_cache.putIfAbsent(key, accessor);
+    return existing != null ? existing : accessor;
+  }
+
+  private static MethodHandle getReadHandle(Member m, Class targetClass)
+  throws NameNotFoundException {
+    MethodHandle handle;
+    try {
+      if (m instanceof Method) {
+        handle = MethodHandles.lookup().unreflect((Method)m);
+      } else {
+        handle = MethodHandles.lookup().unreflectGetter((Field)m);
+      }
+    } catch (IllegalAccessException e) {
+      if (m instanceof Method) {
+        throw new NameNotFoundException(LocalizedStrings.AttributeDescriptor_METHOD_0_IN_CLASS_1_IS_NOT_ACCESSIBLE_TO_THE_QUERY_PROCESSOR.toLocalizedString(new Object[] {m.getName(), targetClass.getName()}), e);
+      }
+      throw new NameNotFoundException(LocalizedStrings.AttributeDescriptor_FIELD_0_IN_CLASS_1_IS_NOT_ACCESSIBLE_TO_THE_QUERY_PROCESSOR.toLocalizedString(new Object[] {m.getName(), targetClass.getName()}), e);
+    }
+    if (Modifier.isStatic(m.getModifiers())) {
+      // static members ignore the target, as Method.invoke and Field.get do
+      handle = MethodHandles.dropArguments(handle, 0, Object.class);
+    }
+    return handle.asType(READ_TYPE);
   }
   
   
@@ -49,6 +49,14 @@ import com.gemstone.gemfire.pdx.internal.PdxString;
 public class CompiledComparison extends AbstractCompiledValue implements
     Negatable, OQLLexerTokenTypes, Indexable {
 
+  /**
+   * A filter preferred for its operator (e.g. an equality over a range) is
+   * still given up for another filter whose index size estimate is at least
+   * this many times smaller. Zero or less restores the pure operator rules.
+   * Not final so that tests can compare both behaviors.
+   */
+  public static int FILTER_SELECTIVITY_RATIO = Integer.getInteger("gemfire.Query.FILTER_SELECTIVITY_RATIO", 10).intValue();
+
   // persistent inst vars
   public final CompiledValue _left;
   public final CompiledValue _right;
@@ -841,6 +849,8 @@ public class CompiledComparison extends AbstractCompiledValue implements
         case TOK_GE:
         case TOK_GT:
           //Give preference to this rather than that as this is more deterministic
+          //unless the index estimates show that to be far more selective
+          isThisBetter = isBetterBySize(true, thisSize, thatSize);
           break;
         default :
             throw  new IllegalArgumentException("The operator type ="+ thatOperator + " is unknown");
@@ -851,6 +861,8 @@ public class CompiledComparison extends AbstractCompiledValue implements
         case TOK_EQ:
         case TOK_NE:
         case TOK_NE_ALT:      
+          isThisBetter = isBetterBySize(false, thisSize, thatSize);
+          break;
         case LITERAL_and:       
           //Asif: Give preference to range as I am assuming that raneg will fetch less data 
           // as compared to NOT EQUALs
@@ -869,6 +881,22 @@ public class CompiledComparison extends AbstractCompiledValue implements
     }  
     return isThisBetter;
   }  
+
+  /**
+   * Applies {@link #FILTER_SELECTIVITY_RATIO} to an operator based choice
+   * between two filters whose sizes both come from index estimates.
+   * @param preferThis the choice the operators alone would make
+   * @return true if this filter should be used
+   */
+  static boolean isBetterBySize(boolean preferThis, int thisSize, int thatSize) {
+    if (FILTER_SELECTIVITY_RATIO <= 0) {
+      return preferThis;
+    }
+    if (preferThis) {
+      return (long) thatSize * FILTER_SELECTIVITY_RATIO >= thisSize;
+    }
+    return (long) thisSize * FILTER_SELECTIVITY_RATIO < thatSize;
+  }
   
 }
 
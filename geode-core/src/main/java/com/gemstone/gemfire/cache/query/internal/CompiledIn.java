@@ -824,6 +824,8 @@ public class CompiledIn extends AbstractCompiledValue implements Indexable {
         case TOK_GE:
         case TOK_GT:
           //Give preference to this rather than that as this is more deterministic
+          //unless the index estimates show that to be far more selective
+          isThisBetter = CompiledComparison.isBetterBySize(true, thisSize, thatSize);
           break;
         default :
             throw  new IllegalArgumentException("The operator type ="+ thatOperator + " is unknown");
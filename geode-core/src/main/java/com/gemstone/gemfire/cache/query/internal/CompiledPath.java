@@ -36,10 +36,13 @@ import com.gemstone.gemfire.internal.cache.PartitionedRegion;
 public class CompiledPath extends AbstractCompiledValue {
   private CompiledValue _receiver;  // the value represented by the expression before the dot
   private String _tailID;           // the identifier after the dot.
+  // reused across evaluations so the accessor for _tailID is resolved once per class
+  private final AttributeDescriptor _tailDescriptor;
   
   public CompiledPath(CompiledValue rcvr, String id) {
     _receiver = rcvr;
     _tailID = id;
+    _tailDescriptor = new AttributeDescriptor(id);
   }
   
   @Override
@@ -139,7 +142,7 @@ public class CompiledPath extends AbstractCompiledValue {
     //                                                getTailID());
     //         }
     
-    Object obj =  PathUtils.evaluateAttribute(evalRcvr, getTailID());
+    Object obj =  PathUtils.evaluateAttribute(evalRcvr, getTailID(), _tailDescriptor);
     // check for BucketRegion substitution
     PartitionedRegion pr = context.getPartitionedRegion();
     if (pr != null && (obj instanceof Region)) {
@@ -22,6 +22,8 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 
+import org.apache.logging.log4j.Logger;
+
 import com.gemstone.gemfire.cache.Cache;
 import com.gemstone.gemfire.cache.CacheClosedException;
 import com.gemstone.gemfire.cache.EntryDestroyedException;
@@ -48,6 +50,7 @@ import com.gemstone.gemfire.cache.query.types.CollectionType;
 import com.gemstone.gemfire.cache.query.types.ObjectType;
 import com.gemstone.gemfire.cache.query.types.StructType;
 import com.gemstone.gemfire.internal.i18n.LocalizedStrings;
+import com.gemstone.gemfire.internal.logging.LogService;
 import com.gemstone.gemfire.pdx.PdxInstance;
 import com.gemstone.gemfire.pdx.internal.PdxString;
 
@@ -57,6 +60,7 @@ import com.gemstone.gemfire.pdx.internal.PdxString;
  * @version $Revision: 1.2 $
  */
 public class CompiledSelect extends AbstractCompiledValue {
+  private static final Logger logger = LogService.getLogger();
   
   protected List<CompiledSortCriterion> orderByAttrs; //order by attributes: list of CompiledValue
   private CompiledValue whereClause; // can be null if there isn't one
@@ -952,6 +956,37 @@ public class CompiledSelect extends AbstractCompiledValue {
     }
   }
 
+  /**
+   * Bounds a sorting result bag to the LIMIT of the query so that an
+   * ORDER BY ... LIMIT evaluation, e.g. on one bucket of a partitioned region,
+   * keeps at most LIMIT rows while scanning instead of sorting every match.
+   */
+  private void pushDownTopN(SortedResultsBag results, ExecutionContext context)
+      throws TypeMismatchException {
+    if (this.hasUnmappedOrderByCols || getType() == GROUP_BY_SELECT) {
+      // unmapped sort values are cached per row; groups need every row
+      return;
+    }
+    int limitValue;
+    try {
+      limitValue = evaluateLimitValue(context, this.limit);
+    } catch (FunctionDomainException | NameResolutionException
+        | QueryInvocationTargetException e) {
+      // leave the limit to be applied to the complete results, as before
+      return;
+    }
+    if (limitValue < 0) {
+      return;
+    }
+    results.setTopN(limitValue);
+    DefaultQuery query = (DefaultQuery) context.getQuery();
+    if (query != null && query.isTraced()) {
+      logger.info("Query \"{}\" keeps the top {} ordered rows while scanning{}",
+          query.getQueryString(), limitValue,
+          context.getBucketList() != null ? " buckets " + context.getBucketList() : "");
+    }
+  }
+
   private SelectResults prepareEmptyResultSet(ExecutionContext context, boolean ignoreOrderBy)
       throws TypeMismatchException, AmbiguousNameException
  {
@@ -1002,6 +1037,9 @@ public class CompiledSelect extends AbstractCompiledValue {
           }
           results.setElementType(elementType);
         }
+        if (!ignoreOrderBy && results instanceof SortedResultsBag) {
+          pushDownTopN((SortedResultsBag) results, context);
+        }
       } else {
         if (this.distinct) {
           if (elementType.isStructType()) {
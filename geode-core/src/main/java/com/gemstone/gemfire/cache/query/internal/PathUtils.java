@@ -60,6 +60,18 @@ public class PathUtils {
   }
   
   public static Object evaluateAttribute(Object target, String attribute)
+  throws NameNotFoundException, QueryInvocationTargetException {
+    return evaluateAttribute(target, attribute, null);
+  }
+
+  /**
+   * Evaluates the attribute reusing the given descriptor, which remembers the
+   * accessor resolved for the last target class. Callers that evaluate the
+   * same path for every entry should keep one descriptor per path.
+   * @param attributeDescriptor the descriptor for attribute; if null a new
+   * one is created
+   */
+  public static Object evaluateAttribute(Object target, String attribute, AttributeDescriptor attributeDescriptor)
   throws NameNotFoundException, QueryInvocationTargetException {
     if(target instanceof Struct){
       Struct struct = (Struct)target;
@@ -69,8 +81,11 @@ public class PathUtils {
         throw new NameNotFoundException(attribute);
       }
     }
+    if (attributeDescriptor == null) {
+      attributeDescriptor = new AttributeDescriptor(attribute);
+    }
     try {
-      return new AttributeDescriptor(attribute).read(target);
+      return attributeDescriptor.read(target);
     } catch (NameNotFoundException nfe) {
       if (DefaultQueryService.QUERY_HETEROGENEOUS_OBJECTS ||
           DefaultQueryService.TEST_QUERY_HETEROGENEOUS_OBJECTS) {
@@ -80,26 +95,6 @@ public class PathUtils {
       }
     }
   }
-
-  /*
-   * This was added as part of CQ performance changes.
-   * The change is done to re-use the AttributeDescriptor object instead of creating
-   * it each time. 
-   */
-  /*
-  public static Object evaluateAttribute(Object target, String attribute, AttributeDescriptor attributeDescriptor)
-  throws NameNotFoundException, QueryInvocationTargetException {
-    if(target instanceof Struct){
-      Struct struct = (Struct)target;
-      try{
-        return struct.get(attribute);
-      }catch(Exception e){
-        throw new NameNotFoundException(attribute);
-      }
-    }
-    return attributeDescriptor.read(target);
-  }
-  */
   
   /**
    * @param pathArray the path starting with an attribute on
@@ -43,6 +43,11 @@ public class SortedResultsBag<E> extends Bag implements Ordered {
   private final Map<E, Integer> sortedMap;
   private final boolean orderedDataAddition;
   private final boolean emitNullAtStart; 
+  /**
+   * If not -1, the maximum number of elements kept; elements that sort after
+   * the first topN are dropped as soon as they are added.
+   */
+  private int topN = -1;
 
   /**
    * Constructor for unordered input
@@ -147,6 +152,61 @@ public class SortedResultsBag<E> extends Bag implements Ordered {
     this.emitNullAtStart = nullAtStart;
   }
 
+  /**
+   * Bounds this bag to the first <code>n</code> elements in sort order so that
+   * an ORDER BY ... LIMIT n evaluation does not hold every matching row.
+   * Only supported for unordered input, i.e. when this bag does the sorting.
+   */
+  void setTopN(int n) {
+    if (this.orderedDataAddition) {
+      throw new IllegalStateException("top-N requires a sorting bag");
+    }
+    this.topN = n;
+    trimToTopN();
+  }
+
+  int getTopN() {
+    return this.topN;
+  }
+
+  @Override
+  public boolean add(Object element) {
+    boolean added = super.add(element);
+    trimToTopN();
+    return added;
+  }
+
+  @Override
+  public int addAndGetOccurence(Object element) {
+    int occurence = super.addAndGetOccurence(element);
+    trimToTopN();
+    return occurence;
+  }
+
+  /**
+   * Drops elements from the end of the sort order until at most topN remain.
+   * Nulls sort first when emitted at the start and last otherwise.
+   */
+  private void trimToTopN() {
+    if (this.topN < 0) {
+      return;
+    }
+    while (this.size > this.topN) {
+      if (this.numNulls > 0 && (!this.emitNullAtStart || this.sortedMap.isEmpty())) {
+        this.numNulls--;
+      } else {
+        E last = ((TreeMap<E, Integer>) this.sortedMap).lastKey();
+        int count = this.sortedMap.get(last);
+        if (count > 1) {
+          this.sortedMap.put(last, count - 1);
+        } else {
+          this.sortedMap.remove(last);
+        }
+      }
+      this.size--;
+    }
+  }
+
   @Override
   public boolean isModifiable() {
     return false;
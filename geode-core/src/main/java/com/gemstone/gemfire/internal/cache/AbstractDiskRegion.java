@@ -43,7 +43,7 @@ import com.gemstone.gemfire.internal.cache.versions.VersionTag;
 import com.gemstone.gemfire.internal.i18n.LocalizedStrings;
 import com.gemstone.gemfire.internal.logging.LogService;
 import com.gemstone.gemfire.internal.logging.log4j.LogMarker;
-import com.gemstone.gemfire.internal.util.concurrent.CustomEntryConcurrentHashMap;
+import com.gemstone.gemfire.internal.util.concurrent.ConcurrentMapWithReusableEntries;
 import joptsimple.internal.Strings;
 
 /**
@@ -536,7 +536,7 @@ public abstract class AbstractDiskRegion implements DiskRegionView {
       ds.updateDiskRegion(this);
       this.entriesMapIncompatible = false;
       if (this.entries != null) {
-        CustomEntryConcurrentHashMap<Object, Object> other = ((AbstractRegionMap)this.entries)._getMap();
+        ConcurrentMapWithReusableEntries<Object, Object> other = ((AbstractRegionMap)this.entries)._getMap();
         Iterator<Map.Entry<Object, Object>> it = other
             .entrySetWithReusableEntries().iterator();
         while (it.hasNext()) {
@@ -38,6 +38,7 @@ import com.gemstone.gemfire.internal.cache.lru.LRUStatistics;
 import com.gemstone.gemfire.internal.cache.lru.MemLRUCapacityController;
 import com.gemstone.gemfire.internal.cache.lru.NewLIFOClockHand;
 import com.gemstone.gemfire.internal.cache.lru.NewLRUClockHand;
+import com.gemstone.gemfire.internal.cache.lru.NewSampledLRUClockHand;
 import com.gemstone.gemfire.internal.cache.versions.RegionVersionVector;
 import com.gemstone.gemfire.internal.cache.versions.VersionSource;
 import com.gemstone.gemfire.internal.i18n.LocalizedStrings;
@@ -46,6 +47,7 @@ import com.gemstone.gemfire.internal.logging.log4j.LocalizedMessage;
 import com.gemstone.gemfire.internal.logging.log4j.LogMarker;
 import com.gemstone.gemfire.internal.offheap.StoredObject;
 import com.gemstone.gemfire.internal.size.ReflectionSingleObjectSizer;
+import com.gemstone.gemfire.internal.util.concurrent.CustomEntryConcurrentHashMap;
 
 /**
  * Abstract implementation of {@link RegionMap} that adds LRU behaviour.
@@ -68,6 +70,7 @@ public abstract class AbstractLRURegionMap extends AbstractRegionMap {
     super(internalRegionArgs);
   }
 
+  @SuppressWarnings("unchecked")
   protected void initialize(Object owner,
                             Attributes attr,
                             InternalRegionArguments internalRegionArgs) {
@@ -103,6 +106,12 @@ public abstract class AbstractLRURegionMap extends AbstractRegionMap {
     if (ea == EvictionAlgorithm.LIFO_ENTRY || ea == EvictionAlgorithm.LIFO_MEMORY ) {
       _setLruList(new NewLIFOClockHand(owner, _getCCHelper(), internalRegionArgs));
     }
+    else if (NewSampledLRUClockHand.SAMPLE_SIZE > 0
+        && _getMap() instanceof CustomEntryConcurrentHashMap) {
+      NewSampledLRUClockHand sampledList = new NewSampledLRUClockHand(owner, _getCCHelper(), internalRegionArgs);
+      sampledList.setEntryMap((CustomEntryConcurrentHashMap<Object, Object>)_getMap());
+      _setLruList(sampledList);
+    }
     else {
       _setLruList(new NewLRUClockHand(owner, _getCCHelper(), internalRegionArgs));
     }
@@ -80,6 +80,7 @@ import com.gemstone.gemfire.internal.offheap.annotations.Released;
 import com.gemstone.gemfire.internal.offheap.annotations.Retained;
 import com.gemstone.gemfire.internal.offheap.annotations.Unretained;
 import com.gemstone.gemfire.internal.sequencelog.EntryLogger;
+import com.gemstone.gemfire.internal.util.concurrent.ConcurrentMapWithReusableEntries;
 import com.gemstone.gemfire.internal.util.concurrent.CustomEntryConcurrentHashMap;
 
 /**
@@ -103,7 +104,7 @@ public abstract class AbstractRegionMap implements RegionMap {
   private static final Logger logger = LogService.getLogger();
   
   /** The underlying map for this region. */
-  protected CustomEntryConcurrentHashMap<Object, Object> map;
+  protected ConcurrentMapWithReusableEntries<Object, Object> map;
   /** An internal Listener for index maintenance for SQLFabric. */
   private final IndexUpdater indexUpdater;
 
@@ -166,7 +167,7 @@ public abstract class AbstractRegionMap implements RegionMap {
     setEntryFactory(new RegionEntryFactoryBuilder().getRegionEntryFactoryOrNull(attr.statisticsEnabled,isLRU,isDisk,withVersioning,offHeap));
   }
 
-  protected CustomEntryConcurrentHashMap<Object, Object> createConcurrentMap(
+  protected ConcurrentMapWithReusableEntries<Object, Object> createConcurrentMap(
       int initialCapacity, float loadFactor, int concurrencyLevel,
       boolean isIdentityMap,
       CustomEntryConcurrentHashMap.HashEntryCreator<Object, Object> entryCreator) {
@@ -220,11 +221,11 @@ public abstract class AbstractRegionMap implements RegionMap {
     this.owner = r;
   }
   
-  protected final CustomEntryConcurrentHashMap<Object, Object> _getMap() {
+  protected final ConcurrentMapWithReusableEntries<Object, Object> _getMap() {
     return this.map;
   }
 
-  protected final void _setMap(CustomEntryConcurrentHashMap<Object, Object> m) {
+  protected final void _setMap(ConcurrentMapWithReusableEntries<Object, Object> m) {
     this.map = m;
   }
 
@@ -598,7 +599,7 @@ public abstract class AbstractRegionMap implements RegionMap {
     //so that they will be in the correct order.
     OrderedTombstoneMap<RegionEntry> tombstones = new OrderedTombstoneMap<RegionEntry>();
     if (rm != null) {
-      CustomEntryConcurrentHashMap<Object, Object> other = ((AbstractRegionMap)rm)._getMap();
+      ConcurrentMapWithReusableEntries<Object, Object> other = ((AbstractRegionMap)rm)._getMap();
       Iterator<Map.Entry<Object, Object>> it = other
           .entrySetWithReusableEntries().iterator();
       while (it.hasNext()) {
@@ -77,6 +77,9 @@ public class CachePerfStats {
   protected final static int queryResultsHashCollisionsId;
   protected final static int queryResultsHashCollisionProbeTimeId;
   protected final static int partitionedRegionQueryRetriesId;
+  protected final static int partitionedRegionQueryTasksId;
+  protected final static int partitionedRegionQueryTaskTimeId;
+  protected final static int partitionedRegionQueryParallelTimeId;
 
   protected static final int txSuccessLifeTimeId;
   protected static final int txFailedLifeTimeId;
@@ -209,6 +212,9 @@ public class CachePerfStats {
     final String queryResultsHashCollisionsDesc= "Total number of times an hash code collision occurred when inserting an object into an OQL result set or rehashing it";
     final String queryResultsHashCollisionProbeTimeDesc= "Total time spent probing the hashtable in an OQL result set due to hash code collisions, includes reads, writes, and rehashes";
     final String partitionedRegionOQLQueryRetriesDesc = "Total number of times an OQL Query on a Partitioned Region had to be retried";
+    final String partitionedRegionQueryTasksDesc = "Total number of tasks the local buckets of partitioned region queries were split into to run in parallel";
+    final String partitionedRegionQueryTaskTimeDesc = "Total time spent running partitioned region query tasks, summed over all tasks";
+    final String partitionedRegionQueryParallelTimeDesc = "Total elapsed time of parallel partitioned region bucket queries. partitionedRegionQueryTaskTime divided by this is the speedup gained from running in parallel";
     final String txSuccessLifeTimeDesc = "The total amount of time, in nanoseconds, spent in a transaction before a successful commit. The time measured starts at transaction begin and ends when commit is called.";
     final String txFailedLifeTimeDesc = "The total amount of time, in nanoseconds, spent in a transaction before a failed commit. The time measured starts at transaction begin and ends when commit is called.";
     final String txRollbackLifeTimeDesc = "The total amount of time, in nanoseconds, spent in a transaction before an explicit rollback. The time measured starts at transaction begin and ends when rollback is called.";
@@ -320,6 +326,9 @@ public class CachePerfStats {
         f.createIntCounter("queryResultsHashCollisions", queryResultsHashCollisionsDesc, "operations"),
         f.createLongCounter("queryResultsHashCollisionProbeTime", queryResultsHashCollisionProbeTimeDesc, "nanoseconds"),
         f.createLongCounter("partitionedRegionQueryRetries", partitionedRegionOQLQueryRetriesDesc, "retries"),
+        f.createLongCounter("partitionedRegionQueryTasks", partitionedRegionQueryTasksDesc, "operations"),
+        f.createLongCounter("partitionedRegionQueryTaskTime", partitionedRegionQueryTaskTimeDesc, "nanoseconds"),
+        f.createLongCounter("partitionedRegionQueryParallelTime", partitionedRegionQueryParallelTimeDesc, "nanoseconds"),
 
         f.createIntCounter("txCommits", txCommitsDesc, "commits"), 
         f.createIntCounter("txCommitChanges", txCommitChangesDesc, "changes"), 
@@ -445,6 +454,9 @@ public class CachePerfStats {
     queryResultsHashCollisionsId = type.nameToId("queryResultsHashCollisions");
     queryResultsHashCollisionProbeTimeId = type.nameToId("queryResultsHashCollisionProbeTime");
     partitionedRegionQueryRetriesId = type.nameToId("partitionedRegionQueryRetries");
+    partitionedRegionQueryTasksId = type.nameToId("partitionedRegionQueryTasks");
+    partitionedRegionQueryTaskTimeId = type.nameToId("partitionedRegionQueryTaskTime");
+    partitionedRegionQueryParallelTimeId = type.nameToId("partitionedRegionQueryParallelTime");
 
     txSuccessLifeTimeId = type.nameToId("txSuccessLifeTime");
     txFailedLifeTimeId = type.nameToId("txFailedLifeTime");
@@ -1282,6 +1294,23 @@ public class CachePerfStats {
     return this.stats.getLong(partitionedRegionQueryRetriesId);
   }
 
+  public void endPRQueryTask(long start) {
+    this.stats.incLong(partitionedRegionQueryTasksId, 1);
+    if (enableClockStats) {
+      this.stats.incLong(partitionedRegionQueryTaskTimeId, getStatTime() - start);
+    }
+  }
+
+  public long getPRQueryTasks() {
+    return this.stats.getLong(partitionedRegionQueryTasksId);
+  }
+
+  public void endPRQueryParallelExecution(long start) {
+    if (enableClockStats) {
+      this.stats.incLong(partitionedRegionQueryParallelTimeId, getStatTime() - start);
+    }
+  }
+
   public QueueStatHelper getEvictionQueueStatHelper() {
     return new QueueStatHelper() {
       public void add() {
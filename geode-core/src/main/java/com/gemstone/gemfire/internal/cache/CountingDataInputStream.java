@@ -17,9 +17,15 @@
 package com.gemstone.gemfire.internal.cache;
 
 import java.io.*;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
 
 /**
  * A data input stream that counts the bytes it plans on reading.
+ * It reads either from an InputStream or, in place, from a ByteBuffer
+ * such as a memory mapped file.
  * 
  * 
  * @since GemFire prPersistSprint2
@@ -28,11 +34,117 @@ import java.io.*;
 public class CountingDataInputStream implements DataInput {
   private final long fileLength;
   private long count;
-  private final DataInputStream dis;
+  private final DataInput dis;
+  private final Closeable closeable;
 
   public CountingDataInputStream(InputStream is, long fileLength) {
     this.fileLength = fileLength;
-    this.dis = new DataInputStream(is);
+    DataInputStream in = new DataInputStream(is);
+    this.dis = in;
+    this.closeable = in;
+  }
+
+  /**
+   * Reads from the given buffer's position to its limit.
+   * Reading past the limit throws EOFException like reading past the
+   * end of a stream does.
+   */
+  public CountingDataInputStream(ByteBuffer bb, long fileLength) {
+    this(new ByteBufferDataInput(bb), null, fileLength);
+  }
+
+  private CountingDataInputStream(DataInput dis, Closeable closeable, long fileLength) {
+    this.fileLength = fileLength;
+    this.dis = dis;
+    this.closeable = closeable;
+  }
+
+  /**
+   * Reads a memory mapped file in place and unmaps it when this stream is
+   * closed. The file cannot be deleted on some platforms, Windows for
+   * one, while a mapping of it exists and a mapping is otherwise only
+   * released when its buffer is garbage collected. Nothing may read the
+   * buffer once this stream has been closed.
+   * 
+   * @see #canUnmap()
+   */
+  public static CountingDataInputStream forMappedFile(final MappedByteBuffer bb, long fileLength) {
+    return new CountingDataInputStream(new ByteBufferDataInput(bb), new Closeable() {
+      public void close() throws IOException {
+        unmap(bb);
+      }
+    }, fileLength);
+  }
+
+  /**
+   * Releases a direct buffer's memory or mapping; null if this VM does not
+   * let us do that explicitly
+   */
+  private static final Unmapper UNMAPPER = findUnmapper();
+
+  private interface Unmapper {
+    void unmap(ByteBuffer bb) throws Exception;
+  }
+
+  private static Unmapper findUnmapper() {
+    Unmapper unmapper;
+    try {
+      // Java 9 and later
+      Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+      Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+      theUnsafe.setAccessible(true);
+      final Object unsafe = theUnsafe.get(null);
+      final Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+      unmapper = new Unmapper() {
+        public void unmap(ByteBuffer bb) throws Exception {
+          invokeCleaner.invoke(unsafe, bb);
+        }
+      };
+    } catch (Exception e) {
+      try {
+        // Java 8
+        final Method cleaner = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+        final Method clean = cleaner.getReturnType().getMethod("clean");
+        unmapper = new Unmapper() {
+          public void unmap(ByteBuffer bb) throws Exception {
+            Object c = cleaner.invoke(bb);
+            if (c != null) {
+              clean.invoke(c);
+            }
+          }
+        };
+      } catch (Exception | LinkageError e2) {
+        return null;
+      }
+    } catch (LinkageError e) {
+      return null;
+    }
+    try {
+      // make sure we are allowed to call it
+      unmapper.unmap(ByteBuffer.allocateDirect(1));
+    } catch (Exception | LinkageError e) {
+      return null;
+    }
+    return unmapper;
+  }
+
+  /**
+   * Returns true if {@link #forMappedFile} can release its mapping when
+   * closed. Files should not be mapped if it cannot.
+   */
+  public static boolean canUnmap() {
+    return UNMAPPER != null;
+  }
+
+  private static void unmap(MappedByteBuffer bb) throws IOException {
+    if (UNMAPPER == null) {
+      return;
+    }
+    try {
+      UNMAPPER.unmap(bb);
+    } catch (Exception e) {
+      throw new IOException("Could not unmap buffer", e);
+    }
   }
 
   public long getCount() {
@@ -119,6 +231,83 @@ public class CountingDataInputStream implements DataInput {
   }
 
   public void close() throws IOException {
-    this.dis.close();
+    if (this.closeable != null) {
+      this.closeable.close();
+    }
+  }
+
+  /**
+   * A DataInput that reads a ByteBuffer in place.
+   */
+  private static final class ByteBufferDataInput implements DataInput {
+    private final ByteBuffer bb;
+
+    ByteBufferDataInput(ByteBuffer bb) {
+      this.bb = bb;
+    }
+
+    private void require(int bytes) throws EOFException {
+      if (this.bb.remaining() < bytes) {
+        // leave nothing to read just like a stream that hit its end
+        this.bb.position(this.bb.limit());
+        throw new EOFException();
+      }
+    }
+
+    public void readFully(byte b[]) throws IOException {
+      readFully(b, 0, b.length);
+    }
+    public void readFully(byte b[], int off, int len) throws IOException {
+      require(len);
+      this.bb.get(b, off, len);
+    }
+    public int skipBytes(int n) {
+      int result = Math.max(0, Math.min(n, this.bb.remaining()));
+      this.bb.position(this.bb.position() + result);
+      return result;
+    }
+    public boolean readBoolean() throws IOException {
+      return readByte() != 0;
+    }
+    public byte readByte() throws IOException {
+      require(1);
+      return this.bb.get();
+    }
+    public int readUnsignedByte() throws IOException {
+      return readByte() & 0xff;
+    }
+    public short readShort() throws IOException {
+      require(2);
+      return this.bb.getShort();
+    }
+    public int readUnsignedShort() throws IOException {
+      return readShort() & 0xffff;
+    }
+    public char readChar() throws IOException {
+      require(2);
+      return this.bb.getChar();
+    }
+    public int readInt() throws IOException {
+      require(4);
+      return this.bb.getInt();
+    }
+    public long readLong() throws IOException {
+      require(8);
+      return this.bb.getLong();
+    }
+    public float readFloat() throws IOException {
+      require(4);
+      return this.bb.getFloat();
+    }
+    public double readDouble() throws IOException {
+      require(8);
+      return this.bb.getDouble();
+    }
+    public String readLine() {
+      throw new IllegalStateException("method not supported");
+    }
+    public String readUTF() throws IOException {
+      return DataInputStream.readUTF(this);
+    }
   }
 }
@@ -19,6 +19,8 @@ package com.gemstone.gemfire.internal.cache;
 import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
 import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.longs.LongIterator;
 import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 import it.unimi.dsi.fastutil.objects.ObjectIterator;
@@ -439,6 +441,17 @@ public class DiskInitFile implements DiskInitFileInterpreter {
    */
   public static final byte IFREC_REGION_CONFIG_ID_90 = 90;
 
+  /**
+   * Records the compressor used for the values written to an oplog crf file.
+   * Crfs without this record hold uncompressed values.
+   * Byte Format:
+   * 8: oplogId
+   * variable: compressorClassName (utf)
+   * 1: EndOfRecord
+   * @since Geode 1.0
+   */
+  public static final byte IFREC_CRF_COMPRESSOR = 91;
+
   private final DiskStoreImpl parent;
   
   private final File ifFile;
@@ -452,6 +465,7 @@ public class DiskInitFile implements DiskInitFileInterpreter {
   private final LongOpenHashSet crfIds;
   private final LongOpenHashSet drfIds;
   private final LongOpenHashSet krfIds;
+  private final Long2ObjectOpenHashMap<String> crfCompressors;
   
   /**
    * Map used to keep track of regions we know of from the DiskInitFile
@@ -860,11 +874,20 @@ public class DiskInitFile implements DiskInitFileInterpreter {
     this.ifLiveRecordCount++;
     this.ifTotalRecordCount++;
   }
+  public void cmnCrfCompressor(long oplogId, String compressorClassName) {
+    this.crfCompressors.put(oplogId, compressorClassName);
+    this.ifLiveRecordCount++;
+    this.ifTotalRecordCount++;
+  }
   public boolean cmnCrfDelete(long oplogId) {
     if(this.krfIds.remove(oplogId)) {
       this.ifLiveRecordCount--;
       this.ifTotalRecordCount++;
     }
+    if (this.crfCompressors.remove(oplogId) != null) {
+      this.ifLiveRecordCount--;
+      this.ifTotalRecordCount++;
+    }
     if (this.crfIds.remove(oplogId)) {
       this.ifLiveRecordCount--;
       this.ifTotalRecordCount++;
@@ -934,6 +957,19 @@ public class DiskInitFile implements DiskInitFileInterpreter {
     return krfIds.contains(oplogId);
   }
 
+  /**
+   * Returns the class name of the compressor used for the values in the
+   * given oplog's crf, or null if its values are not compressed.
+   */
+  String getCrfCompressorClassName(long oplogId) {
+    lock.lock(false);
+    try {
+      return this.crfCompressors.get(oplogId);
+    } finally {
+      lock.unlock();
+    }
+  }
+
   DiskRegionView takeDiskRegionByName(String name) {
     lock.lock(false);
     try {
@@ -1085,6 +1121,29 @@ public class DiskInitFile implements DiskInitFileInterpreter {
     }
   }
 
+  private void writeCrfCompressorRecord(long oplogId, String compressorClassName) {
+    assert lock.isHeldByCurrentThread();
+    try {
+      int hdosSize = 1+8+estimateByteSize(compressorClassName)+1;
+      if (hdosSize < 32) {
+        hdosSize = 32;
+      }
+      HeapDataOutputStream hdos = new HeapDataOutputStream(hdosSize, Version.CURRENT);
+      hdos.write(IFREC_CRF_COMPRESSOR);
+      hdos.writeLong(oplogId);
+      hdos.writeUTF(compressorClassName);
+      hdos.write(END_OF_RECORD_ID);
+      writeIFRecord(hdos, false); // don't do stats for these small records
+    } catch (IOException ex) {
+      DiskAccessException dae
+        = new DiskAccessException(LocalizedStrings.DiskInitFile_FAILED_INIT_FILE_WRITE_BECAUSE_0.toLocalizedString(ex), this.parent);
+      if (!this.compactInProgress) {
+        this.parent.handleDiskAccessException(dae);
+      }
+      throw dae;
+    }
+  }
+
   private void writeIFRecord(byte b, DiskRegionView dr, String s) {
     assert lock.isHeldByCurrentThread();
     try {
@@ -1680,6 +1739,7 @@ public class DiskInitFile implements DiskInitFileInterpreter {
       saveCrfIds();
       saveDrfIds();
       saveKrfIds();
+      saveCrfCompressors();
       for (DiskRegionView drv: this.drMap.values()) {
         writeLiveData(drv);
       }
@@ -1713,6 +1773,14 @@ public class DiskInitFile implements DiskInitFileInterpreter {
     }
   }
   
+  private void saveCrfCompressors() {
+    for (Long2ObjectMap.Entry<String> entry : this.crfCompressors.long2ObjectEntrySet()) {
+      writeCrfCompressorRecord(entry.getLongKey(), entry.getValue());
+      this.ifLiveRecordCount++;
+      this.ifTotalRecordCount++;
+    }
+  }
+
   private void saveKrfIds() {
     for (LongIterator i = this.krfIds.iterator(); i.hasNext(); ) {
       writeIFRecord(IFREC_KRF_CREATE, i.next());
@@ -1966,6 +2034,7 @@ public class DiskInitFile implements DiskInitFileInterpreter {
     this.crfIds = new LongOpenHashSet();
     this.drfIds = new LongOpenHashSet();
     this.krfIds = new LongOpenHashSet();
+    this.crfCompressors = new Long2ObjectOpenHashMap<String>();
     recover();
     if (this.parent.isOffline() && !this.parent.isOfflineCompacting() && !this.parent.isOfflineModify()) {
       dump();
@@ -2198,6 +2267,15 @@ public class DiskInitFile implements DiskInitFileInterpreter {
       lock.unlock();
     }
   }
+  void crfCompressor(long oplogId, String compressorClassName) {
+    lock.lock(false);
+    try {
+      cmnCrfCompressor(oplogId, compressorClassName);
+      writeCrfCompressorRecord(oplogId, compressorClassName);
+    } finally {
+      lock.unlock();
+    }
+  }
   void krfCreate(long oplogId) {
     lock.lock(false);
     try {
@@ -46,6 +46,7 @@ import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionException;
@@ -55,6 +56,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock.ReadLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock.WriteLock;
@@ -74,10 +76,12 @@ import com.gemstone.gemfire.cache.DiskStore;
 import com.gemstone.gemfire.cache.DiskStoreFactory;
 import com.gemstone.gemfire.cache.RegionDestroyedException;
 import com.gemstone.gemfire.cache.persistence.PersistentID;
+import com.gemstone.gemfire.compression.Compressor;
 import com.gemstone.gemfire.distributed.DistributedSystem;
 import com.gemstone.gemfire.distributed.internal.InternalDistributedSystem;
 import com.gemstone.gemfire.distributed.internal.membership.InternalDistributedMember;
 import com.gemstone.gemfire.internal.ByteArrayDataInput;
+import com.gemstone.gemfire.internal.ClassPathLoader;
 import com.gemstone.gemfire.internal.FileUtil;
 import com.gemstone.gemfire.internal.Version;
 import com.gemstone.gemfire.internal.cache.DiskEntry.Helper.ValueWrapper;
@@ -176,6 +180,29 @@ public class DiskStoreImpl implements DiskStore {
   boolean FORCE_KRF_RECOVERY = getBoolean(
       "gemfire.disk.FORCE_KRF_RECOVERY", false);
   
+  public static final String GROUP_COMMIT_PROPERTY_NAME = "gemfire.disk.groupCommit";
+  /**
+   * If true then concurrent synchronous writers to an oplog share a single
+   * flush, which also forces the oplog if gemfire.syncWrites is set, instead of
+   * each writer flushing its own record. Made non static so tests can set it.
+   */
+  boolean GROUP_COMMIT = getBoolean(GROUP_COMMIT_PROPERTY_NAME, false);
+  
+  public static final String OPLOG_COMPRESSOR_PROPERTY_NAME = "gemfire.disk.compressor";
+  /**
+   * The class name of the {@link Compressor} used to compress the values
+   * written to new crf files. Can be set for a single disk store by appending
+   * ".<diskStoreName>" to the property name. Oplogs created without a
+   * compressor, or with a different one, are still read correctly since the
+   * init file records the compressor of each crf.
+   */
+  private final Compressor oplogCompressor;
+  /**
+   * Compressors needed to read recovered crfs that were written with a
+   * compressor other than {@link #oplogCompressor}.
+   */
+  private final ConcurrentMap<String, Compressor> recoveredOplogCompressors = new ConcurrentHashMap<String, Compressor>();
+
   public static boolean getBoolean(String sysProp, boolean def) {
     return Boolean.valueOf(System.getProperty(sysProp, Boolean.valueOf(def)
         .toString()));
@@ -201,6 +228,19 @@ public class DiskStoreImpl implements DiskStore {
       "gemfire.MAX_OPLOGS_PER_COMPACTION",
       Integer.getInteger("gemfire.MAX_OPLOGS_PER_ROLL", 1).intValue())
       .intValue();
+  /**
+   * Maximum number of value bytes per second that compaction copies forward
+   * to the active oplog. The compactor sleeps between entries to stay under
+   * this rate so that it does not starve region operations of disk
+   * bandwidth. Ignored if set to <= 0. Made non static so tests can set it.
+   */
+  private final long COMPACTION_MAX_BYTES_PER_SECOND = Long.getLong(
+      "gemfire.disk.COMPACTION_MAX_BYTES_PER_SECOND", 0).longValue();
+  /**
+   * A throttled compaction pass only pauses once it is this far ahead of
+   * COMPACTION_MAX_BYTES_PER_SECOND.
+   */
+  private static final long THROTTLE_MIN_PAUSE_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
   /**
    *
    */
@@ -215,6 +255,13 @@ public class DiskStoreImpl implements DiskStore {
    * These tasks are things like unpreblow oplogs, delete oplogs, etc. 
    */
   public static final int MAX_PENDING_TASKS = Integer.getInteger("gemfire.disk.MAX_PENDING_TASKS", 6);
+  /**
+   * The maximum number of threads each disk store uses to recover
+   * independent oplogs concurrently. Defaults to the number of processors,
+   * up to 8. A value of 1 recovers one oplog at a time.
+   */
+  public static final int MAX_RECOVERY_THREADS = Math.max(1, Integer.getInteger("gemfire.disk.MAX_RECOVERY_THREADS",
+      Math.min(8, Runtime.getRuntime().availableProcessors())));
   /**
    * This system property indicates that IF should also be preallocated. This property 
    * will be used in conjunction with the PREALLOCATE_OPLOGS property. If PREALLOCATE_OPLOGS
@@ -351,6 +398,14 @@ public class DiskStoreImpl implements DiskStore {
 
   private final Object asyncValueRecoveryLock = new Object();
 
+  /**
+   * The threads recovering values asynchronously hold the read lock while
+   * they recover an entry. initializeOwner holds the write lock while it
+   * copies a recovered entry map so that no value is recovered into the
+   * map being copied.
+   */
+  private final ReentrantReadWriteLock asyncValueRecoveryEntryLock = new ReentrantReadWriteLock();
+
   /**
    * The unique id for this disk store.
    * 
@@ -366,6 +421,8 @@ public class DiskStoreImpl implements DiskStore {
   
   private final ThreadPoolExecutor delayedWritePool;
   private volatile Future lastDelayedWrite;
+
+  private final ThreadPoolExecutor recoveryPool;
   
   // ///////////////////// Constructors /////////////////////////
 
@@ -422,6 +479,9 @@ public class DiskStoreImpl implements DiskStore {
     this.diskDirSizes = props.getDiskDirSizes();
     this.warningPercent = props.getDiskUsageWarningPercentage();
     this.criticalPercent = props.getDiskUsageCriticalPercentage();
+    this.oplogCompressor = createOplogCompressor(System.getProperty(
+        OPLOG_COMPRESSOR_PROPERTY_NAME + "." + name,
+        System.getProperty(OPLOG_COMPRESSOR_PROPERTY_NAME)));
     
     this.cache = (GemFireCacheImpl) cache;
     StatisticsFactory factory = cache.getDistributedSystem();
@@ -505,10 +565,68 @@ public class DiskStoreImpl implements DiskStore {
                  new LinkedBlockingQueue(MAX_PENDING_TASKS),
                  deleteThreadFactory, new ThreadPoolExecutor.CallerRunsPolicy());
     this.delayedWritePool.allowCoreThreadTimeOut(true);
+
+    final ThreadGroup recoveryThreadGroup = LoggingThreadGroup.createThreadGroup("Oplog Recovery Thread Group", this.logger);
+    final ThreadFactory recoveryThreadFactory = GemfireCacheHelper.CreateThreadFactory(recoveryThreadGroup, "Oplog Recovery Task");
+    this.recoveryPool = new ThreadPoolExecutor(MAX_RECOVERY_THREADS, MAX_RECOVERY_THREADS, 10, TimeUnit.SECONDS,
+                 new LinkedBlockingQueue(),
+                 recoveryThreadFactory);
+    this.recoveryPool.allowCoreThreadTimeOut(true);
   }
 
   // //////////////////// Instance Methods //////////////////////
 
+  private static Compressor createOplogCompressor(String compressorClassName) {
+    if (compressorClassName == null || compressorClassName.length() == 0) {
+      return null;
+    }
+    try {
+      @SuppressWarnings("unchecked")
+      Class<Compressor> compressorClass = (Class<Compressor>) ClassPathLoader.getLatest().forName(compressorClassName);
+      return compressorClass.newInstance();
+    } catch (ClassNotFoundException e) {
+      throw new IllegalArgumentException(LocalizedStrings.DiskInitFile_UNKNOWN_COMPRESSOR_0_FOUND
+          .toLocalizedString(compressorClassName), e);
+    } catch (InstantiationException e) {
+      throw new IllegalArgumentException(LocalizedStrings.DiskInitFile_UNKNOWN_COMPRESSOR_0_FOUND
+          .toLocalizedString(compressorClassName), e);
+    } catch (IllegalAccessException e) {
+      throw new IllegalArgumentException(LocalizedStrings.DiskInitFile_UNKNOWN_COMPRESSOR_0_FOUND
+          .toLocalizedString(compressorClassName), e);
+    }
+  }
+
+  /**
+   * Returns the compressor to use for the values of new oplogs or null if
+   * values are written uncompressed.
+   */
+  Compressor getOplogCompressor() {
+    return this.oplogCompressor;
+  }
+
+  /**
+   * Returns the compressor for a recovered oplog whose crf was written with
+   * the given compressor class or null if compressorClassName is null.
+   */
+  Compressor getOplogCompressor(String compressorClassName) {
+    if (compressorClassName == null) {
+      return null;
+    }
+    if (this.oplogCompressor != null
+        && this.oplogCompressor.getClass().getName().equals(compressorClassName)) {
+      return this.oplogCompressor;
+    }
+    Compressor result = this.recoveredOplogCompressors.get(compressorClassName);
+    if (result == null) {
+      result = createOplogCompressor(compressorClassName);
+      Compressor old = this.recoveredOplogCompressors.putIfAbsent(compressorClassName, result);
+      if (old != null) {
+        result = old;
+      }
+    }
+    return result;
+  }
+
   public boolean sameAs(DiskStoreAttributes props) {
     if (getAllowForceCompaction() != props.getAllowForceCompaction()) {
       if (logger.isDebugEnabled()) {
@@ -604,36 +722,41 @@ public class DiskStoreImpl implements DiskStore {
     
     // prevent async recovery from recovering a value
     // while we are copying the entry map.
-    synchronized (currentAsyncValueRecoveryMap) {
-      DiskRegionView drv = lr.getDiskRegionView();
-      if (drv.getRecoveredEntryMap() != null) {
-        PersistentOplogSet oplogSet = getPersistentOplogSet(drv);
+    asyncValueRecoveryEntryLock.writeLock().lock();
+    try {
+      synchronized (currentAsyncValueRecoveryMap) {
+        DiskRegionView drv = lr.getDiskRegionView();
+        if (drv.getRecoveredEntryMap() != null) {
+          PersistentOplogSet oplogSet = getPersistentOplogSet(drv);
         
-        // acquire CompactorWriteLock only if the region attributes for the 
-        // real region are different from the place holder region's
-        boolean releaseCompactorWriteLock = false;
-        if (drv.isEntriesMapIncompatible()) {
-          acquireCompactorWriteLock(); // fix bug #51097 to prevent concurrent compaction
-          releaseCompactorWriteLock = true;
-        }
-        try {
-          drv.copyExistingRegionMap(lr);
-          getStats().incUncreatedRecoveredRegions(-1);
-          for (Oplog oplog : oplogSet.getAllOplogs()) {
-            if (oplog != null) {
-              oplog.updateDiskRegion(lr.getDiskRegionView());
+          // acquire CompactorWriteLock only if the region attributes for the 
+          // real region are different from the place holder region's
+          boolean releaseCompactorWriteLock = false;
+          if (drv.isEntriesMapIncompatible()) {
+            acquireCompactorWriteLock(); // fix bug #51097 to prevent concurrent compaction
+            releaseCompactorWriteLock = true;
+          }
+          try {
+            drv.copyExistingRegionMap(lr);
+            getStats().incUncreatedRecoveredRegions(-1);
+            for (Oplog oplog : oplogSet.getAllOplogs()) {
+              if (oplog != null) {
+                oplog.updateDiskRegion(lr.getDiskRegionView());
+              }
+            }
+          } finally {
+            if (releaseCompactorWriteLock) {
+              releaseCompactorWriteLock();
             }
           }
-        } finally {
-          if (releaseCompactorWriteLock) {
-            releaseCompactorWriteLock();
+          if (currentAsyncValueRecoveryMap.containsKey(drv.getId())) {
+            currentAsyncValueRecoveryMap.put(drv.getId(), lr);
           }
+          return;
         }
-        if (currentAsyncValueRecoveryMap.containsKey(drv.getId())) {
-          currentAsyncValueRecoveryMap.put(drv.getId(), lr);
-        }
-        return;
       }
+    } finally {
+      asyncValueRecoveryEntryLock.writeLock().unlock();
     }
 
     scheduleForRecovery(lr);
@@ -2892,6 +3015,13 @@ public class DiskStoreImpl implements DiskStore {
 
     private final boolean compactionCompletionRequired;
 
+    /** the time, in nanoseconds, the current compaction started */
+    private long throttleStart;
+    /** the number of bytes the current compaction has copied forward */
+    private long throttleBytes;
+    /** true if an oplog's compaction pass ended early to throttle */
+    private boolean throttlePending;
+
     OplogCompactor() {
       this.compactionCompletionRequired = Boolean
           .getBoolean(COMPLETE_COMPACTION_BEFORE_TERMINATION_PROPERTY_NAME);
@@ -2967,6 +3097,9 @@ public class DiskStoreImpl implements DiskStore {
       int totalCount = 0;
       long compactionStart = getStats().startCompaction();
       long start = System.nanoTime();
+      this.throttleStart = start;
+      this.throttleBytes = 0;
+      this.throttlePending = false;
       try {
         for (int i = 0; i < oplogs.length && keepCompactorRunning() /*
                                                                      * @todo &&
@@ -3105,6 +3238,63 @@ public class DiskStoreImpl implements DiskStore {
     boolean keepCompactorRunning() {
       return this.compactorEnabled || this.compactionCompletionRequired;
     }
+
+    /**
+     * Called by an oplog being compacted each time it copies a value forward.
+     * 
+     * @return true if this compaction is ahead of
+     *         COMPACTION_MAX_BYTES_PER_SECOND. The oplog must then end its
+     *         compaction pass, releasing the compactor locks, and call
+     *         {@link #pauseForThrottle()} before resuming.
+     */
+    boolean addCompactedBytes(int bytes) {
+      getStats().incCompactedBytes(bytes);
+      if (COMPACTION_MAX_BYTES_PER_SECOND <= 0) {
+        return false;
+      }
+      this.throttleBytes += bytes;
+      // pausing costs a release and reacquire of the compactor locks so only
+      // do it once enough delay has built up
+      this.throttlePending = getThrottleDelay() >= THROTTLE_MIN_PAUSE_NANOS;
+      return this.throttlePending;
+    }
+
+    /**
+     * @return the nanoseconds this compaction must wait to be back under
+     *         COMPACTION_MAX_BYTES_PER_SECOND
+     */
+    private long getThrottleDelay() {
+      final long target = this.throttleStart
+          + (long) (this.throttleBytes * 1000000000.0 / COMPACTION_MAX_BYTES_PER_SECOND);
+      return target - System.nanoTime();
+    }
+
+    /**
+     * Sleeps if {@link #addCompactedBytes(int)} asked the current pass to
+     * pause. Must be called without holding the compactor read lock or an
+     * oplog's compactor lock so that clear and close can run during the sleep.
+     * 
+     * @return true if a pass was paused and compaction should resume
+     */
+    boolean pauseForThrottle() {
+      if (!this.throttlePending) {
+        return false;
+      }
+      this.throttlePending = false;
+      final long sleepStart = System.nanoTime();
+      try {
+        long delay = getThrottleDelay();
+        // sleep in short intervals so that a stopped compactor exits quickly
+        while (delay > 0 && keepCompactorRunning()) {
+          Thread.sleep(Math.min(100, TimeUnit.NANOSECONDS.toMillis(delay) + 1));
+          delay = getThrottleDelay();
+        }
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+      getStats().incCompactThrottleTime(System.nanoTime() - sleepStart);
+      return keepCompactorRunning() && !Thread.currentThread().isInterrupted();
+    }
   }
 
   /**
@@ -3655,6 +3845,11 @@ public class DiskStoreImpl implements DiskStore {
     public int size() {
       return this.ints.size() + this.longs.size();
     }
+
+    public void addAll(OplogEntryIdSet other) {
+      this.ints.addAll(other.ints);
+      this.longs.addAll(other.longs);
+    }
   }
 
   /**
@@ -4611,13 +4806,21 @@ public class DiskStoreImpl implements DiskStore {
     public void run() {
       synchronized (asyncValueRecoveryLock) {
         DiskStoreObserver.startAsyncValueRecovery(DiskStoreImpl.this);
+        long start = getStats().startRecoveryPhase();
         try {
-          for (Oplog oplog : oplogSet) {
-            oplog.recoverValuesIfNeeded(currentAsyncValueRecoveryMap);
+          List<Runnable> tasks = new ArrayList<Runnable>(oplogSet.size());
+          for (final Oplog oplog : oplogSet) {
+            tasks.add(new Runnable() {
+              public void run() {
+                oplog.recoverValuesIfNeeded(currentAsyncValueRecoveryMap);
+              }
+            });
           }
+          executeRecoveryTasks(tasks);
         } catch (CancelException ignore) {
           // do nothing
         } finally {
+          getStats().endValueRecovery(start);
           synchronized (currentAsyncValueRecoveryMap) {
             DiskStoreImpl.this.currentAsyncValueRecoveryMap.keySet().removeAll(
                 recoveredStores.keySet());
@@ -4736,11 +4939,70 @@ public class DiskStoreImpl implements DiskStore {
     return null;
   }
 
+  /**
+   * Runs the given recovery tasks, at most {@link #MAX_RECOVERY_THREADS} at
+   * a time, and waits for all of them to complete. If a task fails the first
+   * failure is rethrown once the others have completed.
+   */
+  void executeRecoveryTasks(List<? extends Runnable> tasks) {
+    if (tasks.size() <= 1 || MAX_RECOVERY_THREADS <= 1) {
+      for (Runnable task : tasks) {
+        task.run();
+      }
+      return;
+    }
+    List<Future<?>> futures = new ArrayList<Future<?>>(tasks.size());
+    for (Runnable task : tasks) {
+      try {
+        futures.add(this.recoveryPool.submit(task));
+      } catch (RejectedExecutionException ex) {
+        // the disk store is closing; let the task see that in this thread
+        task.run();
+      }
+    }
+    Throwable failure = null;
+    boolean interrupted = false;
+    for (Future<?> f : futures) {
+      while (true) {
+        try {
+          f.get();
+          break;
+        } catch (InterruptedException e) {
+          interrupted = true;
+        } catch (ExecutionException e) {
+          if (failure == null) {
+            failure = e.getCause();
+          }
+          break;
+        }
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+    if (failure instanceof RuntimeException) {
+      throw (RuntimeException) failure;
+    } else if (failure instanceof Error) {
+      throw (Error) failure;
+    } else if (failure != null) {
+      throw new DiskAccessException(failure);
+    }
+  }
+
+  /**
+   * Returns the lock held by each thread recovering values asynchronously
+   * while it recovers an entry.
+   */
+  Lock getAsyncValueRecoveryEntryLock() {
+    return this.asyncValueRecoveryEntryLock.readLock();
+  }
+
   private void stopDiskStoreTaskPool() {
     if (logger.isDebugEnabled()) {
       logger.debug("Stopping DiskStoreTaskPool");
     }
     shutdownPool(diskStoreTaskPool);
+    shutdownPool(recoveryPool);
     
     //Allow the delayed writes to complete
     delayedWritePool.shutdown();
@@ -80,6 +80,19 @@ public class DiskStoreStats {
   private static final int backupsInProgress;
   private static final int backupsCompleted;
 
+  private static final int groupCommitsId;
+
+  private static final int drfRecoveryTimeId;
+  private static final int crfRecoveryTimeId;
+  private static final int valueRecoveryTimeId;
+
+  private static final int compactedBytesId;
+  private static final int compactThrottleTimeId;
+  private static final int uncompressedValueBytesId;
+  private static final int compressedValueBytesId;
+  private static final int valueDecompressionsId;
+  private static final int groupCommittedWritesId;
+
   static {
     String statName = "DiskStoreStatistics";
     String statDescription =
@@ -172,6 +185,16 @@ public class DiskStoreStats {
          f.createIntGauge("uncreatedRecoveredRegions", "The current number of regions that have been recovered but have not yet been created.", "regions"),
          f.createIntGauge("backupsInProgress", backupsInProgressDesc, "backups"),
          f.createIntCounter("backupsCompleted", backupsCompletedDesc, "backups"),
+         f.createLongCounter("groupCommits", "The total number of flushes done on behalf of a group of synchronous writes", "flushes"),
+         f.createLongCounter("groupCommittedWrites", "The total number of synchronous writes flushed by group commits", "writes"),
+         f.createLongCounter("drfRecoveryTime", "The total amount of time spent reading the drf files of oplogs during recovery", "nanoseconds"),
+         f.createLongCounter("crfRecoveryTime", "The total amount of time spent reading the crf or krf files of oplogs during recovery", "nanoseconds"),
+         f.createLongCounter("valueRecoveryTime", "The total amount of time spent recovering values in the background after recovery", "nanoseconds"),
+         f.createLongCounter("compactedBytes", "Total number of value bytes copied forward to the active oplog by compactions", "bytes"),
+         f.createLongCounter("compactThrottleTime", "Total amount of time, in nanoseconds, compactions spent waiting to stay under the configured compaction rate", "nanoseconds"),
+         f.createLongCounter("uncompressedValueBytes", "Total number of value bytes given to the oplog compressor", "bytes"),
+         f.createLongCounter("compressedValueBytes", "Total number of value bytes written to oplogs by the oplog compressor", "bytes"),
+         f.createLongCounter("valueDecompressions", "Total number of values read from oplogs that had to be decompressed", "operations"),
        });
 
     // Initialize id fields
@@ -220,6 +243,16 @@ public class DiskStoreStats {
     uncreatedRecoveredRegionsId = type.nameToId("uncreatedRecoveredRegions");
     backupsInProgress = type.nameToId("backupsInProgress");
     backupsCompleted= type.nameToId("backupsCompleted");
+    groupCommitsId = type.nameToId("groupCommits");
+    groupCommittedWritesId = type.nameToId("groupCommittedWrites");
+    drfRecoveryTimeId = type.nameToId("drfRecoveryTime");
+    crfRecoveryTimeId = type.nameToId("crfRecoveryTime");
+    valueRecoveryTimeId = type.nameToId("valueRecoveryTime");
+    compactedBytesId = type.nameToId("compactedBytes");
+    compactThrottleTimeId = type.nameToId("compactThrottleTime");
+    uncompressedValueBytesId = type.nameToId("uncompressedValueBytes");
+    compressedValueBytesId = type.nameToId("compressedValueBytes");
+    valueDecompressionsId = type.nameToId("valueDecompressions");
   }
 
   //////////////////////  Instance Fields  //////////////////////
@@ -365,6 +398,23 @@ public class DiskStoreStats {
     return this.stats.getLong(flushesId);
   }
 
+  /**
+   * Invoked after a group commit has flushed the given number of
+   * synchronous writes.
+   */
+  public void incGroupCommits(long writes) {
+    this.stats.incLong(groupCommitsId, 1);
+    this.stats.incLong(groupCommittedWritesId, writes);
+  }
+
+  public long getGroupCommits() {
+    return this.stats.getLong(groupCommitsId);
+  }
+
+  public long getGroupCommittedWrites() {
+    return this.stats.getLong(groupCommittedWritesId);
+  }
+
   /**
    * Invoked before data is read from disk.
    *
@@ -412,6 +462,39 @@ public class DiskStoreStats {
     return DistributionStats.getStatTime();
   }
 
+  /**
+   * Invoked before a phase of recovery starts.
+   *
+   * @return The timestamp that marks the start of the phase
+   */
+  public long startRecoveryPhase() {
+    return DistributionStats.getStatTime();
+  }
+
+  public void endDrfRecovery(long start) {
+    this.stats.incLong(drfRecoveryTimeId, DistributionStats.getStatTime() - start);
+  }
+
+  public void endCrfRecovery(long start) {
+    this.stats.incLong(crfRecoveryTimeId, DistributionStats.getStatTime() - start);
+  }
+
+  public void endValueRecovery(long start) {
+    this.stats.incLong(valueRecoveryTimeId, DistributionStats.getStatTime() - start);
+  }
+
+  public long getDrfRecoveryTime() {
+    return this.stats.getLong(drfRecoveryTimeId);
+  }
+
+  public long getCrfRecoveryTime() {
+    return this.stats.getLong(crfRecoveryTimeId);
+  }
+
+  public long getValueRecoveryTime() {
+    return this.stats.getLong(valueRecoveryTimeId);
+  }
+
   /**
    * Invoked after data has been recovered from disk
    *
@@ -504,6 +587,34 @@ public class DiskStoreStats {
     this.stats.incLong(compactUpdatesId, 1);
     this.stats.incLong(compactUpdateTimeId, getStatTime()-start);
   }
+  public void incCompactedBytes(long bytes) {
+    this.stats.incLong(compactedBytesId, bytes);
+  }
+  public void incCompactThrottleTime(long delta) {
+    this.stats.incLong(compactThrottleTimeId, delta);
+  }
+  public long getCompactedBytes() {
+    return this.stats.getLong(compactedBytesId);
+  }
+  public long getCompactThrottleTime() {
+    return this.stats.getLong(compactThrottleTimeId);
+  }
+  public void incCompressedValueBytes(long uncompressedBytes, long compressedBytes) {
+    this.stats.incLong(uncompressedValueBytesId, uncompressedBytes);
+    this.stats.incLong(compressedValueBytesId, compressedBytes);
+  }
+  public void incValueDecompressions() {
+    this.stats.incLong(valueDecompressionsId, 1);
+  }
+  public long getUncompressedValueBytes() {
+    return this.stats.getLong(uncompressedValueBytesId);
+  }
+  public long getCompressedValueBytes() {
+    return this.stats.getLong(compressedValueBytesId);
+  }
+  public long getValueDecompressions() {
+    return this.stats.getLong(valueDecompressionsId);
+  }
   public long getStatTime() {
     return DistributionStats.getStatTime();
   }
@@ -2844,6 +2844,7 @@ public class DistributedRegion extends LocalRegion implements
     if ((localWriter != null
         || (netWriteRecipients != null && !netWriteRecipients.isEmpty())) &&
         !event.inhibitAllNotifications()) {
+      event.setEscaped();
       final boolean isNewKey = event.getOperation().isCreate();
       final long start = getCachePerfStats().startCacheWriterCall();
       try {
@@ -344,6 +344,14 @@ public class DummyCachePerfStats extends CachePerfStats {
   public void endQueryExecution(long executionTime) {
   }
 
+  @Override
+  public void endPRQueryTask(long start) {
+  }
+
+  @Override
+  public void endPRQueryParallelExecution(long start) {
+  }
+
   @Override
   public int getTxCommits() {
     return 0;
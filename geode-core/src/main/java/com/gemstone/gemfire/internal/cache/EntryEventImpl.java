@@ -199,8 +199,28 @@ public class EntryEventImpl
   private transient boolean isEvicted = false;
   
   private transient boolean isPendingSecondaryExpireDestroy = false;
+
+  /**
+   * Set once a reference to this event may have been kept by code, such as
+   * a cache listener or writer, that can outlive the operation. An escaped
+   * event is never reused.
+   */
+  private transient boolean escaped = false;
   
   public final static Object SUSPECT_TOKEN = new Object();
+
+  /**
+   * If true then {@link LocalRegion#put(Object, Object, Object)} reuses an
+   * event cached by the calling thread, instead of allocating a new one for
+   * every put, whenever the previous put's event did not escape.
+   * Made non final so tests can set it.
+   */
+  public static boolean POOL_EVENTS = Boolean.getBoolean("gemfire.EntryEventImpl.POOL_EVENTS");
+
+  /**
+   * The released event, if any, that the current thread can reuse.
+   */
+  private static final ThreadLocal<EntryEventImpl> pooledEvent = new ThreadLocal<EntryEventImpl>();
   
   public EntryEventImpl() {
   }
@@ -270,7 +290,16 @@ public class EntryEventImpl
       Object callbackArgument,
       boolean originRemote, DistributedMember distributedMember,
       boolean generateCallbacks, boolean initializeId) {
+    initialize(region, op, key, newVal, callbackArgument, originRemote,
+        distributedMember, generateCallbacks);
+  }
 
+  private void initialize(
+      final LocalRegion region,
+      Operation op, Object key, @Retained(ENTRY_EVENT_NEW_VALUE) Object newVal,
+      Object callbackArgument,
+      boolean originRemote, DistributedMember distributedMember,
+      boolean generateCallbacks) {
     this.region = region;
     this.op = op;
     this.keyInfo = this.region.getKeyInfo(key, newVal, callbackArgument);
@@ -439,6 +468,92 @@ public class EntryEventImpl
     return entryEvent;
   }
   
+  /**
+   * Returns the event the current thread released with
+   * {@link #recycle(EntryEventImpl)} reinitialized with the given values, or
+   * a new event if the thread has none to reuse. The caller must pass the
+   * event to recycle once it is done with it.
+   */
+  @Retained
+  static EntryEventImpl createPooled(final LocalRegion region,
+      Operation op, Object key, @Retained(ENTRY_EVENT_NEW_VALUE) Object newVal,
+      Object callbackArgument,
+      boolean originRemote, DistributedMember distributedMember) {
+    EntryEventImpl entryEvent = pooledEvent.get();
+    if (entryEvent == null) {
+      return create(region, op, key, newVal, callbackArgument, originRemote,
+          distributedMember);
+    }
+    // a nested put done by this thread, for example from a cache writer,
+    // must not reuse the same event
+    pooledEvent.set(null);
+    entryEvent.initialize(region, op, key, newVal, callbackArgument,
+        originRemote, distributedMember, true);
+    return entryEvent;
+  }
+
+  /**
+   * Makes the given event, which must already have been released, available
+   * for reuse by the current thread unless it has escaped.
+   */
+  static void recycle(EntryEventImpl entryEvent) {
+    if (entryEvent.escaped || entryEvent.getClass() != EntryEventImpl.class) {
+      return;
+    }
+    entryEvent.reset();
+    pooledEvent.set(entryEvent);
+  }
+
+  /**
+   * Returns this event to the state of an event created with the no-arg
+   * constructor. Fields added to this class must also be reset here.
+   */
+  private void reset() {
+    this.region = null;
+    this.re = null;
+    this.keyInfo = null;
+    this.eventID = null;
+    this.newValue = null;
+    this.cachedSerializedNewValue = null;
+    this.oldValue = null;
+    this.delta = null;
+    this.eventFlags = 0x0000;
+    this.txId = null;
+    this.op = null;
+    this.eventType = null;
+    this.putAllOp = null;
+    this.removeAllOp = null;
+    this.distributedMember = null;
+    this.causedByMessage = null;
+    this.context = null;
+    this.contextObj = null;
+    this.deltaBytes = null;
+    this.filterInfo = null;
+    this.newValueBytes = null;
+    this.oldValueBytes = null;
+    this.versionTag = null;
+    this.isPutDML = false;
+    this.isEvicted = false;
+    this.isPendingSecondaryExpireDestroy = false;
+    this.newValueBucketSize = 0;
+    this.tailKey = -1L;
+    this.nextRegionVersion = -1L;
+    this.invokeCallbacksThread = null;
+    this.offHeapOk = true;
+  }
+
+  /**
+   * Marks this event as possibly referenced by code that can outlive the
+   * operation so that it will not be reused.
+   */
+  final void setEscaped() {
+    this.escaped = true;
+  }
+
+  final boolean isEscaped() {
+    return this.escaped;
+  }
+
   /**
    * Creates a PutAllEvent given the distributed operation, the region, and the
    * entry data.
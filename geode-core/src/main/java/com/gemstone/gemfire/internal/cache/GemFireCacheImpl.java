@@ -115,12 +115,14 @@ import com.gemstone.gemfire.cache.asyncqueue.AsyncEventQueue;
 import com.gemstone.gemfire.cache.asyncqueue.AsyncEventQueueFactory;
 import com.gemstone.gemfire.cache.asyncqueue.internal.AsyncEventQueueFactoryImpl;
 import com.gemstone.gemfire.cache.asyncqueue.internal.AsyncEventQueueImpl;
+import com.gemstone.gemfire.cache.client.AsyncRegion;
 import com.gemstone.gemfire.cache.client.ClientCache;
 import com.gemstone.gemfire.cache.client.ClientRegionFactory;
 import com.gemstone.gemfire.cache.client.ClientRegionShortcut;
 import com.gemstone.gemfire.cache.client.Pool;
 import com.gemstone.gemfire.cache.client.PoolFactory;
 import com.gemstone.gemfire.cache.client.PoolManager;
+import com.gemstone.gemfire.cache.client.internal.AsyncRegionImpl;
 import com.gemstone.gemfire.cache.client.internal.ClientMetadataService;
 import com.gemstone.gemfire.cache.client.internal.ClientRegionFactoryImpl;
 import com.gemstone.gemfire.cache.client.internal.PoolImpl;
@@ -4704,6 +4706,20 @@ public class GemFireCacheImpl implements InternalCache, ClientCache, HasCachePer
     }
   }
 
+  @SuppressWarnings("unchecked")
+  public <K,V> AsyncRegion<K,V> getAsyncRegion(String path) {
+    Region<K,V> r = getRegion(path);
+    if (r == null) {
+      return null;
+    }
+    String poolName = r.getAttributes().getPoolName();
+    PoolImpl pool = poolName == null ? null : (PoolImpl)PoolManager.find(poolName);
+    if (pool == null) {
+      throw new IllegalStateException(LocalizedStrings.GemFireCacheImpl_REGION_0_DOES_NOT_USE_A_POOL.toLocalizedString(path));
+    }
+    return new AsyncRegionImpl<K,V>(r, pool.getAsyncOpExecutor());
+  }
+
   public RegionService createAuthenticatedView(Properties properties) {
     Pool pool = getDefaultPool();
     if (pool == null) {
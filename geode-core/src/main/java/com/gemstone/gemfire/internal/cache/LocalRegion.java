@@ -697,6 +697,10 @@ public class LocalRegion extends AbstractRegion
       ma.loadFactor = this.loadFactor;
       ma.initialCapacity = this.initialCapacity;
       ma.concurrencyLevel = this.concurrencyLevel;
+      // buckets are selected by the path of their partitioned region
+      PartitionedRegion pr = internalRegionArgs.getPartitionedRegion();
+      ma.primitiveKeys = RegionMapFactory.usePrimitiveKeys(
+          pr != null ? pr.getFullPath() : getFullPath());
       result = RegionMapFactory.createVM(this, ma, internalRegionArgs);
     }
     return result;
@@ -1676,14 +1680,29 @@ public class LocalRegion extends AbstractRegion
   public Object put(Object key, Object value, Object aCallbackArgument)
       throws TimeoutException, CacheWriterException {
     long startPut = CachePerfStats.getStatTime();
-    @Released EntryEventImpl event = newUpdateEntryEvent(key, value, aCallbackArgument);
+    final boolean pooled = EntryEventImpl.POOL_EVENTS && canPoolEvents();
+    @Released EntryEventImpl event = newUpdateEntryEvent(key, value, aCallbackArgument, pooled);
     try {
       return validatedPut(event, startPut);
     } finally {
       event.release();
+      if (pooled) {
+        EntryEventImpl.recycle(event);
+      }
     }
   }
 
+  /**
+   * Returns true if a put done by the current thread can reuse a pooled
+   * event. Transactions keep their events for deferred callbacks and
+   * asynchronous distribution may serialize a message after the put
+   * returns, so neither can use pooled events.
+   */
+  private boolean canPoolEvents() {
+    return getTXState() == null
+        && getSystem().getConfig().getAsyncDistributionTimeout() == 0;
+  }
+
   public final Object validatedPut(EntryEventImpl event, long startPut)
       throws TimeoutException, CacheWriterException {
 
@@ -1720,6 +1739,12 @@ public class LocalRegion extends AbstractRegion
   @Retained
   public final EntryEventImpl newUpdateEntryEvent(Object key, Object value,
       Object aCallbackArgument) {
+    return newUpdateEntryEvent(key, value, aCallbackArgument, false);
+  }
+
+  @Retained
+  private EntryEventImpl newUpdateEntryEvent(Object key, Object value,
+      Object aCallbackArgument, boolean pooled) {
 
     validateArguments(key, value, aCallbackArgument);
     if (value == null) {
@@ -1734,9 +1759,11 @@ public class LocalRegion extends AbstractRegion
     // was modified to call the other EntryEventImpl constructor so that
     // an id will be generated by default. Null was passed in anyway.
     //   generate EventID
-    @Retained final EntryEventImpl event = EntryEventImpl.create(
-        this, Operation.UPDATE, key,
-        value, aCallbackArgument, false, getMyId());
+    @Retained final EntryEventImpl event = pooled
+        ? EntryEventImpl.createPooled(this, Operation.UPDATE, key,
+            value, aCallbackArgument, false, getMyId())
+        : EntryEventImpl.create(this, Operation.UPDATE, key,
+            value, aCallbackArgument, false, getMyId());
     boolean eventReturned = false;
     try {
     extractDeltaIntoEvent(value, event);
@@ -3328,6 +3355,7 @@ public class LocalRegion extends AbstractRegion
     if (!(op == Operation.PUT_IF_ABSENT
           || op == Operation.REPLACE) && (localWriter != null) && 
           !((EntryEventImpl)event).inhibitAllNotifications()) {
+      event.setEscaped();
       final long start = getCachePerfStats().startCacheWriterCall();
       final boolean newEntry = event.getOperation().isCreate();
       try {
@@ -7553,6 +7581,10 @@ public class LocalRegion extends AbstractRegion
         logger.trace("dispatchListenerEvent event={}", event);
       }
       final long start = getCachePerfStats().startCacheListenerCall();
+      if (isEntryEvent) {
+        // the listeners, or the event thread pool, may keep the event
+        ((EntryEventImpl)event).setEscaped();
+      }
       
       boolean origOriginRemote = false;
       boolean isOriginRemoteSet = false;
@@ -12064,6 +12096,23 @@ public class LocalRegion extends AbstractRegion
       this.cachePerfStats.incPRQueryRetries();
     }
 
+    @Override
+    public void endPRQueryTask(long start) {
+      this.stats.incLong(partitionedRegionQueryTasksId, 1);
+      if (enableClockStats) {
+        this.stats.incLong(partitionedRegionQueryTaskTimeId, getStatTime() - start);
+      }
+      this.cachePerfStats.endPRQueryTask(start);
+    }
+
+    @Override
+    public void endPRQueryParallelExecution(long start) {
+      if (enableClockStats) {
+        this.stats.incLong(partitionedRegionQueryParallelTimeId, getStatTime() - start);
+      }
+      this.cachePerfStats.endPRQueryParallelExecution(start);
+    }
+
     @Override
     public void incNonSingleHopsCount() {
       this.stats.incLong(nonSingleHopsCountId, 1);
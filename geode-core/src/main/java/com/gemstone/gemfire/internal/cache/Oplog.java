@@ -38,6 +38,7 @@ import java.io.InterruptedIOException;
 import java.io.SyncFailedException;
 import java.nio.ByteBuffer;
 import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel.MapMode;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
@@ -71,6 +72,7 @@ import com.gemstone.gemfire.cache.EntryNotFoundException;
 import com.gemstone.gemfire.cache.RegionDestroyedException;
 import com.gemstone.gemfire.cache.TimeoutException;
 import com.gemstone.gemfire.cache.UnsupportedVersionException;
+import com.gemstone.gemfire.compression.Compressor;
 import com.gemstone.gemfire.distributed.OplogCancelledException;
 import com.gemstone.gemfire.distributed.internal.DM;
 import com.gemstone.gemfire.internal.Assert;
@@ -150,6 +152,18 @@ public final class Oplog implements CompactableOplog, Flushable {
   /** The stats for this store */
   private final DiskStoreStats stats;
 
+  /**
+   * Batches the flushes of synchronous writes to this oplog.
+   * Null unless the disk store does group commits.
+   */
+  private final OplogGroupCommitter groupCommitter;
+
+  /**
+   * Compresses the values written to, and decompresses the values read from,
+   * this oplog's crf. Null if its values are not compressed.
+   */
+  private final Compressor compressor;
+
   /** The store that owns this Oplog* */
   private final DiskStoreImpl parent;
 
@@ -190,6 +204,13 @@ public final class Oplog implements CompactableOplog, Flushable {
    */
   private static final boolean SYNC_WRITES = Boolean.getBoolean("gemfire.syncWrites");
 
+  /**
+   * If true, the default, crf and drf files are memory mapped during recovery
+   * and their records are parsed in place instead of through a buffered
+   * stream. Files of 2GB or more are always read through a stream.
+   */
+  static final boolean MAP_FILES_FOR_RECOVERY = DiskStoreImpl.getBoolean("gemfire.disk.mapFilesForRecovery", true);
+
   /**
    * The HighWaterMark of recentValues.
    */
@@ -615,6 +636,8 @@ public final class Oplog implements CompactableOplog, Flushable {
     }
     setMaxCrfDrfSize();
     this.stats = getParent().getStats();
+    this.groupCommitter = createGroupCommitter();
+    this.compressor = getParent().getOplogCompressor();
     this.compactOplogs = getParent().getAutoCompact();
 
     this.closed = false;
@@ -676,6 +699,8 @@ public final class Oplog implements CompactableOplog, Flushable {
     }
     setMaxCrfDrfSize();
     this.stats = prevOplog.stats;
+    this.groupCommitter = createGroupCommitter();
+    this.compressor = getParent().getOplogCompressor();
     this.compactOplogs = prevOplog.compactOplogs;
     // copy over the previous Oplog's data version since data is not being
     // transformed at this point
@@ -875,6 +900,8 @@ public final class Oplog implements CompactableOplog, Flushable {
     this.maxOplogSize = maxOplogSizeParam;
     setMaxCrfDrfSize();
     this.stats = getParent().getStats();
+    this.groupCommitter = createGroupCommitter();
+    this.compressor = getParent().getOplogCompressor(getParent().getDiskInitFile().getCrfCompressorClassName(oplogId));
     this.compactOplogs = getParent().getAutoCompact();
     this.closed = true;
     this.crf.RAFClosed = true;
@@ -1111,6 +1138,9 @@ public final class Oplog implements CompactableOplog, Flushable {
     this.crf.raf = new UninterruptibleRandomAccessFile(f, SYNC_WRITES ? "rwd" : "rw");
     this.crf.RAFClosed = false;
     oplogSet.crfCreate(this.oplogId);
+    if (this.compressor != null) {
+      oplogSet.crfCompressor(this.oplogId, this.compressor.getClass().getName());
+    }
     this.crf.writeBuf = allocateWriteBuf(prevOlf);
     logger.info(LocalizedMessage.create(LocalizedStrings.Oplog_CREATE_0_1_2, new Object[] { toString(), getFileType(this.crf),
         getParent().getName() }));
@@ -1550,7 +1580,7 @@ public final class Oplog implements CompactableOplog, Flushable {
         FileInputStream fis = null;
         try {
           fis = new FileInputStream(drfFile);
-          dis = new CountingDataInputStream(new BufferedInputStream(fis, 32 * 1024), drfFile.length());
+          dis = createRecoveryInputStream(fis, drfFile.length(), 32 * 1024);
           boolean endOfLog = false;
           while (!endOfLog) {
             if (dis.atEndOfFile()) {
@@ -1671,6 +1701,22 @@ public final class Oplog implements CompactableOplog, Flushable {
     }
   }
 
+  /**
+   * Returns a stream that reads the given crf or drf file for recovery.
+   * If {@link #MAP_FILES_FOR_RECOVERY} then the file is mapped so that the
+   * records can be parsed in place. Closing the returned stream unmaps the
+   * file so that it can be deleted once the oplog is no longer needed; if
+   * this VM cannot unmap explicitly the file is read through a stream.
+   */
+  private static CountingDataInputStream createRecoveryInputStream(FileInputStream fis, long fileLength, int bufferSize)
+      throws IOException {
+    if (MAP_FILES_FOR_RECOVERY && CountingDataInputStream.canUnmap() && fileLength > 0
+        && fileLength < Integer.MAX_VALUE) {
+      return CountingDataInputStream.forMappedFile(fis.getChannel().map(MapMode.READ_ONLY, 0, fileLength), fileLength);
+    }
+    return new CountingDataInputStream(new BufferedInputStream(fis, bufferSize), fileLength);
+  }
+
   /**
    * This map is used during recovery to keep track of what entries were
    * recovered. Its keys are the oplogEntryId; its values are the actual logical
@@ -1925,7 +1971,7 @@ public final class Oplog implements CompactableOplog, Flushable {
       FileInputStream fis = null;
       try {
         fis = new FileInputStream(this.crf.f);
-        dis = new CountingDataInputStream(new BufferedInputStream(fis, 1024 * 1024), this.crf.f.length());
+        dis = createRecoveryInputStream(fis, this.crf.f.length(), 1024 * 1024);
         boolean endOfLog = false;
         while (!endOfLog) {
           // long startPosition = byteCount;
@@ -2537,6 +2583,7 @@ public final class Oplog implements CompactableOplog, Flushable {
       if (recoverValue && !skipResult.skip()) {
         byte[] valueBytes = new byte[len];
         dis.readFully(valueBytes);
+        valueBytes = decompressValue(valueBytes);
         objValue = valueBytes;
         validateValue(valueBytes, userBits, version, in);
       } else {
@@ -2735,6 +2782,7 @@ public final class Oplog implements CompactableOplog, Flushable {
       if (!skipResult.skip() && recoverValue) {
         byte[] valueBytes = new byte[len];
         dis.readFully(valueBytes);
+        valueBytes = decompressValue(valueBytes);
         objValue = valueBytes;
         validateValue(valueBytes, userBits, version, in);
       } else {
@@ -2959,6 +3007,7 @@ public final class Oplog implements CompactableOplog, Flushable {
       if (!skipResult.skip() && recoverValue) {
         byte[] valueBytes = new byte[len];
         dis.readFully(valueBytes);
+        valueBytes = decompressValue(valueBytes);
         objValue = valueBytes;
         validateValue(valueBytes, userBits, version, in);
       } else {
@@ -3114,12 +3163,28 @@ public final class Oplog implements CompactableOplog, Flushable {
       DiskRegionInfo dri = getDRI(dr);
       if (dri != null) {
         if (dri.testAndSetRecovered(dr)) {
-          this.unrecoveredRegionCount.decrementAndGet();
+          if (this.unrecoveredRegionCount.decrementAndGet() == 0) {
+            createDeferredKrf();
+          }
         }
       }
     }
   }
 
+  /**
+   * Schedule the creation of a krf that was skipped because this oplog had
+   * unrecovered regions, so that a later restart can read keys from the krf
+   * instead of reading the whole crf.
+   */
+  private void createDeferredKrf() {
+    synchronized (this.krfCreated) {
+      if (!this.krfDeferred || this.krfCreated.get()) {
+        return;
+      }
+    }
+    createKrfAsync();
+  }
+
   void updateDiskRegion(DiskRegionView dr) {
     DiskRegionInfo dri = getDRI(dr);
     if (dri != null) {
@@ -3491,10 +3556,64 @@ public final class Oplog implements CompactableOplog, Flushable {
     return this.opState.getSize();
   }
 
+  /**
+   * Returns the number of value bytes this.opState will write, which is less
+   * than the length of the value given to it if the value was compressed.
+   */
+  private int getOpStateValueLength() {
+    return this.opState.getValueLength();
+  }
+
   private int getOpStateValueOffset() {
     return this.opState.getValueOffset();
   }
 
+  private static final Flushable NO_FLUSH = new Flushable() {
+    @Override
+    public void flush() throws IOException {
+    }
+
+    @Override
+    public void flush(ByteBuffer bb, ByteBuffer chunkbb) throws IOException {
+      bb.put(chunkbb);
+    }
+  };
+
+  /**
+   * Returns the given value compressed with this oplog's compressor or the
+   * value itself if this oplog does not compress values.
+   */
+  private ValueWrapper compressValue(ValueWrapper vw) throws IOException {
+    if (this.compressor == null || vw.getLength() == 0) {
+      return vw;
+    }
+    final int length = vw.getLength();
+    byte[] bytes;
+    if (vw instanceof DiskEntry.Helper.ByteArrayValueWrapper
+        && ((DiskEntry.Helper.ByteArrayValueWrapper) vw).bytes.length == length) {
+      bytes = ((DiskEntry.Helper.ByteArrayValueWrapper) vw).bytes;
+    } else {
+      ByteBuffer bb = ByteBuffer.allocate(length);
+      vw.sendTo(bb, NO_FLUSH);
+      bytes = bb.array();
+    }
+    byte[] compressed = this.compressor.compress(bytes);
+    this.stats.incCompressedValueBytes(length, compressed.length);
+    return new DiskEntry.Helper.CompactorValueWrapper(compressed, compressed.length);
+  }
+
+  /**
+   * Returns the given value bytes, read from this oplog's crf, decompressed
+   * with this oplog's compressor.
+   */
+  private byte[] decompressValue(byte[] valueBytes) {
+    if (this.compressor == null || valueBytes == null || valueBytes.length == 0) {
+      return valueBytes;
+    }
+    this.stats.incValueDecompressions();
+    return this.compressor.decompress(valueBytes);
+  }
+
   private byte calcUserBits(ValueWrapper vw) {
     return vw.getUserBits();
   }
@@ -3598,6 +3717,7 @@ public final class Oplog implements CompactableOplog, Flushable {
       InterruptedException {
     DiskId id = entry.getDiskId();
     boolean useNextOplog = false;
+    boolean commitNeeded = false;
     long startPosForSynchOp = -1;
     if (DiskStoreImpl.KRF_DEBUG) {
       // wait for cache close to create krf
@@ -3665,13 +3785,14 @@ public final class Oplog implements CompactableOplog, Flushable {
         id.setOplogId(getOplogId());
         // do the io while holding lock so that switch can set doneAppending
         // Write the data to the opLog for the synch mode
-        startPosForSynchOp = writeOpLogBytes(this.crf, async, true);
+        startPosForSynchOp = writeOpLogBytesForCommit(this.crf, async);
+        commitNeeded = isGroupCommit(async);
         // if (this.crf.currSize != startPosForSynchOp) {
         // assert false;
         // }
         this.crf.currSize = temp;
         if (EntryBits.isNeedsValue(userBits)) {
-          id.setValueLength(value.getLength());
+          id.setValueLength(getOpStateValueLength());
         } else {
           id.setValueLength(0);
         }
@@ -3716,6 +3837,9 @@ public final class Oplog implements CompactableOplog, Flushable {
       clearOpState();
       // }
     }
+    if (commitNeeded) {
+      groupCommit();
+    }
     if (useNextOplog) {
       if (LocalRegion.ISSUE_CALLBACKS_TO_CACHE_OBSERVER) {
         CacheObserverHolder.getInstance().afterSwitchingOplog();
@@ -4024,6 +4148,13 @@ public final class Oplog implements CompactableOplog, Flushable {
 
   private final AtomicBoolean krfCreated = new AtomicBoolean();
 
+  /**
+   * Set when a krf could not be created because this oplog had records
+   * for regions that were not yet recovered. The krf is created once the
+   * last of those regions is recovered. Guarded by krfCreated.
+   */
+  private boolean krfDeferred = false;
+
   public void krfFileCreate() throws IOException {
     // this method is only used by offline compaction. validating will not
     // create krf
@@ -4192,13 +4323,16 @@ public final class Oplog implements CompactableOplog, Flushable {
           if (this.krfCreated.get()) {
             return;
           }
-          this.krfCreated.set(true);
 
           if (this.unrecoveredRegionCount.get() > 0) {
             // if we have unrecovered regions then we can't create
             // a KRF because we don't have the list of live entries.
+            // Try again once all of them have been recovered.
+            this.krfDeferred = true;
             return;
           }
+          this.krfCreated.set(true);
+          this.krfDeferred = false;
 
           int tlc = (int) this.totalLiveCount.get();
           if (tlc <= 0) {
@@ -4634,6 +4768,7 @@ public final class Oplog implements CompactableOplog, Flushable {
       boolean calledByCompactor) throws IOException, InterruptedException {
     DiskId id = entry.getDiskId();
     boolean useNextOplog = false;
+    boolean commitNeeded = false;
     long startPosForSynchOp = -1L;
     int adjustment = 0;
     Oplog emptyOplog = null;
@@ -4665,7 +4800,8 @@ public final class Oplog implements CompactableOplog, Flushable {
           long oldOplogId;
           // do the io while holding lock so that switch can set doneAppending
           // Write the data to the opLog for the synch mode
-          startPosForSynchOp = writeOpLogBytes(this.crf, async, true);
+          startPosForSynchOp = writeOpLogBytesForCommit(this.crf, async);
+          commitNeeded = isGroupCommit(async);
           this.crf.currSize = temp;
           startPosForSynchOp += getOpStateValueOffset();
           if (logger.isTraceEnabled(LogMarker.PERSIST_WRITES)) {
@@ -4679,7 +4815,7 @@ public final class Oplog implements CompactableOplog, Flushable {
               dr.getId(), tag, getOplogId());
           }
           if (EntryBits.isNeedsValue(userBits)) {
-            id.setValueLength(value.getLength());
+            id.setValueLength(getOpStateValueLength());
           } else {
             id.setValueLength(0);
           }
@@ -4732,6 +4868,10 @@ public final class Oplog implements CompactableOplog, Flushable {
       }
       // }
     }
+    if (commitNeeded) {
+      // the new value must be flushed before emptyOplog can be deleted
+      groupCommit();
+    }
     if (useNextOplog) {
       if (LocalRegion.ISSUE_CALLBACKS_TO_CACHE_OBSERVER) {
         CacheObserverHolder.getInstance().afterSwitchingOplog();
@@ -4762,6 +4902,7 @@ public final class Oplog implements CompactableOplog, Flushable {
   private void basicSaveConflictVersionTag(DiskRegionView dr, VersionTag tag, boolean async) throws IOException,
       InterruptedException {
     boolean useNextOplog = false;
+    boolean commitNeeded = false;
     int adjustment = 0;
     synchronized (this.lock) {
       if (getOplogSet().getChild() != this) {
@@ -4782,7 +4923,8 @@ public final class Oplog implements CompactableOplog, Flushable {
             throw cce;
           }
           this.firstRecord = false;
-          writeOpLogBytes(this.crf, async, true);
+          writeOpLogBytesForCommit(this.crf, async);
+          commitNeeded = isGroupCommit(async);
           this.crf.currSize = temp;
           if (logger.isTraceEnabled(LogMarker.PERSIST_WRITES)) {
             logger.trace(LogMarker.PERSIST_WRITES, "basicSaveConflictVersionTag: drId={} versionStamp={} oplog#", dr.getId(), tag,
@@ -4800,6 +4942,9 @@ public final class Oplog implements CompactableOplog, Flushable {
         clearOpState();
       }
     }
+    if (commitNeeded) {
+      groupCommit();
+    }
     if (useNextOplog) {
       if (LocalRegion.ISSUE_CALLBACKS_TO_CACHE_OBSERVER) {
         CacheObserverHolder.getInstance().afterSwitchingOplog();
@@ -4834,7 +4979,7 @@ public final class Oplog implements CompactableOplog, Flushable {
           startPosForSynchOp = writeOpLogBytes(this.crf, true, true);
           this.crf.currSize = temp;
           startPosForSynchOp += getOpStateValueOffset();
-          getOplogSet().getChild().writeOneKeyEntryForKRF(keyBytes, userBits, valueBytes.length, drId, oplogKeyId,
+          getOplogSet().getChild().writeOneKeyEntryForKRF(keyBytes, userBits, getOpStateValueLength(), drId, oplogKeyId,
               startPosForSynchOp, tag);
 
           if (logger.isTraceEnabled(LogMarker.PERSIST_WRITES)) {
@@ -5066,6 +5211,7 @@ public final class Oplog implements CompactableOplog, Flushable {
     DiskId id = entry.getDiskId();
 
     boolean useNextOplog = false;
+    boolean commitNeeded = false;
     long startPosForSynchOp = -1;
     Oplog emptyOplog = null;
     if (DiskStoreImpl.KRF_DEBUG) {
@@ -5112,7 +5258,8 @@ public final class Oplog implements CompactableOplog, Flushable {
           // before we flush the crf.
           // However we can't have removes by async if we are doing a sync write
           // because we might be killed right after we do this write.
-          startPosForSynchOp = writeOpLogBytes(this.drf, async, true);
+          startPosForSynchOp = writeOpLogBytesForCommit(this.drf, async);
+          commitNeeded = isGroupCommit(async);
           setHasDeletes(true);
           if (logger.isTraceEnabled(LogMarker.PERSIST_WRITES)) {
             logger.debug("basicRemove: id=<{}> key=<{}> drId={} oplog#{}", abs(id.getKeyId()), entry.getKey(), dr.getId(),
@@ -5145,6 +5292,9 @@ public final class Oplog implements CompactableOplog, Flushable {
         clearOpState();
       }
     }
+    if (commitNeeded) {
+      groupCommit();
+    }
     if (useNextOplog) {
       if (LocalRegion.ISSUE_CALLBACKS_TO_CACHE_OBSERVER) {
         CacheObserverHolder.getInstance().afterSwitchingOplog();
@@ -5284,6 +5434,48 @@ public final class Oplog implements CompactableOplog, Flushable {
     }
   }
 
+  private OplogGroupCommitter createGroupCommitter() {
+    if (!getParent().GROUP_COMMIT) {
+      return null;
+    }
+    return new OplogGroupCommitter() {
+      @Override
+      protected void flush() {
+        flushAll(false, true/* doSync */);
+      }
+    };
+  }
+
+  private boolean isGroupCommit(boolean async) {
+    return !async && this.groupCommitter != null;
+  }
+
+  /**
+   * Writes the current op state like {@link #writeOpLogBytes} except that
+   * when this oplog does group commits a synchronous write is only
+   * buffered. The caller must then call {@link #groupCommit()} once it has
+   * released the oplog lock.
+   */
+  private long writeOpLogBytesForCommit(OplogFile olf, boolean async) throws IOException {
+    if (!isGroupCommit(async)) {
+      return writeOpLogBytes(olf, async, true);
+    }
+    long result = writeOpLogBytes(olf, false, false);
+    this.groupCommitter.written();
+    return result;
+  }
+
+  /**
+   * Waits until every synchronous write buffered by this thread
+   * has been flushed by a group commit.
+   */
+  private void groupCommit() {
+    long writes = this.groupCommitter.commit();
+    if (writes > 0) {
+      getStats().incGroupCommits(writes);
+    }
+  }
+
   /**
    * Asif: Since the ByteBuffer being writen to can have additional bytes which
    * are used for extending the size of the file, it is necessary that the
@@ -5438,7 +5630,7 @@ public final class Oplog implements CompactableOplog, Flushable {
               byte[] valueBytes = new byte[valueLength];
               myRAF.readFully(valueBytes);
               this.stats.incOplogReads();
-              bb = new BytesAndBits(valueBytes, userBits);
+              bb = new BytesAndBits(decompressValue(valueBytes), userBits);
               // also set the product version for an older product
               final Version version = getProductVersionIfOld();
               if (version != null) {
@@ -5616,7 +5808,12 @@ public final class Oplog implements CompactableOplog, Flushable {
               this.crf.raf.readFully(valueBytes, 0, valueLength);
             }
             this.stats.incOplogReads();
-            wrapper.setData(valueBytes, userBits, valueLength, true);
+            if (this.compressor != null) {
+              valueBytes = decompressValue(valueBytes.length == valueLength ? valueBytes : Arrays.copyOf(valueBytes, valueLength));
+              wrapper.setData(valueBytes, userBits, valueBytes.length, true);
+            } else {
+              wrapper.setData(valueBytes, userBits, valueLength, true);
+            }
           } finally {
             // if this oplog is no longer being appended to then don't waste
             // disk io
@@ -5904,6 +6101,22 @@ public final class Oplog implements CompactableOplog, Flushable {
     return false;
   }
 
+  /**
+   * @return the fraction of the records written to this oplog that are still
+   *         live. Oplogs with the most garbage are compacted first.
+   */
+  double getLiveRatio() {
+    long total = this.totalCount.get();
+    if (total <= 0) {
+      return 0;
+    }
+    long live = this.totalLiveCount.get();
+    if (live < 0) {
+      live = 0;
+    }
+    return (double) live / total;
+  }
+
   public boolean hadLiveEntries() {
     return this.totalCount.get() != 0;
   }
@@ -6063,16 +6276,43 @@ public final class Oplog implements CompactableOplog, Flushable {
     }
     isCompactorThread.set(Boolean.TRUE);
     assert calledByCompactorThread();
+    try {
+      // a pass ends early when the compactor needs to throttle; it sleeps
+      // between passes so that clear and close are not held up by the throttle
+      int totalCount = compactPass(compactor, 0, false);
+      while (compactor.pauseForThrottle()) {
+        totalCount = compactPass(compactor, totalCount, true);
+      }
+      return totalCount;
+    } finally {
+      assert calledByCompactorThread();
+      isCompactorThread.remove();
+    }
+  }
+
+  /**
+   * Copies live entries forward while holding the compactor locks until they
+   * are all copied or the compactor asks to throttle.
+   * 
+   * @param resumed
+   *          true if an earlier pass over this oplog paused to throttle
+   * @return totalCount plus the number of entries this pass copied forward
+   */
+  private int compactPass(OplogCompactor compactor, int totalCount, boolean resumed) {
     getParent().acquireCompactorReadLock();
     try {
       if (!compactor.keepCompactorRunning()) {
-        return 0;
+        return totalCount;
       }
       lockCompactor();
       try {
+        if (resumed && (this.closed || this.deleted.get())) {
+          // closed or destroyed while the compactor was paused
+          return totalCount;
+        }
         if (hasNoLiveValues()) {
           handleNoLiveValues();
-          return 0; // do this while holding compactorLock
+          return totalCount; // do this while holding compactorLock
         }
 
         // Asif:Start with a fresh wrapper on every compaction so that
@@ -6086,8 +6326,8 @@ public final class Oplog implements CompactableOplog, Flushable {
         boolean compactFailed = /*
                                  * getParent().getOwner().isDestroyed ||
                                  */!compactor.keepCompactorRunning();
-        int totalCount = 0;
-        for (DiskRegionInfo dri : this.regionMap.values()) {
+        boolean paused = false;
+        regions: for (DiskRegionInfo dri : this.regionMap.values()) {
           final DiskRegionView dr = dri.getDiskRegion();
           if (dr == null)
             continue;
@@ -6107,6 +6347,7 @@ public final class Oplog implements CompactableOplog, Flushable {
             }
             lastDe = de;
             didCompact = false;
+            int compactedBytes = 0;
             synchronized (de) { // fix for bug 41797
               DiskId did = de.getDiskId();
               assert did != null;
@@ -6127,6 +6368,8 @@ public final class Oplog implements CompactableOplog, Flushable {
                     }
                     continue;
                   }
+                  compactedBytes = wrapper.getOffHeapData() != null ? wrapper.getOffHeapData().getDataSize()
+                      : wrapper.getValidLength();
                   // write it to the current oplog
                   getOplogSet().getChild().copyForwardModifyForCompact(dr, de, wrapper);
                   // the did's oplogId will now be set to the current active oplog
@@ -6148,11 +6391,15 @@ public final class Oplog implements CompactableOplog, Flushable {
               if (!wrapper.isReusable()) {
                 wrapper = new BytesAndBitsForCompactor();
               }
+              if (compactor.addCompactedBytes(compactedBytes)) {
+                paused = true;
+                break regions;
+              }
             }
           }
         }
 
-        if (!compactFailed) {
+        if (!compactFailed && !paused) {
           // Need to still remove the oplog even if it had nothing to compact.
           handleNoLiveValues();
 
@@ -6166,8 +6413,6 @@ public final class Oplog implements CompactableOplog, Flushable {
       }
     } finally {
       getParent().releaseCompactorReadLock();
-      assert calledByCompactorThread();
-      isCompactorThread.remove();
     }
   }
 
@@ -6230,6 +6475,9 @@ public final class Oplog implements CompactableOplog, Flushable {
     }
 
     final ByteArrayDataInput in = new ByteArrayDataInput();
+    // Other oplogs may be recovering values concurrently. The lock keeps
+    // a region from copying its recovered entry map while we recover into it.
+    final Lock recoveryLock = getParent().getAsyncValueRecoveryEntryLock();
     for (KRFEntry entry : sortedLiveEntries) {
       // Early out if we start closing the parent.
       if (getParent().isClosing()) {
@@ -6250,31 +6498,35 @@ public final class Oplog implements CompactableOplog, Flushable {
       // from
       // disk is still valid. That is going to be something like
 
-      synchronized (diskRecoveryStores) {
-        DiskRecoveryStore diskRecoveryStore = diskRecoveryStores.get(diskRegionId);
-        if (diskRecoveryStore == null) {
-          continue;
-        }
-
-        // Reset the disk region view because it may have changed
-        // due to the region being created.
-        diskRegionView = diskRecoveryStore.getDiskRegionView();
+      recoveryLock.lock();
+      try {
+        DiskRecoveryStore diskRecoveryStore;
+        synchronized (diskRecoveryStores) {
+          diskRecoveryStore = diskRecoveryStores.get(diskRegionId);
+          if (diskRecoveryStore == null) {
+            continue;
+          }
 
-        if (diskRegionView == null) {
-          continue;
-        }
-        if (diskRecoveryStore.lruLimitExceeded()) {
-          diskRecoveryStores.remove(diskRegionId);
-          continue;
-        }
+          // Reset the disk region view because it may have changed
+          // due to the region being created.
+          diskRegionView = diskRecoveryStore.getDiskRegionView();
 
-        if (diskRegionView.isEntriesMapIncompatible()) {
-          // Refetch the disk entry because it may have changed due to copying
-          // an incompatible region map
-          diskEntry = (DiskEntry) diskRecoveryStore.getRegionMap().getEntryInVM(diskEntry.getKey());
-          if (diskEntry == null) {
+          if (diskRegionView == null) {
+            continue;
+          }
+          if (diskRecoveryStore.lruLimitExceeded()) {
+            diskRecoveryStores.remove(diskRegionId);
             continue;
           }
+
+          if (diskRegionView.isEntriesMapIncompatible()) {
+            // Refetch the disk entry because it may have changed due to copying
+            // an incompatible region map
+            diskEntry = (DiskEntry) diskRecoveryStore.getRegionMap().getEntryInVM(diskEntry.getKey());
+            if (diskEntry == null) {
+              continue;
+            }
+          }
         }
 
         synchronized (diskEntry) {
@@ -6301,10 +6553,14 @@ public final class Oplog implements CompactableOplog, Flushable {
               DiskEntry.Helper.recoverValue(diskEntry, getOplogId(), diskRecoveryStore, in);
             } catch (RegionDestroyedException e) {
               // This region has been destroyed, stop recovering from it.
-              diskRecoveryStores.remove(diskRegionId);
+              synchronized (diskRecoveryStores) {
+                diskRecoveryStores.remove(diskRegionId);
+              }
             }
           }
         }
+      } finally {
+        recoveryLock.unlock();
       }
     }
   }
@@ -6526,6 +6782,10 @@ public final class Oplog implements CompactableOplog, Flushable {
       return this.size;
     }
 
+    public final int getValueLength() {
+      return this.value.getLength();
+    }
+
     public String debugStr() {
       StringBuilder sb = new StringBuilder();
       sb.append(" opcode=").append(this.opCode).append(" len=").append(this.value.getLength()).append(" vb=").append(this.value.getBytesAsString());
@@ -6639,6 +6899,7 @@ public final class Oplog implements CompactableOplog, Flushable {
       initVersionsBytes(tag);
 
       if (this.needsValue) {
+        this.value = compressValue(this.value);
         this.size += 4 + this.value.getLength();
       }
       this.deltaIdBytesLength = 0;
@@ -6722,6 +6983,7 @@ public final class Oplog implements CompactableOplog, Flushable {
         saveDrId(drId);
       }
       if (this.needsValue) {
+        this.value = compressValue(this.value);
         this.size += 4 + this.value.getLength();
       }
       this.deltaIdBytesLength = 0;
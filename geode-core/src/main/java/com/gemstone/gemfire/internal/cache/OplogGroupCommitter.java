@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Batches the flushes of concurrent synchronous writers to an oplog.
+ * <p>
+ * A synchronous writer buffers its record while holding the oplog lock,
+ * calls {@link #written()}, releases the lock and then calls
+ * {@link #commit()}. The first writer to call commit becomes the leader
+ * and does a single flush, which also forces the oplog files if
+ * gemfire.syncWrites is set, on behalf of every record buffered so far.
+ * Writers that arrive while the leader is flushing wait for it and are
+ * released together once their records have been flushed, either by that
+ * flush or by the next one which one of them will lead.
+ * <p>
+ * A writer never returns from commit until its record has been flushed,
+ * so synchronous writes keep the same durability guarantee they have
+ * when each writer flushes its own record.
+ *
+ * @see DiskStoreImpl#GROUP_COMMIT_PROPERTY_NAME
+ */
+abstract class OplogGroupCommitter {
+  /**
+   * The number of records that have been buffered.
+   */
+  private final AtomicLong written = new AtomicLong();
+  /**
+   * The number of buffered records known to have been flushed.
+   * Guarded by this.
+   */
+  private long committed;
+  /**
+   * True while a leader is flushing. Guarded by this.
+   */
+  private boolean committing;
+
+  /**
+   * Flushes everything buffered in the oplog.
+   * Called by the leader without holding the lock on this committer.
+   */
+  protected abstract void flush();
+
+  /**
+   * Called after a synchronous record has been buffered
+   * and before the oplog lock is released.
+   */
+  final void written() {
+    this.written.incrementAndGet();
+  }
+
+  /**
+   * Waits until every record buffered before this call has been flushed,
+   * doing the flush if no other writer is currently doing one.
+   * The wait is not interruptible since the caller's record has already
+   * been buffered; the interrupt status is restored before returning.
+   *
+   * @return the number of records the flush done by this call included
+   *         or zero if another writer flushed them
+   */
+  final long commit() {
+    final long target = this.written.get();
+    boolean interrupted = false;
+    final long start;
+    try {
+      synchronized (this) {
+        while (this.committed < target && this.committing) {
+          try {
+            wait();
+          } catch (InterruptedException ignore) {
+            interrupted = true;
+          }
+        }
+        if (this.committed >= target) {
+          return 0;
+        }
+        this.committing = true;
+        start = this.committed;
+      }
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    // Everything buffered before the flush starts is included in it.
+    final long upTo = this.written.get();
+    boolean flushed = false;
+    try {
+      flush();
+      flushed = true;
+    } finally {
+      synchronized (this) {
+        this.committing = false;
+        if (flushed && upTo > this.committed) {
+          this.committed = upTo;
+        }
+        notifyAll();
+      }
+    }
+    return upTo - start;
+  }
+
+  /**
+   * Returns the number of buffered records not yet known to be flushed.
+   */
+  final synchronized long getPendingCount() {
+    return this.written.get() - this.committed;
+  }
+}
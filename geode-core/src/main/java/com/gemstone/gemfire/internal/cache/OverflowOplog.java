@@ -1335,13 +1335,39 @@ class OverflowOplog implements CompactableOplog, Flushable {
       return 0;
     }
     isCompactorThread.set(Boolean.TRUE);
+    try {
+      // a pass ends early when the compactor needs to throttle; it sleeps
+      // between passes so that clear and close are not held up by the throttle
+      int totalCount = compactPass(compactor, 0, false);
+      while (compactor.pauseForThrottle()) {
+        totalCount = compactPass(compactor, totalCount, true);
+      }
+      return totalCount;
+    } finally {
+      isCompactorThread.remove();
+    }
+  }
+
+  /**
+   * Copies live entries forward while holding the compactor locks until they
+   * are all copied or the compactor asks to throttle.
+   * 
+   * @param resumed
+   *          true if an earlier pass over this oplog paused to throttle
+   * @return totalCount plus the number of entries this pass copied forward
+   */
+  private int compactPass(OplogCompactor compactor, int totalCount, boolean resumed) {
     getParent().acquireCompactorReadLock();
     try {
     lockCompactor();
     try {
+      if (resumed && (this.closed || this.deleted.get())) {
+        // closed or destroyed while the compactor was paused
+        return totalCount;
+      }
       if (hasNoLiveValues()) {
         handleNoLiveValues();
-        return 0;
+        return totalCount;
       }
       //Asif:Start with a fresh wrapper on every compaction so that 
       //if previous run used some high memory byte array which was
@@ -1352,7 +1378,7 @@ class OverflowOplog implements CompactableOplog, Flushable {
       DiskEntry de;
       DiskEntry lastDe = null;
       boolean compactFailed = !compactor.keepCompactorRunning();
-      int totalCount = 0;
+      boolean paused = false;
       boolean didCompact = false;
       while ((de = getNextLiveEntry()) != null) {
         if (!compactor.keepCompactorRunning()) {
@@ -1367,6 +1393,7 @@ class OverflowOplog implements CompactableOplog, Flushable {
         }
         lastDe = de;
         didCompact = false;
+        int compactedBytes = 0;
         synchronized (de) { // fix for bug 41797
         DiskId did = de.getDiskId();
         assert did != null;
@@ -1408,6 +1435,7 @@ class OverflowOplog implements CompactableOplog, Flushable {
             getOplogSet().copyForwardForOverflowCompact(de, valueBytes, length, userBits);
             // the did's oplogId will now be set to the current active oplog
             didCompact = true;
+            compactedBytes = length;
           }
         } // did
         } // de
@@ -1423,17 +1451,20 @@ class OverflowOplog implements CompactableOplog, Flushable {
           if (!wrapper.isReusable()) {
             wrapper = new BytesAndBitsForCompactor();
           }
+          if (compactor.addCompactedBytes(compactedBytes)) {
+            paused = true;
+            break;
+          }
         }
       }
     
-      if (!compactFailed) {
+      if (!compactFailed && !paused) {
         // Need to still remove the oplog even if it had nothing to compact.
         handleNoLiveValues();
       }
       return totalCount;
     } finally {
       unlockCompactor();
-      isCompactorThread.remove();
     } 
     } finally {
       getParent().releaseCompactorReadLock();
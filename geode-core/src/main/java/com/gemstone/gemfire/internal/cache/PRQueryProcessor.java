@@ -81,6 +81,14 @@ public class PRQueryProcessor
   
   public final static int NUM_THREADS  = Integer.getInteger("gemfire.PRQueryProcessor.numThreads", 1).intValue();
 
+  /**
+   * The most tasks the local buckets of one query are split into when
+   * {@link #NUM_THREADS} is greater than one. Each task queries a contiguous
+   * share of the buckets, so one query cannot take over the whole pool.
+   * Zero or less means one task per bucket. Not final so tests can change it.
+   */
+  public static int MAX_PARALLELISM_PER_QUERY = Integer.getInteger("gemfire.PRQueryProcessor.maxParallelismPerQuery", 0).intValue();
+
   /* For Test purpose */
   public static int TEST_NUM_THREADS = 0;
   
@@ -139,7 +147,7 @@ public class PRQueryProcessor
       //((IndexTrackingQueryObserver)observer).setIndexInfo(resultCollector.getIndexInfoMap());
     //}
     
-    if (NUM_THREADS > 1 || this.TEST_NUM_THREADS > 1) {  
+    if ((NUM_THREADS > 1 || this.TEST_NUM_THREADS > 1) && this._bucketsToQuery.size() > 1) {  
       executeWithThreadPool(resultCollector);
     } else {
       executeSequentially(resultCollector, this._bucketsToQuery);
@@ -153,6 +161,7 @@ public class PRQueryProcessor
       
     java.util.List callableTasks = buildCallableTaskList(resultCollector);
     ExecutorService execService = PRQueryExecutor.getExecutorService();
+    final long start = CachePerfStats.getStatTime();
 
     boolean reattemptNeeded = false;
     ForceReattemptException fre = null;
@@ -201,6 +210,7 @@ public class PRQueryProcessor
             }
           }
         }
+        this.pr.getCachePerfStats().endPRQueryParallelExecution(start);
         
         CompiledSelect cs = this.query.getSimpleSelect();
        
@@ -431,12 +441,29 @@ public class PRQueryProcessor
   private List buildCallableTaskList(Collection<Collection> resultsColl)
   {
     List callableTasks = new ArrayList();
-    for (Iterator itr = _bucketsToQuery.iterator(); itr.hasNext();) {
-      Integer bId = (Integer)itr.next();
-      callableTasks.add(new QueryTask(this.query, this.parameters, _prds, bId, resultsColl));
+    int numBuckets = _bucketsToQuery.size();
+    int numTasks = getNumTasks(numBuckets, MAX_PARALLELISM_PER_QUERY);
+    int from = 0;
+    for (int i = 0; i < numTasks; i++) {
+      // spread the remainder over the first tasks
+      int to = from + numBuckets / numTasks + (i < numBuckets % numTasks ? 1 : 0);
+      callableTasks.add(new QueryTask(this.query, this.parameters, _prds,
+          _bucketsToQuery.subList(from, to), resultsColl));
+      from = to;
     }
     return callableTasks;
   }
+
+  /**
+   * @return the number of tasks to split numBuckets buckets into, given the
+   * maximum parallelism for one query
+   */
+  static int getNumTasks(int numBuckets, int maxParallelism) {
+    if (maxParallelism <= 0 || maxParallelism > numBuckets) {
+      return numBuckets;
+    }
+    return maxParallelism;
+  }
   
   public boolean isIndexUsed() {
     return isIndexUsedForLocalQuery;
@@ -453,8 +480,8 @@ public class PRQueryProcessor
   }
 
   /**
-   * A ThreadPool ( Fixed Size ) with an executor service to execute the query
-   * execution spread over buckets.
+   * A work stealing pool, sized by {@link PRQueryProcessor#NUM_THREADS}, to
+   * execute the query execution spread over buckets.
    * 
    * 
    */
@@ -543,8 +570,8 @@ public class PRQueryProcessor
   }
   
   /**
-   * Implementation of call-able task to execute query on a bucket region. This
-   * task will be generated by the PRQueryProcessor.
+   * Implementation of call-able task to execute query on a share of the
+   * bucket regions. This task will be generated by the PRQueryProcessor.
    * 
    */
   @SuppressWarnings("synthetic-access")
@@ -552,21 +579,22 @@ public class PRQueryProcessor
     private final DefaultQuery query;
     private final Object[] parameters;
     private final PartitionedRegionDataStore _prDs;
-    private final Integer _bucketId;
+    private final List<Integer> _bucketIds;
     private final Collection<Collection> resultColl;
     
     public QueryTask(DefaultQuery query, Object[] parameters, PartitionedRegionDataStore prDS, 
-        Integer bucketId, final Collection<Collection> rColl) {
+        List<Integer> bucketIds, final Collection<Collection> rColl) {
       this.query = query;
       this._prDs = prDS;
-      this._bucketId = bucketId;
+      this._bucketIds = bucketIds;
       this.resultColl = rColl;
       this.parameters = parameters;
     }
     
     public Object call() throws Exception {
-      BucketQueryResult bukResult = new BucketQueryResult(this._bucketId);
+      BucketQueryResult bukResult = new BucketQueryResult(this._bucketIds.get(0));
       boolean retry = false;
+      final long start = CachePerfStats.getStatTime();
       try {
         //Add indexInfo of this thread to result collector
         QueryObserver observer = QueryObserverHolder.getInstance();
@@ -574,11 +602,18 @@ public class PRQueryProcessor
           //((IndexTrackingQueryObserver)observer).setIndexInfo(resultColl.getIndexInfoMap());
         }
         
-        final Integer bId = Integer.valueOf(this._bucketId);
-        List<Integer> bucketList = Collections.singletonList(bId);       
         ExecutionContext context = new QueryExecutionContext(this.parameters, pr.getCache(), this.query);
-        context.setBucketList(bucketList);
-        executeQueryOnBuckets(this.resultColl, context);
+        CompiledSelect cs = this.query.getSimpleSelect();
+        if (cs != null && cs.isOrderBy()) {
+          // each bucket's results must stay separately sorted for the merge
+          for (Integer bId : this._bucketIds) {
+            context.setBucketList(Collections.singletonList(bId));
+            executeQueryOnBuckets(this.resultColl, context);
+          }
+        } else {
+          context.setBucketList(this._bucketIds);
+          executeQueryOnBuckets(this.resultColl, context);
+        }
         //executeSequentially(this.resultColl, bucketList);
         // success
         //doBucketQuery(bId, this._prDs, this.query, this.parameters, this.resultColl);
@@ -588,6 +623,8 @@ public class PRQueryProcessor
         bukResult.setException(e);
       } catch (CacheRuntimeException cre) {
         bukResult.setException(cre);
+      } finally {
+        pr.getCachePerfStats().endPRQueryTask(start);
       }
       // Exception
       return bukResult;
@@ -8370,6 +8370,7 @@ public class PartitionedRegion extends LocalRegion implements
       return;
     }
 
+    event.setEscaped();
     final long start = getCachePerfStats().startCacheWriterCall();
 
     try {
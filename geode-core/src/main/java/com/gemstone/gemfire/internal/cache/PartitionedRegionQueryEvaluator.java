@@ -19,6 +19,7 @@ package com.gemstone.gemfire.internal.cache;
 import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
 import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
 
+import java.util.AbstractCollection;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -28,6 +29,7 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
@@ -96,6 +98,11 @@ public class PartitionedRegionQueryEvaluator extends StreamingPartitionOperation
    */
   public static class MemberResultsList extends ArrayList {
     private boolean isLastChunkReceived = false;
+    /**
+     * The stream sequence number of each chunk added by
+     * {@link #addSortedChunk}, in the order the chunks were added.
+     */
+    private List<Integer> chunkSequence;
     
     public boolean isLastChunkReceived() {
       return isLastChunkReceived;
@@ -104,6 +111,85 @@ public class PartitionedRegionQueryEvaluator extends StreamingPartitionOperation
     public void setLastChunkReceived(boolean isLastChunkReceived) {
       this.isLastChunkReceived = isLastChunkReceived;
     }
+
+    /**
+     * Adds a chunk of a sorted result stream. Chunks may arrive out of order.
+     */
+    void addSortedChunk(Collection chunk, int sequenceNum) {
+      add(chunk);
+      if (this.chunkSequence == null) {
+        this.chunkSequence = new ArrayList<Integer>();
+      }
+      this.chunkSequence.add(sequenceNum);
+    }
+
+    /**
+     * Returns the chunks of this list, in sequence order, as one sorted
+     * collection. Returns null unless every element was added by
+     * {@link #addSortedChunk} and together they form exactly one stream,
+     * e.g. when a retry added a second stream from the same member.
+     */
+    Collection asSortedStream() {
+      if (this.chunkSequence == null || this.chunkSequence.size() != size()) {
+        return null;
+      }
+      Collection[] chunks = new Collection[size()];
+      for (int i = 0; i < chunks.length; i++) {
+        int seq = this.chunkSequence.get(i);
+        if (seq < 0 || seq >= chunks.length || chunks[seq] != null) {
+          return null;
+        }
+        chunks[seq] = (Collection) get(i);
+      }
+      return new ChunkedStream(chunks);
+    }
+  }
+
+  /**
+   * A read-only view of consecutive chunks as a single collection.
+   */
+  private static class ChunkedStream extends AbstractCollection {
+    private final Collection[] chunks;
+
+    ChunkedStream(Collection[] chunks) {
+      this.chunks = chunks;
+    }
+
+    @Override
+    public int size() {
+      int size = 0;
+      for (Collection c : this.chunks) {
+        size += c.size();
+      }
+      return size;
+    }
+
+    @Override
+    public Iterator iterator() {
+      return new Iterator() {
+        private int chunk = 0;
+        private Iterator current = Collections.emptyIterator();
+
+        @Override
+        public boolean hasNext() {
+          while (!this.current.hasNext()) {
+            if (this.chunk >= chunks.length) {
+              return false;
+            }
+            this.current = chunks[this.chunk++].iterator();
+          }
+          return true;
+        }
+
+        @Override
+        public Object next() {
+          if (!hasNext()) {
+            throw new NoSuchElementException();
+          }
+          return this.current.next();
+        }
+      };
+    }
   }
 
   /**
@@ -178,15 +264,17 @@ public class PartitionedRegionQueryEvaluator extends StreamingPartitionOperation
     //check if sender is pre gfe_90. In that case the results coming from them are not sorted
     // we will have to sort it
     boolean sortNeeded = false;
+    // newer senders stream one sorted result set, which can be merged as a whole
+    boolean sortedStream = false;
     List<CompiledSortCriterion> orderByAttribs = null;
-    if(sender.getVersionObject().compareTo(Version.GFE_90) < 0 ) {
-      CompiledSelect cs = this.query.getSimpleSelect();
-      if(cs != null && cs.isOrderBy()) {
+    CompiledSelect cs = this.query == null ? null : this.query.getSimpleSelect();
+    if(cs != null && cs.isOrderBy()) {
+      if(sender.getVersionObject().compareTo(Version.GFE_90) < 0 ) {
         sortNeeded = true;
         orderByAttribs = cs.getOrderByAttrs();
+      } else {
+        sortedStream = true;
       }
-      
-      
     }
     Collection results = this.resultsPerMember.get(sender);
     if (results == null) {
@@ -226,7 +314,11 @@ public class PartitionedRegionQueryEvaluator extends StreamingPartitionOperation
 
     synchronized (results) {
       if (!QueryMonitor.isLowMemory()) {        
-          results.add(objects);        
+        if (sortedStream) {
+          ((MemberResultsList) results).addSortedChunk(objects, sequenceNum);
+        } else {
+          results.add(objects);
+        }
       } else {
         if (logger.isDebugEnabled()) {
           logger.debug("query canceled while gathering results, aborting");
@@ -801,6 +893,14 @@ public class PartitionedRegionQueryEvaluator extends StreamingPartitionOperation
       
       List<Collection> allResults = new ArrayList<Collection>();
       for (Collection<Collection> memberResults : this.resultsPerMember.values()) {
+        // merge a member's chunks as one input when they form a single sorted
+        // stream so that the merge compares one head per member, not per chunk
+        Collection stream = memberResults instanceof MemberResultsList
+            ? ((MemberResultsList) memberResults).asSortedStream() : null;
+        if (stream != null) {
+          allResults.add(stream);
+          continue;
+        }
         for (Collection res : memberResults) {
           if (res != null) {
             allResults.add(res);
@@ -21,6 +21,8 @@ import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 import java.io.File;
 import java.io.FilenameFilter;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -436,6 +438,39 @@ public class PersistentOplogSet implements OplogSet {
     }
   }
   
+  /**
+   * Reads the drf of each of the given oplogs, concurrently if the disk
+   * store allows it, and adds the ids of the deleted entries to deletedIds.
+   * The drfs can be read in any order since a delete record only adds an
+   * id to the set and each recovered gc version only ever raises the gc
+   * version already recorded.
+   * @return the number of bytes read
+   */
+  private long recoverDrfs(Collection<Oplog> oplogs, final OplogEntryIdSet deletedIds) {
+    final boolean alreadyRecovered = this.alreadyRecoveredOnce.get();
+    final AtomicLong byteCount = new AtomicLong();
+    List<Runnable> tasks = new ArrayList<Runnable>(oplogs.size());
+    boolean latestOplog = true;
+    for (final Oplog oplog: oplogs) {
+      final boolean latest = latestOplog;
+      latestOplog = false;
+      tasks.add(new Runnable() {
+        public void run() {
+          OplogEntryIdSet oplogDeletedIds = new OplogEntryIdSet();
+          byteCount.addAndGet(oplog.recoverDrf(oplogDeletedIds, alreadyRecovered, latest));
+          synchronized (deletedIds) {
+            deletedIds.addAll(oplogDeletedIds);
+          }
+          if (!alreadyRecovered) {
+            updateOplogEntryId(oplog.getMaxRecoveredOplogEntryId());
+          }
+        }
+      });
+    }
+    parent.executeRecoveryTasks(tasks);
+    return byteCount.get();
+  }
+
   private long recoverOplogs(long byteCount) {
     OplogEntryIdSet deletedIds = new OplogEntryIdSet();
 
@@ -452,19 +487,15 @@ public class PersistentOplogSet implements OplogSet {
     if (oplogSet.size() > 0) {
       long startOpLogRecovery = System.currentTimeMillis();
       // first figure out all entries that have been destroyed
-      boolean latestOplog = true;
-      for (Oplog oplog: oplogSet) {
-        byteCount += oplog.recoverDrf(deletedIds,
-                                      this.alreadyRecoveredOnce.get(),
-                                      latestOplog);
-        latestOplog = false;
-        if (!this.alreadyRecoveredOnce.get()) {
-          updateOplogEntryId(oplog.getMaxRecoveredOplogEntryId());
-        }
-      }
+      long startDrfRecovery = parent.getStats().startRecoveryPhase();
+      byteCount += recoverDrfs(oplogSet, deletedIds);
+      parent.getStats().endDrfRecovery(startDrfRecovery);
       parent.incDeadRecordCount(deletedIds.size());
-      // now figure out live entries
-      latestOplog = true;
+      // now figure out live entries.
+      // The crfs are read one at a time, newest first, since whether
+      // a record is recovered depends on what the newer oplogs contained.
+      long startCrfRecovery = parent.getStats().startRecoveryPhase();
+      boolean latestOplog = true;
       for (Oplog oplog: oplogSet) {
         long startOpLogRead = parent.getStats().startOplogRead();
         long bytesRead = oplog.recoverCrf(deletedIds,
@@ -487,6 +518,7 @@ public class PersistentOplogSet implements OplogSet {
           drs.getDiskRegionView().oplogRecovered(oplog.oplogId);
         }
       }
+      parent.getStats().endCrfRecovery(startCrfRecovery);
       long endOpLogRecovery = System.currentTimeMillis();
       long elapsed = endOpLogRecovery - startOpLogRecovery;
       logger.info(LocalizedMessage.create(LocalizedStrings.DiskRegion_OPLOG_LOAD_TIME, elapsed));
@@ -1059,24 +1091,32 @@ public class PersistentOplogSet implements OplogSet {
    * @param max
    */
   public void getCompactableOplogs(List<CompactableOplog> l, int max) {
+    ArrayList<Oplog> compactable = new ArrayList<Oplog>();
     synchronized (this.oplogIdToOplog) {
-      // Sort this list so we compact the oldest first instead of the one
-      // that was
-      // compactable first.
-      // ArrayList<CompactableOplog> l = new
-      // ArrayList<CompactableOplog>(this.oplogIdToOplog.values());
-      // Collections.sort(l);
-      // Iterator<Oplog> itr = l.iterator();
-      {
-        Iterator<Oplog> itr = this.oplogIdToOplog.values().iterator();
-        while (itr.hasNext() && l.size() < max) {
-          Oplog oplog = itr.next();
-          if (oplog.needsCompaction()) {
-            l.add(oplog);
-          }
+      for (Oplog oplog : this.oplogIdToOplog.values()) {
+        if (oplog.needsCompaction()) {
+          compactable.add(oplog);
         }
       }
     }
+    // Compact the oplogs with the most garbage first since they free the
+    // most disk space for the fewest bytes copied forward. The sort is
+    // stable so oplogs with the same ratio are still compacted oldest first.
+    final HashMap<Oplog, Double> liveRatios = new HashMap<Oplog, Double>();
+    for (Oplog oplog : compactable) {
+      liveRatios.put(oplog, oplog.getLiveRatio());
+    }
+    Collections.sort(compactable, new Comparator<Oplog>() {
+      public int compare(Oplog o1, Oplog o2) {
+        return Double.compare(liveRatios.get(o1), liveRatios.get(o2));
+      }
+    });
+    for (Oplog oplog : compactable) {
+      if (l.size() >= max) {
+        break;
+      }
+      l.add(oplog);
+    }
   }
 
   public void scheduleForRecovery(DiskRecoveryStore drs) {
@@ -1160,6 +1200,10 @@ public class PersistentOplogSet implements OplogSet {
     getParent().getDiskInitFile().crfCreate(oplogId);
   }
 
+  public void crfCompressor(long oplogId, String compressorClassName) {
+    getParent().getDiskInitFile().crfCompressor(oplogId, compressorClassName);
+  }
+
   public void drfCreate(long oplogId) {
     getParent().getDiskInitFile().drfCreate(oplogId);
   }
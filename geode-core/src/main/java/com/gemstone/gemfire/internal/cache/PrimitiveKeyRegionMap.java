@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache;
+
+import com.gemstone.gemfire.internal.util.concurrent.ConcurrentMapWithReusableEntries;
+import com.gemstone.gemfire.internal.util.concurrent.CustomEntryConcurrentHashMap;
+import com.gemstone.gemfire.internal.util.concurrent.PrimitiveKeyConcurrentHashMap;
+
+/**
+ * Internal implementation of {@link RegionMap} for regions stored
+ * in normal VM memory whose keys are mostly {@link Integer}s or
+ * {@link Long}s. Entries are kept in a
+ * {@link PrimitiveKeyConcurrentHashMap} so lookups of those keys
+ * neither hash nor compare boxed keys.
+ *
+ * @see RegionMapFactory#PRIMITIVE_KEY_REGIONS_PROPERTY
+ */
+final class PrimitiveKeyRegionMap extends AbstractRegionMap {
+
+  PrimitiveKeyRegionMap(Object owner, Attributes attr,
+      InternalRegionArguments internalRegionArgs) {
+    super(internalRegionArgs);
+    initialize(owner, attr, internalRegionArgs, false/*isLRU*/);
+  }
+
+  @Override
+  protected ConcurrentMapWithReusableEntries<Object, Object> createConcurrentMap(
+      int initialCapacity, float loadFactor, int concurrencyLevel,
+      boolean isIdentityMap,
+      CustomEntryConcurrentHashMap.HashEntryCreator<Object, Object> entryCreator) {
+    return new PrimitiveKeyConcurrentHashMap<Object>(initialCapacity,
+        concurrencyLevel);
+  }
+}
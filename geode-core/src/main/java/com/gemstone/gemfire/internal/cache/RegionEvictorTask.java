@@ -130,6 +130,7 @@ public class RegionEvictorTask implements Callable<Object> {
         }
       }
     } finally {
+      getHeapEvictor().incBytesEvicted(totalBytesEvicted);
       getGemFireCache().getCachePerfStats().incEvictorJobsCompleted();
     }
   }
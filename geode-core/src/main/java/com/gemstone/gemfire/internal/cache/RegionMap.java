@@ -67,6 +67,10 @@ public interface RegionMap extends LRUMapCallbacks {
     /** whether "api" statistics are enabled */
     boolean statisticsEnabled = false;
     
+    /** whether entries are kept in a map specialized for
+     * Integer and Long keys */
+    boolean primitiveKeys = false;
+    
     /** whether LRU stats are required */
 //    boolean lru = false;
   }
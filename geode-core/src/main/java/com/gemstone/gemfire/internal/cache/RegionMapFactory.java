@@ -27,6 +27,30 @@ package com.gemstone.gemfire.internal.cache;
  *
  */
 class RegionMapFactory {
+  /**
+   * Comma separated full paths of the regions whose entries should be
+   * kept in a {@link PrimitiveKeyRegionMap}. Regions with eviction
+   * always use an LRU map.
+   */
+  static final String PRIMITIVE_KEY_REGIONS_PROPERTY = "gemfire.PRIMITIVE_KEY_REGIONS";
+
+  /**
+   * Returns true if the region with the given full path was named in
+   * {@link #PRIMITIVE_KEY_REGIONS_PROPERTY}.
+   */
+  static boolean usePrimitiveKeys(String regionPath) {
+    String regions = System.getProperty(PRIMITIVE_KEY_REGIONS_PROPERTY);
+    if (regions == null) {
+      return false;
+    }
+    for (String path : regions.split(",")) {
+      if (path.trim().equals(regionPath)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   /**
    * Creates a RegionMap that is stored in the VM.
    * @param owner the region that will be the owner of the map
@@ -41,6 +65,8 @@ class RegionMapFactory {
       return new ProxyRegionMap(owner, attrs, internalRegionArgs);
     } else if (owner.getEvictionController() != null ) {
       return new VMLRURegionMap(owner, attrs,internalRegionArgs);
+    } else if (attrs.primitiveKeys) {
+      return new PrimitiveKeyRegionMap(owner, attrs, internalRegionArgs);
     } else {
       return new VMRegionMap(owner, attrs, internalRegionArgs);
     }
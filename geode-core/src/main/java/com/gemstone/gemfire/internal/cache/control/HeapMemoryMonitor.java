@@ -20,6 +20,7 @@ import java.lang.management.ManagementFactory;
 import java.lang.management.MemoryMXBean;
 import java.lang.management.MemoryPoolMXBean;
 import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.Executors;
@@ -630,7 +631,37 @@ public void stopMonitoring() {
   public long getBytesUsed() {
     return getTenuredMemoryPoolMXBean().getUsage().getUsed();
   }
-  
+
+  /**
+   * Returns the number of bytes the tenured pool had in use right after its
+   * most recent collection, i.e. the live data that eviction has to remove.
+   * Falls back to {@link #getBytesUsed()} if the JVM does not report it or no
+   * collection has happened yet.
+   */
+  public long getBytesUsedAfterGC() {
+    long used = getTenuredCollectionUsage();
+    if (used < 0) {
+      return getBytesUsed();
+    }
+    return used;
+  }
+
+  /**
+   * Returns the number of bytes the tenured pool had in use right after its
+   * most recent collection. Unlike {@link #getBytesUsedAfterGC()} this only
+   * changes when a collection happens.
+   * 
+   * @return the bytes used or -1 if the JVM does not report it or no
+   *         collection has happened yet
+   */
+  public long getTenuredCollectionUsage() {
+    MemoryUsage usage = getTenuredMemoryPoolMXBean().getCollectionUsage();
+    if (usage == null || usage.getUsed() == 0) {
+      return -1;
+    }
+    return usage.getUsed();
+  }
+
   public static long getTenuredPoolMaxMemory() {
     return tenuredPoolMaxMemory;
   }
@@ -73,6 +73,11 @@ public class ResourceManagerStats {
   private static final int resourceEventsDeliveredId;
   private static final int resourceEventQueueSizeId;
   private static final int thresholdEventProcessorThreadJobsId;
+  private static final int heapEvictionLoopsId;
+  private static final int heapEvictionBytesEvictedId;
+  private static final int heapEvictionBytesTargetId;
+  private static final int heapEvictionPromotionRateId;
+  private static final int tenuredHeapUsedAfterGCId;
   
 
 
@@ -247,7 +252,27 @@ public class ResourceManagerStats {
             f.createIntGauge(
                 "thresholdEventProcessorThreadJobs",
                 "Number of jobs currently being processed by the thresholdEventProcessorThread",
-                "jobs")
+                "jobs"),
+            f.createIntCounter(
+                "heapEvictionLoops",
+                "Total number of passes made by the heap evictor while heap usage was over eviction threshold.",
+                "operations"),
+            f.createLongCounter(
+                "heapEvictionBytesEvicted",
+                "Total bytes evicted by the heap evictor's eviction tasks.",
+                "bytes", false),
+            f.createLongGauge(
+                "heapEvictionBytesTarget",
+                "The number of bytes the heap evictor is trying to evict in its current pass.",
+                "bytes"),
+            f.createLongGauge(
+                "heapEvictionPromotionRate",
+                "The rate at which live data is growing in the tenured/old space as estimated by the paced heap evictor.",
+                "bytes/second"),
+            f.createLongGauge(
+                "tenuredHeapUsedAfterGC",
+                "Memory used in the tenured/old space right after its most recent collection, as seen by the paced heap evictor",
+                "bytes")
       });
     
     rebalancesInProgressId = type.nameToId("rebalancesInProgress");
@@ -290,6 +315,11 @@ public class ResourceManagerStats {
     resourceEventsDeliveredId = type.nameToId("resourceEventsDelivered");
     resourceEventQueueSizeId = type.nameToId("resourceEventQueueSize");
     thresholdEventProcessorThreadJobsId = type.nameToId("thresholdEventProcessorThreadJobs");
+    heapEvictionLoopsId = type.nameToId("heapEvictionLoops");
+    heapEvictionBytesEvictedId = type.nameToId("heapEvictionBytesEvicted");
+    heapEvictionBytesTargetId = type.nameToId("heapEvictionBytesTarget");
+    heapEvictionPromotionRateId = type.nameToId("heapEvictionPromotionRate");
+    tenuredHeapUsedAfterGCId = type.nameToId("tenuredHeapUsedAfterGC");
   }
   
   private final Statistics stats;
@@ -568,6 +598,46 @@ public class ResourceManagerStats {
     return this.stats.getInt(thresholdEventProcessorThreadJobsId);
   }
 
+  public void incHeapEvictionLoops() {
+    this.stats.incInt(heapEvictionLoopsId, 1);
+  }
+
+  public int getHeapEvictionLoops() {
+    return this.stats.getInt(heapEvictionLoopsId);
+  }
+
+  public void incHeapEvictionBytesEvicted(long bytes) {
+    this.stats.incLong(heapEvictionBytesEvictedId, bytes);
+  }
+
+  public long getHeapEvictionBytesEvicted() {
+    return this.stats.getLong(heapEvictionBytesEvictedId);
+  }
+
+  public void changeHeapEvictionBytesTarget(long newValue) {
+    this.stats.setLong(heapEvictionBytesTargetId, newValue);
+  }
+
+  public long getHeapEvictionBytesTarget() {
+    return this.stats.getLong(heapEvictionBytesTargetId);
+  }
+
+  public void changeHeapEvictionPromotionRate(long newValue) {
+    this.stats.setLong(heapEvictionPromotionRateId, newValue);
+  }
+
+  public long getHeapEvictionPromotionRate() {
+    return this.stats.getLong(heapEvictionPromotionRateId);
+  }
+
+  public void changeTenuredHeapUsedAfterGC(long newValue) {
+    this.stats.setLong(tenuredHeapUsedAfterGCId, newValue);
+  }
+
+  public long getTenuredHeapUsedAfterGC() {
+    return this.stats.getLong(tenuredHeapUsedAfterGCId);
+  }
+
   /**
    * @return a {@link QueueStatHelper} so that we can record number of events
    * in the thresholdEventProcessor queue.
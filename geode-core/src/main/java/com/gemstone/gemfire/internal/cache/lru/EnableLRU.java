@@ -107,6 +107,18 @@ public interface EnableLRU {
    * @return the id
    */
   public int getGreedyReturnsStatId();
+
+  /**
+   * Returns the id of the "hits" statistic for this LRU algorithm's
+   * statistics.
+   */
+  public int getHitsStatId();
+
+  /**
+   * Returns the id of the "evaluationTime" statistic for this LRU
+   * algorithm's statistics.
+   */
+  public int getEvaluationTimeStatId();
   
   /**
    * Returns whether or not there is enough room to accommodate data
@@ -31,6 +31,7 @@ import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.logging.log4j.Logger;
 
@@ -48,6 +49,7 @@ import com.gemstone.gemfire.internal.cache.control.InternalResourceManager;
 import com.gemstone.gemfire.internal.cache.control.InternalResourceManager.ResourceType;
 import com.gemstone.gemfire.internal.cache.control.MemoryEvent;
 import com.gemstone.gemfire.internal.cache.control.ResourceListener;
+import com.gemstone.gemfire.internal.cache.control.ResourceManagerStats;
 import com.gemstone.gemfire.internal.lang.ThreadUtils;
 import com.gemstone.gemfire.internal.logging.LogService;
 import com.gemstone.gemfire.internal.logging.LoggingThreadGroup;
@@ -84,6 +86,19 @@ public class HeapEvictor implements ResourceListener<MemoryEvent> {
       "gemfire.HeapLRUCapacityController.higherEntryCountBucketCalculationInterval",
       100).intValue();
   
+  /**
+   * When true each eviction pass sizes its burst from the tenured space
+   * occupancy after the last GC and the rate at which live data is being
+   * promoted, instead of always evicting {@link #TOTAL_BYTES_TO_EVICT_FROM_HEAP}.
+   */
+  public static final boolean PACED_EVICTION = Boolean
+      .getBoolean("gemfire.HeapLRUCapacityController.pacedEviction");
+
+  // Delays between eviction passes, see getEvictionLoopDelayTime
+  private static final int FAST_LOOP_DELAY_MILLIS = 850;
+  private static final int LOOP_DELAY_STEP_MILLIS = 500;
+  private static final int SLOW_LOOP_DELAY_MILLIS = 3000;
+
   private static final String EVICTOR_THREAD_GROUP_NAME = "EvictorThreadGroup";
   
   private static final String EVICTOR_THREAD_NAME = "EvictorThread";
@@ -107,6 +122,17 @@ public class HeapEvictor implements ResourceListener<MemoryEvent> {
   private BlockingQueue<Runnable> poolQueue;
   
   private AtomicBoolean isRunning = new AtomicBoolean(true);
+
+  // Bytes reported by the RegionEvictorTasks since the last eviction pass
+  private final AtomicLong bytesEvictedSinceLastLoop = new AtomicLong();
+
+  // State of the paced eviction control loop. Only the eviction manager task
+  // updates these, and there is only ever one of those running at a time.
+  private volatile long pacedBytesToEvict = TOTAL_BYTES_TO_EVICT_FROM_HEAP;
+  // A pass starting longer than two slow loop delays after the previous one
+  // belongs to a new eviction episode
+  private final PromotionRateEstimator promotionRateEstimator =
+      new PromotionRateEstimator(2 * SLOW_LOOP_DELAY_MILLIS);
   
   public HeapEvictor(Cache gemFireCache) {
     this.cache = gemFireCache;
@@ -390,6 +416,8 @@ public class HeapEvictor implements ResourceListener<MemoryEvent> {
             // Has the test hook been set which will cause eviction to abort early
             if (numEvictionLoopsCompleted < testAbortAfterLoopCount) {
               try {
+                startEvictionLoop();
+
                 // Submit tasks into the queue to do the evictions
                 if (EVICT_HIGH_ENTRY_COUNT_BUCKETS_FIRST) {
                   createAndSubmitWeightedRegionEvictionTasks();
@@ -446,12 +474,127 @@ public class HeapEvictor implements ResourceListener<MemoryEvent> {
     }
   }
 
+  /**
+   * Records the outcome of the previous eviction pass and, if
+   * {@link #PACED_EVICTION} is enabled, recomputes how many bytes the next
+   * pass should evict.
+   */
+  private void startEvictionLoop() {
+    if (getResourceType() != ResourceType.HEAP_MEMORY) {
+      return;
+    }
+    InternalResourceManager irm = (InternalResourceManager)cache.getResourceManager();
+    ResourceManagerStats stats = irm.getStats();
+    long bytesEvicted = this.bytesEvictedSinceLastLoop.getAndSet(0);
+    stats.incHeapEvictionLoops();
+    stats.incHeapEvictionBytesEvicted(bytesEvicted);
+    if (!PACED_EVICTION) {
+      return;
+    }
+
+    HeapMemoryMonitor heapMonitor = irm.getHeapMonitor();
+    long usedAfterGC = heapMonitor.getBytesUsedAfterGC();
+    long promotionRate = this.promotionRateEstimator.update(
+        heapMonitor.getTenuredCollectionUsage(), bytesEvicted, System.currentTimeMillis());
+
+    this.pacedBytesToEvict = computePacedBytesToEvict(usedAfterGC,
+        heapMonitor.getThresholds().getEvictionThresholdClearBytes(), promotionRate,
+        getEvictionLoopDelayTime(), TOTAL_BYTES_TO_EVICT_FROM_HEAP);
+    stats.changeTenuredHeapUsedAfterGC(usedAfterGC);
+    stats.changeHeapEvictionPromotionRate(promotionRate);
+    stats.changeHeapEvictionBytesTarget(this.pacedBytesToEvict);
+  }
+
+  /**
+   * Returns the number of bytes a single eviction pass should evict: the amount
+   * by which the live data exceeds the eviction clear threshold, plus what is
+   * expected to be promoted before the next pass. The result is kept between a
+   * quarter and eight times the fixed burst size so that one bad sample can
+   * neither stall eviction nor evict a large part of the cache at once.
+   * 
+   * Package private for testing.
+   */
+  static long computePacedBytesToEvict(long usedAfterGC, long clearBytes, long promotionRate,
+      long loopDelayMillis, long burstBytes) {
+    long overshoot = Math.max(0, usedAfterGC - clearBytes);
+    long target = overshoot + promotionRate * loopDelayMillis / 1000;
+    long min = Math.max(1, burstBytes / 4);
+    long max = Math.max(min, burstBytes * 8);
+    return Math.min(max, Math.max(min, target));
+  }
+
+  /**
+   * Estimates the rate, in bytes per second, at which live data arrives in
+   * the tenured space. The tenured usage after a collection only changes when
+   * a collection happens, so a sample is taken only then. The bytes evicted
+   * between two samples are added back in since they would otherwise still be
+   * live. A sample may be negative when eviction outpaces promotion.
+   * 
+   * Package private for testing.
+   */
+  static final class PromotionRateEstimator {
+    private final long maxLoopGapMillis;
+    private long lastLoopTime = -1;
+    private long lastUsedAfterGC = -1;
+    private long lastSampleTime;
+    private long evictedSinceSample;
+    private boolean hasRate;
+    private long rate;
+
+    PromotionRateEstimator(long maxLoopGapMillis) {
+      this.maxLoopGapMillis = maxLoopGapMillis;
+    }
+
+    /**
+     * Called at the start of each eviction pass.
+     * 
+     * @param usedAfterGC
+     *          the tenured usage after the most recent collection, or -1 if
+     *          the JVM does not report it
+     * @param bytesEvicted
+     *          the bytes evicted since the previous pass
+     * @return the estimated promotion rate in bytes per second
+     */
+    long update(long usedAfterGC, long bytesEvicted, long now) {
+      if (this.lastLoopTime < 0 || now - this.lastLoopTime > this.maxLoopGapMillis) {
+        // earlier samples belong to a previous eviction episode
+        this.lastUsedAfterGC = -1;
+        this.hasRate = false;
+        this.rate = 0;
+      }
+      this.lastLoopTime = now;
+      this.evictedSinceSample += bytesEvicted;
+      if (usedAfterGC < 0 || usedAfterGC == this.lastUsedAfterGC) {
+        // no collection since the last sample
+        return this.rate;
+      }
+      if (this.lastUsedAfterGC >= 0 && now > this.lastSampleTime) {
+        long promoted = usedAfterGC - this.lastUsedAfterGC + this.evictedSinceSample;
+        long sampleRate = promoted * 1000 / (now - this.lastSampleTime);
+        this.rate = this.hasRate ? (this.rate + sampleRate) / 2 : sampleRate;
+        this.hasRate = true;
+      }
+      this.lastUsedAfterGC = usedAfterGC;
+      this.lastSampleTime = now;
+      this.evictedSinceSample = 0;
+      return this.rate;
+    }
+  }
+
+  /**
+   * Called by each {@link RegionEvictorTask} with the number of bytes it
+   * evicted.
+   */
+  public void incBytesEvicted(long bytes) {
+    this.bytesEvictedSinceLastLoop.addAndGet(bytes);
+  }
+
   protected int getEvictionLoopDelayTime() {
-    int delayTime = 850; // The waiting period when running fast loops
+    int delayTime = FAST_LOOP_DELAY_MILLIS; // The waiting period when running fast loops
     if ((numEvictionLoopsCompleted - numFastLoops) > 2) {
-      delayTime = 3000;  // Way below the threshold
+      delayTime = SLOW_LOOP_DELAY_MILLIS;  // Way below the threshold
     } else if (numEvictionLoopsCompleted >= numFastLoops) {
-      delayTime = (numEvictionLoopsCompleted - numFastLoops + 3) * 500; // Just below the threshold
+      delayTime = (numEvictionLoopsCompleted - numFastLoops + 3) * LOOP_DELAY_STEP_MILLIS; // Just below the threshold
     }
     
     return delayTime;  
@@ -482,6 +625,9 @@ public class HeapEvictor implements ResourceListener<MemoryEvent> {
   }
   
   public long getTotalBytesToEvict() {
+    if (PACED_EVICTION) {
+      return this.pacedBytesToEvict;
+    }
     return TOTAL_BYTES_TO_EVICT_FROM_HEAP;
   }
   
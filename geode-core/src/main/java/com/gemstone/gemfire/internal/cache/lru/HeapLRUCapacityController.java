@@ -94,6 +94,8 @@ public class HeapLRUCapacityController extends LRUAlgorithm {
     final String lruDestroysLimitDesc = "Maximum number of entry destroys triggered by LRU before scan occurs.";
     final String lruEvaluationsDesc = "Number of entries evaluated during LRU operations.";
     final String lruGreedyReturnsDesc = "Number of non-LRU entries evicted during LRU operations";
+    final String lruHitsDesc = "Number of evaluated entries that had been used since they were last evaluated and so were kept. lruHits divided by lruEvaluations is the hit ratio of the working set.";
+    final String lruEvaluationTimeDesc = "Total time spent choosing entries to evict. lruEvictions divided by lruEvaluationTime is the eviction throughput. Only updated when clock stats are enabled.";
 
     statType = f
         .createType(
@@ -105,7 +107,9 @@ public class HeapLRUCapacityController extends LRUAlgorithm {
                 f.createLongCounter("lruDestroys", lruDestroysDesc, "entries"),
                 f.createLongGauge("lruDestroysLimit", lruDestroysLimitDesc, "entries"),
                 f.createLongCounter("lruEvaluations", lruEvaluationsDesc, "entries"),
-                f.createLongCounter("lruGreedyReturns", lruGreedyReturnsDesc, "entries"), });
+                f.createLongCounter("lruGreedyReturns", lruGreedyReturnsDesc, "entries"),
+                f.createLongCounter("lruHits", lruHitsDesc, "entries"),
+                f.createLongCounter("lruEvaluationTime", lruEvaluationTimeDesc, "nanoseconds"), });
   }
 
   // //////////////////// Instance Fields /////////////////////
@@ -271,6 +275,14 @@ public class HeapLRUCapacityController extends LRUAlgorithm {
       public int getGreedyReturnsStatId() {
         return statType.nameToId("lruGreedyReturns");
       }
+
+      public int getHitsStatId() {
+        return statType.nameToId("lruHits");
+      }
+
+      public int getEvaluationTimeStatId() {
+        return statType.nameToId("lruEvaluationTime");
+      }
       
       /**
        * Okay, deep breath. Instead of basing the LRU calculation on the number
@@ -86,6 +86,10 @@ public final class LRUCapacityController extends LRUAlgorithm
       "Number of entries evaluated during LRU operations.";
     final String lruGreedyReturnsDesc =
       "Number of non-LRU entries evicted during LRU operations";
+    final String lruHitsDesc =
+      "Number of evaluated entries that had been used since they were last evaluated and so were kept. lruHits divided by lruEvaluations is the hit ratio of the working set.";
+    final String lruEvaluationTimeDesc =
+      "Total time spent choosing entries to evict. lruEvictions divided by lruEvaluationTime is the eviction throughput. Only updated when clock stats are enabled.";
 
     statType = f.createType( "LRUStatistics",
       "Statistics about entry based Least Recently Used region entry disposal",
@@ -97,6 +101,8 @@ public final class LRUCapacityController extends LRUAlgorithm
         f.createLongGauge("lruDestroysLimit", lruDestroysLimitDesc, "entries" ),
         f.createLongCounter("lruEvaluations", lruEvaluationsDesc, "entries" ),
         f.createLongCounter("lruGreedyReturns", lruGreedyReturnsDesc, "entries"),
+        f.createLongCounter("lruHits", lruHitsDesc, "entries"),
+        f.createLongCounter("lruEvaluationTime", lruEvaluationTimeDesc, "nanoseconds"),
       }
     );
     
@@ -312,6 +318,14 @@ public final class LRUCapacityController extends LRUAlgorithm
       public int getGreedyReturnsStatId() {
         return statType.nameToId("lruGreedyReturns");
       }
+
+      public int getHitsStatId() {
+        return statType.nameToId("lruHits");
+      }
+
+      public int getEvaluationTimeStatId() {
+        return statType.nameToId("lruEvaluationTime");
+      }
       
       public boolean mustEvict(LRUStatistics stats, Region region, int delta) {
        return stats.getCounter() + delta > stats.getLimit();
@@ -46,6 +46,8 @@ public class LRUStatistics  {
   protected int destroysId;
   protected  int evaluationsId;
   protected  int greedyReturnsId;
+  protected int hitsId;
+  protected int evaluationTimeId;
 
   // Note: the following atomics have been added so that the LRU code
   // does not depend on the value of a statistic for its operations.
@@ -79,6 +81,8 @@ public class LRUStatistics  {
     destroysId = helper.getDestroysStatId();
     this.evaluationsId = helper.getEvaluationsStatId();
     this.greedyReturnsId = helper.getGreedyReturnsStatId();
+    this.hitsId = helper.getHitsStatId();
+    this.evaluationTimeId = helper.getEvaluationTimeStatId();
   }
 
   public LRUStatistics(StatisticsFactory factory, String name,
@@ -91,6 +95,8 @@ public class LRUStatistics  {
     destroysId = 0;
     this.evaluationsId = 0;
     this.greedyReturnsId = 0;
+    this.hitsId = 0;
+    this.evaluationTimeId = 0;
   }
 
   public void close() {
@@ -200,6 +206,16 @@ public class LRUStatistics  {
   public void incGreedyReturns(long numEvals) {
     stats.incLong(greedyReturnsId, numEvals);
   }
+
+  public void incHits(long numHits) {
+    if (numHits != 0) {
+      stats.incLong(hitsId, numHits);
+    }
+  }
+
+  public void incEvaluationTime(long nanos) {
+    stats.incLong(evaluationTimeId, nanos);
+  }
   
 
   public Statistics getStats() {
@@ -21,6 +21,7 @@ import org.apache.logging.log4j.Logger;
 
 import com.gemstone.gemfire.StatisticsFactory;
 import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.distributed.internal.DistributionStats;
 import com.gemstone.gemfire.internal.i18n.LocalizedStrings;
 import com.gemstone.gemfire.internal.logging.LogService;
 import com.gemstone.gemfire.internal.logging.log4j.LocalizedMessage;
@@ -151,7 +152,7 @@ public NewLRUClockHand(Object region, EnableLRU ccHelper,
    *
    * @param  aNode  Description of the Parameter
    */  
-  public final void appendEntry( final LRUClockNode aNode ) {
+  public void appendEntry( final LRUClockNode aNode ) {
     synchronized (this.lock) {
       if (aNode.nextLRUNode() != null || aNode.prevLRUNode() != null) {
         return;
@@ -195,7 +196,9 @@ public NewLRUClockHand(Object region, EnableLRU ccHelper,
     * be in the pipe (unless it is the last empty marker).
     */
   public LRUClockNode getLRUEntry() {
+    final long start = DistributionStats.getStatTime();
     long numEvals = 0;
+    long numHits = 0;
     
     for (;;) {
 	LRUClockNode aNode = null;
@@ -206,7 +209,7 @@ public NewLRUClockHand(Object region, EnableLRU ccHelper,
 	}
 
       if ( aNode == null ) { // hit the end of the list
-        this.stats.incEvaluations(numEvals);
+        recordEvaluations(numEvals, numHits, start);
         return aNode;
       } // hit the end of the list
 
@@ -244,6 +247,7 @@ public NewLRUClockHand(Object region, EnableLRU ccHelper,
         if ( aNode.testRecentlyUsed()) {
           // Throw it back, it's in the working set
           aNode.unsetRecentlyUsed();
+          numHits++;
           // aNode.setInList();
           if (logger.isTraceEnabled(LogMarker.LRU_CLOCK)) {
             logger.trace(LogMarker.LRU_CLOCK, LocalizedMessage.create(LocalizedStrings.NewLRUClockHand_SKIPPING_RECENTLY_USED_ENTRY, aNode));
@@ -259,12 +263,25 @@ public NewLRUClockHand(Object region, EnableLRU ccHelper,
         }
 
         // Return the current node.
-        this.stats.incEvaluations(numEvals);
+        recordEvaluations(numEvals, numHits, start);
         return aNode;
       } // synchronized
     } // for
   }
 
+  /**
+   * Records the statistics of one search for an entry to evict.
+   * @param start the {@link DistributionStats#getStatTime() stat time}
+   * at which the search began
+   */
+  protected final void recordEvaluations(long numEvals, long numHits, long start) {
+    this.stats.incEvaluations(numEvals);
+    this.stats.incHits(numHits);
+    if (DistributionStats.enableClockStats) {
+      this.stats.incEvaluationTime(DistributionStats.getStatTime() - start);
+    }
+  }
+
   public void dumpList() {
     final boolean isDebugEnabled = logger.isTraceEnabled(LogMarker.LRU_CLOCK);
     if (!isDebugEnabled) {
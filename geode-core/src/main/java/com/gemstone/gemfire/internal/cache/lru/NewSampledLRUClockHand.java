@@ -0,0 +1,237 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache.lru;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.gemstone.gemfire.distributed.internal.DistributionStats;
+import com.gemstone.gemfire.internal.cache.AbstractRegionEntry;
+import com.gemstone.gemfire.internal.cache.InternalRegionArguments;
+import com.gemstone.gemfire.internal.cache.RegionEntry;
+import com.gemstone.gemfire.internal.cache.versions.RegionVersionVector;
+import com.gemstone.gemfire.internal.util.concurrent.CustomEntryConcurrentHashMap;
+
+/**
+ * NewSampledLRUClockHand picks entries to evict by sampling the region's
+ * entry map instead of walking a list. Entries are never linked into the
+ * LRU list, so appending an entry after it is used takes no lock.
+ * <p>
+ * Each search samples {@link #SAMPLE_SIZE} entries at a random position of
+ * the map. A sampled entry that was used since it was last sampled gets a
+ * second chance: its recently used bit is cleared and it is kept. The other
+ * sampled entries are offered to a small pool of candidates ordered by
+ * last modification time, and the oldest candidate that is still evictable
+ * is returned. The pool outlives a single search, so good candidates found
+ * by earlier samples are not lost.
+ *
+ * @since Geode 1.0
+ */
+public class NewSampledLRUClockHand extends NewLRUClockHand {
+
+  /**
+   * The number of entries sampled per round when choosing an entry to evict.
+   * Regions with an LRU eviction algorithm use sampling instead of the clock
+   * list when this is greater than zero.
+   */
+  public static int SAMPLE_SIZE = Integer.getInteger("gemfire.lru.sampleSize", 0).intValue();
+
+  /** The number of candidates kept between searches. */
+  private static final int POOL_SIZE = 16;
+
+  /** The number of sample rounds before falling back to a recently used entry. */
+  private static final int MAX_SAMPLE_ROUNDS = 5;
+
+  private final int sampleSize;
+
+  /** Whether invalid entries are skipped because evicting them frees nothing. */
+  private final boolean skipInvalid;
+
+  private volatile CustomEntryConcurrentHashMap<Object, Object> entryMap;
+
+  /** Candidates ordered by last modification time, oldest first. */
+  private final LRUClockNode[] pool = new LRUClockNode[POOL_SIZE];
+  private final long[] poolTimes = new long[POOL_SIZE];
+  private int poolSize;
+
+  public NewSampledLRUClockHand(Object region, EnableLRU ccHelper,
+      InternalRegionArguments internalRegionArgs) {
+    super(region, ccHelper, internalRegionArgs);
+    this.sampleSize = Math.max(SAMPLE_SIZE, 1);
+    this.skipInvalid = ccHelper.getEvictionAction().isOverflowToDisk();
+  }
+
+  /**
+   * Sets the map whose entries are sampled. Must be called before the
+   * first entry is evicted.
+   */
+  public void setEntryMap(CustomEntryConcurrentHashMap<Object, Object> map) {
+    this.entryMap = map;
+  }
+
+  /** Entries are found by sampling the entry map, so nothing is linked. */
+  @Override
+  public void appendEntry(LRUClockNode aNode) {
+  }
+
+  @Override
+  public boolean unlinkEntry(LRUClockNode entry) {
+    entry.setEvicted();
+    stats().incDestroys();
+    return true;
+  }
+
+  @Override
+  public LRUClockNode getLRUEntry() {
+    final CustomEntryConcurrentHashMap<Object, Object> map = this.entryMap;
+    if (map == null) {
+      return null;
+    }
+    final long start = DistributionStats.getStatTime();
+    final Object[] sample = new Object[this.sampleSize];
+    long numEvals = 0;
+    long numHits = 0;
+    LRUClockNode fallback = null;
+    LRUClockNode result = null;
+    for (int round = 0; round < MAX_SAMPLE_ROUNDS && result == null; round++) {
+      int n = map.sampleValues(sample, ThreadLocalRandom.current());
+      for (int i = 0; i < n; i++) {
+        Object o = sample[i];
+        sample[i] = null;
+        if (!(o instanceof LRUClockNode)) {
+          continue;
+        }
+        LRUClockNode node = (LRUClockNode)o;
+        numEvals++;
+        synchronized (node) {
+          if (!isEvictable(node)) {
+            continue;
+          }
+          if (node.testRecentlyUsed()) {
+            // in the working set; give it a second chance
+            node.unsetRecentlyUsed();
+            numHits++;
+            if (fallback == null) {
+              fallback = node;
+            }
+            continue;
+          }
+        }
+        offer(node);
+      }
+      result = poll();
+      if (n == 0) {
+        break;
+      }
+    }
+    if (result == null && fallback != null) {
+      synchronized (fallback) {
+        if (isEvictable(fallback)) {
+          stats().incGreedyReturns(1);
+          result = fallback;
+        }
+      }
+    }
+    recordEvaluations(numEvals, numHits, start);
+    return result;
+  }
+
+  private boolean isEvictable(LRUClockNode node) {
+    if (node.testEvicted()) {
+      return false;
+    }
+    if (node instanceof AbstractRegionEntry) {
+      AbstractRegionEntry re = (AbstractRegionEntry)node;
+      if (re.isInUseByTransaction() || re.isRemoved()) {
+        return false;
+      }
+      if (this.skipInvalid && re.isInvalidOrRemoved()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static long lastModified(LRUClockNode node) {
+    return node instanceof RegionEntry ? ((RegionEntry)node).getLastModified() : 0L;
+  }
+
+  /** Adds a candidate to the pool if it is older than the newest one there. */
+  private void offer(LRUClockNode node) {
+    final long time = lastModified(node);
+    synchronized (this.pool) {
+      int size = this.poolSize;
+      for (int i = 0; i < size; i++) {
+        if (this.pool[i] == node) {
+          return;
+        }
+      }
+      if (size == POOL_SIZE) {
+        if (time >= this.poolTimes[size - 1]) {
+          return;
+        }
+        size--; // drop the newest candidate
+      }
+      int i = size;
+      while (i > 0 && this.poolTimes[i - 1] > time) {
+        this.pool[i] = this.pool[i - 1];
+        this.poolTimes[i] = this.poolTimes[i - 1];
+        i--;
+      }
+      this.pool[i] = node;
+      this.poolTimes[i] = time;
+      this.poolSize = size + 1;
+    }
+  }
+
+  /**
+   * Removes and returns the oldest candidate that can still be evicted,
+   * discarding candidates that were used, evicted or destroyed since they
+   * were offered.
+   */
+  private LRUClockNode poll() {
+    for (;;) {
+      final LRUClockNode node;
+      synchronized (this.pool) {
+        if (this.poolSize == 0) {
+          return null;
+        }
+        node = this.pool[0];
+        this.poolSize--;
+        System.arraycopy(this.pool, 1, this.pool, 0, this.poolSize);
+        System.arraycopy(this.poolTimes, 1, this.poolTimes, 0, this.poolSize);
+        this.pool[this.poolSize] = null;
+      }
+      synchronized (node) {
+        if (isEvictable(node) && !node.testRecentlyUsed()) {
+          return node;
+        }
+      }
+    }
+  }
+
+  @Override
+  public void clear(RegionVersionVector rvv) {
+    if (rvv == null) {
+      synchronized (this.pool) {
+        Arrays.fill(this.pool, null);
+        this.poolSize = 0;
+      }
+    }
+    super.clear(rvv);
+  }
+}
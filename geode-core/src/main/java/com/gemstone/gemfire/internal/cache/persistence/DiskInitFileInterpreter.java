@@ -132,6 +132,8 @@ public interface DiskInitFileInterpreter {
                               String compressorClassName, boolean offHeap);
 
   void cmnKrfCreate(long oplogId);
+
+  void cmnCrfCompressor(long oplogId, String compressorClassName);
   
   boolean cmnPRCreate(String name, PRPersistentConfig config);
   
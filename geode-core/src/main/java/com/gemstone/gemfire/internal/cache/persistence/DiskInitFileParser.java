@@ -250,6 +250,16 @@ public class DiskInitFileParser {
         interpreter.cmnKrfCreate(oplogId);
       }
         break;
+      case DiskInitFile.IFREC_CRF_COMPRESSOR: {
+        long oplogId = dis.readLong();
+        String compressorClassName = dis.readUTF();
+        readEndOfRecord(dis);
+        if (logger.isTraceEnabled(LogMarker.PERSIST_RECOVERY)) {
+          logger.trace(LogMarker.PERSIST_RECOVERY, "IFREC_CRF_COMPRESSOR oplogId={} compressor={}", oplogId, compressorClassName);
+        }
+        interpreter.cmnCrfCompressor(oplogId, compressorClassName);
+      }
+        break;
       case DiskInitFile.IFREC_CRF_DELETE: {
         long oplogId = dis.readLong();
         readEndOfRecord(dis);
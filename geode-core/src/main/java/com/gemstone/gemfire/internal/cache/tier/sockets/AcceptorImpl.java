@@ -130,26 +130,14 @@ public class AcceptorImpl extends Acceptor implements Runnable
   private final Object syncLock = new Object();
 
   /**
-   * THE selector for the bridge server; null if no selector.
+   * The selector loops for the bridge server, each run by its own thread;
+   * null if no selector.
    */
-  private final Selector selector;
-  //private final Selector tmpSel;
-  /**
-   * Used for managing direct byte buffer for client comms; null if no selector.
-   */
-  private final LinkedBlockingQueue commBufferQueue;
+  private final SelectorLoop[] selectorLoops;
   /**
    * Used to timeout accepted sockets that we are waiting for the handshake packet
    */
   private final SystemTimer hsTimer;
-  /**
-   * A queue used to feed register requests to the selector; null if no selector.
-   */
-  private final LinkedBlockingQueue selectorQueue;
-  /**
-   * All the objects currently registered with selector.
-   */
-  private final HashSet selectorRegistrations;
   /**
    * tcpNoDelay setting for outgoing sockets
    */
@@ -216,9 +204,6 @@ public class AcceptorImpl extends Acceptor implements Runnable
   /** The thread that runs the acceptor */
   private Thread thread = null;
 
-  /** The thread that runs the selector loop if any */
-  private Thread selectorThread = null;
-
   /**
    * Controls updates to {@link #allSCs}
    */
@@ -357,26 +342,17 @@ public class AcceptorImpl extends Acceptor implements Runnable
       this.maxThreads = tmp_maxThreads;
     }
     {
-      Selector tmp_s = null;
-      //Selector tmp2_s = null;
-      LinkedBlockingQueue tmp_q = null;
-      LinkedBlockingQueue tmp_commQ = null;
-      HashSet tmp_hs = null;
+      SelectorLoop[] tmp_loops = null;
       SystemTimer tmp_timer = null;
       if (isSelector()) {
-        tmp_s = Selector.open(); // no longer catch ex to fix bug 36907
-        //tmp2_s = Selector.open(); // workaround for bug 39624
-        tmp_q = new LinkedBlockingQueue();
-        tmp_commQ = new LinkedBlockingQueue();
-        tmp_hs = new HashSet(512);
+        tmp_loops = new SelectorLoop[Math.max(1, SELECTOR_THREADS)];
+        for (int i = 0; i < tmp_loops.length; i++) {
+          tmp_loops[i] = new SelectorLoop();
+        }
         tmp_timer = new SystemTimer(
             c.getDistributedSystem(), true);
       }
-      this.selector = tmp_s;
-      //this.tmpSel = tmp2_s;
-      this.selectorQueue = tmp_q;
-      this.commBufferQueue = tmp_commQ;
-      this.selectorRegistrations = tmp_hs;
+      this.selectorLoops = tmp_loops;
       this.hsTimer = tmp_timer;
       this.tcpNoDelay = tcpNoDelay;
     }
@@ -679,6 +655,17 @@ public class AcceptorImpl extends Acceptor implements Runnable
   private final static int DEPRECATED_SELECTOR_POOL_SIZE = Integer.getInteger("BridgeServer.SELECTOR_POOL_SIZE", 16).intValue();
   private final static int HANDSHAKE_POOL_SIZE = Integer.getInteger("BridgeServer.HANDSHAKE_POOL_SIZE", 4).intValue();
 
+  /**
+   * The number of selector threads used to watch idle client connections when
+   * max-threads is set. Each connection stays with one of them, so raising
+   * this spreads the register and select work for very large numbers of
+   * clients over several threads. Not final so tests can change it before a
+   * server is started.
+   */
+  static int SELECTOR_THREADS = Integer.getInteger("BridgeServer.SELECTOR_THREADS", 1).intValue();
+
+  private static final boolean WORKAROUND_SELECTOR_BUG = Boolean.getBoolean("CacheServer.NIO_SELECTOR_WORKAROUND");
+
   @Override
   public void start() throws IOException
   {
@@ -695,17 +682,18 @@ public class AcceptorImpl extends Acceptor implements Runnable
     thread.start();
     
     if (isSelector()) {
-      Runnable r = new Runnable() {
-          public void run() {
-            AcceptorImpl.this.runSelectorLoop();
-          }
-        };
-      this.selectorThread = new Thread(tg, r, "Cache Server Selector "
-                                       + this.serverSock.getInetAddress()
-                                       + ":" + this.localPort
-                                       + " local port: "
-                                       + this.serverSock.getLocalPort());
-      this.selectorThread.start();
+      logger.info(LocalizedMessage.create(LocalizedStrings.AcceptorImpl_SELECTOR_ENABLED));
+      for (int i = 0; i < this.selectorLoops.length; i++) {
+        String name = "Cache Server Selector "
+            + this.serverSock.getInetAddress()
+            + ":" + this.localPort
+            + " local port: "
+            + this.serverSock.getLocalPort();
+        if (this.selectorLoops.length > 1) {
+          name += " #" + i;
+        }
+        this.selectorLoops[i].start(tg, name);
+      }
     }
     GemFireCacheImpl myCache  = (GemFireCacheImpl)cache;
     Set<PartitionedRegion> prs = myCache.getPartitionedRegions();
@@ -739,15 +727,24 @@ public class AcceptorImpl extends Acceptor implements Runnable
         return;
       }
     }
-    getSelectorQueue().offer(sc);
-    wakeupSelector();
+    getSelectorLoop(sc).register(sc);
   }
 
-  /** wake up the selector thread */
+  /**
+   * Returns the selector loop a connection is registered with. The choice
+   * only depends on the connection so it stays with one selector thread.
+   */
+  private SelectorLoop getSelectorLoop(ServerConnection sc) {
+    int i = (System.identityHashCode(sc) & 0x7fffffff) % this.selectorLoops.length;
+    return this.selectorLoops[i];
+  }
+
+  /** wake up the selector threads */
   private void wakeupSelector() {
-    Selector s = getSelector();
-    if (s != null && s.isOpen()) {
-      this.selector.wakeup();
+    if (this.selectorLoops != null) {
+      for (SelectorLoop loop : this.selectorLoops) {
+        loop.wakeup();
+      }
     }
   }
   
@@ -778,36 +775,6 @@ public class AcceptorImpl extends Acceptor implements Runnable
     }
   }
   
-  private void drainSelectorQueue() {
-    ServerConnection sc = (ServerConnection)this.selectorQueue.poll();
-    CancelException cce = null;
-    while (sc != null) {
-      try {
-        finishCon(sc);
-      }
-      catch (CancelException e) {
-        if (cce == null) {
-          cce = e;
-        }
-      }
-      sc = (ServerConnection)this.selectorQueue.poll();
-    }
-    Iterator it = selectorRegistrations.iterator();
-    while (it.hasNext()) {
-      try {
-        finishCon((ServerConnection)it.next());
-      }
-      catch (CancelException e) {
-        if (cce == null) {
-          cce = e;
-        }
-      }
-    } // while
-    if (cce != null) {
-      throw cce;
-    }
-  }
-
   /**
    * break any potential circularity in {@link #loadEmergencyClasses()}
    */
@@ -852,332 +819,419 @@ public class AcceptorImpl extends Acceptor implements Runnable
     }
   }
   
-  private boolean isRegisteredObjectClosed(ServerConnection sc) {
-    return sc.isClosed();
-  }
+  /**
+   * One selector thread and the connections registered with it. A connection
+   * always goes back to the same loop, picked by {@link #getSelectorLoop}.
+   */
+  private class SelectorLoop implements Runnable {
+    /**
+     * The selector for this loop.
+     */
+    private final Selector selector;
+    /**
+     * A queue used to feed register requests to the selector.
+     */
+    private final LinkedBlockingQueue selectorQueue = new LinkedBlockingQueue();
+    /**
+     * All the objects currently registered with selector.
+     */
+    private final HashSet selectorRegistrations = new HashSet(512);
+
+    private Selector tmpSel;
+
+    private int registeredKeys = 0;
+
+    private Thread thread;
+
+    SelectorLoop() throws IOException {
+      this.selector = Selector.open(); // no longer catch ex to fix bug 36907
+    }
 
-  private int checkRegisteredKeys(int count) {
-    int result = count;
-    CancelException cce = null;
-    if (count > 0) {
-      Iterator it = this.selectorRegistrations.iterator();
-      while (it.hasNext()) {
-        ServerConnection sc = (ServerConnection)it.next();
-        if (isRegisteredObjectClosed(sc)) {
-          result--;
-          it.remove();
-          try {
-            finishCon(sc);
+    void start(ThreadGroup tg, String name) {
+      this.thread = new Thread(tg, this, name);
+      this.thread.start();
+    }
+
+    void register(ServerConnection sc) {
+      this.selectorQueue.offer(sc);
+      wakeup();
+    }
+
+    /** wake up the selector thread */
+    void wakeup() {
+      if (this.selector.isOpen()) {
+        this.selector.wakeup();
+      }
+    }
+
+    void close() {
+      if (this.tmpSel != null) {
+        try {
+          this.tmpSel.close();
+        } catch (IOException ignore) {
+        }
+      }
+      try {
+        wakeup();
+        this.selector.close();
+      } catch (IOException ignore) {
+      }
+      if (this.thread != null) {
+        this.thread.interrupt();
+      }
+    }
+
+    private void drainSelectorQueue() {
+      ServerConnection sc = (ServerConnection)this.selectorQueue.poll();
+      CancelException cce = null;
+      while (sc != null) {
+        try {
+          finishCon(sc);
+        }
+        catch (CancelException e) {
+          if (cce == null) {
+            cce = e;
           }
-          catch (CancelException e) {
-            if (cce == null) {
-              cce = e;
-            }
+        }
+        sc = (ServerConnection)this.selectorQueue.poll();
+      }
+      Iterator it = selectorRegistrations.iterator();
+      while (it.hasNext()) {
+        try {
+          finishCon((ServerConnection)it.next());
+        }
+        catch (CancelException e) {
+          if (cce == null) {
+            cce = e;
           }
         }
       } // while
+      if (cce != null) {
+        throw cce;
+      }
     }
-    if (cce != null) {
-      throw cce;
-    }
-    return result;
-  }
-
-  private static final boolean WORKAROUND_SELECTOR_BUG = Boolean.getBoolean("CacheServer.NIO_SELECTOR_WORKAROUND");
 
-  private Selector tmpSel;
+    private boolean isRegisteredObjectClosed(ServerConnection sc) {
+      return sc.isClosed();
+    }
 
-  private void checkForStuckKeys() {
-    if (!WORKAROUND_SELECTOR_BUG) return;
-    if (tmpSel == null) {
-      try {
-        tmpSel = Selector.open();
-      } catch (IOException ignore) {
-        logger.warn(LocalizedMessage.create(LocalizedStrings.AcceptorImpl_COULD_NOT_CHECK_FOR_STUCK_KEYS, ignore));
-        return;
+    private int checkRegisteredKeys(int count) {
+      int result = count;
+      CancelException cce = null;
+      if (count > 0) {
+        Iterator it = this.selectorRegistrations.iterator();
+        while (it.hasNext()) {
+          ServerConnection sc = (ServerConnection)it.next();
+          if (isRegisteredObjectClosed(sc)) {
+            result--;
+            it.remove();
+            try {
+              finishCon(sc);
+            }
+            catch (CancelException e) {
+              if (cce == null) {
+                cce = e;
+              }
+            }
+          }
+        } // while
       }
-        
+      if (cce != null) {
+        throw cce;
+      }
+      return result;
     }
-    //logger.info("DEBUG: checking for stuck keys");
-    Iterator it = (new ArrayList(this.selector.keys())).iterator();
-    while (it.hasNext()) {
-      SelectionKey sk = (SelectionKey)it.next();
-      ServerConnection sc = (ServerConnection)sk.attachment();
-      if (sc == null) continue;
-      try {
-        sk.cancel();
-        this.selector.selectNow(); // clear the cancelled key
-        SelectionKey tmpsk = sc.getSelectableChannel().register(this.tmpSel, SelectionKey.OP_WRITE|SelectionKey.OP_READ);
+
+    private void checkForStuckKeys() {
+      if (!WORKAROUND_SELECTOR_BUG) return;
+      if (tmpSel == null) {
         try {
-          // it should always be writable
-          int events = this.tmpSel.selectNow();
-          if (events == 0) {
-            logger.info(LocalizedMessage.create(LocalizedStrings.AcceptorImpl_STUCK_SELECTION_KEY_DETECTED_ON_0, sc));
-            tmpsk.cancel();
-            tmpSel.selectNow(); // clear canceled key
-            sc.registerWithSelector2(this.selector);
-          } else {
-            if (tmpsk.isValid() && tmpsk.isReadable()) {
-              //             logger.info("DEBUG detected read event on " + sc);
-              try {
+          tmpSel = Selector.open();
+        } catch (IOException ignore) {
+          logger.warn(LocalizedMessage.create(LocalizedStrings.AcceptorImpl_COULD_NOT_CHECK_FOR_STUCK_KEYS, ignore));
+          return;
+        }
+        
+      }
+      //logger.info("DEBUG: checking for stuck keys");
+      Iterator it = (new ArrayList(this.selector.keys())).iterator();
+      while (it.hasNext()) {
+        SelectionKey sk = (SelectionKey)it.next();
+        ServerConnection sc = (ServerConnection)sk.attachment();
+        if (sc == null) continue;
+        try {
+          sk.cancel();
+          this.selector.selectNow(); // clear the cancelled key
+          SelectionKey tmpsk = sc.getSelectableChannel().register(this.tmpSel, SelectionKey.OP_WRITE|SelectionKey.OP_READ);
+          try {
+            // it should always be writable
+            int events = this.tmpSel.selectNow();
+            if (events == 0) {
+              logger.info(LocalizedMessage.create(LocalizedStrings.AcceptorImpl_STUCK_SELECTION_KEY_DETECTED_ON_0, sc));
+              tmpsk.cancel();
+              tmpSel.selectNow(); // clear canceled key
+              sc.registerWithSelector2(this.selector);
+            } else {
+              if (tmpsk.isValid() && tmpsk.isReadable()) {
+                //             logger.info("DEBUG detected read event on " + sc);
+                try {
+                  tmpsk.cancel();
+                  this.tmpSel.selectNow(); // clear canceled key
+                  this.selectorRegistrations.remove(sc);
+                  registeredKeys--;
+                  sc.makeBlocking();
+                  // we need to say we are processing a message
+                  // so that that client health monitor will not
+                  // kill us while we wait for a thread in the thread pool.
+                  // This is also be used to determine how long we are
+                  // in the thread pool queue and to cancel operations that
+                  // have waited too long in the queue.
+                  sc.setProcessingMessage();
+                } catch (ClosedChannelException ignore) {
+                  finishCon(sc);
+                  continue;
+                } catch (IOException ex) {
+                  finishCon(sc);
+                  if(isRunning()) {
+                    logger.warn(LocalizedMessage.create(LocalizedStrings.AcceptorImpl_UNEXPECTED_EXCEPTION, ex));
+                  }
+                  continue;
+                }
+                try {
+                  AcceptorImpl.this.stats.incThreadQueueSize();
+                  AcceptorImpl.this.pool.execute(sc);
+                } catch (RejectedExecutionException rejected) {
+                  finishCon(sc);
+                  AcceptorImpl.this.stats.decThreadQueueSize();
+                  if (!isRunning()) {
+                    break;
+                  }
+                  logger.warn(LocalizedMessage.create(LocalizedStrings.AcceptorImpl_UNEXPECTED_EXCEPTION, rejected));
+                }
+              } else if (tmpsk.isValid() && tmpsk.isWritable()) {
+                // this is expected
                 tmpsk.cancel();
                 this.tmpSel.selectNow(); // clear canceled key
-                this.selectorRegistrations.remove(sc);
-                registeredKeys--;
-                sc.makeBlocking();
-                // we need to say we are processing a message
-                // so that that client health monitor will not
-                // kill us while we wait for a thread in the thread pool.
-                // This is also be used to determine how long we are
-                // in the thread pool queue and to cancel operations that
-                // have waited too long in the queue.
-                sc.setProcessingMessage();
-              } catch (ClosedChannelException ignore) {
-                finishCon(sc);
-                continue;
-              } catch (IOException ex) {
-                finishCon(sc);
-                if(isRunning()) {
-                  logger.warn(LocalizedMessage.create(LocalizedStrings.AcceptorImpl_UNEXPECTED_EXCEPTION, ex));
-                }
-                continue;
+                sc.registerWithSelector2(this.selector);
+              } else if (!tmpsk.isValid()) {
+                tmpsk.cancel();
+                this.tmpSel.selectNow(); // clear canceled key
+                sc.registerWithSelector2(this.selector);
               }
+            }
+          } catch (IOException ex) {
+            if (isRunning() && this.selector.isOpen() && this.tmpSel.isOpen()) {
+              logger.warn(LocalizedMessage.create(LocalizedStrings.AcceptorImpl_UNEXPECTED_EXCEPTION, ex));
               try {
-                AcceptorImpl.this.stats.incThreadQueueSize();
-                AcceptorImpl.this.pool.execute(sc);
-              } catch (RejectedExecutionException rejected) {
-                finishCon(sc);
-                AcceptorImpl.this.stats.decThreadQueueSize();
-                if (!isRunning()) {
-                  break;
+                tmpsk.cancel();
+                tmpSel.selectNow(); // clear canceled key
+              } catch (IOException ex2) {
+                if (isRunning() && this.selector.isOpen() && this.tmpSel.isOpen()) {
+                  logger.warn(LocalizedMessage.create(LocalizedStrings.AcceptorImpl_UNEXPECTED_EXCEPTION, ex2));
                 }
-                logger.warn(LocalizedMessage.create(LocalizedStrings.AcceptorImpl_UNEXPECTED_EXCEPTION, rejected));
               }
-            } else if (tmpsk.isValid() && tmpsk.isWritable()) {
-              // this is expected
-              tmpsk.cancel();
-              this.tmpSel.selectNow(); // clear canceled key
-              sc.registerWithSelector2(this.selector);
-            } else if (!tmpsk.isValid()) {
-              tmpsk.cancel();
-              this.tmpSel.selectNow(); // clear canceled key
-              sc.registerWithSelector2(this.selector);
             }
           }
+        } catch (ClosedChannelException ignore) { // fix for bug 39650
+          // just ignore this channel and try the next one
+          finishCon(sc);
+          continue;
         } catch (IOException ex) {
           if (isRunning() && this.selector.isOpen() && this.tmpSel.isOpen()) {
             logger.warn(LocalizedMessage.create(LocalizedStrings.AcceptorImpl_UNEXPECTED_EXCEPTION, ex));
-            try {
-              tmpsk.cancel();
-              tmpSel.selectNow(); // clear canceled key
-            } catch (IOException ex2) {
-              if (isRunning() && this.selector.isOpen() && this.tmpSel.isOpen()) {
-                logger.warn(LocalizedMessage.create(LocalizedStrings.AcceptorImpl_UNEXPECTED_EXCEPTION, ex2));
-              }
-            }
           }
-        }
-      } catch (ClosedChannelException ignore) { // fix for bug 39650
-        // just ignore this channel and try the next one
-        finishCon(sc);
-        continue;
-      } catch (IOException ex) {
-        if (isRunning() && this.selector.isOpen() && this.tmpSel.isOpen()) {
-          logger.warn(LocalizedMessage.create(LocalizedStrings.AcceptorImpl_UNEXPECTED_EXCEPTION, ex));
-        }
-      } catch (NullPointerException npe) { // fix bug 39644
-        if (isRunning() && this.selector.isOpen() && this.tmpSel.isOpen()) {
-          logger.warn(LocalizedMessage.create(LocalizedStrings.AcceptorImpl_UNEXPECTED_EXCEPTION, npe));
+        } catch (NullPointerException npe) { // fix bug 39644
+          if (isRunning() && this.selector.isOpen() && this.tmpSel.isOpen()) {
+            logger.warn(LocalizedMessage.create(LocalizedStrings.AcceptorImpl_UNEXPECTED_EXCEPTION, npe));
+          }
         }
       }
     }
-  }
   
-  private int registeredKeys = 0;
-
-  public void runSelectorLoop() {
-    //int zeroEventsCount = 0;
-    try {
-      logger.info(LocalizedMessage.create(LocalizedStrings.AcceptorImpl_SELECTOR_ENABLED));
-      while (this.selector.isOpen() && !Thread.currentThread().isInterrupted()) {
-        {
-          SystemFailure.checkFailure();
-//          this.cache.getDistributedSystem().getCancelCriterion().checkCancelInProgress(null);
-          if (((GemFireCacheImpl)this.cache).isClosed()) { // bug 38834
-            break; // TODO should just ask cache's CancelCriterion
-          }
-          if (this.cache.getCancelCriterion().cancelInProgress() != null) {
-            break;
-          }
-          ServerConnection sc;
-          registeredKeys = checkRegisteredKeys(registeredKeys);
-          if (registeredKeys == 0) {
-            // do blocking wait on queue until we get some guys registered
-            // with the selector
-            sc = (ServerConnection)this.selectorQueue.take();
-          } else {
-            // we already have some guys registered so just do a poll on queue
-            sc = (ServerConnection)this.selectorQueue.poll();
-          }
-          while (sc != null) {
-            try {
-              sc.registerWithSelector2(this.selector);
-              registeredKeys++;
-              this.selectorRegistrations.add(sc);
-            } catch (ClosedChannelException cce) {
-//            for bug bug 38474 
-              finishCon(sc); 
-            } catch (IOException ex) {
+    public void run() {
+      //int zeroEventsCount = 0;
+      try {
+        while (this.selector.isOpen() && !Thread.currentThread().isInterrupted()) {
+          {
+            SystemFailure.checkFailure();
+  //          AcceptorImpl.this.cache.getDistributedSystem().getCancelCriterion().checkCancelInProgress(null);
+            if (((GemFireCacheImpl)AcceptorImpl.this.cache).isClosed()) { // bug 38834
+              break; // TODO should just ask cache's CancelCriterion
+            }
+            if (AcceptorImpl.this.cache.getCancelCriterion().cancelInProgress() != null) {
+              break;
+            }
+            ServerConnection sc;
+            registeredKeys = checkRegisteredKeys(registeredKeys);
+            if (registeredKeys == 0) {
+              // do blocking wait on queue until we get some guys registered
+              // with the selector
+              sc = (ServerConnection)this.selectorQueue.take();
+            } else {
+              // we already have some guys registered so just do a poll on queue
+              sc = (ServerConnection)this.selectorQueue.poll();
+            }
+            while (sc != null) {
+              try {
+                sc.registerWithSelector2(this.selector);
+                registeredKeys++;
+                this.selectorRegistrations.add(sc);
+              } catch (ClosedChannelException cce) {
+  //            for bug bug 38474 
+                finishCon(sc); 
+              } catch (IOException ex) {
            
-              finishCon(sc);
-              logger.warn(LocalizedMessage.create(LocalizedStrings.AcceptorImpl_IGNORING, ex));
-            } catch (RuntimeException ex) {
-              finishCon(sc);
-              logger.warn(LocalizedMessage.create(LocalizedStrings.AcceptorImpl_IGNORING, ex));
+                finishCon(sc);
+                logger.warn(LocalizedMessage.create(LocalizedStrings.AcceptorImpl_IGNORING, ex));
+              } catch (RuntimeException ex) {
+                finishCon(sc);
+                logger.warn(LocalizedMessage.create(LocalizedStrings.AcceptorImpl_IGNORING, ex));
+              }
+              sc = (ServerConnection)this.selectorQueue.poll();
             }
-            sc = (ServerConnection)this.selectorQueue.poll();
           }
-        }
-        if (registeredKeys == 0) {
-          continue;
-        }
-        int events = this.selector.select();
-        // select() could have returned due to wakeup() during close of cache
-        if (this.cache.getCancelCriterion().cancelInProgress() != null) {
-          break;
-        }
-        if (events == 0) {
-//           zeroEventsCount++;
-//           if (zeroEventsCount > 0) {
-//             zeroEventsCount = 0;
-            checkForStuckKeys();
-
-//              try {
-//                this.selector.close(); // this selector is sick!
-//              } catch (IOException ignore) {
-//              }
-//              this.selector = Selector.open();
-//              {
-//                Iterator it = selectorRegistrations.iterator();
-//                while (it.hasNext()) {
-//                  ServerConnection sc = (ServerConnection)it.next();
-//                  sc.registerWithSelector2(this.selector);
-//                }
-//              }
-//             }
-//            ArrayList al = new ArrayList();
-//            Iterator keysIt = this.selector.keys().iterator();
-//            while (keysIt.hasNext()) {
-//              SelectionKey sk = (SelectionKey)keysIt.next();
-//              al.add(sk.attachment());
-//              sk.cancel();
-//            }
-//            events = this.selector.selectNow();
-//            Iterator alIt = al.iterator();
-//            while (alIt.hasNext()) {
-//              ServerConnection sc = (ServerConnection)alIt.next();
-//              sc.registerWithSelector2(this.selector);
-//            }
-//            events = this.selector.select();
-//         } else {
-//           zeroEventsCount = 0;
-        }
-        while (events > 0) {
-          int cancelCount = 0;
-          Set sk = this.selector.selectedKeys();
-          if (sk == null) {
-            // something really bad has happened I'm not even sure this is possible
-            // but lhughes so an NPE during close one time so perhaps it can happen
-            // during selector close.
-            events = 0;
+          if (registeredKeys == 0) {
+            continue;
+          }
+          int events = this.selector.select();
+          // select() could have returned due to wakeup() during close of cache
+          if (AcceptorImpl.this.cache.getCancelCriterion().cancelInProgress() != null) {
             break;
           }
-          Iterator keysIterator = sk.iterator();
-          while (keysIterator.hasNext()) {
-            SelectionKey key = (SelectionKey) keysIterator.next();
-            // Remove the key from the selector's selectedKeys
-            keysIterator.remove();
-            final ServerConnection sc = (ServerConnection)key.attachment();
-            try {
-            if (key.isValid() && key.isReadable()) {
-              // this is the only event we currently register for
+          if (events == 0) {
+  //           zeroEventsCount++;
+  //           if (zeroEventsCount > 0) {
+  //             zeroEventsCount = 0;
+              checkForStuckKeys();
+
+  //              try {
+  //                this.selector.close(); // this selector is sick!
+  //              } catch (IOException ignore) {
+  //              }
+  //              this.selector = Selector.open();
+  //              {
+  //                Iterator it = selectorRegistrations.iterator();
+  //                while (it.hasNext()) {
+  //                  ServerConnection sc = (ServerConnection)it.next();
+  //                  sc.registerWithSelector2(this.selector);
+  //                }
+  //              }
+  //             }
+  //            ArrayList al = new ArrayList();
+  //            Iterator keysIt = this.selector.keys().iterator();
+  //            while (keysIt.hasNext()) {
+  //              SelectionKey sk = (SelectionKey)keysIt.next();
+  //              al.add(sk.attachment());
+  //              sk.cancel();
+  //            }
+  //            events = this.selector.selectNow();
+  //            Iterator alIt = al.iterator();
+  //            while (alIt.hasNext()) {
+  //              ServerConnection sc = (ServerConnection)alIt.next();
+  //              sc.registerWithSelector2(this.selector);
+  //            }
+  //            events = this.selector.select();
+  //         } else {
+  //           zeroEventsCount = 0;
+          }
+          while (events > 0) {
+            int cancelCount = 0;
+            Set sk = this.selector.selectedKeys();
+            if (sk == null) {
+              // something really bad has happened I'm not even sure this is possible
+              // but lhughes so an NPE during close one time so perhaps it can happen
+              // during selector close.
+              events = 0;
+              break;
+            }
+            Iterator keysIterator = sk.iterator();
+            while (keysIterator.hasNext()) {
+              SelectionKey key = (SelectionKey) keysIterator.next();
+              // Remove the key from the selector's selectedKeys
+              keysIterator.remove();
+              final ServerConnection sc = (ServerConnection)key.attachment();
               try {
-                key.cancel();
-                this.selectorRegistrations.remove(sc);
-                registeredKeys--;
-                cancelCount++;
-                sc.makeBlocking();
-                // we need to say we are processing a message
-                // so that that client health monitor will not
-                // kill us while we wait for a thread in the thread pool.
-                // This is also be used to determine how long we are
-                // in the thread pool queue and to cancel operations that
-                // have waited too long in the queue.
-                sc.setProcessingMessage();
-              } catch (ClosedChannelException ignore) {
-                finishCon(sc);
-                continue;
-              } catch (IOException ex) {
-                finishCon(sc);
-                if(isRunning()) {
-                  logger.warn(LocalizedMessage.create(LocalizedStrings.AcceptorImpl_UNEXPECTED, ex));
+              if (key.isValid() && key.isReadable()) {
+                // this is the only event we currently register for
+                try {
+                  key.cancel();
+                  this.selectorRegistrations.remove(sc);
+                  registeredKeys--;
+                  cancelCount++;
+                  sc.makeBlocking();
+                  // we need to say we are processing a message
+                  // so that that client health monitor will not
+                  // kill us while we wait for a thread in the thread pool.
+                  // This is also be used to determine how long we are
+                  // in the thread pool queue and to cancel operations that
+                  // have waited too long in the queue.
+                  sc.setProcessingMessage();
+                } catch (ClosedChannelException ignore) {
+                  finishCon(sc);
+                  continue;
+                } catch (IOException ex) {
+                  finishCon(sc);
+                  if(isRunning()) {
+                    logger.warn(LocalizedMessage.create(LocalizedStrings.AcceptorImpl_UNEXPECTED, ex));
+                  }
+                  continue;
                 }
-                continue;
-              }
-              try {
-                AcceptorImpl.this.stats.incThreadQueueSize();
-                AcceptorImpl.this.pool.execute(sc);
-              } catch (RejectedExecutionException rejected) {
+                try {
+                  AcceptorImpl.this.stats.incThreadQueueSize();
+                  AcceptorImpl.this.pool.execute(sc);
+                } catch (RejectedExecutionException rejected) {
+                  finishCon(sc);
+                  AcceptorImpl.this.stats.decThreadQueueSize();
+                  if (!isRunning()) {
+                    break;
+                  }
+                  logger.warn(LocalizedMessage.create(LocalizedStrings.AcceptorImpl_UNEXPECTED, rejected));
+                }
+  //             } else if (key.isValid() && key.isConnectable()) {
+  //               logger.info("DEBUG isConnectable and isValid key=" + key);
+  //               finishCon(sc);
+              } else {
                 finishCon(sc);
-                AcceptorImpl.this.stats.decThreadQueueSize();
-                if (!isRunning()) {
-                  break;
+                if (key.isValid()) {
+                  logger.warn(LocalizedMessage.create(LocalizedStrings.AcceptorImpl_IGNORING_EVENT_ON_SELECTOR_KEY__0, key));
+  //            } else {
+  //                 logger.info("DEBUG !isValid key=" + key);
                 }
-                logger.warn(LocalizedMessage.create(LocalizedStrings.AcceptorImpl_UNEXPECTED, rejected));
               }
-//             } else if (key.isValid() && key.isConnectable()) {
-//               logger.info("DEBUG isConnectable and isValid key=" + key);
-//               finishCon(sc);
-            } else {
-              finishCon(sc);
-              if (key.isValid()) {
-                logger.warn(LocalizedMessage.create(LocalizedStrings.AcceptorImpl_IGNORING_EVENT_ON_SELECTOR_KEY__0, key));
-//            } else {
-//                 logger.info("DEBUG !isValid key=" + key);
+              } catch (CancelledKeyException ex) { // fix for bug 37739
+                finishCon(sc);
               }
             }
-            } catch (CancelledKeyException ex) { // fix for bug 37739
-              finishCon(sc);
+            if (cancelCount > 0 && this.selector.isOpen()) {
+              // we need to do a select to cause the cancel to be unregisters.
+              events = this.selector.selectNow();
+            } else {
+              events = 0;
             }
           }
-          if (cancelCount > 0 && this.selector.isOpen()) {
-            // we need to do a select to cause the cancel to be unregisters.
-            events = this.selector.selectNow();
-          } else {
-            events = 0;
-          }
         }
-      }
-    } catch (InterruptedException ex) {
-      // allow this thread to die
-      Thread.currentThread().interrupt();
-    } catch (ClosedSelectorException ex) {
-      // allow this thread to exit
-    } catch (IOException ex) {
-      logger.warn(LocalizedMessage.create(LocalizedStrings.AcceptorImpl_UNEXPECTED, ex));
-    } finally {
-      try {
-        drainSelectorQueue();
-      }
-      finally {
-        // note that if this method was called by close then the
-        // following call is a noop since the first thing it does
-        // is call isRunning.
-        close(); // make sure this is called to fix bug 37749
+      } catch (InterruptedException ex) {
+        // allow this thread to die
+        Thread.currentThread().interrupt();
+      } catch (ClosedSelectorException ex) {
+        // allow this thread to exit
+      } catch (IOException ex) {
+        logger.warn(LocalizedMessage.create(LocalizedStrings.AcceptorImpl_UNEXPECTED, ex));
+      } finally {
+        try {
+          drainSelectorQueue();
+        }
+        finally {
+          // note that if this method was called by close then the
+          // following call is a noop since the first thing it does
+          // is call isRunning.
+          AcceptorImpl.this.close(); // make sure this is called to fix bug 37749
+        }
       }
     }
-  }
   
+  }
+
   @Override
   public int getPort()
   {
@@ -1216,12 +1270,6 @@ public class AcceptorImpl extends Acceptor implements Runnable
     }
   }
 
-  public Selector getSelector() {
-    return this.selector;
-  }
-  public BlockingQueue getSelectorQueue() {
-    return this.selectorQueue;
-  }
 
   protected boolean loggedAcceptError = false;
 
@@ -1409,20 +1457,21 @@ public class AcceptorImpl extends Acceptor implements Runnable
     }
   }
 
+  /**
+   * Takes a direct comm buffer from the shared {@link CommBufferPool} for a
+   * selector thread to use while it processes one message.
+   */
   public ByteBuffer takeCommBuffer() {
-    ByteBuffer result = (ByteBuffer)this.commBufferQueue.poll();
-    if (result == null) {
-      result = ByteBuffer.allocateDirect(this.socketBufferSize);
-    }
+    ByteBuffer result = CommBufferPool.acquire(this.socketBufferSize);
+    this.stats.updateCommBufferPoolStats();
     return result;
   }
   public void releaseCommBuffer(ByteBuffer bb) {
     if (bb == null) {  // fix for bug 37107
       return;
     }
-    if (isRunning()) {
-      this.commBufferQueue.offer(bb);
-    }
+    CommBufferPool.release(bb);
+    this.stats.updateCommBufferPoolStats();
   }
 
   public void incClientServerCnxCount() {
@@ -1435,6 +1484,14 @@ public class AcceptorImpl extends Acceptor implements Runnable
   public int getClientServerCnxCount() {
     return this.clientServerCnxCount.get();
   }
+
+  /**
+   * Test hook
+   * @return the number of selector threads, or 0 if the selector is not used
+   */
+  public int getSelectorThreadCount() {
+    return this.selectorLoops == null ? 0 : this.selectorLoops.length;
+  }
   
   protected void handleNewClientConnection(final Socket s) throws IOException
   {
@@ -1616,21 +1673,9 @@ public class AcceptorImpl extends Acceptor implements Runnable
         crHelper.setShutdown(true); // set this before shutting down the pool
         if (isSelector()) {
           this.hsTimer.cancel();
-          if (this.tmpSel != null) {
-            try {
-              this.tmpSel.close();
-            } catch (IOException ignore) {
-            }
-          }
-          try {
-            wakeupSelector();
-            this.selector.close();
-          } catch (IOException ignore) {
-          }
-          if (this.selectorThread != null) {
-            this.selectorThread.interrupt();
+          for (SelectorLoop loop : this.selectorLoops) {
+            loop.close();
           }
-          this.commBufferQueue.clear();
         }
         ClientHealthMonitor.shutdownInstance();        
         shutdownSCs();
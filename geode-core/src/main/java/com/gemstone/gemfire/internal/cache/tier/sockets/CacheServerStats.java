@@ -223,6 +223,12 @@ public class CacheServerStats implements MessageStats {
   int acceptThreadStartsId;
   int connectionThreadStartsId;
   int connectionThreadsId;
+
+  // Comm buffer pool statistics
+  int commBuffersInUseId;
+  int commBuffersPooledId;
+  int commBufferPoolBytesId;
+  int commBuffersAllocatedId;
   
   //Load callback stats
   int connectionLoadId;
@@ -548,6 +554,18 @@ public class CacheServerStats implements MessageStats {
         f.createIntGauge("connectionThreads",
                          "Current number of threads dealing with a client connection.",
                          "threads"),
+        f.createIntGauge("commBuffersInUse",
+                         "Current number of direct comm buffers taken from the process wide pool and not yet returned.",
+                         "buffers"),
+        f.createIntGauge("commBuffersPooled",
+                         "Current number of idle direct comm buffers held by the process wide pool.",
+                         "buffers"),
+        f.createLongGauge("commBufferPoolBytes",
+                         "Current number of bytes held by the idle buffers of the process wide comm buffer pool.",
+                         "bytes"),
+        f.createLongGauge("commBuffersAllocated",
+                         "Total number of direct comm buffers the process wide pool has had to allocate.",
+                         "buffers"),
         f.createDoubleGauge(
                          "connectionLoad",
                          "The load from client to server connections as reported by the load probe installed in this server",
@@ -709,6 +727,10 @@ public class CacheServerStats implements MessageStats {
     acceptThreadStartsId = this.stats.nameToId("acceptThreadStarts");
     connectionThreadStartsId = this.stats.nameToId("connectionThreadStarts");
     connectionThreadsId = this.stats.nameToId("connectionThreads");
+    commBuffersInUseId = this.stats.nameToId("commBuffersInUse");
+    commBuffersPooledId = this.stats.nameToId("commBuffersPooled");
+    commBufferPoolBytesId = this.stats.nameToId("commBufferPoolBytes");
+    commBuffersAllocatedId = this.stats.nameToId("commBuffersAllocated");
     
     connectionLoadId = this.stats.nameToId("connectionLoad");
     queueLoadId = this.stats.nameToId("queueLoad");
@@ -798,6 +820,17 @@ public class CacheServerStats implements MessageStats {
     this.stats.incInt(threadQueueSizeId, -1);
   }
 
+  /**
+   * Copies the current state of the {@link CommBufferPool} into this
+   * server's statistics.
+   */
+  public final void updateCommBufferPoolStats() {
+    this.stats.setInt(commBuffersInUseId, CommBufferPool.getBuffersInUse());
+    this.stats.setInt(commBuffersPooledId, CommBufferPool.getBuffersPooled());
+    this.stats.setLong(commBufferPoolBytesId, CommBufferPool.getBytesPooled());
+    this.stats.setLong(commBuffersAllocatedId, CommBufferPool.getBuffersAllocated());
+  }
+
   public final void incReadGetRequestTime(long delta)
   {
     this.stats.incLong(readGetRequestTimeId, delta);
@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache.tier.sockets;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The process wide pool of direct comm buffers used by client/server
+ * {@link Message}s. Buffers are kept in one queue per capacity, so each
+ * distinct socket buffer size is its own size class, and each queue holds at
+ * most {@link #MAX_POOLED_BUFFERS_PER_SIZE} idle buffers.
+ * <p>
+ * The pool counts the buffers that have been handed out and not yet given
+ * back. A number that keeps growing while the connection count stays flat
+ * means some code path is not releasing its buffer.
+ * 
+ * @see CacheServerStats#updateCommBufferPoolStats()
+ */
+public class CommBufferPool {
+
+  public static final int MAX_POOLED_BUFFERS_PER_SIZE = Integer.getInteger(
+      "BridgeServer.MAX_POOLED_COMM_BUFFERS", 1024).intValue();
+
+  // The key is the size of each ByteBuffer. The value is a queue of byte buffers all of that size.
+  private static final ConcurrentHashMap<Integer, LinkedBlockingQueue<ByteBuffer>> pool = new ConcurrentHashMap<>(4, 0.75f, 1);
+
+  private static final AtomicInteger buffersInUse = new AtomicInteger();
+  private static final AtomicInteger buffersPooled = new AtomicInteger();
+  private static final AtomicLong bytesPooled = new AtomicLong();
+  private static final AtomicLong buffersAllocated = new AtomicLong();
+
+  private CommBufferPool() {
+    // no instances
+  }
+
+  /**
+   * Returns a direct buffer with the given capacity, taking an idle one from
+   * the pool if there is one.
+   */
+  public static ByteBuffer acquire(int size) {
+    ByteBuffer result = null;
+    LinkedBlockingQueue<ByteBuffer> q = pool.get(size);
+    if (q != null) {
+      result = q.poll();
+    }
+    if (result == null) {
+      result = ByteBuffer.allocateDirect(size);
+      buffersAllocated.incrementAndGet();
+    } else {
+      buffersPooled.decrementAndGet();
+      bytesPooled.addAndGet(-size);
+      result.clear();
+    }
+    buffersInUse.incrementAndGet();
+    return result;
+  }
+
+  /**
+   * Gives back a buffer obtained from {@link #acquire(int)}. Heap buffers and
+   * null are ignored. If its size class is full the buffer is dropped and
+   * left for the garbage collector.
+   */
+  public static void release(ByteBuffer bb) {
+    if (bb == null || !bb.isDirect()) {
+      return;
+    }
+    buffersInUse.decrementAndGet();
+    final int size = bb.capacity();
+    LinkedBlockingQueue<ByteBuffer> q = pool.get(size);
+    if (q == null) {
+      q = new LinkedBlockingQueue<>(MAX_POOLED_BUFFERS_PER_SIZE);
+      LinkedBlockingQueue<ByteBuffer> oldQ = pool.putIfAbsent(size, q);
+      if (oldQ != null) {
+        q = oldQ;
+      }
+    }
+    if (q.offer(bb)) {
+      buffersPooled.incrementAndGet();
+      bytesPooled.addAndGet(size);
+    }
+  }
+
+  /**
+   * Drops every idle buffer. Buffers that are still in use are not affected
+   * and may be released later.
+   */
+  public static void clear() {
+    for (LinkedBlockingQueue<ByteBuffer> q : pool.values()) {
+      ByteBuffer bb;
+      while ((bb = q.poll()) != null) {
+        buffersPooled.decrementAndGet();
+        bytesPooled.addAndGet(-bb.capacity());
+      }
+    }
+  }
+
+  /** Returns the number of buffers acquired and not yet released. */
+  public static int getBuffersInUse() {
+    return buffersInUse.get();
+  }
+
+  /** Returns the number of idle buffers held by the pool. */
+  public static int getBuffersPooled() {
+    return buffersPooled.get();
+  }
+
+  /** Returns the total capacity of the idle buffers held by the pool. */
+  public static long getBytesPooled() {
+    return bytesPooled.get();
+  }
+
+  /** Returns the number of buffers the pool has had to allocate. */
+  public static long getBuffersAllocated() {
+    return buffersAllocated.get();
+  }
+}
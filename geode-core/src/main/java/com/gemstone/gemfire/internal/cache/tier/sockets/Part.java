@@ -297,9 +297,10 @@ public class Part {
             if (buf.remaining() == 0) {
               HeapDataOutputStream.flushStream(out,  buf);
             }
-            buf.put(AddressableMemoryManager.readByte(addr));
-            addr++;
-            bytesToSend--;
+            int bytesThisTime = Math.min(bytesToSend, buf.remaining());
+            AddressableMemoryManager.readBytes(addr, buf, bytesThisTime);
+            addr += bytesThisTime;
+            bytesToSend -= bytesThisTime;
           }
         }
       } else {
@@ -326,11 +327,7 @@ public class Part {
         } else {
           int bytesToSend = c.getDataSize();
           long addr = c.getAddressForReadingData(0, bytesToSend);
-          while (bytesToSend > 0) {
-            buf.put(AddressableMemoryManager.readByte(addr));
-            addr++;
-            bytesToSend--;
-          }
+          AddressableMemoryManager.readBytes(addr, buf, bytesToSend);
         }
       } else {
         HeapDataOutputStream hdos = (HeapDataOutputStream)this.part;
@@ -387,11 +384,8 @@ public class Part {
               bytesThisTime = BUF_MAX;
             }
             len -= bytesThisTime;
-            while (bytesThisTime > 0) {
-              buf.put(AddressableMemoryManager.readByte(addr));
-              addr++;
-              bytesThisTime--;
-            }
+            AddressableMemoryManager.readBytes(addr, buf, bytesThisTime);
+            addr += bytesThisTime;
             buf.flip();
             while (buf.remaining() > 0) {
               sc.write(buf);
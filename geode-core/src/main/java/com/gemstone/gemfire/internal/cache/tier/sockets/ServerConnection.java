@@ -31,7 +31,6 @@ import java.util.Map;
 import java.util.Properties;
 import java.util.Random;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.LinkedBlockingQueue;
 
 import org.apache.logging.log4j.Logger;
 
@@ -94,9 +93,6 @@ public class ServerConnection implements Runnable {
   // private static boolean useDataStream =
   // System.getProperty("hct.useDataStream", "false").equals("true");
 
-  // The key is the size of each ByteBuffer. The value is a queue of byte buffers all of that size.
-  private static final ConcurrentHashMap<Integer, LinkedBlockingQueue<ByteBuffer>> commBufferMap = new ConcurrentHashMap<>(4, 0.75f, 1);
-
   public static ByteBuffer allocateCommBuffer(int size, Socket sock) {
     // I expect that size will almost always be the same value
     if (sock.getChannel() == null) {
@@ -104,38 +100,15 @@ public class ServerConnection implements Runnable {
       // So the commBuffer should be heap based.
       return ByteBuffer.allocate(size);
     }
-    LinkedBlockingQueue<ByteBuffer> q = commBufferMap.get(size);
-    ByteBuffer result = null;
-    if (q != null) {
-      result = q.poll();
-    }
-    if (result == null) {
-      result = ByteBuffer.allocateDirect(size);
-    } else {
-      result.position(0);
-      result.limit(result.capacity());
-    }
-    return result;
+    return CommBufferPool.acquire(size);
   }
   
   public static void releaseCommBuffer(ByteBuffer bb) {
-    if (bb != null && bb.isDirect()) {
-      LinkedBlockingQueue<ByteBuffer> q = commBufferMap.get(bb.capacity());
-      if (q == null) {
-        q = new LinkedBlockingQueue<>();
-        LinkedBlockingQueue<ByteBuffer> oldQ = commBufferMap.putIfAbsent(bb.capacity(), q);
-        if (oldQ != null) {
-          q = oldQ;
-        }
-      }
-      q.offer(bb);
-    }
+    CommBufferPool.release(bb);
   }
   
   public static void emptyCommBufferPool() {
-    for (LinkedBlockingQueue<ByteBuffer> q: commBufferMap.values()) {
-      q.clear();
-    }
+    CommBufferPool.clear();
   }
 
   private Socket theSocket;
@@ -1591,6 +1564,7 @@ public class ServerConnection implements Runnable {
           commBuffer = null;
         } else {
           commBuffer = allocateCommBuffer(socketBufferSize, s);
+          this.stats.updateCommBufferPoolStats();
         }
         requestMsg.setComms(this, theSocket, commBuffer, msgStats);
         replyMsg.setComms(this, theSocket, commBuffer, msgStats);
@@ -1689,6 +1663,7 @@ public class ServerConnection implements Runnable {
     if (bb != null) {
       this.commBuffer = null;
       ServerConnection.releaseCommBuffer(bb);
+      this.stats.updateCommBufferPoolStats();
     }
   }
   
@@ -3763,6 +3763,9 @@ public class LocalizedStrings {
 
   public static final StringId LuceneXmlParser_CLASS_0_IS_NOT_AN_INSTANCE_OF_ANALYZER = new StringId(6623, "Class \"{0}\" is not an instance of Analyzer.");
 
+  public static final StringId GemFireCacheImpl_REGION_0_DOES_NOT_USE_A_POOL = new StringId(6624, "Region {0} does not use a pool");
+  public static final StringId AsyncRegionImpl_THE_POOL_USED_BY_REGION_0_IS_DESTROYED = new StringId(6625, "The pool used by region {0} is destroyed");
+
   /** Testing strings, messageId 90000-99999 **/
   
   /** These are simple messages for testing, translated with Babelfish. **/
@@ -133,6 +133,32 @@ public class AddressableMemoryManager {
     }
     unsafe.copyMemory(null, addr, bytes, ARRAY_BYTE_BASE_OFFSET+bytesOffset, size);
   }
+  /**
+   * Copies size bytes starting at addr into bb at its current position and
+   * advances the position. bb must have at least size bytes remaining.
+   * Direct and heap buffers are filled with a single bulk copy; any other
+   * kind of buffer falls back to copying a byte at a time.
+   */
+  public static void readBytes(long addr, ByteBuffer bb, int size) {
+    if (size < 0) {
+      throw new AssertionError("Size=" + size + ", but size must be >= 0");
+    }
+    assert size <= bb.remaining() : "size=" + size + ",remaining=" + bb.remaining();
+
+    final int pos = bb.position();
+    long bbAddr = getDirectByteBufferAddress(bb);
+    if (bbAddr != 0L) {
+      copyMemory(addr, bbAddr + pos, size);
+      bb.position(pos + size);
+    } else if (bb.hasArray()) {
+      readBytes(addr, bb.array(), bb.arrayOffset() + pos, size);
+      bb.position(pos + size);
+    } else {
+      for (int i = 0; i < size; i++) {
+        bb.put(readByte(addr + i));
+      }
+    }
+  }
   public static void copyMemory(long srcAddr, long dstAddr, long size) {
     unsafe.copyMemory(srcAddr, dstAddr, size);
   }
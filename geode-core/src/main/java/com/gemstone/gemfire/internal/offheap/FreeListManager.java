@@ -25,6 +25,7 @@ import java.util.List;
 import java.util.NavigableSet;
 import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReferenceArray;
@@ -112,6 +113,9 @@ public class FreeListManager {
         tinyFree += cl.computeTotalSize();
       }
     }
+    for (ThreadAllocationCache cache: this.threadCaches) {
+      tinyFree += cache.computeTotalSize();
+    }
     return tinyFree;
   }
   long getFreeHugeMemory() {
@@ -129,8 +133,35 @@ public class FreeListManager {
   private final CopyOnWriteArrayList<Fragment> fragmentList;
   private final MemoryAllocatorImpl ma;
 
+  /**
+   * Number of tiny size classes, starting with the smallest, that are
+   * cached per thread. Zero if thread caching is disabled.
+   */
+  private final int threadCacheSizeClasses;
+  private final int threadCacheCapacity;
+  /**
+   * Every cache handed out by threadCache so that other threads can
+   * flush them back to the tiny free lists.
+   */
+  private final CopyOnWriteArrayList<ThreadAllocationCache> threadCaches = new CopyOnWriteArrayList<ThreadAllocationCache>();
+  private final ThreadLocal<ThreadAllocationCache> threadCache = new ThreadLocal<ThreadAllocationCache>();
+  /**
+   * The System.nanoTime at or after which reclaimDeadThreadCaches may scan again.
+   */
+  private final AtomicLong nextDeadThreadCacheScan = new AtomicLong(System.nanoTime());
+
   public FreeListManager(MemoryAllocatorImpl ma, final Slab[] slabs) {
+    this(ma, slabs, THREAD_CACHE_SIZE);
+  }
+
+  FreeListManager(MemoryAllocatorImpl ma, final Slab[] slabs, int threadCacheCapacity) {
     this.ma = ma;
+    this.threadCacheCapacity = threadCacheCapacity;
+    if (threadCacheCapacity > 0 && THREAD_CACHE_MAX_CHUNK_SIZE > 0) {
+      this.threadCacheSizeClasses = Math.min(TINY_FREE_LIST_COUNT, getNearestTinyMultiple(Math.min(THREAD_CACHE_MAX_CHUNK_SIZE, MAX_TINY)) + 1);
+    } else {
+      this.threadCacheSizeClasses = 0;
+    }
     this.slabs = slabs;
     long total = 0;
     Fragment[] tmp = new Fragment[slabs.length];
@@ -193,6 +224,76 @@ public class FreeListManager {
     return result;
   }
 
+  /**
+   * Allocate a chunk of memory of at least the given size from a fragment
+   * that is in the same slab as limitAddr and below it.
+   * This is used to move live objects towards the start of their slab
+   * so that the memory they are moved out of can be combined with the
+   * free memory around it.
+   * Unlike allocate this method never defragments.
+   * @param size minimum bytes the returned chunk must have.
+   * @param limitAddr the returned chunk will end at or before this address.
+   * @return the allocated chunk or null if no fragment below limitAddr had room.
+   */
+  OffHeapStoredObject allocateBelow(int size, long limitAddr) {
+    assert size > 0;
+    final int chunkSize = round(TINY_MULTIPLE, size + OffHeapStoredObject.HEADER_SIZE);
+    final Slab slab = this.slabs[findSlab(limitAddr)];
+    for (int i=0; i < this.fragmentList.size(); i++) {
+      final Fragment fragment;
+      try {
+        fragment = this.fragmentList.get(i);
+      } catch (IndexOutOfBoundsException ignore) {
+        // A concurrent defragmentation can cause this.
+        return null;
+      }
+      long freeAddr = fragment.getAddress() + fragment.getFreeIndex();
+      if (freeAddr < slab.getMemoryAddress() || freeAddr + chunkSize > limitAddr) {
+        continue;
+      }
+      OffHeapStoredObject result = allocateFromFragment(i, chunkSize);
+      if (result == null) {
+        continue;
+      }
+      if (result.getAddress() + result.getSize() > limitAddr || result.getAddress() < slab.getMemoryAddress()) {
+        // A concurrent allocation from this fragment caused us
+        // to get a chunk from somewhere else so give it back.
+        result.readyForFree();
+        free(result.getAddress(), false);
+        continue;
+      }
+      result.setDataSize(size);
+      this.allocatedSize.addAndGet(result.getSize());
+      result.initializeUseCount();
+      return result;
+    }
+    return null;
+  }
+
+  /**
+   * Returns the percentage by which the largest fragment falls short of
+   * the largest block of free memory this manager could have.
+   * The largest possible block is limited by both the free memory
+   * and the size of the largest slab. Memory in the free lists does
+   * not count as part of any fragment.
+   * This is much cheaper than {@link #getFragmentation()} because it does
+   * not walk the free lists, so it can be called frequently.
+   */
+  int getLargestFragmentShortfall() {
+    long possible = Math.min(getFreeMemory(), getLargestSlabSize());
+    if (possible <= 0) {
+      return 0;
+    }
+    long largest = 0;
+    for (Fragment f: this.fragmentList) {
+      largest = Math.max(largest, f.freeSpace());
+    }
+    if (largest >= possible) {
+      return 0;
+    }
+    return (int) (((possible - largest) * 100) / possible);
+  }
+
   private OffHeapStoredObject basicAllocate(int size, boolean useSlabs) {
     if (useSlabs) {
       // Every object stored off heap has a header so we need
@@ -301,6 +402,24 @@ public class FreeListManager {
     verifyHugeMultiple(HUGE_MULTIPLE);
   }
   public final static int MAX_TINY = TINY_MULTIPLE*TINY_FREE_LIST_COUNT;
+  /**
+   * Number of free chunks each thread may cache per tiny size class.
+   * Zero, the default, disables the per-thread caches. A live thread keeps
+   * its cached chunks until it allocates them or memory is defragmented,
+   * so enable this only when allocating threads are few and busy.
+   */
+  public final static int THREAD_CACHE_SIZE = Integer.getInteger("gemfire.OFF_HEAP_THREAD_CACHE_SIZE", 0);
+  /**
+   * Chunks larger than this, including the off-heap header,
+   * always use the shared free lists.
+   */
+  public final static int THREAD_CACHE_MAX_CHUNK_SIZE = Integer.getInteger("gemfire.OFF_HEAP_THREAD_CACHE_MAX_CHUNK_SIZE", 256);
+  /**
+   * How often, at most, an allocation that finds neither its thread's cache
+   * nor the tiny free list holding a chunk looks for caches left behind by
+   * threads that have terminated.
+   */
+  final static long DEAD_THREAD_CACHE_SCAN_INTERVAL = TimeUnit.SECONDS.toNanos(1);
   
   /**
    * Return true if the two chunks have been combined into one.
@@ -591,6 +710,7 @@ public class FreeListManager {
     }
   }
   private void collectFreeTinyChunks(List<LongStack> l) {
+    flushThreadCaches();
     for (int i=0; i < this.tinyFreeLists.length(); i++) {
       OffHeapStoredObjectAddressStack cl = this.tinyFreeLists.get(i);
       if (cl != null) {
@@ -663,7 +783,83 @@ public class FreeListManager {
     return (int) ((((long)value + (multiple-1)) / multiple) * multiple);
   }
   private OffHeapStoredObject allocateTiny(int size, boolean useFragments) {
-    return basicAllocate(getNearestTinyMultiple(size), TINY_MULTIPLE, 0, this.tinyFreeLists, useFragments);
+    final int idx = getNearestTinyMultiple(size);
+    if (useFragments && idx < this.threadCacheSizeClasses) {
+      long memAddr = allocateFromThreadCache(idx);
+      if (memAddr != 0L) {
+        OffHeapStoredObject result = new OffHeapStoredObject(memAddr);
+        checkDataIntegrity(result);
+        result.readyForAllocation();
+        return result;
+      }
+    }
+    return basicAllocate(idx, TINY_MULTIPLE, 0, this.tinyFreeLists, useFragments);
+  }
+  /**
+   * Returns a free chunk from this thread's cache, refilling the cache
+   * with a batch from the tiny free list if needed.
+   * Returns 0L if neither had a chunk of this size.
+   */
+  private long allocateFromThreadCache(int idx) {
+    ThreadAllocationCache cache = getThreadCache();
+    long memAddr = cache.poll(idx);
+    if (memAddr != 0L) {
+      this.ma.getStats().incThreadCacheHits();
+      return memAddr;
+    }
+    this.ma.getStats().incThreadCacheMisses();
+    memAddr = cache.refill(idx, this.tinyFreeLists.get(idx));
+    if (memAddr == 0L && reclaimDeadThreadCaches()) {
+      memAddr = cache.refill(idx, this.tinyFreeLists.get(idx));
+    }
+    return memAddr;
+  }
+  private ThreadAllocationCache getThreadCache() {
+    ThreadAllocationCache result = this.threadCache.get();
+    if (result == null) {
+      result = new ThreadAllocationCache(Thread.currentThread(), this.threadCacheSizeClasses, this.threadCacheCapacity);
+      this.threadCaches.add(result);
+      this.threadCache.set(result);
+    }
+    return result;
+  }
+  /**
+   * Moves the chunks cached by threads that have terminated to the tiny
+   * free lists and discards their caches. Otherwise those chunks would stay
+   * stranded until the next flushThreadCaches. Scans at most once every
+   * {@link #DEAD_THREAD_CACHE_SCAN_INTERVAL}.
+   * @return true if the caches of any terminated threads were reclaimed
+   */
+  private boolean reclaimDeadThreadCaches() {
+    final long now = System.nanoTime();
+    final long next = this.nextDeadThreadCacheScan.get();
+    if (now - next < 0 || !this.nextDeadThreadCacheScan.compareAndSet(next, now + DEAD_THREAD_CACHE_SCAN_INTERVAL)) {
+      return false;
+    }
+    boolean result = false;
+    for (ThreadAllocationCache cache: this.threadCaches) {
+      if (cache.isOwnerDead()) {
+        cache.flush(this);
+        this.threadCaches.remove(cache);
+        result = true;
+      }
+    }
+    return result;
+  }
+  int getThreadCacheCount() {
+    return this.threadCaches.size();
+  }
+  /**
+   * Moves the chunks cached by every thread to the tiny free lists.
+   * Caches owned by threads that have terminated are discarded.
+   */
+  void flushThreadCaches() {
+    for (ThreadAllocationCache cache: this.threadCaches) {
+      cache.flush(this);
+      if (cache.isOwnerDead()) {
+        this.threadCaches.remove(cache);
+      }
+    }
   }
   private OffHeapStoredObject basicAllocate(int idx, int multiple, int offset, AtomicReferenceArray<OffHeapStoredObjectAddressStack> freeLists, boolean useFragments) {
     OffHeapStoredObjectAddressStack clq = freeLists.get(idx);
@@ -754,7 +950,12 @@ public class FreeListManager {
     }
   }
   private void freeTiny(long addr, int cSize) {
-    basicFree(addr, getNearestTinyMultiple(cSize), this.tinyFreeLists);
+    final int idx = getNearestTinyMultiple(cSize);
+    if (idx < this.threadCacheSizeClasses) {
+      getThreadCache().offer(idx, addr, this);
+    } else {
+      basicFree(addr, idx, this.tinyFreeLists);
+    }
   }
   private void basicFree(long addr, int idx, AtomicReferenceArray<OffHeapStoredObjectAddressStack> freeLists) {
     OffHeapStoredObjectAddressStack clq = freeLists.get(idx);
@@ -769,6 +970,16 @@ public class FreeListManager {
       }
     }
   }
+  OffHeapStoredObjectAddressStack getOrCreateTinyFreeList(int idx) {
+    OffHeapStoredObjectAddressStack clq = this.tinyFreeLists.get(idx);
+    if (clq == null) {
+      clq = createFreeListForEmptySlot(this.tinyFreeLists, idx);
+      if (!this.tinyFreeLists.compareAndSet(idx, null, clq)) {
+        clq = this.tinyFreeLists.get(idx);
+      }
+    }
+    return clq;
+  }
   /**
    * Tests override this method to simulate concurrent modification
    */
@@ -781,6 +992,7 @@ public class FreeListManager {
   }
 
   List<MemoryBlock> getOrderedBlocks() {
+    flushThreadCaches();
     final List<MemoryBlock> value = new ArrayList<MemoryBlock>();
     addBlocksFromFragments(this.fragmentList, value); // unused fragments
     addBlocksFromChunks(getLiveChunks(), value); // used chunks
@@ -70,6 +70,8 @@ public class MemoryAllocatorImpl implements MemoryAllocator {
 
   private MemoryInspector memoryInspector;
 
+  private final OffHeapDefragmenter defragmenter;
+
   private volatile MemoryUsageListener[] memoryUsageListeners = new MemoryUsageListener[0];
   
   private static MemoryAllocatorImpl singleton = null;
@@ -86,13 +88,17 @@ public class MemoryAllocatorImpl implements MemoryAllocator {
   
   public static MemoryAllocator create(OutOfOffHeapMemoryListener ooohml, OffHeapMemoryStats stats, int slabCount, 
       long offHeapMemorySize, long maxSlabSize) {
-    return create(ooohml, stats, slabCount, offHeapMemorySize, maxSlabSize, null,
+    MemoryAllocatorImpl result = create(ooohml, stats, slabCount, offHeapMemorySize, maxSlabSize, null,
         new SlabFactory() {
       @Override
       public Slab create(int size) {
         return new SlabImpl(size);
       }
     });
+    if (OffHeapDefragmenter.THRESHOLD > 0) {
+      result.defragmenter.start();
+    }
+    return result;
   }
 
   private static MemoryAllocatorImpl create(OutOfOffHeapMemoryListener ooohml, OffHeapMemoryStats stats, int slabCount, 
@@ -206,6 +212,7 @@ public class MemoryAllocatorImpl implements MemoryAllocator {
     
     this.freeList = new FreeListManager(this, slabs);
     this.memoryInspector = new MemoryInspectorImpl(this.freeList);
+    this.defragmenter = new OffHeapDefragmenter(this);
 
     this.stats.incMaxMemory(this.freeList.getTotalMemory());
     this.stats.incFreeMemory(this.freeList.getTotalMemory());
@@ -293,6 +300,29 @@ public class MemoryAllocatorImpl implements MemoryAllocator {
     return result;
   }
   
+  /**
+   * Allocates a chunk for relocating the object at addr to a lower address.
+   * Returns null if there is no room below addr.
+   */
+  OffHeapStoredObject allocateBelow(int size, long addr) {
+    OffHeapStoredObject result = this.freeList.allocateBelow(size, addr);
+    if (result == null) {
+      return null;
+    }
+    int resultSize = result.getSize();
+    stats.incObjects(1);
+    stats.incUsedMemory(resultSize);
+    stats.incFreeMemory(-resultSize);
+    if (ReferenceCountHelper.trackReferenceCounts()) {
+      ReferenceCountHelper.refCountChanged(result.getAddress(), false, 1);
+    }
+    return result;
+  }
+
+  OffHeapDefragmenter getDefragmenter() {
+    return this.defragmenter;
+  }
+  
   @Override
   public StoredObject allocate(int size) {
     //System.out.println("allocating " + size);
@@ -368,6 +398,7 @@ public class MemoryAllocatorImpl implements MemoryAllocator {
   private void realClose() {
     // Removing this memory immediately can lead to a SEGV. See 47885.
     if (setClosed()) {
+      this.defragmenter.stop();
       this.freeList.freeSlabs();
       this.stats.close();
       singleton = null;
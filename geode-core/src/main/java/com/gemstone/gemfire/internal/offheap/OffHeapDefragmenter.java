@@ -0,0 +1,259 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.offheap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.logging.log4j.Logger;
+
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.cache.RegionService;
+import com.gemstone.gemfire.internal.cache.BucketRegion;
+import com.gemstone.gemfire.internal.cache.GemFireCacheImpl;
+import com.gemstone.gemfire.internal.cache.LocalRegion;
+import com.gemstone.gemfire.internal.cache.OffHeapRegionEntry;
+import com.gemstone.gemfire.internal.cache.PartitionedRegion;
+import com.gemstone.gemfire.internal.cache.PartitionedRegionDataStore;
+import com.gemstone.gemfire.internal.cache.RegionEntry;
+import com.gemstone.gemfire.internal.logging.LogService;
+import com.gemstone.gemfire.internal.logging.LoggingThreadGroup;
+
+/**
+ * Defragments off-heap memory in the background so that allocations
+ * rarely need to wait for {@link FreeListManager#defragment(int)}.
+ * <p>
+ * It is off unless {@link #THRESHOLD} is set. Every {@link #INTERVAL}
+ * milliseconds the defragmenter checks how far the largest free fragment
+ * falls short of the largest one possible. Once that exceeds
+ * {@link #THRESHOLD} percent it defragments the free lists and then
+ * relocates up to {@link #MAX_RELOCATIONS} live region values into free
+ * fragments lower in their slab. The memory they are moved out of is
+ * combined with its neighbours by the next defragmentation. Free memory
+ * that cannot be combined, for example small chunks between live values,
+ * keeps the shortfall high, so each run that does not reduce it doubles
+ * the time to the next check, up to {@link #MAX_BACKOFF_INTERVALS} intervals.
+ * <p>
+ * A value is only relocated while its region entry is synchronized and
+ * the entry holds the only reference to it, and the new address is installed
+ * with {@link OffHeapRegionEntry#setAddress(long, long)}. Readers that
+ * retained the old address before it changed keep using it until they
+ * release it, just like they do when the entry's value is replaced.
+ */
+class OffHeapDefragmenter implements Runnable {
+  private static final Logger logger = LogService.getLogger();
+
+  /**
+   * Percentage by which the largest fragment must fall short of the largest
+   * possible one before a background defragmentation is done.
+   * Zero, the default, disables background defragmentation.
+   */
+  static final int THRESHOLD = Integer.getInteger("gemfire.OFF_HEAP_DEFRAGMENTATION_THRESHOLD", 0);
+  /**
+   * Milliseconds between checks of the fragmentation.
+   */
+  static final long INTERVAL = Long.getLong("gemfire.OFF_HEAP_DEFRAGMENTATION_INTERVAL", 1000);
+  /**
+   * Maximum number of values relocated by each background defragmentation.
+   */
+  static final int MAX_RELOCATIONS = Integer.getInteger("gemfire.OFF_HEAP_DEFRAGMENTATION_MAX_RELOCATIONS", 10000);
+  /**
+   * The most intervals the defragmenter waits after runs that did not
+   * reduce the shortfall.
+   */
+  static final int MAX_BACKOFF_INTERVALS = 64;
+
+  private final MemoryAllocatorImpl ma;
+  private final FreeListManager freeList;
+  private volatile boolean stopped;
+  private volatile Thread thread;
+
+  OffHeapDefragmenter(MemoryAllocatorImpl ma) {
+    this.ma = ma;
+    this.freeList = ma.getFreeListManager();
+  }
+
+  synchronized void start() {
+    if (this.thread != null) {
+      return;
+    }
+    this.stopped = false;
+    final ThreadGroup group = LoggingThreadGroup.createThreadGroup("OffHeapDefragmenter Threads", logger);
+    Thread t = new Thread(group, this, "OffHeapDefragmenter");
+    t.setDaemon(true);
+    this.thread = t;
+    t.start();
+  }
+
+  synchronized void stop() {
+    this.stopped = true;
+    Thread t = this.thread;
+    if (t != null) {
+      this.thread = null;
+      t.interrupt();
+    }
+  }
+
+  boolean isRunning() {
+    return this.thread != null;
+  }
+
+  @Override
+  public void run() {
+    int backoff = 1;
+    // a thread replaced by a stop and start exits even if it missed the stop
+    while (!this.stopped && this.thread == Thread.currentThread()) {
+      try {
+        Thread.sleep(INTERVAL * backoff);
+      } catch (InterruptedException ignore) {
+        return;
+      }
+      try {
+        int shortfall = this.freeList.getLargestFragmentShortfall();
+        if (shortfall >= THRESHOLD) {
+          defragment(MAX_RELOCATIONS);
+          backoff = nextBackoff(backoff, shortfall, this.freeList.getLargestFragmentShortfall());
+        } else {
+          backoff = 1;
+        }
+      } catch (OutOfMemoryError err) {
+        throw err;
+      } catch (RuntimeException ex) {
+        if (!this.stopped) {
+          logger.warn("Background off-heap defragmentation failed", ex);
+        }
+      }
+    }
+  }
+
+  /**
+   * @return the number of intervals to wait before the next check, given
+   *         the shortfall before and after a run
+   */
+  static int nextBackoff(int backoff, int shortfallBefore, int shortfallAfter) {
+    if (shortfallAfter < shortfallBefore) {
+      return 1;
+    }
+    return Math.min(backoff * 2, MAX_BACKOFF_INTERVALS);
+  }
+
+  /**
+   * Defragments the free lists and relocates up to maxRelocations values.
+   * @return the number of values relocated
+   */
+  int defragment(int maxRelocations) {
+    this.freeList.defragment(0);
+    int relocated = 0;
+    for (LocalRegion r: getOffHeapRegions()) {
+      if (relocated >= maxRelocations || this.stopped) {
+        break;
+      }
+      relocated += relocate(r.getRegionMap().regionEntries(), maxRelocations - relocated);
+    }
+    if (relocated > 0) {
+      this.freeList.defragment(0);
+    }
+    return relocated;
+  }
+
+  /**
+   * Relocates the values of up to maxRelocations of the given entries.
+   * @return the number of values relocated
+   */
+  int relocate(Iterable<RegionEntry> entries, int maxRelocations) {
+    int relocated = 0;
+    for (RegionEntry re: entries) {
+      if (relocated >= maxRelocations || this.stopped) {
+        break;
+      }
+      if (re instanceof OffHeapRegionEntry && relocate((OffHeapRegionEntry) re)) {
+        relocated++;
+      }
+    }
+    return relocated;
+  }
+
+  /**
+   * Moves the value of the given entry to a lower address in its slab.
+   * @return true if the value was moved
+   */
+  boolean relocate(OffHeapRegionEntry re) {
+    synchronized (re) {
+      final long addr = re.getAddress();
+      if (!OffHeapRegionEntryHelper.isOffHeap(addr)) {
+        return false;
+      }
+      if (OffHeapStoredObject.getRefCount(addr) != 1) {
+        // someone other than the entry is using it
+        return false;
+      }
+      final OffHeapStoredObject oldChunk = new OffHeapStoredObject(addr);
+      final int dataSize = oldChunk.getDataSize();
+      final OffHeapStoredObject newChunk = this.ma.allocateBelow(dataSize, addr);
+      if (newChunk == null) {
+        return false;
+      }
+      newChunk.setSerialized(oldChunk.isSerialized());
+      newChunk.setCompressed(oldChunk.isCompressed());
+      AddressableMemoryManager.copyMemory(addr + OffHeapStoredObject.HEADER_SIZE, newChunk.getAddress() + OffHeapStoredObject.HEADER_SIZE, dataSize);
+      if (!re.setAddress(addr, newChunk.getAddress())) {
+        OffHeapStoredObject.release(newChunk.getAddress(), this.freeList);
+        return false;
+      }
+      this.ma.getStats().incRelocations(newChunk.getSize());
+      OffHeapStoredObject.release(addr, this.freeList);
+      return true;
+    }
+  }
+
+  private List<LocalRegion> getOffHeapRegions() {
+    List<LocalRegion> result = new ArrayList<LocalRegion>();
+    RegionService gfc = GemFireCacheImpl.getInstance();
+    if (gfc == null || gfc.isClosed()) {
+      return result;
+    }
+    for (Region<?,?> rr: gfc.rootRegions()) {
+      addOffHeapRegion(rr, result);
+      for (Region<?,?> sr: rr.subregions(true)) {
+        addOffHeapRegion(sr, result);
+      }
+    }
+    return result;
+  }
+
+  private void addOffHeapRegion(Region<?,?> r, List<LocalRegion> result) {
+    if (!r.getAttributes().getOffHeap()) {
+      return;
+    }
+    if (r instanceof PartitionedRegion) {
+      PartitionedRegionDataStore prs = ((PartitionedRegion) r).getDataStore();
+      if (prs != null) {
+        Set<BucketRegion> brs = prs.getAllLocalBucketRegions();
+        if (brs != null) {
+          for (BucketRegion br: brs) {
+            if (br != null && !br.isDestroyed()) {
+              result.add(br);
+            }
+          }
+        }
+      }
+    } else if (r instanceof LocalRegion) {
+      result.add((LocalRegion) r);
+    }
+  }
+}
@@ -35,6 +35,9 @@ public interface OffHeapMemoryStats {
   public long startDefragmentation();
   public void endDefragmentation(long start);
   public void setFragmentation(int value);
+  public void incThreadCacheHits();
+  public void incThreadCacheMisses();
+  public void incRelocations(long bytes);
   
   public long getFreeMemory();
   public long getMaxMemory();
@@ -46,6 +49,10 @@ public interface OffHeapMemoryStats {
   public int getLargestFragment();
   public int getFragmentation();
   public long getDefragmentationTime();
+  public long getThreadCacheHits();
+  public long getThreadCacheMisses();
+  public long getRelocations();
+  public long getRelocatedBytes();
   
   public Statistics getStats();
   public void close();
@@ -59,6 +59,10 @@ public class OffHeapStorage implements OffHeapMemoryStats {
   private static final int largestFragmentId;
   private static final int defragmentationTimeId;
   private static final int fragmentationId;
+  private static final int threadCacheHitsId;
+  private static final int threadCacheMissesId;
+  private static final int relocationsId;
+  private static final int relocatedBytesId;
   // NOTE!!!! When adding new stats make sure and update the initialize method on this class
   
   // creates and registers the statistics type
@@ -75,6 +79,10 @@ public class OffHeapStorage implements OffHeapMemoryStats {
     final String objectsDesc = "The number of objects stored in off-heap memory.";
     final String readsDesc = "The total number of reads of off-heap memory. Only reads of a full object increment this statistic. If only a part of the object is read this statistic is not incremented.";
     final String maxMemoryDesc = "The maximum amount of off-heap memory, in bytes. This is the amount of memory allocated at startup and does not change.";
+    final String threadCacheHitsDesc = "The total number of off-heap allocations served from the allocating thread's cache of free chunks.";
+    final String threadCacheMissesDesc = "The total number of off-heap allocations of a thread cached size that found the allocating thread's cache empty.";
+    final String relocationsDesc = "The total number of off-heap objects moved by background defragmentation.";
+    final String relocatedBytesDesc = "The total number of bytes of off-heap memory moved by background defragmentation.";
 
     final String usedMemory = "usedMemory";
     final String defragmentations = "defragmentations";
@@ -86,6 +94,10 @@ public class OffHeapStorage implements OffHeapMemoryStats {
     final String objects = "objects";
     final String reads = "reads";
     final String maxMemory = "maxMemory";
+    final String threadCacheHits = "threadCacheHits";
+    final String threadCacheMisses = "threadCacheMisses";
+    final String relocations = "relocations";
+    final String relocatedBytes = "relocatedBytes";
     
     statsType = f.createType(
         statsTypeName,
@@ -101,6 +113,10 @@ public class OffHeapStorage implements OffHeapMemoryStats {
             f.createIntGauge(objects, objectsDesc, "objects"),
             f.createLongCounter(reads, readsDesc, "operations"),
             f.createLongGauge(maxMemory, maxMemoryDesc, "bytes"),
+            f.createLongCounter(threadCacheHits, threadCacheHitsDesc, "operations"),
+            f.createLongCounter(threadCacheMisses, threadCacheMissesDesc, "operations"),
+            f.createLongCounter(relocations, relocationsDesc, "objects"),
+            f.createLongCounter(relocatedBytes, relocatedBytesDesc, "bytes"),
         }
     );
     
@@ -114,6 +130,10 @@ public class OffHeapStorage implements OffHeapMemoryStats {
     objectsId = statsType.nameToId(objects);
     readsId = statsType.nameToId(reads);
     maxMemoryId = statsType.nameToId(maxMemory);
+    threadCacheHitsId = statsType.nameToId(threadCacheHits);
+    threadCacheMissesId = statsType.nameToId(threadCacheMisses);
+    relocationsId = statsType.nameToId(relocations);
+    relocatedBytesId = statsType.nameToId(relocatedBytes);
   }
 
   public static long parseOffHeapMemorySize(String value) {
@@ -335,6 +355,42 @@ public class OffHeapStorage implements OffHeapMemoryStats {
   public int getFragmentation() {
     return this.stats.getInt(fragmentationId);
   }
+
+  @Override
+  public void incThreadCacheHits() {
+    this.stats.incLong(threadCacheHitsId, 1);
+  }
+
+  @Override
+  public long getThreadCacheHits() {
+    return this.stats.getLong(threadCacheHitsId);
+  }
+
+  @Override
+  public void incThreadCacheMisses() {
+    this.stats.incLong(threadCacheMissesId, 1);
+  }
+
+  @Override
+  public long getThreadCacheMisses() {
+    return this.stats.getLong(threadCacheMissesId);
+  }
+
+  @Override
+  public void incRelocations(long bytes) {
+    this.stats.incLong(relocationsId, 1);
+    this.stats.incLong(relocatedBytesId, bytes);
+  }
+
+  @Override
+  public long getRelocations() {
+    return this.stats.getLong(relocationsId);
+  }
+
+  @Override
+  public long getRelocatedBytes() {
+    return this.stats.getLong(relocatedBytesId);
+  }
   
   public Statistics getStats() {
     return this.stats;
@@ -357,10 +413,30 @@ public class OffHeapStorage implements OffHeapMemoryStats {
     setLargestFragment(oldStats.getLargestFragment());
     setDefragmentationTime(oldStats.getDefragmentationTime());
     setFragmentation(oldStats.getFragmentation());
+    setThreadCacheHits(oldStats.getThreadCacheHits());
+    setThreadCacheMisses(oldStats.getThreadCacheMisses());
+    setRelocations(oldStats.getRelocations());
+    setRelocatedBytes(oldStats.getRelocatedBytes());
     
     oldStats.close();
   }
 
+  private void setThreadCacheHits(long value) {
+    this.stats.setLong(threadCacheHitsId, value);
+  }
+
+  private void setThreadCacheMisses(long value) {
+    this.stats.setLong(threadCacheMissesId, value);
+  }
+
+  private void setRelocations(long value) {
+    this.stats.setLong(relocationsId, value);
+  }
+
+  private void setRelocatedBytes(long value) {
+    this.stats.setLong(relocatedBytesId, value);
+  }
+
   private void setDefragmentationTime(long value) {
     stats.setLong(defragmentationTimeId, value);
   }
@@ -59,6 +59,45 @@ public class OffHeapStoredObjectAddressStack implements LongStack {
     }
     return result;
   }
+  /**
+   * Pushes count addresses, starting at addrs[offset], with a single
+   * synchronization. The first address in the array ends up on top.
+   */
+  public void offer(long[] addrs, int offset, int count) {
+    if (count <= 0) return;
+    for (int i=offset; i < offset+count; i++) {
+      assert addrs[i] != 0;
+      MemoryAllocatorImpl.validateAddress(addrs[i]);
+    }
+    // link the batch together before taking the lock
+    final int last = offset+count-1;
+    for (int i=offset; i < last; i++) {
+      OffHeapStoredObject.setNext(addrs[i], addrs[i+1]);
+    }
+    synchronized (this) {
+      OffHeapStoredObject.setNext(addrs[last], this.topAddr);
+      this.topAddr = addrs[offset];
+    }
+  }
+  /**
+   * Removes up to max addresses from the top of this stack
+   * with a single synchronization and stores them in dest
+   * starting at dest[offset].
+   * @return the number of addresses removed
+   */
+  public int poll(long[] dest, int offset, int max) {
+    int result = 0;
+    synchronized (this) {
+      long addr = this.topAddr;
+      while (addr != 0L && result < max) {
+        dest[offset+result] = addr;
+        result++;
+        addr = OffHeapStoredObject.getNext(addr);
+      }
+      this.topAddr = addr;
+    }
+    return result;
+  }
   /**
    * Returns the address of the "top" item in this stack.
    */
@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.offheap;
+
+import java.lang.ref.WeakReference;
+
+/**
+ * A cache of free tiny chunks owned by a single thread.
+ * The FreeListManager keeps one of these per thread in front of
+ * its shared tiny free lists so that most allocations and frees
+ * of small objects do not touch a shared OffHeapStoredObjectAddressStack.
+ * Chunks move between this cache and the shared free lists in batches
+ * of half the cache capacity.
+ * <p>
+ * All methods synchronize on this cache. The lock is only contended
+ * when another thread flushes the cache, for example during defragmentation,
+ * so it is cheap for the owning thread.
+ */
+class ThreadAllocationCache {
+  private final WeakReference<Thread> owner;
+  /**
+   * Indexed by tiny free list id. Each entry is created on first use.
+   */
+  private final long[][] chunks;
+  private final int[] counts;
+  private final int capacity;
+
+  ThreadAllocationCache(Thread owner, int sizeClassCount, int capacity) {
+    this.owner = new WeakReference<Thread>(owner);
+    this.chunks = new long[sizeClassCount][];
+    this.counts = new int[sizeClassCount];
+    this.capacity = capacity;
+  }
+
+  /**
+   * Returns true if the thread that owns this cache has terminated.
+   */
+  boolean isOwnerDead() {
+    Thread t = this.owner.get();
+    return t == null || !t.isAlive();
+  }
+
+  private int getBatchSize() {
+    return Math.max(1, this.capacity / 2);
+  }
+
+  /**
+   * Removes and returns the address of a cached chunk for the given size class.
+   * @return the address or 0L if no chunks of that size are cached
+   */
+  synchronized long poll(int idx) {
+    int count = this.counts[idx];
+    if (count == 0) {
+      return 0L;
+    }
+    count--;
+    this.counts[idx] = count;
+    return this.chunks[idx][count];
+  }
+
+  /**
+   * Moves a batch of chunks from the shared free list into this cache
+   * and returns one of them.
+   * @return the address or 0L if the shared free list was empty
+   */
+  synchronized long refill(int idx, OffHeapStoredObjectAddressStack sharedList) {
+    if (sharedList == null) {
+      return 0L;
+    }
+    long[] cached = getChunks(idx);
+    int count = this.counts[idx];
+    int moved = sharedList.poll(cached, count, Math.min(getBatchSize(), cached.length-count));
+    if (moved == 0) {
+      return 0L;
+    }
+    count += moved-1;
+    this.counts[idx] = count;
+    return cached[count];
+  }
+
+  /**
+   * Adds the address of a free chunk to this cache.
+   * If the size class is full then a batch is moved to the shared
+   * free lists first.
+   */
+  synchronized void offer(int idx, long addr, FreeListManager flm) {
+    long[] cached = getChunks(idx);
+    int count = this.counts[idx];
+    if (count == cached.length) {
+      int batch = getBatchSize();
+      count -= batch;
+      flm.getOrCreateTinyFreeList(idx).offer(cached, count, batch);
+    }
+    cached[count] = addr;
+    this.counts[idx] = count+1;
+  }
+
+  /**
+   * Moves every cached chunk to the shared free lists.
+   */
+  synchronized void flush(FreeListManager flm) {
+    for (int i=0; i < this.counts.length; i++) {
+      int count = this.counts[i];
+      if (count > 0) {
+        flm.getOrCreateTinyFreeList(i).offer(this.chunks[i], 0, count);
+        this.counts[i] = 0;
+      }
+    }
+  }
+
+  /**
+   * Returns the total size, in bytes, of the chunks in this cache.
+   */
+  synchronized long computeTotalSize() {
+    long result = 0;
+    for (int i=0; i < this.counts.length; i++) {
+      for (int j=0; j < this.counts[i]; j++) {
+        result += OffHeapStoredObject.getSize(this.chunks[i][j]);
+      }
+    }
+    return result;
+  }
+
+  private long[] getChunks(int idx) {
+    long[] result = this.chunks[idx];
+    if (result == null) {
+      result = new long[this.capacity];
+      this.chunks[idx] = result;
+    }
+    return result;
+  }
+
+}
@@ -0,0 +1,361 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.redis;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.gemstone.gemfire.DataSerializable;
+import com.gemstone.gemfire.DataSerializer;
+
+/**
+ * An immutable, ziplist style encoding of a small Redis set or hash. All
+ * members (and for hashes their values) are packed into one byte[] where
+ * every element is prefixed by its length. An instance is stored as a single
+ * value in the {@link com.gemstone.gemfire.redis.GemFireRedisServer#COMPACT_COLLECTIONS_REGION}
+ * so that small collections do not need a Region of their own.
+ * <p>
+ * Lookups are linear scans, which is cheaper than hashing for the small sizes
+ * this encoding is used for. Every modification returns a new instance so
+ * that instances can be used as the expected value of
+ * {@link java.util.concurrent.ConcurrentMap#replace(Object, Object, Object)}.
+ * <p>
+ * A collection that has outgrown the encoding is swapped for a
+ * {@link #isPromoted() promoted} copy of itself. While the promoted copy still
+ * holds its members the collection is {@link #isMigrating() migrating}: the
+ * members are being copied into a Region named after the key, after which the
+ * copy is replaced by an empty promoted marker. Because the promoted copy is
+ * installed with a single compare and set, exactly one writer wins the
+ * promotion and any member can finish an interrupted migration.
+ *
+ *
+ */
+public class CompactCollection implements DataSerializable {
+
+  private static final long serialVersionUID = -6286178126716426125L;
+
+  private static final byte[] EMPTY = new byte[0];
+
+  private static final byte SET = 0;
+  private static final byte HASH = 1;
+
+  private byte kind;
+
+  private boolean promoted;
+
+  private int size;
+
+  /**
+   * Length prefixed members, for hashes every member is directly followed by
+   * its value
+   */
+  private byte[] data;
+
+  /**
+   * Empty constructor for serialization
+   */
+  public CompactCollection() {
+  }
+
+  private CompactCollection(byte kind, int size, byte[] data) {
+    this(kind, size, data, false);
+  }
+
+  private CompactCollection(byte kind, int size, byte[] data, boolean promoted) {
+    this.kind = kind;
+    this.size = size;
+    this.data = data;
+    this.promoted = promoted;
+  }
+
+  public static CompactCollection emptySet() {
+    return new CompactCollection(SET, 0, EMPTY);
+  }
+
+  public static CompactCollection emptyHash() {
+    return new CompactCollection(HASH, 0, EMPTY);
+  }
+
+  /**
+   * @return A promoted copy of this collection that still holds all members
+   */
+  public CompactCollection toPromoted() {
+    return new CompactCollection(this.kind, this.size, this.data, true);
+  }
+
+  /**
+   * @return The marker left behind once a migration has completed
+   */
+  public CompactCollection toPromotedMarker() {
+    return new CompactCollection(this.kind, 0, EMPTY, true);
+  }
+
+  public boolean isPromoted() {
+    return this.promoted;
+  }
+
+  public boolean isMigrating() {
+    return this.promoted && this.size > 0;
+  }
+
+  public boolean isHash() {
+    return this.kind == HASH;
+  }
+
+  public int size() {
+    return this.size;
+  }
+
+  public boolean isEmpty() {
+    return this.size == 0;
+  }
+
+  /**
+   * @return Number of bytes used to encode the members and values
+   */
+  public int encodedLength() {
+    return this.data.length;
+  }
+
+  public boolean contains(byte[] member) {
+    return indexOf(member) >= 0;
+  }
+
+  /**
+   * @param member Member to look up
+   * @return The value of a hash member, {@link Boolean#TRUE} for a set member
+   *         or null if the member is not present
+   */
+  public Object get(byte[] member) {
+    int pos = indexOf(member);
+    if (pos < 0)
+      return null;
+    if (this.kind != HASH)
+      return Boolean.TRUE;
+    pos = skip(pos);
+    return new ByteArrayWrapper(readElement(pos));
+  }
+
+  /**
+   * Returns a new collection that contains the member. The value is ignored
+   * for sets.
+   */
+  public CompactCollection with(byte[] member, byte[] value) {
+    int pos = indexOf(member);
+    if (pos >= 0 && this.kind != HASH)
+      return this;
+    byte[] entry = encode(member, this.kind == HASH ? value : null);
+    if (pos < 0) {
+      byte[] newData = Arrays.copyOf(this.data, this.data.length + entry.length);
+      System.arraycopy(entry, 0, newData, this.data.length, entry.length);
+      return new CompactCollection(this.kind, this.size + 1, newData);
+    }
+    return new CompactCollection(this.kind, this.size, splice(pos, skipEntry(pos), entry));
+  }
+
+  /**
+   * Returns a new collection without the member, or this collection if the
+   * member is not present
+   */
+  public CompactCollection without(byte[] member) {
+    int pos = indexOf(member);
+    if (pos < 0)
+      return this;
+    return new CompactCollection(this.kind, this.size - 1, splice(pos, skipEntry(pos), EMPTY));
+  }
+
+  public List<ByteArrayWrapper> members() {
+    List<ByteArrayWrapper> members = new ArrayList<ByteArrayWrapper>(this.size);
+    int pos = 0;
+    while (pos < this.data.length) {
+      members.add(new ByteArrayWrapper(readElement(pos)));
+      pos = skipEntry(pos);
+    }
+    return members;
+  }
+
+  /**
+   * @return Values in member order, or {@link Boolean#TRUE} for every member of
+   *         a set
+   */
+  public List<Object> values() {
+    List<Object> values = new ArrayList<Object>(this.size);
+    int pos = 0;
+    while (pos < this.data.length) {
+      pos = skip(pos);
+      if (this.kind == HASH) {
+        values.add(new ByteArrayWrapper(readElement(pos)));
+        pos = skip(pos);
+      } else {
+        values.add(Boolean.TRUE);
+      }
+    }
+    return values;
+  }
+
+  /**
+   * @return The members mapped to their {@link #values() values}, in member
+   *         order
+   */
+  public Map<ByteArrayWrapper, Object> toMap() {
+    Map<ByteArrayWrapper, Object> map = new LinkedHashMap<ByteArrayWrapper, Object>();
+    Iterator<Object> values = values().iterator();
+    for (ByteArrayWrapper member : members())
+      map.put(member, values.next());
+    return map;
+  }
+
+  private int indexOf(byte[] member) {
+    int pos = 0;
+    while (pos < this.data.length) {
+      int len = readLength(pos);
+      int start = pos + lengthOfLength(len);
+      if (len == member.length && regionMatches(start, member))
+        return pos;
+      pos = skipEntry(pos);
+    }
+    return -1;
+  }
+
+  private boolean regionMatches(int start, byte[] member) {
+    for (int i = 0; i < member.length; i++) {
+      if (this.data[start + i] != member[i])
+        return false;
+    }
+    return true;
+  }
+
+  private int skipEntry(int pos) {
+    pos = skip(pos);
+    if (this.kind == HASH)
+      pos = skip(pos);
+    return pos;
+  }
+
+  private int skip(int pos) {
+    int len = readLength(pos);
+    return pos + lengthOfLength(len) + len;
+  }
+
+  private byte[] readElement(int pos) {
+    int len = readLength(pos);
+    int start = pos + lengthOfLength(len);
+    return Arrays.copyOfRange(this.data, start, start + len);
+  }
+
+  private byte[] splice(int from, int to, byte[] replacement) {
+    byte[] newData = new byte[this.data.length - (to - from) + replacement.length];
+    System.arraycopy(this.data, 0, newData, 0, from);
+    System.arraycopy(replacement, 0, newData, from, replacement.length);
+    System.arraycopy(this.data, to, newData, from + replacement.length, this.data.length - to);
+    return newData;
+  }
+
+  /*
+   * Lengths are encoded as an unsigned varint, so members shorter than 128
+   * bytes only pay a single byte of overhead
+   */
+
+  private int readLength(int pos) {
+    int result = 0;
+    int shift = 0;
+    byte b;
+    do {
+      b = this.data[pos++];
+      result |= (b & 0x7F) << shift;
+      shift += 7;
+    } while ((b & 0x80) != 0);
+    return result;
+  }
+
+  private static int lengthOfLength(int len) {
+    int n = 1;
+    while ((len >>>= 7) != 0)
+      n++;
+    return n;
+  }
+
+  private static byte[] encode(byte[] member, byte[] value) {
+    int length = lengthOfLength(member.length) + member.length;
+    if (value != null)
+      length += lengthOfLength(value.length) + value.length;
+    byte[] entry = new byte[length];
+    int pos = writeElement(entry, 0, member);
+    if (value != null)
+      writeElement(entry, pos, value);
+    return entry;
+  }
+
+  private static int writeElement(byte[] dest, int pos, byte[] element) {
+    int len = element.length;
+    while ((len & ~0x7F) != 0) {
+      dest[pos++] = (byte) ((len & 0x7F) | 0x80);
+      len >>>= 7;
+    }
+    dest[pos++] = (byte) len;
+    System.arraycopy(element, 0, dest, pos, element.length);
+    return pos + element.length;
+  }
+
+  @Override
+  public void toData(DataOutput out) throws IOException {
+    out.writeByte(this.kind);
+    out.writeBoolean(this.promoted);
+    out.writeInt(this.size);
+    DataSerializer.writeByteArray(this.data, out);
+  }
+
+  @Override
+  public void fromData(DataInput in) throws IOException, ClassNotFoundException {
+    this.kind = in.readByte();
+    this.promoted = in.readBoolean();
+    this.size = in.readInt();
+    this.data = DataSerializer.readByteArray(in);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * (this.promoted ? this.kind + 2 : this.kind) + Arrays.hashCode(this.data);
+  }
+
+  /**
+   * Two collections are equal if they have the same encoding, which is what
+   * makes compare and set updates through the Region possible
+   */
+  @Override
+  public boolean equals(Object other) {
+    if (this == other)
+      return true;
+    if (!(other instanceof CompactCollection))
+      return false;
+    CompactCollection o = (CompactCollection) other;
+    return this.kind == o.kind && this.promoted == o.promoted && this.size == o.size && Arrays.equals(this.data, o.data);
+  }
+
+  @Override
+  public String toString() {
+    return "CompactCollection(" + (this.kind == HASH ? "hash" : "set") + ", size=" + this.size + (this.promoted ? ", promoted" : "") + ")";
+  }
+
+}
@@ -0,0 +1,349 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.redis;
+
+import java.util.AbstractMap;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+import com.gemstone.gemfire.cache.Region;
+
+/**
+ * A {@link ConcurrentMap} view of a Redis set or hash that is stored as a
+ * {@link CompactCollection} in the compact collections {@link Region}. This
+ * lets executors treat compact and Region backed collections the same way.
+ * <p>
+ * Every modification is a compare and set of the whole encoded collection, so
+ * concurrent writers on any member are safe. Once a modification would grow
+ * the collection past the number of members or encoded bytes configured in
+ * {@link RegionProvider} the collection is promoted to its own Region and all further operations are
+ * delegated to that Region.
+ * <p>
+ * Bulk views such as {@link #keySet()} and {@link #entrySet()} are snapshots
+ * and do not reflect later changes.
+ *
+ *
+ * @param <V> {@link Boolean} for sets, {@link ByteArrayWrapper} for hashes
+ */
+public class CompactCollectionMap<V> extends AbstractMap<ByteArrayWrapper, V> implements ConcurrentMap<ByteArrayWrapper, V> {
+
+  private final RegionProvider regionProvider;
+
+  private final Region<ByteArrayWrapper, CompactCollection> compactRegion;
+
+  private final ByteArrayWrapper key;
+
+  private final RedisDataType type;
+
+  private final ExecutionHandlerContext context;
+
+  CompactCollectionMap(RegionProvider regionProvider, Region<ByteArrayWrapper, CompactCollection> compactRegion, ByteArrayWrapper key, RedisDataType type, ExecutionHandlerContext context) {
+    this.regionProvider = regionProvider;
+    this.compactRegion = compactRegion;
+    this.key = key;
+    this.type = type;
+    this.context = context;
+  }
+
+  /**
+   * Operation applied to the current encoding of the collection
+   */
+  private abstract class Update {
+
+    /**
+     * The value to return to the caller
+     */
+    Object result;
+
+    /**
+     * @return The new encoding, or the same instance if nothing changed
+     */
+    abstract CompactCollection apply(CompactCollection current);
+
+    /**
+     * Applies this operation to the Region the collection was promoted to
+     */
+    abstract Object applyTo(Region<ByteArrayWrapper, V> region);
+  }
+
+  @SuppressWarnings("unchecked")
+  private V execute(Update update) {
+    while (true) {
+      CompactCollection current = this.compactRegion.get(this.key);
+      if (current != null && current.isPromoted())
+        return (V) update.applyTo(promotedRegion(current));
+      CompactCollection base = current == null ? empty() : current;
+      CompactCollection updated = update.apply(base);
+      if (updated == base)
+        return (V) update.result;
+      if (this.regionProvider.exceedsCompactLimits(updated)) {
+        CompactCollection promoted = updated.toPromoted();
+        if (compareAndSet(current, promoted)) {
+          this.regionProvider.completePromotion(this.key, this.type, promoted, this.context);
+          return (V) update.result;
+        }
+      } else if (compareAndSet(current, updated)) {
+        return (V) update.result;
+      }
+    }
+  }
+
+  private boolean compareAndSet(CompactCollection expected, CompactCollection updated) {
+    if (expected == null)
+      return this.compactRegion.putIfAbsent(this.key, updated) == null;
+    return this.compactRegion.replace(this.key, expected, updated);
+  }
+
+  private CompactCollection empty() {
+    return this.type == RedisDataType.REDIS_HASH ? CompactCollection.emptyHash() : CompactCollection.emptySet();
+  }
+
+  @SuppressWarnings("unchecked")
+  private Region<ByteArrayWrapper, V> promotedRegion(CompactCollection current) {
+    return (Region<ByteArrayWrapper, V>) this.regionProvider.completePromotion(this.key, this.type, current, this.context);
+  }
+
+  private byte[] valueBytes(Object value) {
+    return this.type == RedisDataType.REDIS_HASH ? ((ByteArrayWrapper) value).toBytes() : null;
+  }
+
+  private static byte[] memberBytes(Object member) {
+    return ((ByteArrayWrapper) member).toBytes();
+  }
+
+  @Override
+  public int size() {
+    CompactCollection c = this.compactRegion.get(this.key);
+    if (c != null && c.isPromoted())
+      return promotedRegion(c).size();
+    return c == null ? 0 : c.size();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    CompactCollection c = this.compactRegion.get(this.key);
+    if (c != null && c.isPromoted())
+      return promotedRegion(c).isEmpty();
+    return c == null || c.isEmpty();
+  }
+
+  @Override
+  public boolean containsKey(Object member) {
+    if (!(member instanceof ByteArrayWrapper))
+      return false;
+    CompactCollection c = this.compactRegion.get(this.key);
+    if (c != null && c.isPromoted())
+      return promotedRegion(c).containsKey(member);
+    return c != null && c.contains(memberBytes(member));
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public V get(Object member) {
+    if (!(member instanceof ByteArrayWrapper))
+      return null;
+    CompactCollection c = this.compactRegion.get(this.key);
+    if (c != null && c.isPromoted())
+      return promotedRegion(c).get(member);
+    return c == null ? null : (V) c.get(memberBytes(member));
+  }
+
+  @Override
+  public V put(final ByteArrayWrapper member, final V value) {
+    final byte[] memberBytes = member.toBytes();
+    final byte[] valueBytes = valueBytes(value);
+    return execute(new Update() {
+      @Override
+      CompactCollection apply(CompactCollection current) {
+        this.result = current.get(memberBytes);
+        return current.with(memberBytes, valueBytes);
+      }
+
+      @Override
+      Object applyTo(Region<ByteArrayWrapper, V> region) {
+        return region.put(member, value);
+      }
+    });
+  }
+
+  @Override
+  public V putIfAbsent(final ByteArrayWrapper member, final V value) {
+    final byte[] memberBytes = member.toBytes();
+    final byte[] valueBytes = valueBytes(value);
+    return execute(new Update() {
+      @Override
+      CompactCollection apply(CompactCollection current) {
+        this.result = current.get(memberBytes);
+        if (this.result != null)
+          return current;
+        return current.with(memberBytes, valueBytes);
+      }
+
+      @Override
+      Object applyTo(Region<ByteArrayWrapper, V> region) {
+        return region.putIfAbsent(member, value);
+      }
+    });
+  }
+
+  @Override
+  public void putAll(final Map<? extends ByteArrayWrapper, ? extends V> map) {
+    final byte[][] memberBytes = new byte[map.size()][];
+    final byte[][] valueBytes = new byte[map.size()][];
+    int i = 0;
+    for (Map.Entry<? extends ByteArrayWrapper, ? extends V> entry : map.entrySet()) {
+      memberBytes[i] = entry.getKey().toBytes();
+      valueBytes[i] = valueBytes(entry.getValue());
+      i++;
+    }
+    execute(new Update() {
+      @Override
+      CompactCollection apply(CompactCollection current) {
+        CompactCollection updated = current;
+        for (int i = 0; i < memberBytes.length; i++)
+          updated = updated.with(memberBytes[i], valueBytes[i]);
+        return updated;
+      }
+
+      @Override
+      Object applyTo(Region<ByteArrayWrapper, V> region) {
+        region.putAll(map);
+        return null;
+      }
+    });
+  }
+
+  @Override
+  public V remove(final Object member) {
+    if (!(member instanceof ByteArrayWrapper))
+      return null;
+    final byte[] memberBytes = memberBytes(member);
+    return execute(new Update() {
+      @Override
+      CompactCollection apply(CompactCollection current) {
+        this.result = current.get(memberBytes);
+        return current.without(memberBytes);
+      }
+
+      @Override
+      Object applyTo(Region<ByteArrayWrapper, V> region) {
+        return region.remove(member);
+      }
+    });
+  }
+
+  @Override
+  public boolean remove(final Object member, final Object value) {
+    if (!(member instanceof ByteArrayWrapper) || value == null)
+      return false;
+    final byte[] memberBytes = memberBytes(member);
+    return execute(new Update() {
+      @Override
+      CompactCollection apply(CompactCollection current) {
+        this.result = Boolean.FALSE;
+        if (!value.equals(current.get(memberBytes)))
+          return current;
+        this.result = Boolean.TRUE;
+        return current.without(memberBytes);
+      }
+
+      @Override
+      Object applyTo(Region<ByteArrayWrapper, V> region) {
+        return region.remove(member, value);
+      }
+    }) == Boolean.TRUE;
+  }
+
+  @Override
+  public boolean replace(final ByteArrayWrapper member, final V oldValue, final V newValue) {
+    final byte[] memberBytes = member.toBytes();
+    final byte[] newValueBytes = valueBytes(newValue);
+    return execute(new Update() {
+      @Override
+      CompactCollection apply(CompactCollection current) {
+        this.result = Boolean.FALSE;
+        if (!oldValue.equals(current.get(memberBytes)))
+          return current;
+        this.result = Boolean.TRUE;
+        return current.with(memberBytes, newValueBytes);
+      }
+
+      @Override
+      Object applyTo(Region<ByteArrayWrapper, V> region) {
+        return region.replace(member, oldValue, newValue);
+      }
+    }) == Boolean.TRUE;
+  }
+
+  @Override
+  public V replace(final ByteArrayWrapper member, final V value) {
+    final byte[] memberBytes = member.toBytes();
+    final byte[] valueBytes = valueBytes(value);
+    return execute(new Update() {
+      @Override
+      CompactCollection apply(CompactCollection current) {
+        this.result = current.get(memberBytes);
+        if (this.result == null)
+          return current;
+        return current.with(memberBytes, valueBytes);
+      }
+
+      @Override
+      Object applyTo(Region<ByteArrayWrapper, V> region) {
+        return region.replace(member, value);
+      }
+    });
+  }
+
+  @Override
+  public Set<ByteArrayWrapper> keySet() {
+    CompactCollection c = this.compactRegion.get(this.key);
+    if (c != null && c.isPromoted())
+      return promotedRegion(c).keySet();
+    return c == null ? Collections.<ByteArrayWrapper> emptySet() : new HashSet<ByteArrayWrapper>(c.members());
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public Collection<V> values() {
+    CompactCollection c = this.compactRegion.get(this.key);
+    if (c != null && c.isPromoted())
+      return promotedRegion(c).values();
+    return c == null ? Collections.<V> emptyList() : (Collection<V>) c.values();
+  }
+
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  @Override
+  public Set<Map.Entry<ByteArrayWrapper, V>> entrySet() {
+    CompactCollection c = this.compactRegion.get(this.key);
+    if (c != null && c.isPromoted())
+      return promotedRegion(c).entrySet();
+    if (c == null)
+      return Collections.emptySet();
+    return Collections.unmodifiableSet(((Map) c.toMap()).entrySet());
+  }
+
+  @Override
+  public String toString() {
+    return "CompactCollectionMap(" + this.key + ")";
+  }
+
+}
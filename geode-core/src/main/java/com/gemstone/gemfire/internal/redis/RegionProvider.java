@@ -41,6 +41,7 @@ import com.gemstone.gemfire.cache.query.Query;
 import com.gemstone.gemfire.cache.query.QueryInvalidException;
 import com.gemstone.gemfire.cache.query.QueryService;
 import com.gemstone.gemfire.cache.query.RegionNotFoundException;
+import com.gemstone.gemfire.distributed.DistributedLockService;
 import com.gemstone.gemfire.internal.cache.GemFireCacheImpl;
 import com.gemstone.gemfire.internal.redis.executor.ExpirationExecutor;
 import com.gemstone.gemfire.internal.redis.executor.ListQuery;
@@ -62,6 +63,11 @@ import com.gemstone.gemfire.redis.GemFireRedisServer;
  */
 public class RegionProvider implements Closeable {
 
+  /**
+   * Name of the {@link DistributedLockService} used to promote compact collections
+   */
+  private static final String PROMOTION_LOCK_SERVICE_NAME = "__GemFireRedisCompactCollections";
+
   private final ConcurrentHashMap<ByteArrayWrapper, Region<?, ?>> regions;
 
   /**
@@ -83,6 +89,31 @@ public class RegionProvider implements Closeable {
    */
   private final Region<ByteArrayWrapper, HyperLogLogPlus> hLLRegion;
 
+  /**
+   * This is the {@link Region} that stores all sets and hashes that are small
+   * enough to be held as a single {@link CompactCollection} value
+   */
+  private final Region<ByteArrayWrapper, CompactCollection> compactCollectionsRegion;
+
+  /**
+   * The number of members a set or hash can hold before it is moved out of
+   * {@link #compactCollectionsRegion} into its own {@link Region}. Compact
+   * collections are not used if this is not positive.
+   */
+  private final int compactMaxEntries;
+
+  /**
+   * The number of bytes the encoding of a compact collection can take up
+   * before it is moved into its own {@link Region}
+   */
+  private final int compactMaxBytes;
+
+  /**
+   * Serializes the migration of compact collections into their own Regions
+   * across the distributed system
+   */
+  private final DistributedLockService promotionLockService;
+
   private final Cache cache;
   private final QueryService queryService;
   private final ConcurrentMap<ByteArrayWrapper, Map<Enum<?>, Query>> preparedQueries = new ConcurrentHashMap<ByteArrayWrapper, Map<Enum<?>, Query>>();
@@ -93,11 +124,20 @@ public class RegionProvider implements Closeable {
   private final ConcurrentHashMap<String, Lock> locks;
 
   public RegionProvider(Region<ByteArrayWrapper, ByteArrayWrapper> stringsRegion, Region<ByteArrayWrapper, HyperLogLogPlus> hLLRegion, Region<String, RedisDataType> redisMetaRegion, ConcurrentMap<ByteArrayWrapper, ScheduledFuture<?>> expirationsMap, ScheduledExecutorService expirationExecutor, RegionShortcut defaultShortcut) {
+    this(stringsRegion, hLLRegion, null, redisMetaRegion, expirationsMap, expirationExecutor, defaultShortcut, 0, 0);
+  }
+
+  public RegionProvider(Region<ByteArrayWrapper, ByteArrayWrapper> stringsRegion, Region<ByteArrayWrapper, HyperLogLogPlus> hLLRegion, Region<ByteArrayWrapper, CompactCollection> compactCollectionsRegion, Region<String, RedisDataType> redisMetaRegion, ConcurrentMap<ByteArrayWrapper, ScheduledFuture<?>> expirationsMap, ScheduledExecutorService expirationExecutor, RegionShortcut defaultShortcut, int compactMaxEntries, int compactMaxBytes) {
     if (stringsRegion == null || hLLRegion == null || redisMetaRegion == null)
       throw new NullPointerException();
+    if (compactMaxEntries > 0 && compactCollectionsRegion == null)
+      throw new NullPointerException();
     this.regions = new ConcurrentHashMap<ByteArrayWrapper, Region<?, ?>>();
     this.stringsRegion = stringsRegion;
     this.hLLRegion = hLLRegion;
+    this.compactCollectionsRegion = compactCollectionsRegion;
+    this.compactMaxEntries = compactMaxEntries;
+    this.compactMaxBytes = compactMaxBytes;
     this.redisMetaRegion = redisMetaRegion;
     this.cache = GemFireCacheImpl.getInstance();
     this.queryService = cache.getQueryService();
@@ -105,6 +145,16 @@ public class RegionProvider implements Closeable {
     this.expirationExecutor = expirationExecutor;
     this.defaultRegionType = defaultShortcut;
     this.locks = new ConcurrentHashMap<String, Lock>();
+    this.promotionLockService = compactMaxEntries > 0 ? getOrCreateLockService() : null;
+  }
+
+  private DistributedLockService getOrCreateLockService() {
+    synchronized (RegionProvider.class) {
+      DistributedLockService dls = DistributedLockService.getServiceNamed(PROMOTION_LOCK_SERVICE_NAME);
+      if (dls == null)
+        dls = DistributedLockService.create(PROMOTION_LOCK_SERVICE_NAME, this.cache.getDistributedSystem());
+      return dls;
+    }
   }
 
   public boolean existsKey(ByteArrayWrapper key) {
@@ -185,6 +235,8 @@ public class RegionProvider implements Closeable {
         } else if (type == RedisDataType.REDIS_HLL) {
           return this.hLLRegion.remove(key) != null;
         } else {
+          if (isCompactType(type))
+            removeCompactCollection(key);
           return destroyRegion(key, type);
         }
       } catch (Exception exc) {
@@ -208,6 +260,133 @@ public class RegionProvider implements Closeable {
     return getOrCreateRegion0(key, type, context, true);
   }
 
+  /**
+   * Gets the set or hash stored at the given key. Unlike {@link #getRegion(ByteArrayWrapper)}
+   * this also finds collections that are stored compactly.
+   * 
+   * @param key Key of the collection
+   * @return The collection or null if the key does not exist
+   */
+  public ConcurrentMap<?, ?> getCollection(ByteArrayWrapper key) {
+    Region<?, ?> r = this.regions.get(key);
+    if (r != null || this.compactMaxEntries <= 0)
+      return r;
+    CompactCollection c = this.compactCollectionsRegion.get(key);
+    if (c == null)
+      return null;
+    RedisDataType type = c.isHash() ? RedisDataType.REDIS_HASH : RedisDataType.REDIS_SET;
+    if (c.isPromoted())
+      return completePromotion(key, type, c, null);
+    return new CompactCollectionMap<Object>(this, this.compactCollectionsRegion, key, type, null);
+  }
+
+  /**
+   * Gets or creates the set or hash stored at the given key. New collections
+   * are stored compactly if compact collections are enabled, otherwise this is
+   * the same as {@link #getOrCreateRegion(ByteArrayWrapper, RedisDataType, ExecutionHandlerContext)}.
+   * 
+   * @param key Key of the collection
+   * @param type Either {@link RedisDataType#REDIS_SET} or {@link RedisDataType#REDIS_HASH}
+   * @param context Context of the calling client
+   * @return The collection
+   */
+  public ConcurrentMap<?, ?> getOrCreateCollection(ByteArrayWrapper key, RedisDataType type, ExecutionHandlerContext context) {
+    if (this.compactMaxEntries <= 0 || !isCompactType(type))
+      return getOrCreateRegion(key, type, context);
+    checkDataType(key, type);
+    Region<?, ?> r = this.regions.get(key);
+    if (r != null) {
+      if (!r.isDestroyed())
+        return r;
+      removeKey(key, type);
+    }
+    RedisDataType existingType = metaPutIfAbsent(key, type);
+    if (existingType != null && existingType != type)
+      throw new RedisDataTypeMismatchException("The key name \"" + key + "\" is already used by a " + existingType.toString());
+    return new CompactCollectionMap<Object>(this, this.compactCollectionsRegion, key, type, context);
+  }
+
+  /**
+   * Finishes moving a compact collection into its own {@link Region}. The
+   * members held by a {@link CompactCollection#isMigrating() migrating}
+   * collection are copied into the Region before the collection is replaced by
+   * a marker. This is idempotent, so any member that finds a migrating
+   * collection can complete the move.
+   * 
+   * @param key Key of the collection
+   * @param type Type of the collection
+   * @param promoted The promoted collection as last read
+   * @param context Context of the calling client, may be null
+   * @return The Region now holding the collection
+   */
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  Region<?, ?> completePromotion(ByteArrayWrapper key, RedisDataType type, CompactCollection promoted, ExecutionHandlerContext context) {
+    Region r = getOrCreateRegion0(key, type, context, false);
+    if (promoted.isMigrating()) {
+      // The copy must not race with a slower copy of the same members, which
+      // could overwrite changes made to the Region after the migration finished
+      String lockName = key.toString();
+      this.promotionLockService.lock(lockName, -1, -1);
+      try {
+        CompactCollection current = this.compactCollectionsRegion.get(key);
+        if (current != null && current.isMigrating()) {
+          r.putAll(current.toMap());
+          this.compactCollectionsRegion.replace(key, current, current.toPromotedMarker());
+        }
+      } finally {
+        this.promotionLockService.unlock(lockName);
+      }
+    }
+    return r;
+  }
+
+  /**
+   * @return The number of members a collection can hold before it is given
+   *         its own {@link Region}
+   */
+  public int getCompactMaxEntries() {
+    return this.compactMaxEntries;
+  }
+
+  /**
+   * @return The number of bytes the members and values of a collection can
+   *         take up before it is given its own {@link Region}
+   */
+  public int getCompactMaxBytes() {
+    return this.compactMaxBytes;
+  }
+
+  /**
+   * @return True if the collection is too large to stay compact
+   */
+  boolean exceedsCompactLimits(CompactCollection c) {
+    return c.size() > this.compactMaxEntries || c.encodedLength() > this.compactMaxBytes;
+  }
+
+  private boolean isCompactType(RedisDataType type) {
+    return type == RedisDataType.REDIS_SET || type == RedisDataType.REDIS_HASH;
+  }
+
+  /**
+   * SYNCHRONIZE EXTERNALLY OF this.locks.get(key.toString())!!!!!
+   * 
+   * Removes the compact form of a collection. If the collection had been
+   * promoted the Region it was promoted to is looked up so that it can be
+   * destroyed, even if it was never used on this member.
+   * 
+   * @param key Key of the collection to remove
+   */
+  private void removeCompactCollection(ByteArrayWrapper key) {
+    if (this.compactMaxEntries <= 0)
+      return;
+    CompactCollection c = this.compactCollectionsRegion.remove(key);
+    if (c != null && c.isPromoted() && !this.regions.containsKey(key)) {
+      Region<?, ?> r = cache.getRegion(key.toString());
+      if (r != null)
+        this.regions.put(key, r);
+    }
+  }
+
   public void createRemoteRegionReferenceLocally(ByteArrayWrapper key, RedisDataType type) {
     if (type == null || type == RedisDataType.REDIS_STRING || type == RedisDataType.REDIS_HLL)
       return;
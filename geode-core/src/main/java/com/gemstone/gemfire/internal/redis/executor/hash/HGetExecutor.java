@@ -17,8 +17,8 @@
 package com.gemstone.gemfire.internal.redis.executor.hash;
 
 import java.util.List;
+import java.util.Map;
 
-import com.gemstone.gemfire.cache.Region;
 import com.gemstone.gemfire.internal.redis.ByteArrayWrapper;
 import com.gemstone.gemfire.internal.redis.Command;
 import com.gemstone.gemfire.internal.redis.ExecutionHandlerContext;
@@ -40,7 +40,7 @@ public class HGetExecutor extends HashExecutor {
     ByteArrayWrapper key = command.getKey();
 
     checkDataType(key, RedisDataType.REDIS_HASH, context);
-    Region<ByteArrayWrapper, ByteArrayWrapper> keyRegion = getRegion(context, key);
+    Map<ByteArrayWrapper, ByteArrayWrapper> keyRegion = getHash(context, key);
 
     if (keyRegion == null) {
       command.setResponse(Coder.getNilResponse(context.getByteBufAllocator()));
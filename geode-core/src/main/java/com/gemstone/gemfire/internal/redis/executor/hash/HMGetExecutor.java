@@ -30,6 +30,7 @@ import com.gemstone.gemfire.internal.redis.RedisConstants.ArityDef;
 
 public class HMGetExecutor extends HashExecutor {
 
+  @SuppressWarnings("unchecked")
   @Override
   public void executeCommand(Command command, ExecutionHandlerContext context) {
     List<byte[]> commandElems = command.getProcessedCommand();
@@ -41,7 +42,7 @@ public class HMGetExecutor extends HashExecutor {
 
     ByteArrayWrapper key = command.getKey();
 
-    Region<ByteArrayWrapper, ByteArrayWrapper> keyRegion = getRegion(context, key);
+    Map<ByteArrayWrapper, ByteArrayWrapper> keyRegion = getHash(context, key);
     checkDataType(key, RedisDataType.REDIS_HASH, context);
 
     if (keyRegion == null) {
@@ -56,15 +57,20 @@ public class HMGetExecutor extends HashExecutor {
       fields.add(field);
     }
 
-    Map<ByteArrayWrapper, ByteArrayWrapper> results = keyRegion.getAll(fields);
-
     ArrayList<ByteArrayWrapper> values = new ArrayList<ByteArrayWrapper>();
 
     /*
      * This is done to preserve order in the output
      */
-    for (ByteArrayWrapper field : fields)
-      values.add(results.get(field));
+    if (keyRegion instanceof Region) {
+      Map<ByteArrayWrapper, ByteArrayWrapper> results = ((Region<ByteArrayWrapper, ByteArrayWrapper>) keyRegion).getAll(fields);
+      for (ByteArrayWrapper field : fields)
+        values.add(results.get(field));
+    } else {
+      // Compact hashes are a single value so there is nothing to batch
+      for (ByteArrayWrapper field : fields)
+        values.add(keyRegion.get(field));
+    }
 
     command.setResponse(Coder.getBulkStringArrayResponse(context.getByteBufAllocator(), values));
 
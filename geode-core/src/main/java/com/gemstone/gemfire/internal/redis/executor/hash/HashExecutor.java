@@ -16,7 +16,8 @@
  */
 package com.gemstone.gemfire.internal.redis.executor.hash;
 
-import com.gemstone.gemfire.cache.Region;
+import java.util.concurrent.ConcurrentMap;
+
 import com.gemstone.gemfire.internal.redis.ByteArrayWrapper;
 import com.gemstone.gemfire.internal.redis.ExecutionHandlerContext;
 import com.gemstone.gemfire.internal.redis.RedisDataType;
@@ -27,13 +28,13 @@ public abstract class HashExecutor extends AbstractExecutor {
   protected final int FIELD_INDEX = 2;
   
   @SuppressWarnings("unchecked")
-  protected Region<ByteArrayWrapper, ByteArrayWrapper> getOrCreateRegion(ExecutionHandlerContext context, ByteArrayWrapper key, RedisDataType type) {
-   return (Region<ByteArrayWrapper, ByteArrayWrapper>) context.getRegionProvider().getOrCreateRegion(key, type, context);
+  protected ConcurrentMap<ByteArrayWrapper, ByteArrayWrapper> getOrCreateHash(ExecutionHandlerContext context, ByteArrayWrapper key, RedisDataType type) {
+   return (ConcurrentMap<ByteArrayWrapper, ByteArrayWrapper>) context.getRegionProvider().getOrCreateCollection(key, type, context);
   }
   
   @SuppressWarnings("unchecked")
-  protected Region<ByteArrayWrapper, ByteArrayWrapper> getRegion(ExecutionHandlerContext context, ByteArrayWrapper key) {
-   return (Region<ByteArrayWrapper, ByteArrayWrapper>) context.getRegionProvider().getRegion(key);
+  protected ConcurrentMap<ByteArrayWrapper, ByteArrayWrapper> getHash(ExecutionHandlerContext context, ByteArrayWrapper key) {
+   return (ConcurrentMap<ByteArrayWrapper, ByteArrayWrapper>) context.getRegionProvider().getCollection(key);
   }
   
 }
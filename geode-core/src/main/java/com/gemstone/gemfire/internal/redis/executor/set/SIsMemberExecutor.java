@@ -17,8 +17,8 @@
 package com.gemstone.gemfire.internal.redis.executor.set;
 
 import java.util.List;
+import java.util.Map;
 
-import com.gemstone.gemfire.cache.Region;
 import com.gemstone.gemfire.internal.redis.ByteArrayWrapper;
 import com.gemstone.gemfire.internal.redis.Command;
 import com.gemstone.gemfire.internal.redis.ExecutionHandlerContext;
@@ -45,8 +45,7 @@ public class SIsMemberExecutor extends SetExecutor {
     ByteArrayWrapper member = new ByteArrayWrapper(commandElems.get(2));
     
     checkDataType(key, RedisDataType.REDIS_SET, context);
-    @SuppressWarnings("unchecked")
-    Region<ByteArrayWrapper, Boolean> keyRegion = (Region<ByteArrayWrapper, Boolean>) context.getRegionProvider().getRegion(key);
+    Map<ByteArrayWrapper, Boolean> keyRegion = getSet(context, key);
 
     if (keyRegion == null) {
       command.setResponse(Coder.getIntegerResponse(context.getByteBufAllocator(), NOT_EXISTS));
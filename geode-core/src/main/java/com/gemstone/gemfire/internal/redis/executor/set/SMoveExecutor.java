@@ -17,8 +17,8 @@
 package com.gemstone.gemfire.internal.redis.executor.set;
 
 import java.util.List;
+import java.util.Map;
 
-import com.gemstone.gemfire.cache.Region;
 import com.gemstone.gemfire.internal.redis.ByteArrayWrapper;
 import com.gemstone.gemfire.internal.redis.Coder;
 import com.gemstone.gemfire.internal.redis.Command;
@@ -47,8 +47,7 @@ public class SMoveExecutor extends SetExecutor {
 
     checkDataType(source, RedisDataType.REDIS_SET, context);
     checkDataType(destination, RedisDataType.REDIS_SET, context);
-    @SuppressWarnings("unchecked")
-    Region<ByteArrayWrapper, Boolean> sourceRegion = (Region<ByteArrayWrapper, Boolean>) context.getRegionProvider().getRegion(source);
+    Map<ByteArrayWrapper, Boolean> sourceRegion = getSet(context, source);
 
     if (sourceRegion == null) {
       command.setResponse(Coder.getIntegerResponse(context.getByteBufAllocator(), NOT_MOVED));
@@ -62,8 +61,7 @@ public class SMoveExecutor extends SetExecutor {
       return;
     }
 
-    @SuppressWarnings("unchecked")
-    Region<ByteArrayWrapper, Boolean> destinationRegion = (Region<ByteArrayWrapper, Boolean>) getOrCreateRegion(context, destination, RedisDataType.REDIS_SET);
+    Map<ByteArrayWrapper, Boolean> destinationRegion = getOrCreateSet(context, destination);
     destinationRegion.put(mem, true);
 
     command.setResponse(Coder.getIntegerResponse(context.getByteBufAllocator(), MOVED));
@@ -17,9 +17,9 @@
 package com.gemstone.gemfire.internal.redis.executor.set;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 
-import com.gemstone.gemfire.cache.Region;
 import com.gemstone.gemfire.internal.redis.ByteArrayWrapper;
 import com.gemstone.gemfire.internal.redis.Command;
 import com.gemstone.gemfire.internal.redis.Coder;
@@ -38,8 +38,7 @@ public class SPopExecutor extends SetExecutor {
     }
     
     ByteArrayWrapper key = command.getKey();
-    @SuppressWarnings("unchecked")
-    Region<ByteArrayWrapper, Boolean> keyRegion = (Region<ByteArrayWrapper, Boolean>) context.getRegionProvider().getRegion(key);
+    Map<ByteArrayWrapper, Boolean> keyRegion = getSet(context, key);
     if (keyRegion == null || keyRegion.isEmpty()) {
       command.setResponse(Coder.getNilResponse(context.getByteBufAllocator()));
       return;
@@ -16,8 +16,23 @@
  */
 package com.gemstone.gemfire.internal.redis.executor.set;
 
+import java.util.Map;
+
+import com.gemstone.gemfire.internal.redis.ByteArrayWrapper;
+import com.gemstone.gemfire.internal.redis.ExecutionHandlerContext;
+import com.gemstone.gemfire.internal.redis.RedisDataType;
 import com.gemstone.gemfire.internal.redis.executor.AbstractExecutor;
 
 public abstract class SetExecutor extends AbstractExecutor {
 
+  @SuppressWarnings("unchecked")
+  protected Map<ByteArrayWrapper, Boolean> getOrCreateSet(ExecutionHandlerContext context, ByteArrayWrapper key) {
+    return (Map<ByteArrayWrapper, Boolean>) context.getRegionProvider().getOrCreateCollection(key, RedisDataType.REDIS_SET, context);
+  }
+
+  @SuppressWarnings("unchecked")
+  protected Map<ByteArrayWrapper, Boolean> getSet(ExecutionHandlerContext context, ByteArrayWrapper key) {
+    return (Map<ByteArrayWrapper, Boolean>) context.getRegionProvider().getCollection(key);
+  }
+
 }
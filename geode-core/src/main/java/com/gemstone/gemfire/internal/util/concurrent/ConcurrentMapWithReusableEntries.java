@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.util.concurrent;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A {@link ConcurrentMap} that can hand out an entry set whose entries may be
+ * reused during iteration. This is the view of the entry map that a region
+ * map needs.
+ *
+ * @param <K>
+ *          the type of keys maintained by this map
+ * @param <V>
+ *          the type of mapped values
+ */
+public interface ConcurrentMapWithReusableEntries<K, V> extends ConcurrentMap<K, V> {
+
+  /**
+   * Returns a set view of the mappings in this map. The
+   * <code>Map.Entry</code> objects returned by its iterator may be reused by
+   * the iterator, so callers must not hold on to them.
+   */
+  public Set<Map.Entry<K, V>> entrySetWithReusableEntries();
+}
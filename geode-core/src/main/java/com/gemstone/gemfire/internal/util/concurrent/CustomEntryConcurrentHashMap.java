@@ -62,8 +62,8 @@ import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Random;
 import java.util.Set;
-import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -136,7 +136,7 @@ import com.gemstone.gemfire.internal.util.ArrayUtils;
  *          the type of mapped values
  */
 public class CustomEntryConcurrentHashMap<K, V> extends AbstractMap<K, V> implements
-    ConcurrentMap<K, V>, Serializable {
+    ConcurrentMapWithReusableEntries<K, V>, Serializable {
 
   private static final long serialVersionUID = -7056732555635108300L;
 
@@ -2105,6 +2105,44 @@ RETRYLOOP:
     return (es != null) ? es : (this.reusableEntrySet = new EntrySet(true));
   }
 
+  /**
+   * Copies the values of up to <code>values.length</code> mappings into
+   * <code>values</code>. The walk starts at a random bucket of a random
+   * segment and continues through the following buckets and segments, so a
+   * caller can look at a few random mappings without iterating the whole
+   * map. No locks are taken and at most <code>10 * values.length</code>
+   * buckets are visited, so fewer values may be returned even if the map
+   * has enough mappings.
+   * 
+   * @return the number of values copied into <code>values</code>
+   */
+  public final int sampleValues(final Object[] values, final Random random) {
+    final Segment<K, V>[] segments = this.segments;
+    final int first = random.nextInt(segments.length);
+    int found = 0;
+    int bucketsLeft = values.length * 10;
+    for (int s = 0; s < segments.length && found < values.length
+        && bucketsLeft > 0; s++) {
+      final Segment<K, V> seg = segments[(first + s) % segments.length];
+      if (seg.count == 0) {
+        continue;
+      }
+      final HashEntry<K, V>[] tab = seg.table;
+      final int start = s == 0 ? random.nextInt(tab.length) : 0;
+      for (int i = 0; i < tab.length && found < values.length
+          && bucketsLeft > 0; i++, bucketsLeft--) {
+        for (HashEntry<K, V> e = tab[(start + i) & (tab.length - 1)]; e != null
+            && found < values.length; e = e.getNextEntry()) {
+          final V v = e.getMapValue();
+          if (v != null) {
+            values[found++] = v;
+          }
+        }
+      }
+    }
+    return found;
+  }
+
 // End GemStone addition
 
   /**
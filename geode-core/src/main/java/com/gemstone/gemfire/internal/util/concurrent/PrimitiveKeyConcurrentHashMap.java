@@ -0,0 +1,600 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.util.concurrent;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A concurrent map that keeps mappings for {@link Long} and {@link Integer}
+ * keys in open-addressing tables indexed by the primitive key. Lookups of
+ * such keys unbox the key once and never allocate or call
+ * <code>hashCode</code>/<code>equals</code> on it. Keys of any other type
+ * are kept in a {@link ConcurrentHashMap}, so an <code>Integer</code> key and
+ * a <code>Long</code> key with the same value remain distinct mappings, as
+ * they would in any other map.
+ * <p>
+ * Each primitive table is split into segments. Writers lock their segment;
+ * readers take no lock. A slot's key is written before its value is
+ * published and never changes for the life of the slot's table, and a
+ * removed mapping leaves its key behind with a {@link #REMOVED} marker so
+ * that probe sequences stay intact. Removed slots are purged when the
+ * segment is rehashed. Iterators are weakly consistent, as they are for
+ * {@link ConcurrentHashMap}. Null keys and values are not permitted.
+ *
+ * @param <V>
+ *          the type of mapped values
+ */
+public class PrimitiveKeyConcurrentHashMap<V> extends AbstractMap<Object, V>
+    implements ConcurrentMapWithReusableEntries<Object, V> {
+
+  /** The largest table a single segment may use. */
+  private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+  /** The largest number of segments a primitive table may use. */
+  private static final int MAX_SEGMENTS = 1 << 16;
+
+  /** The smallest table a segment starts with. */
+  private static final int MINIMUM_CAPACITY = 4;
+
+  /** Value stored in a slot whose mapping has been removed. */
+  static final Object REMOVED = new Object();
+
+  /** Mappings for {@link Long} keys. */
+  private final LongTable longs;
+
+  /** Mappings for {@link Integer} keys, widened to long. */
+  private final LongTable ints;
+
+  /** Mappings for keys of any other type. */
+  private final ConcurrentHashMap<Object, V> others;
+
+  private transient Set<Map.Entry<Object, V>> entrySet;
+
+  public PrimitiveKeyConcurrentHashMap() {
+    this(16, 16);
+  }
+
+  /**
+   * @param initialCapacity
+   *          the number of primitive-keyed mappings to size for
+   * @param concurrencyLevel
+   *          the estimated number of concurrently updating threads
+   */
+  public PrimitiveKeyConcurrentHashMap(int initialCapacity, int concurrencyLevel) {
+    if (initialCapacity < 0 || concurrencyLevel <= 0) {
+      throw new IllegalArgumentException();
+    }
+    this.longs = new LongTable(initialCapacity, concurrencyLevel);
+    this.ints = new LongTable(0, concurrencyLevel);
+    this.others = new ConcurrentHashMap<Object, V>(16, 0.75f, concurrencyLevel);
+  }
+
+  /**
+   * Spreads the bits of a primitive key. The high bits select the segment
+   * and the low bits the first slot probed within it.
+   */
+  static int hash(long key) {
+    long h = key;
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return (int)h;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public V get(Object key) {
+    if (key instanceof Long) {
+      return (V)this.longs.get(((Long)key).longValue());
+    }
+    if (key instanceof Integer) {
+      return (V)this.ints.get(((Integer)key).intValue());
+    }
+    return this.others.get(key);
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return get(key) != null;
+  }
+
+  @Override
+  public V put(Object key, V value) {
+    return put(key, value, false);
+  }
+
+  public V putIfAbsent(Object key, V value) {
+    return put(key, value, true);
+  }
+
+  @SuppressWarnings("unchecked")
+  private V put(Object key, V value, boolean onlyIfAbsent) {
+    if (value == null) {
+      throw new NullPointerException();
+    }
+    if (key instanceof Long) {
+      return (V)this.longs.put(((Long)key).longValue(), value, onlyIfAbsent);
+    }
+    if (key instanceof Integer) {
+      return (V)this.ints.put(((Integer)key).intValue(), value, onlyIfAbsent);
+    }
+    return onlyIfAbsent ? this.others.putIfAbsent(key, value) : this.others
+        .put(key, value);
+  }
+
+  @Override
+  public V remove(Object key) {
+    return remove(key, null, false);
+  }
+
+  public boolean remove(Object key, Object value) {
+    return value != null && remove(key, value, true) != null;
+  }
+
+  @SuppressWarnings("unchecked")
+  private V remove(Object key, Object expected, boolean conditional) {
+    if (key instanceof Long) {
+      return (V)this.longs.remove(((Long)key).longValue(), expected);
+    }
+    if (key instanceof Integer) {
+      return (V)this.ints.remove(((Integer)key).intValue(), expected);
+    }
+    if (!conditional) {
+      return this.others.remove(key);
+    }
+    return this.others.remove(key, expected) ? (V)expected : null;
+  }
+
+  public boolean replace(Object key, V oldValue, V newValue) {
+    if (oldValue == null || newValue == null) {
+      throw new NullPointerException();
+    }
+    if (key instanceof Long) {
+      return this.longs.replace(((Long)key).longValue(), oldValue, newValue) != null;
+    }
+    if (key instanceof Integer) {
+      return this.ints.replace(((Integer)key).intValue(), oldValue, newValue) != null;
+    }
+    return this.others.replace(key, oldValue, newValue);
+  }
+
+  @SuppressWarnings("unchecked")
+  public V replace(Object key, V value) {
+    if (value == null) {
+      throw new NullPointerException();
+    }
+    if (key instanceof Long) {
+      return (V)this.longs.replace(((Long)key).longValue(), null, value);
+    }
+    if (key instanceof Integer) {
+      return (V)this.ints.replace(((Integer)key).intValue(), null, value);
+    }
+    return this.others.replace(key, value);
+  }
+
+  @Override
+  public int size() {
+    long size = this.longs.size() + this.ints.size() + this.others.size();
+    return size > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int)size;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return this.longs.size() == 0 && this.ints.size() == 0
+        && this.others.isEmpty();
+  }
+
+  @Override
+  public void clear() {
+    this.longs.clear();
+    this.ints.clear();
+    this.others.clear();
+  }
+
+  @Override
+  public Set<Map.Entry<Object, V>> entrySet() {
+    final Set<Map.Entry<Object, V>> es = this.entrySet;
+    return (es != null) ? es : (this.entrySet = new EntrySet());
+  }
+
+  /**
+   * Entries handed out by this map are created per call to
+   * <code>next</code>, so the plain entry set already satisfies the contract.
+   */
+  public Set<Map.Entry<Object, V>> entrySetWithReusableEntries() {
+    return entrySet();
+  }
+
+  /**
+   * A segmented open-addressing table from primitive keys to values.
+   */
+  private static final class LongTable {
+    private final Segment[] segments;
+    private final int segmentShift;
+    private final int segmentMask;
+
+    LongTable(int initialCapacity, int concurrencyLevel) {
+      if (concurrencyLevel > MAX_SEGMENTS) {
+        concurrencyLevel = MAX_SEGMENTS;
+      }
+      int sshift = 0;
+      int ssize = 1;
+      while (ssize < concurrencyLevel) {
+        ++sshift;
+        ssize <<= 1;
+      }
+      this.segmentShift = 32 - sshift;
+      this.segmentMask = ssize - 1;
+      this.segments = new Segment[ssize];
+      int c = initialCapacity / ssize;
+      if (c * ssize < initialCapacity) {
+        ++c;
+      }
+      for (int i = 0; i < ssize; i++) {
+        this.segments[i] = new Segment(c);
+      }
+    }
+
+    private Segment segmentFor(int hash) {
+      return this.segments[(hash >>> this.segmentShift) & this.segmentMask];
+    }
+
+    Object get(long key) {
+      int hash = hash(key);
+      return segmentFor(hash).get(key, hash);
+    }
+
+    Object put(long key, Object value, boolean onlyIfAbsent) {
+      int hash = hash(key);
+      return segmentFor(hash).put(key, hash, value, onlyIfAbsent);
+    }
+
+    Object remove(long key, Object expected) {
+      int hash = hash(key);
+      return segmentFor(hash).remove(key, hash, expected);
+    }
+
+    Object replace(long key, Object expected, Object value) {
+      int hash = hash(key);
+      return segmentFor(hash).replace(key, hash, expected, value);
+    }
+
+    long size() {
+      long size = 0;
+      for (Segment s : this.segments) {
+        size += s.count;
+      }
+      return size;
+    }
+
+    void clear() {
+      for (Segment s : this.segments) {
+        s.clear();
+      }
+    }
+  }
+
+  /**
+   * The slots of one segment. A table is never written to once a segment
+   * has replaced it, so a reader holding an old table sees a consistent,
+   * if stale, set of mappings.
+   */
+  private static final class Table {
+    final long[] keys;
+    final AtomicReferenceArray<Object> values;
+    final int mask;
+    final int threshold;
+
+    Table(int capacity) {
+      this.keys = new long[capacity];
+      this.values = new AtomicReferenceArray<Object>(capacity);
+      this.mask = capacity - 1;
+      this.threshold = capacity - (capacity >>> 2);
+    }
+
+    /**
+     * Returns the slot holding <code>key</code>, or the empty slot that ends
+     * its probe sequence.
+     */
+    int indexOf(long key, int hash) {
+      int i = hash & this.mask;
+      while (this.values.get(i) != null && this.keys[i] != key) {
+        i = (i + 1) & this.mask;
+      }
+      return i;
+    }
+  }
+
+  private static final class Segment extends ReentrantLock {
+    private static final long serialVersionUID = 4740306693398307498L;
+
+    private final int initialCapacity;
+
+    /** The current slots; replaced, never resized in place. */
+    transient volatile Table table;
+
+    /** The number of live mappings in this segment. */
+    transient volatile int count;
+
+    /** The number of live and removed slots; guarded by this lock. */
+    private transient int used;
+
+    Segment(int initialCapacity) {
+      int capacity = MINIMUM_CAPACITY;
+      while (capacity - (capacity >>> 2) < initialCapacity
+          && capacity < MAXIMUM_CAPACITY) {
+        capacity <<= 1;
+      }
+      this.initialCapacity = capacity;
+      this.table = new Table(capacity);
+    }
+
+    Object get(long key, int hash) {
+      final Table t = this.table;
+      int i = hash & t.mask;
+      for (int probes = 0; probes <= t.mask; probes++) {
+        Object v = t.values.get(i);
+        if (v == null) {
+          return null;
+        }
+        if (t.keys[i] == key) {
+          return v == REMOVED ? null : v;
+        }
+        i = (i + 1) & t.mask;
+      }
+      return null;
+    }
+
+    Object put(long key, int hash, Object value, boolean onlyIfAbsent) {
+      lock();
+      try {
+        Table t = this.table;
+        int i = t.indexOf(key, hash);
+        Object old = t.values.get(i);
+        if (old != null && old != REMOVED) {
+          if (!onlyIfAbsent) {
+            t.values.set(i, value);
+          }
+          return old;
+        }
+        if (old == null) {
+          if (this.used >= t.threshold) {
+            t = rehash();
+            i = t.indexOf(key, hash);
+          }
+          t.keys[i] = key;
+          this.used++;
+        }
+        t.values.set(i, value);
+        this.count = this.count + 1;
+        return null;
+      } finally {
+        unlock();
+      }
+    }
+
+    Object remove(long key, int hash, Object expected) {
+      lock();
+      try {
+        Table t = this.table;
+        int i = t.indexOf(key, hash);
+        Object v = t.values.get(i);
+        if (v == null || v == REMOVED) {
+          return null;
+        }
+        if (expected != null && !expected.equals(v)) {
+          return null;
+        }
+        t.values.set(i, REMOVED);
+        this.count = this.count - 1;
+        return v;
+      } finally {
+        unlock();
+      }
+    }
+
+    Object replace(long key, int hash, Object expected, Object value) {
+      lock();
+      try {
+        Table t = this.table;
+        int i = t.indexOf(key, hash);
+        Object v = t.values.get(i);
+        if (v == null || v == REMOVED) {
+          return null;
+        }
+        if (expected != null && !expected.equals(v)) {
+          return null;
+        }
+        t.values.set(i, value);
+        return v;
+      } finally {
+        unlock();
+      }
+    }
+
+    void clear() {
+      lock();
+      try {
+        this.table = new Table(this.initialCapacity);
+        this.used = 0;
+        this.count = 0;
+      } finally {
+        unlock();
+      }
+    }
+
+    /**
+     * Copies the live mappings into a new table, growing it if they fill
+     * more than half of the current one, and publishes it. Must be called
+     * with the lock held.
+     */
+    private Table rehash() {
+      final Table old = this.table;
+      final int live = this.count;
+      int capacity = old.keys.length;
+      while ((live + 1) * 2 > capacity && capacity < MAXIMUM_CAPACITY) {
+        capacity <<= 1;
+      }
+      if (live >= capacity - 1) {
+        throw new IllegalStateException("Segment is full");
+      }
+      final Table t = new Table(capacity);
+      for (int j = 0; j < old.keys.length; j++) {
+        Object v = old.values.get(j);
+        if (v != null && v != REMOVED) {
+          long key = old.keys[j];
+          int i = t.indexOf(key, hash(key));
+          t.keys[i] = key;
+          t.values.lazySet(i, v);
+        }
+      }
+      this.used = live;
+      this.table = t;
+      return t;
+    }
+  }
+
+  private final class EntrySet extends AbstractSet<Map.Entry<Object, V>> {
+    @Override
+    public Iterator<Map.Entry<Object, V>> iterator() {
+      return new EntryIterator();
+    }
+
+    @Override
+    public int size() {
+      return PrimitiveKeyConcurrentHashMap.this.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+      return PrimitiveKeyConcurrentHashMap.this.isEmpty();
+    }
+
+    @Override
+    public void clear() {
+      PrimitiveKeyConcurrentHashMap.this.clear();
+    }
+  }
+
+  /**
+   * Walks the <code>Long</code> table, then the <code>Integer</code> table,
+   * then the other keys, boxing primitive keys as it goes.
+   */
+  private final class EntryIterator implements Iterator<Map.Entry<Object, V>> {
+    /** 0 for the Long table, 1 for the Integer table, 2 for other keys. */
+    private int tableIndex;
+    private int segmentIndex = -1;
+    private Table table;
+    private int slot;
+    private Iterator<Map.Entry<Object, V>> othersIterator;
+    private Map.Entry<Object, V> next;
+    private Map.Entry<Object, V> last;
+
+    EntryIterator() {
+      advance();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void advance() {
+      this.next = null;
+      while (this.tableIndex < 2) {
+        if (this.table != null) {
+          while (this.slot < this.table.keys.length) {
+            int i = this.slot++;
+            Object v = this.table.values.get(i);
+            if (v != null && v != REMOVED) {
+              long k = this.table.keys[i];
+              Object key = this.tableIndex == 0 ? (Object)Long.valueOf(k)
+                  : (Object)Integer.valueOf((int)k);
+              this.next = new WriteThroughEntry(key, (V)v);
+              return;
+            }
+          }
+        }
+        LongTable lt = this.tableIndex == 0 ? longs : ints;
+        if (++this.segmentIndex < lt.segments.length) {
+          this.table = lt.segments[this.segmentIndex].table;
+          this.slot = 0;
+        }
+        else {
+          this.tableIndex++;
+          this.segmentIndex = -1;
+          this.table = null;
+        }
+      }
+      if (this.othersIterator == null) {
+        this.othersIterator = others.entrySet().iterator();
+      }
+      if (this.othersIterator.hasNext()) {
+        Map.Entry<Object, V> e = this.othersIterator.next();
+        this.next = new WriteThroughEntry(e.getKey(), e.getValue());
+      }
+    }
+
+    public boolean hasNext() {
+      return this.next != null;
+    }
+
+    public Map.Entry<Object, V> next() {
+      if (this.next == null) {
+        throw new NoSuchElementException();
+      }
+      this.last = this.next;
+      advance();
+      return this.last;
+    }
+
+    public void remove() {
+      if (this.last == null) {
+        throw new IllegalStateException();
+      }
+      PrimitiveKeyConcurrentHashMap.this.remove(this.last.getKey());
+      this.last = null;
+    }
+  }
+
+  /**
+   * An entry whose <code>setValue</code> writes through to the map.
+   */
+  private final class WriteThroughEntry extends AbstractMap.SimpleEntry<Object, V> {
+    private static final long serialVersionUID = -1869447337627960235L;
+
+    WriteThroughEntry(Object key, V value) {
+      super(key, value);
+    }
+
+    @Override
+    public V setValue(V value) {
+      if (value == null) {
+        throw new NullPointerException();
+      }
+      V v = super.setValue(value);
+      PrimitiveKeyConcurrentHashMap.this.put(getKey(), value);
+      return v;
+    }
+  }
+}
@@ -61,6 +61,7 @@ import com.gemstone.gemfire.internal.cache.GemFireCacheImpl;
 import com.gemstone.gemfire.internal.redis.ByteArrayWrapper;
 import com.gemstone.gemfire.internal.redis.ByteToCommandDecoder;
 import com.gemstone.gemfire.internal.redis.Coder;
+import com.gemstone.gemfire.internal.redis.CompactCollection;
 import com.gemstone.gemfire.internal.redis.ExecutionHandlerContext;
 import com.gemstone.gemfire.internal.redis.RedisDataType;
 import com.gemstone.gemfire.internal.redis.RegionProvider;
@@ -80,6 +81,11 @@ import com.gemstone.gemfire.internal.hll.HyperLogLogPlus;
  * or {@link GemFireRedisServer#STRING_REGION}. The default Region type is 
  * {@link RegionShortcut#PARTITION} although this can be changed by specifying the
  * SystemProperty {@value #DEFAULT_REGION_SYS_PROP_NAME} to a type defined by {@link RegionShortcut}.
+ * If the {@link GemFireRedisServer#COMPACT_MAX_ENTRIES_SYS_PROP_NAME} system property is set to
+ * a positive number, sets and hashes with at most that many members are stored as a single
+ * compact value in the {@link GemFireRedisServer#COMPACT_COLLECTIONS_REGION} and are only
+ * given their own Region once they grow larger, or once their encoding grows past
+ * {@link GemFireRedisServer#COMPACT_MAX_BYTES_SYS_PROP_NAME} bytes.
  * If the {@link GemFireRedisServer#NUM_THREADS_SYS_PROP_NAME} system property is set to 0,
  * one thread per client will be created. Otherwise a worker thread pool of specified size is
  * used or a default size of 4 * {@link Runtime#availableProcessors()} if the property is not set.
@@ -237,6 +243,13 @@ public class GemFireRedisServer {
    */
   public static final String REDIS_META_DATA_REGION = "__ReDiS_MeTa_DaTa";
 
+  /**
+   * The field that defines the name of the {@link Region} which holds all of
+   * the sets and hashes that are small enough to be stored compactly. The current
+   * value of this field is {@value #COMPACT_COLLECTIONS_REGION}.
+   */
+  public static final String COMPACT_COLLECTIONS_REGION = "__CoMpAcT_CoLlEcTiOnS";
+
   /**
    * The system property name used to set the default {@link Region} creation
    * type. The property name is {@value #DEFAULT_REGION_SYS_PROP_NAME} and the
@@ -251,12 +264,45 @@ public class GemFireRedisServer {
    */
   public static final String NUM_THREADS_SYS_PROP_NAME = "gemfireredis.numthreads";
 
+  /**
+   * System property name that can be used to set the maximum number of members
+   * a set or hash may have while it is stored compactly. Compact storage is
+   * disabled if the property is not set or is not positive.
+   */
+  public static final String COMPACT_MAX_ENTRIES_SYS_PROP_NAME = "gemfireredis.compactmaxentries";
+
+  /**
+   * System property name that can be used to set the maximum number of bytes
+   * the members and values of a compactly stored set or hash may take up.
+   * Every update rewrites the whole encoding, so a few large members are
+   * promoted to their own Region just like many small ones. Defaults to
+   * {@value #DEFAULT_COMPACT_MAX_BYTES}.
+   */
+  public static final String COMPACT_MAX_BYTES_SYS_PROP_NAME = "gemfireredis.compactmaxbytes";
+
+  /**
+   * Default value of {@value #COMPACT_MAX_BYTES_SYS_PROP_NAME}
+   */
+  public static final int DEFAULT_COMPACT_MAX_BYTES = 8 * 1024;
+
   /**
    * The actual {@link RegionShortcut} type specified by the system property
    * {@value #DEFAULT_REGION_SYS_PROP_NAME}.
    */
   public final RegionShortcut DEFAULT_REGION_TYPE;
 
+  /**
+   * The number of members specified by the system property
+   * {@value #COMPACT_MAX_ENTRIES_SYS_PROP_NAME}.
+   */
+  private final int compactMaxEntries;
+
+  /**
+   * The number of bytes specified by the system property
+   * {@value #COMPACT_MAX_BYTES_SYS_PROP_NAME}.
+   */
+  private final int compactMaxBytes;
+
   private boolean shutdown;
   private boolean started;
 
@@ -278,6 +324,41 @@ public class GemFireRedisServer {
     return type;
   }
 
+  /**
+   * Helper method to set the maximum size of a compact set or hash
+   * 
+   * @return The value of the System property {@value #COMPACT_MAX_ENTRIES_SYS_PROP_NAME}
+   * or 0 if the property is not set or not a number
+   */
+  private static int setCompactMaxEntries() {
+    String prop = System.getProperty(COMPACT_MAX_ENTRIES_SYS_PROP_NAME);
+    if (prop == null || prop.isEmpty())
+      return 0;
+    try {
+      return Math.max(0, Integer.parseInt(prop));
+    } catch (NumberFormatException e) {
+      return 0;
+    }
+  }
+
+  /**
+   * Helper method to set the maximum encoded size of a compact set or hash
+   * 
+   * @return The value of the System property {@value #COMPACT_MAX_BYTES_SYS_PROP_NAME}
+   * or {@value #DEFAULT_COMPACT_MAX_BYTES} if the property is not set or not a positive number
+   */
+  private static int setCompactMaxBytes() {
+    String prop = System.getProperty(COMPACT_MAX_BYTES_SYS_PROP_NAME);
+    if (prop == null || prop.isEmpty())
+      return DEFAULT_COMPACT_MAX_BYTES;
+    try {
+      int maxBytes = Integer.parseInt(prop);
+      return maxBytes > 0 ? maxBytes : DEFAULT_COMPACT_MAX_BYTES;
+    } catch (NumberFormatException e) {
+      return DEFAULT_COMPACT_MAX_BYTES;
+    }
+  }
+
   /**
    * Helper method to set the number of worker threads
    * 
@@ -356,6 +437,8 @@ public class GemFireRedisServer {
 
     });
     this.DEFAULT_REGION_TYPE = setRegionType();
+    this.compactMaxEntries = setCompactMaxEntries();
+    this.compactMaxBytes = setCompactMaxBytes();
     this.shutdown = false;
     this.started = false;
   }
@@ -420,19 +503,24 @@ public class GemFireRedisServer {
       rfMeta.addCacheListener(this.metaListener);
       RegionFactory<ByteArrayWrapper, ByteArrayWrapper> rfString = cache.createRegionFactory(DEFAULT_REGION_TYPE);
       RegionFactory<ByteArrayWrapper, HyperLogLogPlus> rfHLL = cache.createRegionFactory(DEFAULT_REGION_TYPE);
+      RegionFactory<ByteArrayWrapper, CompactCollection> rfCompact = cache.createRegionFactory(DEFAULT_REGION_TYPE);
       Region<ByteArrayWrapper, ByteArrayWrapper> stringsRegion;
       if ((stringsRegion = this.cache.getRegion(STRING_REGION)) == null)
         stringsRegion = rfString.create(GemFireRedisServer.STRING_REGION);
       Region<ByteArrayWrapper, HyperLogLogPlus> hLLRegion;
       if ((hLLRegion = this.cache.getRegion(HLL_REGION)) == null)
         hLLRegion = rfHLL.create(HLL_REGION);
+      Region<ByteArrayWrapper, CompactCollection> compactCollectionsRegion;
+      if ((compactCollectionsRegion = this.cache.getRegion(COMPACT_COLLECTIONS_REGION)) == null)
+        compactCollectionsRegion = rfCompact.create(COMPACT_COLLECTIONS_REGION);
       Region<String, RedisDataType> redisMetaData;
       if ((redisMetaData = this.cache.getRegion(REDIS_META_DATA_REGION)) == null)
         redisMetaData = rfMeta.create(REDIS_META_DATA_REGION);
-      this.regionCache = new RegionProvider(stringsRegion, hLLRegion, redisMetaData, expirationFutures, expirationExecutor, this.DEFAULT_REGION_TYPE);
+      this.regionCache = new RegionProvider(stringsRegion, hLLRegion, compactCollectionsRegion, redisMetaData, expirationFutures, expirationExecutor, this.DEFAULT_REGION_TYPE, this.compactMaxEntries, this.compactMaxBytes);
       redisMetaData.put(REDIS_META_DATA_REGION, RedisDataType.REDIS_PROTECTED);
       redisMetaData.put(HLL_REGION, RedisDataType.REDIS_PROTECTED);
       redisMetaData.put(STRING_REGION, RedisDataType.REDIS_PROTECTED);
+      redisMetaData.put(COMPACT_COLLECTIONS_REGION, RedisDataType.REDIS_PROTECTED);
     }
     checkForRegions();
   }
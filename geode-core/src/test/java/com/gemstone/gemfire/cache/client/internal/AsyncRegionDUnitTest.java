@@ -0,0 +1,207 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.cache.client.internal;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+
+import com.gemstone.gemfire.cache.EntryEvent;
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.cache.RegionShortcut;
+import com.gemstone.gemfire.cache.client.AsyncRegion;
+import com.gemstone.gemfire.cache.client.ClientCache;
+import com.gemstone.gemfire.cache.client.ClientCacheFactory;
+import com.gemstone.gemfire.cache.client.ClientRegionShortcut;
+import com.gemstone.gemfire.cache.client.Pool;
+import com.gemstone.gemfire.cache.client.PoolManager;
+import com.gemstone.gemfire.cache.server.CacheServer;
+import com.gemstone.gemfire.cache.util.CacheListenerAdapter;
+import com.gemstone.gemfire.cache30.CacheTestCase;
+import com.gemstone.gemfire.distributed.PoolCancelledException;
+import com.gemstone.gemfire.test.dunit.Host;
+import com.gemstone.gemfire.test.dunit.Invoke;
+import com.gemstone.gemfire.test.dunit.NetworkUtils;
+import com.gemstone.gemfire.test.dunit.VM;
+
+/**
+ * Drives {@link AsyncRegion} operations from a client through its pool to a
+ * cache server.
+ */
+public class AsyncRegionDUnitTest extends CacheTestCase {
+
+  private static final String REGION_NAME = "asyncRegion";
+
+  public AsyncRegionDUnitTest(String name) {
+    super(name);
+  }
+
+  @Override
+  public final void preTearDownCacheTestCase() throws Exception {
+    Invoke.invokeInEveryVM(() -> {
+      OpExecutorImpl.PIPELINE_DEPTH = 0;
+    });
+  }
+
+  private int createServer() throws IOException {
+    Region<Object, Object> region = getCache().createRegionFactory(RegionShortcut.REPLICATE).create(REGION_NAME);
+    for (int i = 0; i < 200; i++) {
+      region.put("k" + i, "v" + i);
+    }
+    CacheServer server = getCache().addCacheServer();
+    server.setPort(0);
+    server.start();
+    return server.getPort();
+  }
+
+  private Region<String, String> createClient(String host, int port) {
+    ClientCache cache = getClientCache(new ClientCacheFactory().addPoolServer(host, port));
+    return cache.<String, String>createClientRegionFactory(ClientRegionShortcut.PROXY).create(REGION_NAME);
+  }
+
+  private static AsyncRegion<String, String> getAsyncRegion() {
+    return ClientCacheFactory.getAnyInstance().getAsyncRegion("/" + REGION_NAME);
+  }
+
+  private static void assertFailsWithPoolCancelled(CompletableFuture<?> future) throws Exception {
+    assertTrue(future.isCompletedExceptionally());
+    try {
+      future.get();
+      fail("expected ExecutionException");
+    } catch (ExecutionException expected) {
+      assertTrue(expected.getCause() instanceof PoolCancelledException);
+    }
+  }
+
+  public void testOperationsRunOnPoolThreadsAgainstTheServer() {
+    Host host = Host.getHost(0);
+    VM server = host.getVM(0);
+    VM client = host.getVM(1);
+    final int port = server.invoke(() -> createServer());
+    final String hostName = NetworkUtils.getServerHostName(host);
+
+    client.invoke(() -> {
+      Region<String, String> region = createClient(hostName, port);
+      final ConcurrentLinkedQueue<String> listenerThreads = new ConcurrentLinkedQueue<String>();
+      region.getAttributesMutator().addCacheListener(new CacheListenerAdapter<String, String>() {
+        @Override
+        public void afterCreate(EntryEvent<String, String> event) {
+          listenerThreads.add(Thread.currentThread().getName());
+        }
+        @Override
+        public void afterUpdate(EntryEvent<String, String> event) {
+          listenerThreads.add(Thread.currentThread().getName());
+        }
+      });
+      AsyncRegion<String, String> asyncRegion = getAsyncRegion();
+      assertSame(region, asyncRegion.getRegion());
+
+      List<CompletableFuture<String>> puts = new ArrayList<CompletableFuture<String>>();
+      for (int i = 0; i < 50; i++) {
+        puts.add(asyncRegion.putAsync("k" + i, "updated" + i));
+      }
+      for (CompletableFuture<String> put : puts) {
+        put.get();
+      }
+      assertEquals(50, listenerThreads.size());
+      for (String threadName : listenerThreads) {
+        assertTrue(threadName, threadName.startsWith("asyncOp-"));
+      }
+
+      assertEquals("updated7", asyncRegion.getAsync("k7").get());
+      assertEquals("v150", asyncRegion.getAsync("k150", "arg").get());
+      Map<String, String> all = asyncRegion.getAllAsync(Arrays.asList("k1", "k100", "missing")).get();
+      assertEquals("updated1", all.get("k1"));
+      assertEquals("v100", all.get("k100"));
+      assertNull(all.get("missing"));
+      // a proxy keeps nothing locally, so every value came from the server
+      assertEquals(0, region.size());
+    });
+
+    server.invoke(() -> {
+      Region<Object, Object> region = getCache().getRegion(REGION_NAME);
+      for (int i = 0; i < 50; i++) {
+        assertEquals("updated" + i, region.get("k" + i));
+      }
+    });
+  }
+
+  public void testGetsShareThePipelinedConnection() {
+    Host host = Host.getHost(0);
+    VM server = host.getVM(0);
+    VM client = host.getVM(1);
+    final int port = server.invoke(() -> createServer());
+    final String hostName = NetworkUtils.getServerHostName(host);
+
+    client.invoke(() -> {
+      OpExecutorImpl.PIPELINE_DEPTH = 8;
+      Region<String, String> region = createClient(hostName, port);
+      AsyncRegion<String, String> asyncRegion = getAsyncRegion();
+      List<CompletableFuture<String>> gets = new ArrayList<CompletableFuture<String>>();
+      for (int i = 0; i < 200; i++) {
+        gets.add(asyncRegion.getAsync("k" + i));
+      }
+      for (int i = 0; i < 200; i++) {
+        assertEquals("v" + i, gets.get(i).get());
+      }
+      assertTrue(((PoolImpl)PoolManager.find(region)).hasPipelinedConnection());
+    });
+  }
+
+  public void testOperationsFailOncePoolIsDestroyed() {
+    Host host = Host.getHost(0);
+    VM server = host.getVM(0);
+    VM client = host.getVM(1);
+    final int port = server.invoke(() -> createServer());
+    final String hostName = NetworkUtils.getServerHostName(host);
+
+    client.invoke(() -> {
+      Region<String, String> region = createClient(hostName, port);
+      AsyncRegion<String, String> asyncRegion = getAsyncRegion();
+      assertEquals("v1", asyncRegion.getAsync("k1").get());
+
+      Pool pool = PoolManager.find(region);
+      region.localDestroyRegion();
+      pool.destroy();
+      assertFailsWithPoolCancelled(asyncRegion.getAsync("k1"));
+      assertFailsWithPoolCancelled(asyncRegion.putAsync("k1", "v"));
+    });
+  }
+
+  public void testOperationsFailOnceCacheIsClosed() {
+    Host host = Host.getHost(0);
+    VM server = host.getVM(0);
+    VM client = host.getVM(1);
+    final int port = server.invoke(() -> createServer());
+    final String hostName = NetworkUtils.getServerHostName(host);
+
+    client.invoke(() -> {
+      createClient(hostName, port);
+      AsyncRegion<String, String> asyncRegion = getAsyncRegion();
+      assertEquals("v1", asyncRegion.getAsync("k1").get());
+
+      ClientCacheFactory.getAnyInstance().close();
+      assertFailsWithPoolCancelled(asyncRegion.getAsync("k1"));
+      assertFailsWithPoolCancelled(asyncRegion.getAllAsync(Arrays.asList("k1", "k2")));
+    });
+  }
+}
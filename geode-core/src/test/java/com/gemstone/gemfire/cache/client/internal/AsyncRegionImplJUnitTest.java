@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.cache.client.internal;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.cache.client.ServerConnectivityException;
+import com.gemstone.gemfire.distributed.PoolCancelledException;
+import com.gemstone.gemfire.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class AsyncRegionImplJUnitTest {
+
+  private Region<String, String> region;
+  private AtomicInteger executed;
+  private AsyncRegionImpl<String, String> asyncRegion;
+
+  @SuppressWarnings("unchecked")
+  @Before
+  public void setUp() {
+    this.region = mock(Region.class);
+    this.executed = new AtomicInteger();
+    Executor executor = r -> {
+      this.executed.incrementAndGet();
+      r.run();
+    };
+    this.asyncRegion = new AsyncRegionImpl<String, String>(this.region, executor);
+  }
+
+  @Test
+  public void getAsyncCompletesWithRegionValue() throws Exception {
+    when(this.region.get("k")).thenReturn("v");
+    when(this.region.get("k", "arg")).thenReturn("w");
+    assertEquals("v", this.asyncRegion.getAsync("k").get());
+    assertEquals("w", this.asyncRegion.getAsync("k", "arg").get());
+    assertEquals(2, this.executed.get());
+  }
+
+  @Test
+  public void putAsyncCompletesWithOldValue() throws Exception {
+    when(this.region.put("k", "v")).thenReturn("old");
+    assertEquals("old", this.asyncRegion.putAsync("k", "v").get());
+    this.asyncRegion.putAsync("k", "v", "arg").get();
+    verify(this.region).put("k", "v", "arg");
+  }
+
+  @Test
+  public void getAllAsyncCompletesWithRegionMap() throws Exception {
+    List<String> keys = Arrays.asList("a", "b");
+    Map<String, String> values = Collections.singletonMap("a", "1");
+    when(this.region.getAll(keys)).thenReturn(values);
+    assertSame(values, this.asyncRegion.getAllAsync(keys).get());
+  }
+
+  @Test
+  public void failureCompletesExceptionally() throws Exception {
+    ServerConnectivityException failure = new ServerConnectivityException("down");
+    when(this.region.get("k")).thenThrow(failure);
+    CompletableFuture<String> f = this.asyncRegion.getAsync("k");
+    assertTrue(f.isCompletedExceptionally());
+    try {
+      f.get();
+      fail("expected ExecutionException");
+    } catch (ExecutionException expected) {
+      assertSame(failure, expected.getCause());
+    }
+  }
+
+  @Test
+  public void fullQueueFailsTheFuture() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<Runnable>(1));
+    try {
+      when(this.region.get("k")).thenAnswer(invocation -> {
+        release.await();
+        return "v";
+      });
+      AsyncRegionImpl<String, String> bounded = new AsyncRegionImpl<String, String>(this.region, executor);
+      // the first op occupies the only thread and the second fills the queue
+      CompletableFuture<String> running = bounded.getAsync("k");
+      CompletableFuture<String> queued = bounded.getAsync("k");
+      CompletableFuture<String> rejected = bounded.getAsync("k");
+      assertTrue(rejected.isCompletedExceptionally());
+      try {
+        rejected.get();
+        fail("expected ExecutionException");
+      } catch (ExecutionException expected) {
+        assertTrue(expected.getCause() instanceof RejectedExecutionException);
+      }
+      release.countDown();
+      assertEquals("v", running.get());
+      assertEquals("v", queued.get());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void shutDownExecutorFailsTheFutureWithPoolCancelled() throws Exception {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    executor.shutdown();
+    when(this.region.getFullPath()).thenReturn("/r");
+    CompletableFuture<String> f = new AsyncRegionImpl<String, String>(this.region, executor).putAsync("k", "v");
+    assertTrue(f.isCompletedExceptionally());
+    try {
+      f.get();
+      fail("expected ExecutionException");
+    } catch (ExecutionException expected) {
+      assertTrue(expected.getCause() instanceof PoolCancelledException);
+    }
+    verify(this.region, never()).put("k", "v");
+  }
+}
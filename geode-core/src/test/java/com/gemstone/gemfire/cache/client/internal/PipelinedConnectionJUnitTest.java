@@ -0,0 +1,287 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.cache.client.internal;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.cache.client.ServerConnectivityException;
+import com.gemstone.gemfire.cache.client.internal.pooling.ConnectionManager;
+import com.gemstone.gemfire.internal.Version;
+import com.gemstone.gemfire.internal.cache.tier.MessageType;
+import com.gemstone.gemfire.internal.cache.tier.sockets.Message;
+import com.gemstone.gemfire.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class PipelinedConnectionJUnitTest {
+
+  private Connection conn;
+  private ConnectionManager manager;
+  private ExecutorService pool;
+
+  /** responses the fake server has written, in the order it wrote them */
+  private final BlockingQueue<Object> wire = new LinkedBlockingQueue<Object>();
+  private final AtomicInteger sent = new AtomicInteger();
+
+  @Before
+  public void setUp() throws Exception {
+    this.conn = mock(Connection.class);
+    when(this.conn.getCommBuffer()).thenReturn(ByteBuffer.allocate(1024));
+    when(this.conn.getSocket()).thenReturn(new Socket());
+    this.manager = mock(ConnectionManager.class);
+    this.pool = Executors.newCachedThreadPool();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    this.pool.shutdownNow();
+  }
+
+  @Test
+  public void enterIsBoundedByDepth() throws Exception {
+    PipelinedConnection p = new PipelinedConnection(this.conn, this.manager, 2);
+    assertTrue(p.enter());
+    assertTrue(p.enter());
+    assertFalse(p.enter());
+    p.exit();
+    assertTrue(p.enter());
+    p.exit();
+    p.exit();
+    assertTrue(p.isUsable());
+    verify(this.manager, never()).returnConnection(this.conn);
+  }
+
+  @Test
+  public void retireReturnsConnectionAfterLastExit() throws Exception {
+    PipelinedConnection p = new PipelinedConnection(this.conn, this.manager, 4);
+    assertTrue(p.enter());
+    p.retire();
+    assertFalse(p.isUsable());
+    assertFalse(p.enter());
+    verify(this.manager, never()).returnConnection(this.conn);
+    p.exit();
+    verify(this.conn).destroy();
+    verify(this.manager).returnConnection(this.conn);
+  }
+
+  @Test
+  public void retireIdleReturnsConnectionOnce() throws Exception {
+    PipelinedConnection p = new PipelinedConnection(this.conn, this.manager, 4);
+    p.retire();
+    p.retire();
+    verify(this.conn, times(1)).destroy();
+    verify(this.manager, times(1)).returnConnection(this.conn);
+  }
+
+  @Test
+  public void destroyedConnectionIsNotUsable() throws Exception {
+    PipelinedConnection p = new PipelinedConnection(this.conn, this.manager, 4);
+    when(this.conn.isDestroyed()).thenReturn(true);
+    assertFalse(p.isUsable());
+    assertFalse(p.enter());
+  }
+
+  @Test
+  public void responsesAreMatchedToConcurrentCallersInSendOrder() throws Exception {
+    final PipelinedConnection p = new PipelinedConnection(this.conn, this.manager, 1000);
+    final int threads = 8;
+    final int opsPerThread = 200;
+    List<Future<Void>> futures = new ArrayList<Future<Void>>();
+    for (int t = 0; t < threads; t++) {
+      final int base = t * opsPerThread;
+      futures.add(this.pool.submit(new Callable<Void>() {
+        @Override
+        public Void call() throws Exception {
+          for (int i = 0; i < opsPerThread; i++) {
+            // the fake server answers each request with the request's id
+            EchoOp op = new EchoOp(base + i, true);
+            assertTrue(p.enter());
+            try {
+              Message response = p.sendAndReceive(op);
+              assertEquals(base + i, p.processResponse(op, response));
+            } finally {
+              p.exit();
+            }
+          }
+          return null;
+        }
+      }));
+    }
+    for (Future<Void> future : futures) {
+      future.get(60, TimeUnit.SECONDS);
+    }
+    assertEquals(threads * opsPerThread, this.sent.get());
+    assertTrue(this.wire.isEmpty());
+    assertTrue(p.isUsable());
+    verify(this.manager, never()).returnConnection(this.conn);
+  }
+
+  @Test
+  public void failedReadWakesAllWaitingCallers() throws Exception {
+    final PipelinedConnection p = new PipelinedConnection(this.conn, this.manager, 10);
+    final int callers = 5;
+    List<Future<Object>> futures = new ArrayList<Future<Object>>();
+    for (int i = 0; i < callers; i++) {
+      final EchoOp op = new EchoOp(i, false);
+      assertTrue(p.enter());
+      futures.add(this.pool.submit(new Callable<Object>() {
+        @Override
+        public Object call() throws Exception {
+          try {
+            return p.processResponse(op, p.sendAndReceive(op));
+          } finally {
+            p.exit();
+          }
+        }
+      }));
+    }
+    // every request is on the wire and the first reader is blocked reading
+    long deadline = System.currentTimeMillis() + 30000;
+    while (this.sent.get() < callers && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertEquals(callers, this.sent.get());
+
+    this.wire.add(new IOException("connection reset"));
+
+    int connectivityFailures = 0;
+    for (Future<Object> future : futures) {
+      try {
+        future.get(30, TimeUnit.SECONDS);
+        fail("expected the pipeline to fail");
+      } catch (ExecutionException expected) {
+        if (expected.getCause() instanceof ServerConnectivityException) {
+          connectivityFailures++;
+        } else {
+          assertTrue(expected.getCause() instanceof IOException);
+        }
+      }
+    }
+    assertEquals(callers - 1, connectivityFailures);
+    assertFalse(p.isUsable());
+    verify(this.conn, times(1)).destroy();
+    verify(this.manager, times(1)).returnConnection(this.conn);
+  }
+
+  @Test
+  public void expiresAfterLifetimeOrWhenIdle() throws Exception {
+    PipelinedConnection p = new PipelinedConnection(this.conn, this.manager, 4);
+    long now = System.currentTimeMillis();
+    assertFalse(p.isExpired(now, -1, -1));
+    assertTrue(p.isExpired(now + 1000, 1000, -1));
+    assertTrue(p.isExpired(now + 1000, -1, 1000));
+    assertTrue(p.enter());
+    assertFalse(p.isExpired(now + 1000, -1, 1000));
+    p.exit();
+    assertFalse(p.isExpired(now + 500, 1000, 1000));
+  }
+
+  /**
+   * An operation talking to a fake server over {@link #wire}. A response is
+   * either the id of the request it answers or an exception to fail the
+   * read with.
+   */
+  private class EchoOp extends AbstractOp {
+    private final int id;
+    private final boolean answer;
+
+    EchoOp(int id, boolean answer) {
+      super(MessageType.REQUEST, 1);
+      this.id = id;
+      this.answer = answer;
+    }
+
+    @Override
+    void attemptSend(Connection cnx, ByteBuffer commBuffer) {
+      if (this.answer) {
+        wire.add(this.id);
+      }
+      sent.incrementAndGet();
+    }
+
+    @Override
+    protected Message createResponseMessage() {
+      return new EchoResponse();
+    }
+
+    @Override
+    protected Object processResponse(Message msg) {
+      return ((EchoResponse) msg).value;
+    }
+
+    @Override
+    protected boolean isErrorResponse(int msgType) {
+      return false;
+    }
+
+    @Override
+    protected long startAttempt(ConnectionStats stats) {
+      return 0;
+    }
+
+    @Override
+    protected void endSendAttempt(ConnectionStats stats, long start) {
+    }
+
+    @Override
+    protected void endAttempt(ConnectionStats stats, long start) {
+    }
+  }
+
+  private class EchoResponse extends Message {
+    private Object value;
+
+    EchoResponse() {
+      super(1, Version.CURRENT);
+    }
+
+    @Override
+    public void recv() throws IOException {
+      Object next;
+      try {
+        next = wire.take();
+      } catch (InterruptedException e) {
+        throw new IOException(e);
+      }
+      if (next instanceof IOException) {
+        throw (IOException) next;
+      }
+      this.value = next;
+    }
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.cache.query.functional;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.cache.query.CacheUtils;
+import com.gemstone.gemfire.cache.query.Index;
+import com.gemstone.gemfire.cache.query.QueryService;
+import com.gemstone.gemfire.cache.query.SelectResults;
+import com.gemstone.gemfire.cache.query.data.Portfolio;
+import com.gemstone.gemfire.cache.query.internal.CompiledComparison;
+import com.gemstone.gemfire.cache.query.internal.QueryObserverAdapter;
+import com.gemstone.gemfire.cache.query.internal.QueryObserverHolder;
+import com.gemstone.gemfire.test.junit.categories.IntegrationTest;
+
+/**
+ * Tests which of two competing indexes an AND query uses, depending on
+ * {@link CompiledComparison#FILTER_SELECTIVITY_RATIO}.
+ */
+@Category(IntegrationTest.class)
+public class FilterSelectivityIndexSelectionJUnitTest {
+
+  private static final int NUM_PORTFOLIOS = 1000;
+
+  /**
+   * Half of the portfolios are active but only five have an ID below 5
+   */
+  private static final String QUERY = "select * from /portfolios p where p.status = 'active' and p.ID < 5";
+
+  private int originalRatio;
+  private IndexObserver observer;
+
+  @Before
+  public void setUp() throws Exception {
+    this.originalRatio = CompiledComparison.FILTER_SELECTIVITY_RATIO;
+    CacheUtils.startCache();
+    Region r = CacheUtils.createRegion("portfolios", Portfolio.class);
+    for (int i = 0; i < NUM_PORTFOLIOS; i++) {
+      r.put(i + "", new Portfolio(i));
+    }
+    QueryService qs = CacheUtils.getQueryService();
+    qs.createIndex("statusIndex", "p.status", "/portfolios p");
+    qs.createIndex("idIndex", "p.ID", "/portfolios p");
+    this.observer = new IndexObserver();
+    QueryObserverHolder.setInstance(this.observer);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    CompiledComparison.FILTER_SELECTIVITY_RATIO = this.originalRatio;
+    QueryObserverHolder.reset();
+    CacheUtils.closeCache();
+  }
+
+  private Set<Integer> executeQuery() throws Exception {
+    SelectResults results = (SelectResults) CacheUtils.getQueryService().newQuery(QUERY).execute();
+    Set<Integer> ids = new HashSet<Integer>();
+    for (Object o : results) {
+      ids.add(((Portfolio) o).getID());
+    }
+    return ids;
+  }
+
+  private static Set<Integer> expectedIds() {
+    Set<Integer> ids = new HashSet<Integer>();
+    ids.add(0);
+    ids.add(2);
+    ids.add(4);
+    return ids;
+  }
+
+  @Test
+  public void farMoreSelectiveRangeIndexIsUsedByDefault() throws Exception {
+    assertEquals(10, CompiledComparison.FILTER_SELECTIVITY_RATIO);
+    assertEquals(expectedIds(), executeQuery());
+    assertTrue(this.observer.indexesUsed.contains("idIndex"));
+    assertFalse(this.observer.indexesUsed.contains("statusIndex"));
+  }
+
+  @Test
+  public void equalityIndexIsUsedWhenRatioIsZero() throws Exception {
+    CompiledComparison.FILTER_SELECTIVITY_RATIO = 0;
+    assertEquals(expectedIds(), executeQuery());
+    assertTrue(this.observer.indexesUsed.contains("statusIndex"));
+    assertFalse(this.observer.indexesUsed.contains("idIndex"));
+  }
+
+  private static class IndexObserver extends QueryObserverAdapter {
+    final List<String> indexesUsed = new ArrayList<String>();
+
+    @Override
+    public void beforeIndexLookup(Index index, int oper, Object key) {
+      this.indexesUsed.add(index.getName());
+    }
+
+    @Override
+    public void beforeIndexLookup(Index index, int lowerBoundOperator, Object lowerBoundKey, int upperBoundOperator,
+        Object upperBoundKey, Set NotEqualKeys) {
+      this.indexesUsed.add(index.getName());
+    }
+  }
+}
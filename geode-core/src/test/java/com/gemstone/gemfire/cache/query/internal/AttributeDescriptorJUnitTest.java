@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.cache.query.internal;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.cache.query.NameNotFoundException;
+import com.gemstone.gemfire.cache.query.QueryInvocationTargetException;
+import com.gemstone.gemfire.cache.query.QueryService;
+import com.gemstone.gemfire.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class AttributeDescriptorJUnitTest {
+
+  public static class Holder {
+    public static String kind = "holder";
+    public String name = "field";
+    private final int id;
+
+    public Holder(int id) {
+      this.id = id;
+    }
+
+    public int getId() {
+      return id;
+    }
+
+    public String fail() {
+      throw new IllegalStateException("fail");
+    }
+
+    public String error() {
+      throw new LinkageError("error");
+    }
+  }
+
+  public static class OtherHolder {
+    public int getId() {
+      return -1;
+    }
+  }
+
+  @Test
+  public void testReadsGetterFieldAndStaticField() throws Exception {
+    Holder holder = new Holder(7);
+    assertEquals(7, new AttributeDescriptor("id").read(holder));
+    assertEquals("field", new AttributeDescriptor("name").read(holder));
+    assertEquals("holder", new AttributeDescriptor("kind").read(holder));
+  }
+
+  @Test
+  public void testDescriptorFollowsChangingTargetClass() throws Exception {
+    AttributeDescriptor descriptor = new AttributeDescriptor("id");
+    assertEquals(1, descriptor.read(new Holder(1)));
+    assertEquals(-1, descriptor.read(new OtherHolder()));
+    assertEquals(2, descriptor.read(new Holder(2)));
+  }
+
+  @Test
+  public void testNullTargetIsUndefined() throws Exception {
+    assertSame(QueryService.UNDEFINED, new AttributeDescriptor("id").read(null));
+  }
+
+  @Test(expected = NameNotFoundException.class)
+  public void testUnknownAttributeThrowsNameNotFound() throws Exception {
+    new AttributeDescriptor("missing").read(new Holder(1));
+  }
+
+  @Test
+  public void testExceptionFromMethodIsWrapped() throws Exception {
+    try {
+      new AttributeDescriptor("fail").read(new Holder(1));
+      fail("expected QueryInvocationTargetException");
+    } catch (QueryInvocationTargetException e) {
+      assertTrue(e.getCause() instanceof IllegalStateException);
+    }
+  }
+
+  @Test
+  public void testErrorFromMethodIsNotWrapped() throws Exception {
+    try {
+      new AttributeDescriptor("error").read(new Holder(1));
+      fail("expected LinkageError");
+    } catch (LinkageError expected) {
+      assertEquals("error", expected.getMessage());
+    }
+  }
+}
@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.cache.query.internal;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class CompiledComparisonFilterSelectionJUnitTest {
+
+  @Test
+  public void testPreferredFilterKeptUnlessOtherIsFarSmaller() {
+    assertTrue(CompiledComparison.isBetterBySize(true, 100, 500));
+    assertTrue(CompiledComparison.isBetterBySize(true, 100, 10));
+    assertFalse(CompiledComparison.isBetterBySize(true, 100, 9));
+  }
+
+  @Test
+  public void testOtherFilterTakenOnlyWhenFarSmaller() {
+    assertFalse(CompiledComparison.isBetterBySize(false, 5, 20));
+    assertFalse(CompiledComparison.isBetterBySize(false, 10, 100));
+    assertTrue(CompiledComparison.isBetterBySize(false, 9, 100));
+  }
+
+  @Test
+  public void testLargeEstimatesDoNotOverflow() {
+    assertTrue(CompiledComparison.isBetterBySize(true, Integer.MAX_VALUE, Integer.MAX_VALUE));
+    assertFalse(CompiledComparison.isBetterBySize(false, Integer.MAX_VALUE, Integer.MAX_VALUE));
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.cache.query.internal;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.test.junit.categories.UnitTest;
+
+/**
+ * Test SortedResultsBag bounded to the first N elements in sort order
+ */
+@Category(UnitTest.class)
+public class SortedResultsBagTopNJUnitTest {
+
+  private static List asList(SortedResultsBag bag) {
+    List result = new ArrayList();
+    for (Object o : bag) {
+      result.add(o);
+    }
+    return result;
+  }
+
+  @Test
+  public void testKeepsSmallestElementsWithDuplicates() {
+    SortedResultsBag<Integer> bag = new SortedResultsBag<Integer>(Comparator.<Integer>naturalOrder(), true);
+    bag.setTopN(3);
+    for (int i : new int[] {5, 1, 4, 2, 2, 3}) {
+      bag.add(i);
+    }
+    assertEquals(3, bag.size());
+    assertEquals(Arrays.asList(1, 2, 2), asList(bag));
+  }
+
+  @Test
+  public void testAddAndGetOccurenceIsBounded() {
+    SortedResultsBag<Integer> bag = new SortedResultsBag<Integer>(Comparator.<Integer>naturalOrder(), true);
+    bag.setTopN(2);
+    for (int i = 10; i > 0; i--) {
+      bag.addAndGetOccurence(i);
+    }
+    assertEquals(Arrays.asList(1, 2), asList(bag));
+  }
+
+  @Test
+  public void testNullsAtStartAreKept() {
+    SortedResultsBag<Integer> bag = new SortedResultsBag<Integer>(Comparator.<Integer>naturalOrder(), true);
+    bag.setTopN(2);
+    bag.add(3);
+    bag.add(null);
+    bag.add(1);
+    assertEquals(Arrays.asList(null, 1), asList(bag));
+  }
+
+  @Test
+  public void testNullsAtEndAreDroppedFirst() {
+    SortedResultsBag<Integer> bag = new SortedResultsBag<Integer>(Comparator.<Integer>naturalOrder(), false);
+    bag.setTopN(2);
+    bag.add(null);
+    bag.add(3);
+    bag.add(1);
+    assertEquals(Arrays.asList(1, 3), asList(bag));
+  }
+
+  @Test
+  public void testSetTopNTrimsExistingElements() {
+    SortedResultsBag<Integer> bag = new SortedResultsBag<Integer>(Comparator.<Integer>naturalOrder(), true);
+    bag.addAll(Arrays.asList(4, 3, 2, 1));
+    bag.setTopN(1);
+    assertEquals(Arrays.asList(1), asList(bag));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testTopNRequiresSortingBag() {
+    new SortedResultsBag<Integer>(true).setTopN(1);
+  }
+}
@@ -48,6 +48,7 @@ import com.gemstone.gemfire.cache.query.SelectResults;
 import com.gemstone.gemfire.cache.query.data.Portfolio;
 import com.gemstone.gemfire.cache.query.internal.QueryObserverAdapter;
 import com.gemstone.gemfire.cache.query.internal.QueryObserverHolder;
+import com.gemstone.gemfire.cache.query.internal.parse.OQLLexerTokenTypes;
 import com.gemstone.gemfire.test.junit.categories.IntegrationTest;
 import com.gemstone.gemfire.pdx.PdxInstance;
 
@@ -176,6 +177,20 @@ public class HashIndexJUnitTest {
     helpTestHashIndexForQuery("SELECT * FROM /portfolios p WHERE p.ID = 1 OR p.ID = 2", "p.ID", "/portfolios p");
   }
   
+  @Test
+  public void testNotEqualSizeEstimateExcludesMatchingEntries() throws Exception {
+    createLocalRegion("portfolios");
+    int numEntries = 100;
+    for (int i = 0; i < numEntries; i++) {
+      region.put("" + i, new Portfolio(i));
+    }
+    HashIndex hashIndex = (HashIndex) qs.createHashIndex("hashIndex", "p.status", "/portfolios p");
+    assertEquals(numEntries / 2, hashIndex.getSizeEstimate("active", OQLLexerTokenTypes.TOK_EQ, 0));
+    assertEquals(numEntries / 2, hashIndex.getSizeEstimate("active", OQLLexerTokenTypes.TOK_NE, 0));
+    assertEquals(numEntries / 2, hashIndex.getSizeEstimate("active", OQLLexerTokenTypes.TOK_NE_ALT, 0));
+    assertEquals(numEntries, hashIndex.getSizeEstimate("closed", OQLLexerTokenTypes.TOK_NE, 0));
+  }
+
   @Test
   public void testHashIndexWithNullsForLocalRegion() throws Exception {
     createLocalRegion("portfolios");
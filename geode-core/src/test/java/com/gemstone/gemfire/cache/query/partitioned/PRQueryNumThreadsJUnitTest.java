@@ -16,9 +16,12 @@
  */
 package com.gemstone.gemfire.cache.query.partitioned;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
 
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -149,6 +152,67 @@ public class PRQueryNumThreadsJUnitTest
     }
   }
 
+  /**
+   * Verifies that splitting the local buckets into fewer tasks than buckets
+   * returns the same results as querying them one at a time. 200 keys fill
+   * all 113 default buckets, so three tasks get an uneven 38/38/37 share and
+   * each task queries many buckets, including the per-bucket ORDER BY path.
+   */
+  @Test
+  public void testQueryWithMaxParallelismPerQuery() throws Exception
+  {
+    Region region = PartitionedRegionTestHelper.createPartitionedRegion(
+        regionName, "100", 0);
+    PortfolioData[] portfolios = new PortfolioData[200];
+    for (int j = 0; j < 200; j++) {
+      portfolios[j] = new PortfolioData(j);
+    }
+    int maxParallelism = PRQueryProcessor.MAX_PARALLELISM_PER_QUERY;
+    PRQueryProcessor.MAX_PARALLELISM_PER_QUERY = 0;
+    try {
+      populateData(region, portfolios);
+
+      String unorderedQuery = "select * from /" + region.getName()
+          + " p where p.ID > 50";
+      String[] orderedQueries = new String[] {
+          "select distinct p.ID from /" + region.getName()
+              + " p where p.ID < 150 order by p.ID",
+          "select distinct * from /" + region.getName()
+              + " p where p.ID > 10 order by p.ID desc limit 20" };
+
+      SelectResults expected = executeQuery(region, unorderedQuery);
+      List[] expectedOrdered = new List[orderedQueries.length];
+      for (int i = 0; i < orderedQueries.length; i++) {
+        expectedOrdered[i] = executeQuery(region, orderedQueries[i]).asList();
+      }
+      assertEquals(149, expected.size());
+      assertEquals(150, expectedOrdered[0].size());
+      assertEquals(20, expectedOrdered[1].size());
+
+      PRQueryProcessor.TEST_NUM_THREADS = 4;
+      PRQueryProcessor.MAX_PARALLELISM_PER_QUERY = 3;
+
+      SelectResults actual = executeQuery(region, unorderedQuery);
+      assertEquals(new HashSet(expected.asList()), new HashSet(actual.asList()));
+      assertEquals(expected.size(), actual.size());
+      for (int i = 0; i < orderedQueries.length; i++) {
+        assertEquals(orderedQueries[i], expectedOrdered[i],
+            executeQuery(region, orderedQueries[i]).asList());
+      }
+    } finally {
+      PRQueryProcessor.TEST_NUM_THREADS = 0;
+      PRQueryProcessor.MAX_PARALLELISM_PER_QUERY = maxParallelism;
+      region.close();
+    }
+  }
+
+  private SelectResults executeQuery(Region region, String queryString)
+      throws Exception
+  {
+    Query query = region.getCache().getQueryService().newQuery(queryString);
+    return (SelectResults)query.execute();
+  }
+
   /**
    * Populates the region with the Objects stores in the data Object array.
    * 
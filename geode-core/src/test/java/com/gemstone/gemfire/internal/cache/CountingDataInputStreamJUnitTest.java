@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+
+import com.gemstone.gemfire.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class CountingDataInputStreamJUnitTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private static byte[] records() throws IOException {
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    DataOutputStream dos = new DataOutputStream(baos);
+    dos.writeByte(-3);
+    dos.writeShort(0xfffe);
+    dos.writeInt(42);
+    dos.writeLong(Long.MAX_VALUE);
+    dos.writeBoolean(true);
+    dos.writeUTF("oplog");
+    dos.write(new byte[] {1, 2, 3});
+    dos.close();
+    return baos.toByteArray();
+  }
+
+  private static void verifyRecords(CountingDataInputStream dis, int length) throws IOException {
+    assertEquals(-3, dis.readByte());
+    assertEquals(0xfffe, dis.readUnsignedShort());
+    assertEquals(42, dis.readInt());
+    assertEquals(Long.MAX_VALUE, dis.readLong());
+    assertTrue(dis.readBoolean());
+    assertEquals("oplog", dis.readUTF());
+    byte[] bytes = new byte[3];
+    dis.readFully(bytes);
+    assertTrue(Arrays.equals(new byte[] {1, 2, 3}, bytes));
+    assertEquals(length, dis.getCount());
+    assertTrue(dis.atEndOfFile());
+  }
+
+  @Test
+  public void streamAndBufferReadTheSameRecords() throws IOException {
+    byte[] records = records();
+    verifyRecords(new CountingDataInputStream(new ByteArrayInputStream(records), records.length), records.length);
+    verifyRecords(new CountingDataInputStream(ByteBuffer.wrap(records), records.length), records.length);
+    ByteBuffer direct = ByteBuffer.allocateDirect(records.length);
+    direct.put(records);
+    direct.flip();
+    verifyRecords(new CountingDataInputStream(direct, records.length), records.length);
+  }
+
+  @Test
+  public void readingPastTheEndOfABufferThrowsEOFException() throws IOException {
+    CountingDataInputStream dis = new CountingDataInputStream(ByteBuffer.wrap(new byte[] {0, 0, 0, 1, 7}), 5);
+    assertEquals(1, dis.readInt());
+    try {
+      dis.readLong();
+      fail("expected EOFException");
+    } catch (EOFException expected) {
+    }
+    assertEquals(4, dis.getCount());
+    try {
+      dis.readByte();
+      fail("expected EOFException");
+    } catch (EOFException expected) {
+    }
+  }
+
+  @Test
+  public void skipBytesStopsAtTheEndOfABuffer() throws IOException {
+    CountingDataInputStream dis = new CountingDataInputStream(ByteBuffer.wrap(new byte[4]), 4);
+    assertEquals(3, dis.skipBytes(3));
+    assertEquals(1, dis.skipBytes(3));
+    assertTrue(dis.atEndOfFile());
+  }
+
+  @Test
+  public void mappedFileCanBeDeletedOnceClosed() throws IOException {
+    byte[] records = records();
+    File file = this.temporaryFolder.newFile("mapped.crf");
+    FileOutputStream fos = new FileOutputStream(file);
+    try {
+      fos.write(records);
+    } finally {
+      fos.close();
+    }
+    FileInputStream fis = new FileInputStream(file);
+    CountingDataInputStream dis;
+    try {
+      dis = CountingDataInputStream.forMappedFile(fis.getChannel().map(MapMode.READ_ONLY, 0, records.length),
+          records.length);
+    } finally {
+      fis.close();
+    }
+    verifyRecords(dis, records.length);
+    dis.close();
+    assertTrue(file.delete());
+  }
+}
@@ -34,6 +34,7 @@ import org.junit.experimental.categories.Category;
 
 import com.gemstone.gemfire.cache.DataPolicy;
 import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.compression.SnappyCompressor;
 import com.gemstone.gemfire.internal.FileUtil;
 import com.gemstone.gemfire.test.junit.categories.IntegrationTest;
 
@@ -49,6 +50,7 @@ public class DiskRegionAsyncRecoveryJUnitTest extends DiskRegionTestingBase {
     DiskStoreObserver.setInstance(null);
     System.setProperty(DiskStoreImpl.RECOVER_VALUE_PROPERTY_NAME, "true");
     System.setProperty(DiskStoreImpl.RECOVER_VALUES_SYNC_PROPERTY_NAME, "false");
+    System.clearProperty(DiskStoreImpl.OPLOG_COMPRESSOR_PROPERTY_NAME);
   }
   
   @Test
@@ -167,6 +169,80 @@ public class DiskRegionAsyncRecoveryJUnitTest extends DiskRegionTestingBase {
     }
   }
   
+  /**
+   * Test that values and destroys spread over many oplogs are recovered
+   * correctly when the oplogs are recovered concurrently.
+   */
+  @Test
+  public void testValuesRecoveredFromManyOplogs() throws InterruptedException {
+    LocalRegion region = (LocalRegion) createRegion();
+    DiskStoreImpl store = (DiskStoreImpl) cache.findDiskStore(region.getAttributes().getDiskStoreName());
+    for (int i = 0; i < 10; i++) {
+      putEntries(region, i * 10, (i + 1) * 10, "A");
+      putEntries(region, 0, i * 5, "B" + i);
+      removeEntries(region, i * 10 + 8, (i + 1) * 10);
+      store.forceRoll();
+    }
+
+    cache.close();
+    cache = createCache();
+
+    final CountDownLatch recoveryDone = new CountDownLatch(1);
+    DiskStoreObserver.setInstance(new DiskStoreObserver() {
+      @Override
+      public void afterAsyncValueRecovery(DiskStoreImpl store) {
+        recoveryDone.countDown();
+      }
+    });
+    region = (LocalRegion) createRegion();
+    assertTrue(recoveryDone.await(30, TimeUnit.SECONDS));
+
+    // the last round of updates recreated the entries removed below 45
+    checkEntriesInMemory(region, 0, 45, "B9", true);
+    for (int i = 4; i < 10; i++) {
+      checkEntriesInMemory(region, Math.max(45, i * 10), i * 10 + 8, "A", true);
+      checkEntries(region, i * 10 + 8, (i + 1) * 10, null);
+    }
+    assertEquals(88, region.size());
+  }
+
+  /**
+   * Test that values written to compressed oplogs are recovered, and faulted
+   * in, after restarting without a compressor configured.
+   */
+  @Test
+  public void testCompressedValuesRecovered() throws InterruptedException {
+    System.setProperty(DiskStoreImpl.OPLOG_COMPRESSOR_PROPERTY_NAME, SnappyCompressor.class.getName());
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 100; i++) {
+      sb.append("compressible");
+    }
+    String value = sb.toString();
+
+    Region region = createRegion();
+    DiskStoreImpl store = (DiskStoreImpl) cache.findDiskStore(region.getAttributes().getDiskStoreName());
+    putEntries(region, 0, 50, value);
+    store.forceRoll();
+    putEntries(region, 50, 100, value);
+    DiskStoreStats stats = store.getStats();
+    assertTrue(stats.getCompressedValueBytes() > 0);
+    assertTrue(stats.getCompressedValueBytes() < stats.getUncompressedValueBytes());
+
+    cache.close();
+    System.clearProperty(DiskStoreImpl.OPLOG_COMPRESSOR_PROPERTY_NAME);
+    System.setProperty(DiskStoreImpl.RECOVER_VALUE_PROPERTY_NAME, "false");
+    cache = createCache();
+    region = createRegion();
+    checkEntries(region, 0, 100, value);
+
+    cache.close();
+    System.setProperty(DiskStoreImpl.RECOVER_VALUE_PROPERTY_NAME, "true");
+    System.setProperty(DiskStoreImpl.RECOVER_VALUES_SYNC_PROPERTY_NAME, "true");
+    cache = createCache();
+    region = createRegion();
+    checkEntriesInMemory(region, 0, 100, value, true);
+  }
+
   /**
    * Test to make sure that we create missing krfs when we restart the system.
    */
@@ -221,6 +297,50 @@ public class DiskRegionAsyncRecoveryJUnitTest extends DiskRegionTestingBase {
     assertEquals("last krf was not created on cache close", crfs, krfs);
   }
 
+  /**
+   * Test that an oplog that holds records for a region that has not been
+   * recovered gets a krf once that region is recovered.
+   */
+  @Test
+  public void testKrfCreatedAfterRegionRecovered() throws InterruptedException, IOException {
+    Region region = createRegion();
+    Region region2 = createRegion("region2");
+
+    putEntries(region, 0, 5, "A");
+    putEntries(region2, 0, 5, "A");
+
+    //this ensures we don't get a chance to create a krf
+    //but instead recover from the crf
+    backupDisk();
+    cache.close();
+    restoreDisk();
+
+    cache = createCache();
+
+    //only recover one of the regions
+    region = createRegion();
+    DiskStoreImpl store = (DiskStoreImpl) cache.findDiskStore(region.getAttributes().getDiskStoreName());
+    store.forceRoll();
+
+    //Now recover the other region. That should create the missing krfs.
+    region2 = createRegion("region2");
+    checkEntries(region2, 0, 5, "A");
+
+    PersistentOplogSet set = store.getPersistentOplogSet(((LocalRegion) region).getDiskRegion());
+    String currentChild = set.getChild().getOplogFile().getName();
+    Set<String> crfs;
+    Set<String> krfs;
+    long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    do {
+      crfs = new HashSet<String>();
+      krfs = new HashSet<String>();
+      getCrfsAndKrfs(crfs, krfs);
+      crfs.remove(currentChild.split("\\.")[0]);
+    } while(!crfs.equals(krfs) && System.nanoTime() < end);
+
+    assertEquals("KRFS were not created within 10 seconds", crfs, krfs);
+  }
+
   protected void getCrfsAndKrfs(Set<String> crfs, Set<String> krfs) {
     for(File dir: dirs) {
       File[] files = dir.listFiles();
@@ -18,6 +18,7 @@ package com.gemstone.gemfire.internal.cache;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.After;
 import org.junit.Before;
@@ -30,6 +31,7 @@ import com.gemstone.gemfire.cache.*;
 import com.gemstone.gemfire.internal.Assert;
 import com.gemstone.gemfire.distributed.*;
 import com.gemstone.gemfire.test.junit.categories.IntegrationTest;
+import com.jayway.awaitility.Awaitility;
 
 import junit.framework.TestCase;
 
@@ -322,6 +324,96 @@ public class DiskStoreFactoryJUnitTest
     assertEquals(false, ds.forceCompaction());
   }
 
+  @Test
+  public void testCompactionThrottled() {
+    System.setProperty("gemfire.disk.COMPACTION_MAX_BYTES_PER_SECOND", "200000");
+    try {
+      DiskStoreFactory dsf = cache.createDiskStoreFactory();
+      dsf.setAllowForceCompaction(true);
+      dsf.setAutoCompact(false);
+      dsf.setCompactionThreshold(100);
+      String name = "testCompactionThrottled";
+      DiskStoreImpl ds = (DiskStoreImpl) dsf.create(name);
+      Region region = cache.createRegionFactory(RegionShortcut.LOCAL_PERSISTENT)
+        .setDiskStoreName(name)
+        .create("region");
+      byte[] value = new byte[1024];
+      for (int i = 0; i < 200; i++) {
+        region.put(i, value);
+      }
+      // destroy half of the entries so the first oplog has garbage
+      for (int i = 0; i < 200; i += 2) {
+        region.destroy(i);
+      }
+      ds.forceRoll();
+      assertEquals(true, ds.forceCompaction());
+      // 100 live values of 1k each need at least half a second at 200k/s
+      assertTrue(ds.getStats().getCompactedBytes() >= 100 * 1024);
+      assertTrue(ds.getStats().getCompactThrottleTime() > 0);
+    } finally {
+      System.clearProperty("gemfire.disk.COMPACTION_MAX_BYTES_PER_SECOND");
+    }
+  }
+
+  @Test
+  public void testClearNotBlockedByThrottledCompaction() throws Exception {
+    doOperationDuringThrottledCompaction("testClearNotBlockedByThrottledCompaction", true);
+  }
+
+  @Test
+  public void testCloseNotBlockedByThrottledCompaction() throws Exception {
+    doOperationDuringThrottledCompaction("testCloseNotBlockedByThrottledCompaction", false);
+  }
+
+  /**
+   * Starts a compaction throttled to take about ten seconds and checks that
+   * clearing or closing the region does not wait for it.
+   */
+  private void doOperationDuringThrottledCompaction(String name, boolean clear) throws Exception {
+    System.setProperty("gemfire.disk.COMPACTION_MAX_BYTES_PER_SECOND", "10000");
+    try {
+      DiskStoreFactory dsf = cache.createDiskStoreFactory();
+      dsf.setAllowForceCompaction(true);
+      dsf.setAutoCompact(false);
+      dsf.setCompactionThreshold(100);
+      final DiskStoreImpl ds = (DiskStoreImpl) dsf.create(name);
+      Region region = cache.createRegionFactory(RegionShortcut.LOCAL_PERSISTENT)
+        .setDiskStoreName(name)
+        .create("region");
+      byte[] value = new byte[1024];
+      for (int i = 0; i < 200; i++) {
+        region.put(i, value);
+      }
+      for (int i = 0; i < 200; i += 2) {
+        region.destroy(i);
+      }
+      ds.forceRoll();
+      Thread compaction = new Thread(new Runnable() {
+        public void run() {
+          ds.forceCompaction();
+        }
+      }, name + "-compaction");
+      compaction.start();
+      Awaitility.await().atMost(30, TimeUnit.SECONDS).until(() -> ds.getStats().getCompactedBytes() > 0);
+
+      long start = System.nanoTime();
+      if (clear) {
+        region.clear();
+        assertEquals(0, region.size());
+      } else {
+        region.close();
+      }
+      long elapsed = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start);
+      // the throttled compaction of 100k at 10k per second needs ten seconds
+      assertTrue("waited " + elapsed + " seconds for the compaction", elapsed < 5);
+
+      compaction.join(30000);
+      assertFalse(compaction.isAlive());
+    } finally {
+      System.clearProperty("gemfire.disk.COMPACTION_MAX_BYTES_PER_SECOND");
+    }
+  }
+
   @Test
   public void testMissingInitFile() {
     DiskStoreFactory dsf = cache.createDiskStoreFactory();
@@ -60,6 +60,41 @@ public class EntryEventImplTest {
     verify(region, times(1)).getFullPath();
   }
 
+  @Test
+  public void recycledEventIsReusedByCurrentThread() {
+    LocalRegion region = mock(LocalRegion.class);
+    doReturn(keyInfo).when(region).getKeyInfo(any(), any(), any());
+
+    EntryEventImpl e = EntryEventImpl.createPooled(region, Operation.UPDATE, key, value, null, false, null);
+    e.setTailKey(5L);
+    e.release();
+    EntryEventImpl.recycle(e);
+
+    EntryEventImpl reused = EntryEventImpl.createPooled(region, Operation.CREATE, "key2", "value2", null, false, null);
+    assertSame(e, reused);
+    assertEquals(Operation.CREATE, reused.getOperation());
+    assertEquals("value2", reused.getRawNewValue());
+    assertNull(reused.getRawOldValue());
+    assertEquals(Long.valueOf(-1L), reused.getTailKey());
+
+    // the reused event is not handed out again until it is recycled
+    EntryEventImpl nested = EntryEventImpl.createPooled(region, Operation.UPDATE, key, value, null, false, null);
+    assertNotSame(reused, nested);
+  }
+
+  @Test
+  public void escapedEventIsNotReused() {
+    LocalRegion region = mock(LocalRegion.class);
+    doReturn(keyInfo).when(region).getKeyInfo(any(), any(), any());
+
+    EntryEventImpl e = EntryEventImpl.createPooled(region, Operation.UPDATE, key, value, null, false, null);
+    e.setEscaped();
+    e.release();
+    EntryEventImpl.recycle(e);
+
+    assertNotSame(e, EntryEventImpl.createPooled(region, Operation.UPDATE, key, value, null, false, null));
+  }
+
   private EntryEventImpl createEntryEvent(LocalRegion l) {
     // create a dummy event id
     byte[] memId = { 1,2,3 };
@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.cache.DiskAccessException;
+import com.gemstone.gemfire.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class OplogGroupCommitterJUnitTest {
+
+  private static class CountingCommitter extends OplogGroupCommitter {
+    final AtomicInteger flushes = new AtomicInteger();
+    @Override
+    protected void flush() {
+      this.flushes.incrementAndGet();
+    }
+  }
+
+  @Test
+  public void commitFlushesBufferedWrites() {
+    CountingCommitter committer = new CountingCommitter();
+    committer.written();
+    committer.written();
+    assertEquals(2, committer.getPendingCount());
+
+    assertEquals(2, committer.commit());
+    assertEquals(1, committer.flushes.get());
+    assertEquals(0, committer.getPendingCount());
+  }
+
+  @Test
+  public void commitWithNothingBufferedDoesNotFlush() {
+    CountingCommitter committer = new CountingCommitter();
+    committer.written();
+    committer.commit();
+
+    assertEquals(0, committer.commit());
+    assertEquals(1, committer.flushes.get());
+  }
+
+  @Test
+  public void failedFlushLeavesWritesPending() {
+    final AtomicInteger attempts = new AtomicInteger();
+    OplogGroupCommitter committer = new OplogGroupCommitter() {
+      @Override
+      protected void flush() {
+        if (attempts.incrementAndGet() == 1) {
+          throw new DiskAccessException();
+        }
+      }
+    };
+    committer.written();
+    try {
+      committer.commit();
+      fail("expected DiskAccessException");
+    } catch (DiskAccessException expected) {
+    }
+    assertEquals(1, committer.getPendingCount());
+
+    assertEquals(1, committer.commit());
+    assertEquals(0, committer.getPendingCount());
+  }
+
+  @Test
+  public void writersThatArriveDuringAFlushShareTheNextOne() throws Exception {
+    final CountDownLatch leaderFlushing = new CountDownLatch(1);
+    final CountDownLatch releaseLeader = new CountDownLatch(1);
+    final AtomicInteger flushes = new AtomicInteger();
+    final OplogGroupCommitter committer = new OplogGroupCommitter() {
+      @Override
+      protected void flush() {
+        if (flushes.incrementAndGet() == 1) {
+          leaderFlushing.countDown();
+          try {
+            releaseLeader.await(30, TimeUnit.SECONDS);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        }
+      }
+    };
+    committer.written();
+    Thread leader = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        committer.commit();
+      }
+    });
+    leader.start();
+    assertTrue(leaderFlushing.await(30, TimeUnit.SECONDS));
+
+    final int followerCount = 5;
+    final AtomicLong flushedByFollowers = new AtomicLong();
+    Thread[] followers = new Thread[followerCount];
+    for (int i=0; i < followerCount; i++) {
+      committer.written();
+      followers[i] = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          flushedByFollowers.addAndGet(committer.commit());
+        }
+      });
+      followers[i].start();
+    }
+    releaseLeader.countDown();
+    leader.join(30000);
+    for (Thread t: followers) {
+      t.join(30000);
+      assertFalse(t.isAlive());
+    }
+
+    assertEquals(2, flushes.get());
+    assertEquals(followerCount, flushedByFollowers.get());
+    assertEquals(0, committer.getPendingCount());
+  }
+}
@@ -221,6 +221,49 @@ public class OplogJUnitTest extends DiskRegionTestingBase {
     closeDown();
   }
 
+  /**
+   * Tests that concurrent synchronous writes are flushed by group commits
+   * and are all recovered.
+   */
+  @Test
+  public void testGroupCommitOfConcurrentSyncWrites() throws Exception {
+    System.setProperty(DiskStoreImpl.GROUP_COMMIT_PROPERTY_NAME, "true");
+    try {
+      diskProps.setSynchronous(true);
+      diskProps.setRegionName("testGroupCommit");
+      region = DiskRegionHelperFactory.getSyncPersistOnlyRegion(cache, diskProps, Scope.LOCAL);
+    } finally {
+      System.clearProperty(DiskStoreImpl.GROUP_COMMIT_PROPERTY_NAME);
+    }
+    final int threadCount = 8;
+    final int putsPerThread = 200;
+    Thread[] threads = new Thread[threadCount];
+    for (int i = 0; i < threadCount; i++) {
+      final int threadId = i;
+      threads[i] = new Thread(new Runnable() {
+        public void run() {
+          for (int j = 0; j < putsPerThread; j++) {
+            region.put(threadId + "-" + j, "value" + j);
+          }
+          region.destroy(threadId + "-0");
+        }
+      });
+      threads[i].start();
+    }
+    for (Thread t : threads) {
+      ThreadUtils.join(t, 30 * 1000);
+    }
+    DiskStoreStats stats = ((LocalRegion) region).getDiskStore().getStats();
+    assertTrue(stats.getGroupCommits() > 0);
+    assertEquals(threadCount * (putsPerThread + 1), stats.getGroupCommittedWrites());
+
+    region.close();
+    region = DiskRegionHelperFactory.getSyncPersistOnlyRegion(cache, diskProps, Scope.LOCAL);
+    assertEquals(threadCount * (putsPerThread - 1), region.size());
+    assertEquals("value1", region.get("0-1"));
+    assertNull(region.get("0-0"));
+  }
+
   // @todo port testBufferOperations
   /**
    * Asif: Tests the correct behaviour of attributes like byte-threshhold,
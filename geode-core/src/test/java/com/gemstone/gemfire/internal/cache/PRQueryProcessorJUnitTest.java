@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class PRQueryProcessorJUnitTest {
+
+  @Test
+  public void testOneTaskPerBucketWithoutLimit() {
+    assertEquals(7, PRQueryProcessor.getNumTasks(7, 0));
+    assertEquals(7, PRQueryProcessor.getNumTasks(7, -1));
+  }
+
+  @Test
+  public void testTasksCappedByMaxParallelism() {
+    assertEquals(4, PRQueryProcessor.getNumTasks(113, 4));
+  }
+
+  @Test
+  public void testNoMoreTasksThanBuckets() {
+    assertEquals(3, PRQueryProcessor.getNumTasks(3, 8));
+  }
+}
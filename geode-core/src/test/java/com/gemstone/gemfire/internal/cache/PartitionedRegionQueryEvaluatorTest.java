@@ -21,6 +21,7 @@ import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.*;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -92,6 +93,32 @@ public class PartitionedRegionQueryEvaluatorTest {
     
   }
 
+  @Test
+  public void testSortedChunksArrivingOutOfOrderFormOneStream() {
+    PartitionedRegionQueryEvaluator.MemberResultsList results = new PartitionedRegionQueryEvaluator.MemberResultsList();
+    results.addSortedChunk(Arrays.asList(5, 6), 2);
+    results.addSortedChunk(Arrays.asList(1, 2), 0);
+    results.addSortedChunk(new ArrayList(), 1);
+    Collection stream = results.asSortedStream();
+    assertNotNull(stream);
+    assertEquals(4, stream.size());
+    assertEquals(Arrays.asList(1, 2, 5, 6), new ArrayList(stream));
+  }
+
+  @Test
+  public void testChunksOfSeveralStreamsAreNotMergedIntoOne() {
+    PartitionedRegionQueryEvaluator.MemberResultsList results = new PartitionedRegionQueryEvaluator.MemberResultsList();
+    results.addSortedChunk(Arrays.asList(3, 4), 0);
+    results.addSortedChunk(Arrays.asList(1, 2), 0);
+    assertNull(results.asSortedStream());
+
+    PartitionedRegionQueryEvaluator.MemberResultsList local = new PartitionedRegionQueryEvaluator.MemberResultsList();
+    local.add(Arrays.asList(1, 2));
+    assertNull(local.asSortedStream());
+    local.addSortedChunk(Arrays.asList(3), 0);
+    assertNull(local.asSortedStream());
+  }
+
   @Test
   public void testLocalQueryReturnsResultsToPartitionedQueryEvaluator() throws Exception {
     List resultsForMember1 = createResultObjects("1", "2", "3");
@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache;
+
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.cache.RegionShortcut;
+import com.gemstone.gemfire.cache30.CacheTestCase;
+import com.gemstone.gemfire.test.dunit.Host;
+import com.gemstone.gemfire.test.dunit.Invoke;
+import com.gemstone.gemfire.test.dunit.VM;
+
+/**
+ * Drives a region whose entries are kept in a {@link PrimitiveKeyRegionMap}
+ * through puts, destroys, tombstones and a GII.
+ */
+public class PrimitiveKeyRegionMapDUnitTest extends CacheTestCase {
+
+  private static final String REGION_NAME = "primitiveKeys";
+
+  public PrimitiveKeyRegionMapDUnitTest(String name) {
+    super(name);
+  }
+
+  @Override
+  public final void preTearDownCacheTestCase() throws Exception {
+    Invoke.invokeInEveryVM(() -> System.clearProperty(RegionMapFactory.PRIMITIVE_KEY_REGIONS_PROPERTY));
+  }
+
+  private void createRegion() {
+    System.setProperty(RegionMapFactory.PRIMITIVE_KEY_REGIONS_PROPERTY, "/" + REGION_NAME);
+    Region<Object, Object> region = getCache().createRegionFactory(RegionShortcut.REPLICATE).create(REGION_NAME);
+    assertTrue(((LocalRegion) region).getRegionMap() instanceof PrimitiveKeyRegionMap);
+  }
+
+  private Region<Object, Object> getRegion() {
+    return getCache().getRegion(REGION_NAME);
+  }
+
+  private static Object[] keys() {
+    // Integer and Long keys with the same value are different keys
+    return new Object[] { 1, 1L, 2, 2L, Integer.MIN_VALUE, Long.MAX_VALUE, -1L, "one" };
+  }
+
+  public void testOperationsAndGII() {
+    Host host = Host.getHost(0);
+    VM vm0 = host.getVM(0);
+    VM vm1 = host.getVM(1);
+
+    vm0.invoke(() -> {
+      createRegion();
+      Region<Object, Object> region = getRegion();
+      for (Object key : keys()) {
+        assertNull(region.put(key, "v" + key.getClass().getSimpleName() + key));
+      }
+      assertEquals(keys().length, region.size());
+      for (Object key : keys()) {
+        assertEquals("v" + key.getClass().getSimpleName() + key, region.get(key));
+      }
+      assertEquals("vInteger1", region.put(1, "updated"));
+      assertEquals("vLong1", region.get(1L));
+
+      region.destroy(2);
+      region.destroy("one");
+      assertFalse(region.containsKey(2));
+      assertTrue(region.containsKey(2L));
+      RegionMap map = ((LocalRegion) region).getRegionMap();
+      assertTrue(map.getEntry(2).isTombstone());
+      assertTrue(map.getEntry("one").isTombstone());
+      assertEquals(2, ((LocalRegion) region).getTombstoneCount());
+      assertEquals(keys().length - 2, region.size());
+    });
+
+    // vm1 gets its entries and tombstones by GII from vm0
+    vm1.invoke(() -> {
+      createRegion();
+      Region<Object, Object> region = getRegion();
+      assertEquals(keys().length - 2, region.size());
+      assertEquals("updated", region.get(1));
+      assertEquals("vLong1", region.get(1L));
+      assertEquals("vLong2", region.get(2L));
+      assertEquals("vInteger" + Integer.MIN_VALUE, region.get(Integer.MIN_VALUE));
+      assertEquals("vLong" + Long.MAX_VALUE, region.get(Long.MAX_VALUE));
+      assertEquals("vLong-1", region.get(-1L));
+      assertNull(region.get(2));
+      RegionMap map = ((LocalRegion) region).getRegionMap();
+      assertTrue(map.getEntry(2).isTombstone());
+      assertTrue(map.getEntry("one").isTombstone());
+    });
+
+    // a tombstone can be brought back to life on either member
+    vm1.invoke(() -> {
+      Region<Object, Object> region = getRegion();
+      assertNull(region.put(2, "again"));
+      region.destroy(-1L);
+    });
+    vm0.invoke(() -> {
+      Region<Object, Object> region = getRegion();
+      assertEquals("again", region.get(2));
+      RegionMap map = ((LocalRegion) region).getRegionMap();
+      assertFalse(map.getEntry(2).isTombstone());
+      assertTrue(map.getEntry(-1L).isTombstone());
+      assertNull(map.getEntry(-1));
+      assertEquals(keys().length - 2, region.size());
+    });
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache.lru;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.test.junit.categories.UnitTest;
+
+/**
+ * Tests the burst size calculation and promotion rate estimate used by the
+ * paced {@link HeapEvictor}.
+ */
+@Category(UnitTest.class)
+public class HeapEvictorPacingJUnitTest {
+
+  private static final long BURST = 1000;
+
+  @Test
+  public void testOvershootIsEvicted() {
+    assertEquals(3000, HeapEvictor.computePacedBytesToEvict(13000, 10000, 0, 1000, BURST));
+  }
+
+  @Test
+  public void testPromotionDuringLoopIsEvicted() {
+    // 2000 bytes/second over an 850 millisecond loop on top of a 1000 byte overshoot
+    assertEquals(2700, HeapEvictor.computePacedBytesToEvict(11000, 10000, 2000, 850, BURST));
+  }
+
+  @Test
+  public void testBelowClearThresholdEvictsMinimum() {
+    assertEquals(BURST / 4, HeapEvictor.computePacedBytesToEvict(5000, 10000, 0, 1000, BURST));
+  }
+
+  @Test
+  public void testLargeOvershootIsCapped() {
+    assertEquals(BURST * 8, HeapEvictor.computePacedBytesToEvict(1000000, 10000, 0, 1000, BURST));
+  }
+
+  @Test
+  public void testZeroBurstStillEvicts() {
+    assertEquals(1, HeapEvictor.computePacedBytesToEvict(0, 10000, 0, 1000, 0));
+  }
+
+  @Test
+  public void testEstimatorIgnoresPassesWithoutCollection() {
+    HeapEvictor.PromotionRateEstimator estimator = new HeapEvictor.PromotionRateEstimator(6000);
+    assertEquals(0, estimator.update(10000, 0, 1000));
+    // evictions without a collection are not counted as promotion
+    assertEquals(0, estimator.update(10000, 5000, 2000));
+    assertEquals(0, estimator.update(10000, 5000, 3000));
+  }
+
+  @Test
+  public void testEstimatorAddsBackEvictionsSinceLastCollection() {
+    HeapEvictor.PromotionRateEstimator estimator = new HeapEvictor.PromotionRateEstimator(6000);
+    estimator.update(10000, 0, 1000);
+    estimator.update(10000, 1000, 2000);
+    // after 2 seconds usage grew by 2000 while 1000 + 1000 bytes were evicted
+    assertEquals(2000, estimator.update(12000, 1000, 3000));
+  }
+
+  @Test
+  public void testEstimatorCanGoNegative() {
+    HeapEvictor.PromotionRateEstimator estimator = new HeapEvictor.PromotionRateEstimator(6000);
+    estimator.update(10000, 0, 1000);
+    // usage dropped by 4000 in a second but only 1000 bytes were evicted
+    assertEquals(-3000, estimator.update(6000, 1000, 2000));
+  }
+
+  @Test
+  public void testEstimatorAveragesSamples() {
+    HeapEvictor.PromotionRateEstimator estimator = new HeapEvictor.PromotionRateEstimator(6000);
+    estimator.update(10000, 0, 1000);
+    assertEquals(4000, estimator.update(14000, 0, 2000));
+    assertEquals(3000, estimator.update(16000, 0, 3000));
+  }
+
+  @Test
+  public void testEstimatorWithoutCollectionUsage() {
+    HeapEvictor.PromotionRateEstimator estimator = new HeapEvictor.PromotionRateEstimator(6000);
+    assertEquals(0, estimator.update(-1, 0, 1000));
+    assertEquals(0, estimator.update(-1, 1000, 2000));
+  }
+
+  @Test
+  public void testEstimatorRestartsAfterLongGap() {
+    HeapEvictor.PromotionRateEstimator estimator = new HeapEvictor.PromotionRateEstimator(6000);
+    estimator.update(10000, 0, 1000);
+    assertEquals(4000, estimator.update(14000, 0, 2000));
+    // a new eviction episode starts without the old rate or baseline
+    assertEquals(0, estimator.update(20000, 0, 60000));
+    assertEquals(1000, estimator.update(21000, 0, 61000));
+  }
+}
@@ -39,6 +39,7 @@ import com.gemstone.gemfire.distributed.DistributedSystem;
 import com.gemstone.gemfire.internal.StatisticsTypeFactoryImpl;
 import com.gemstone.gemfire.internal.cache.InternalRegionArguments;
 import com.gemstone.gemfire.internal.cache.PlaceHolderDiskRegion;
+import com.gemstone.gemfire.internal.util.concurrent.CustomEntryConcurrentHashMap;
 import com.gemstone.gemfire.test.junit.categories.IntegrationTest;
 
 /**  This class tests the LRUCapacityController's core clock algorithm.  */
@@ -274,6 +275,46 @@ public class LRUClockJUnitTest extends junit.framework.TestCase {
     assertEquals(null, clock.getLRUEntry( ));
   }
   
+  @Test
+  public void testSampledEvictsEveryEntryOnce() throws Exception {
+    int oldSampleSize = NewSampledLRUClockHand.SAMPLE_SIZE;
+    NewSampledLRUClockHand.SAMPLE_SIZE = 5;
+    try {
+      NewSampledLRUClockHand clock = new NewSampledLRUClockHand( getARegion(), new TestEnableLRU(), new InternalRegionArguments());
+      CustomEntryConcurrentHashMap<Object, Object> map = new CustomEntryConcurrentHashMap<Object, Object>();
+      clock.setEntryMap(map);
+      LRUTestEntry[] nodes = new LRUTestEntry[100];
+      for( int i = 0; i < 100; i++ ) {
+        nodes[i] = getANode( i );
+        if ( i % 2 == 0 ) {
+          nodes[i].setRecentlyUsed();
+        }
+        map.put(i, nodes[i]);
+        clock.appendEntry( nodes[i] );
+      }
+      clock.unlinkEntry(nodes[7]);
+
+      boolean[] seen = new boolean[100];
+      int evicted = 0;
+      for( int calls = 0; calls < 100000 && evicted < 99; calls++ ) {
+        LRUTestEntry n = (LRUTestEntry) clock.getLRUEntry( );
+        if ( n == null ) {
+          continue;
+        }
+        assertFalse( "returned evicted nodes[" + n.id() + "]", n.testEvicted() );
+        assertFalse( "returned nodes[" + n.id() + "] twice", seen[n.id()] );
+        seen[n.id()] = true;
+        n.setEvicted();
+        evicted++;
+      }
+      assertEquals(99, evicted);
+      assertFalse(seen[7]);
+      assertNull(clock.getLRUEntry());
+    } finally {
+      NewSampledLRUClockHand.SAMPLE_SIZE = oldSampleSize;
+    }
+  }
+
   /** manufacture a node so that a shared type can be used by SharedLRUClockTest. */
   protected LRUTestEntry getANode( int id ) {
     return new LocalLRUTestEntry( id );
@@ -391,6 +432,10 @@ public class LRUClockJUnitTest extends junit.framework.TestCase {
       "Number of entry destroys triggered by LRU.";
     final String lruDestroysLimitDesc =
       "Maximum number of entry destroys triggered by LRU before scan occurs.";
+    final String lruHitsDesc =
+      "Number of evaluated entries that had been used since they were last evaluated.";
+    final String lruEvaluationTimeDesc =
+      "Total time spent choosing entries to evict.";
       
     statType = f.createType( "TestLRUStatistics",
       "Statistics about byte based Least Recently Used region entry disposal",
@@ -402,6 +447,8 @@ public class LRUClockJUnitTest extends junit.framework.TestCase {
         f.createLongCounter("lruGreedyReturns", lruGreedyReturnsDesc, "entries"),
         f.createLongCounter("lruDestroys", lruDestroysDesc, "entries" ),
         f.createLongCounter("lruDestroysLimit", lruDestroysLimitDesc, "entries" ),
+        f.createLongCounter("lruHits", lruHitsDesc, "entries" ),
+        f.createLongCounter("lruEvaluationTime", lruEvaluationTimeDesc, "nanoseconds" ),
       }
     );
   }
@@ -468,6 +515,14 @@ public class LRUClockJUnitTest extends junit.framework.TestCase {
         return statType.nameToId("lruGreedyReturns");
       }
 
+      public int getHitsStatId() {
+        return statType.nameToId("lruHits");
+      }
+
+      public int getEvaluationTimeStatId() {
+        return statType.nameToId("lruEvaluationTime");
+      }
+
     public boolean mustEvict(LRUStatistics stats, Region region, int delta) {
       throw new UnsupportedOperationException("Not implemented");
     }
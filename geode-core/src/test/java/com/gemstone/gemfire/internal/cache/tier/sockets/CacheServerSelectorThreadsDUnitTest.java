@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache.tier.sockets;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.cache.RegionShortcut;
+import com.gemstone.gemfire.cache.client.ClientCache;
+import com.gemstone.gemfire.cache.client.ClientCacheFactory;
+import com.gemstone.gemfire.cache.client.ClientRegionShortcut;
+import com.gemstone.gemfire.cache.client.PoolManager;
+import com.gemstone.gemfire.cache.client.internal.PoolImpl;
+import com.gemstone.gemfire.cache.server.CacheServer;
+import com.gemstone.gemfire.cache30.CacheTestCase;
+import com.gemstone.gemfire.internal.cache.CacheServerImpl;
+import com.gemstone.gemfire.test.dunit.Host;
+import com.gemstone.gemfire.test.dunit.Invoke;
+import com.gemstone.gemfire.test.dunit.NetworkUtils;
+import com.gemstone.gemfire.test.dunit.VM;
+import com.gemstone.gemfire.test.dunit.Wait;
+import com.gemstone.gemfire.test.dunit.WaitCriterion;
+
+/**
+ * Runs many client connections against a cache server whose thread pool is
+ * smaller than the number of connections and whose idle connections are
+ * spread over several selector threads.
+ */
+public class CacheServerSelectorThreadsDUnitTest extends CacheTestCase {
+
+  private static final String REGION_NAME = "selectorThreads";
+  private static final int SELECTOR_THREADS = 4;
+  private static final int CLIENT_THREADS = 30;
+  private static final int ROUNDS = 6;
+
+  public CacheServerSelectorThreadsDUnitTest(String name) {
+    super(name);
+  }
+
+  @Override
+  public final void preTearDownCacheTestCase() throws Exception {
+    Invoke.invokeInEveryVM(() -> {
+      AcceptorImpl.SELECTOR_THREADS = 1;
+    });
+  }
+
+  private int createServer() throws IOException {
+    AcceptorImpl.SELECTOR_THREADS = SELECTOR_THREADS;
+    getCache().createRegionFactory(RegionShortcut.REPLICATE).create(REGION_NAME);
+    CacheServer server = getCache().addCacheServer();
+    server.setMaxThreads(2);
+    server.setPort(0);
+    server.start();
+    assertEquals(SELECTOR_THREADS, getAcceptor().getSelectorThreadCount());
+    return server.getPort();
+  }
+
+  private AcceptorImpl getAcceptor() {
+    return ((CacheServerImpl)getCache().getCacheServers().get(0)).getAcceptor();
+  }
+
+  /**
+   * Each client thread has its own connection. It does a put and a get, then
+   * lets the connection go idle so the server hands it back to its selector
+   * thread, and repeats. A third of the threads destroy their connection half
+   * way through and carry on with a new one.
+   */
+  private void runClients(String host, int port) throws Exception {
+    ClientCache cache = getClientCache(new ClientCacheFactory()
+        .addPoolServer(host, port)
+        .setPoolThreadLocalConnections(true)
+        .setPoolMinConnections(0)
+        .setPoolReadTimeout(30000));
+    final Region<String, Integer> region = cache.<String, Integer>createClientRegionFactory(ClientRegionShortcut.PROXY).create(REGION_NAME);
+    final PoolImpl pool = (PoolImpl)PoolManager.find(region);
+    ExecutorService executor = Executors.newFixedThreadPool(CLIENT_THREADS);
+    try {
+      List<Future<Object>> futures = new ArrayList<Future<Object>>();
+      for (int t = 0; t < CLIENT_THREADS; t++) {
+        final String key = "key" + t;
+        final boolean disconnects = t % 3 == 0;
+        futures.add(executor.submit(() -> {
+          for (int round = 0; round < ROUNDS; round++) {
+            region.put(key, round);
+            assertEquals(Integer.valueOf(round), region.get(key));
+            if (disconnects && round == ROUNDS / 2) {
+              // the next op finds the connection destroyed and opens a new one
+              pool.getThreadLocalConnection().destroy();
+            }
+            Thread.sleep(200);
+          }
+          return null;
+        }));
+      }
+      for (Future<Object> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  public void testIdleAndDisconnectingClientsOverSeveralSelectorThreads() {
+    Host host = Host.getHost(0);
+    VM server = host.getVM(0);
+    VM client = host.getVM(1);
+    final int port = server.invoke(() -> createServer());
+    final String hostName = NetworkUtils.getServerHostName(host);
+
+    client.invoke(() -> runClients(hostName, port));
+
+    server.invoke(() -> {
+      Region<String, Integer> region = getCache().getRegion(REGION_NAME);
+      for (int t = 0; t < CLIENT_THREADS; t++) {
+        assertEquals(Integer.valueOf(ROUNDS - 1), region.get("key" + t));
+      }
+      assertTrue(getAcceptor().getClientServerCnxCount() > 0);
+    });
+
+    client.invoke(() -> closeCache());
+
+    // every selector thread notices its closed connections
+    server.invoke(() -> {
+      final AcceptorImpl acceptor = getAcceptor();
+      Wait.waitForCriterion(new WaitCriterion() {
+        public boolean done() {
+          return acceptor.getClientServerCnxCount() == 0;
+        }
+        public String description() {
+          return "waiting for " + acceptor.getClientServerCnxCount() + " connections to close";
+        }
+      }, 30 * 1000, 200, true);
+    });
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache.tier.sockets;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class CommBufferPoolJUnitTest {
+
+  @Before
+  public void setUp() {
+    CommBufferPool.clear();
+  }
+
+  @After
+  public void tearDown() {
+    CommBufferPool.clear();
+  }
+
+  @Test
+  public void testReleasedBufferIsReused() {
+    int inUse = CommBufferPool.getBuffersInUse();
+    ByteBuffer bb = CommBufferPool.acquire(1234);
+    assertTrue(bb.isDirect());
+    assertEquals(1234, bb.capacity());
+    assertEquals(inUse + 1, CommBufferPool.getBuffersInUse());
+
+    bb.putInt(7);
+    bb.flip();
+    CommBufferPool.release(bb);
+    assertEquals(inUse, CommBufferPool.getBuffersInUse());
+    assertEquals(1, CommBufferPool.getBuffersPooled());
+    assertEquals(1234, CommBufferPool.getBytesPooled());
+
+    long allocated = CommBufferPool.getBuffersAllocated();
+    ByteBuffer reused = CommBufferPool.acquire(1234);
+    assertSame(bb, reused);
+    assertEquals(0, reused.position());
+    assertEquals(1234, reused.limit());
+    assertEquals(allocated, CommBufferPool.getBuffersAllocated());
+    assertEquals(0, CommBufferPool.getBuffersPooled());
+    CommBufferPool.release(reused);
+  }
+
+  @Test
+  public void testSizeClassesAreSeparate() {
+    ByteBuffer small = CommBufferPool.acquire(1000);
+    CommBufferPool.release(small);
+    long allocated = CommBufferPool.getBuffersAllocated();
+    ByteBuffer large = CommBufferPool.acquire(2000);
+    assertNotSame(small, large);
+    assertEquals(2000, large.capacity());
+    assertEquals(allocated + 1, CommBufferPool.getBuffersAllocated());
+    CommBufferPool.release(large);
+    assertEquals(2, CommBufferPool.getBuffersPooled());
+  }
+
+  @Test
+  public void testHeapBuffersAreNotPooled() {
+    int inUse = CommBufferPool.getBuffersInUse();
+    CommBufferPool.release(ByteBuffer.allocate(100));
+    CommBufferPool.release(null);
+    assertEquals(inUse, CommBufferPool.getBuffersInUse());
+    assertEquals(0, CommBufferPool.getBuffersPooled());
+  }
+
+  @Test
+  public void testClearDropsIdleBuffers() {
+    CommBufferPool.release(CommBufferPool.acquire(500));
+    CommBufferPool.clear();
+    assertEquals(0, CommBufferPool.getBuffersPooled());
+    assertEquals(0, CommBufferPool.getBytesPooled());
+  }
+}
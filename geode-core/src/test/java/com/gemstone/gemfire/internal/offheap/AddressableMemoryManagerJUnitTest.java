@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.offheap;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class AddressableMemoryManagerJUnitTest {
+
+  private static final int SIZE = 100;
+
+  private long addr;
+
+  @Before
+  public void setUp() {
+    this.addr = AddressableMemoryManager.allocate(SIZE);
+    for (int i = 0; i < SIZE; i++) {
+      AddressableMemoryManager.writeByte(this.addr + i, (byte) i);
+    }
+  }
+
+  @After
+  public void tearDown() {
+    AddressableMemoryManager.free(this.addr);
+  }
+
+  @Test
+  public void testReadBytesIntoHeapByteBuffer() {
+    verifyReadBytes(ByteBuffer.allocate(SIZE + 10));
+  }
+
+  @Test
+  public void testReadBytesIntoDirectByteBuffer() {
+    verifyReadBytes(ByteBuffer.allocateDirect(SIZE + 10));
+  }
+
+  @Test
+  public void testReadBytesIntoSlicedByteBuffer() {
+    ByteBuffer bb = ByteBuffer.allocate(SIZE + 20);
+    bb.position(7);
+    verifyReadBytes(bb.slice());
+  }
+
+  private void verifyReadBytes(ByteBuffer bb) {
+    bb.put((byte) -1);
+    AddressableMemoryManager.readBytes(this.addr + 10, bb, 50);
+    assertEquals(51, bb.position());
+    AddressableMemoryManager.readBytes(this.addr, bb, 0);
+    assertEquals(51, bb.position());
+    bb.flip();
+    assertEquals(-1, bb.get());
+    for (int i = 0; i < 50; i++) {
+      assertEquals(10 + i, bb.get());
+    }
+  }
+}
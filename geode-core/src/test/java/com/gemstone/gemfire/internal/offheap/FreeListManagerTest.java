@@ -22,7 +22,11 @@ import static org.junit.Assert.fail;
 import static org.mockito.Mockito.*;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.apache.logging.log4j.Logger;
@@ -32,6 +36,7 @@ import org.junit.Test;
 import org.junit.experimental.categories.Category;
 
 import com.gemstone.gemfire.test.junit.categories.UnitTest;
+import com.jayway.awaitility.Awaitility;
 
 @Category(UnitTest.class)
 public class FreeListManagerTest {
@@ -61,6 +66,10 @@ public class FreeListManagerTest {
     return new TestableFreeListManager(ma, slabs, maxCombine);
   }
   
+  private static TestableFreeListManager createFreeListManagerWithThreadCache(MemoryAllocatorImpl ma, Slab[] slabs, int threadCacheCapacity) {
+    return new TestableFreeListManager(ma, slabs, 0, threadCacheCapacity);
+  }
+  
   private void setUpSingleSlabManager() {
     setUpSingleSlabManager(DEFAULT_SLAB_SIZE);
   }
@@ -197,6 +206,118 @@ public class FreeListManagerTest {
     
     assertThat(this.freeListManager.getFreeTinyMemory()).isEqualTo(computeExpectedSize(dataSize)+computeExpectedSize(dataSize2));
   }
+  
+  @Test
+  public void freedTinyChunkIsReallocatedFromThreadCache() {
+    this.freeListManager = createFreeListManagerWithThreadCache(ma, new Slab[] {new SlabImpl(DEFAULT_SLAB_SIZE)}, 4);
+    int dataSize = 10;
+    
+    OffHeapStoredObject c = this.freeListManager.allocate(dataSize);
+    verify(this.stats).incThreadCacheMisses();
+    OffHeapStoredObject.release(c.getAddress(), this.freeListManager);
+    OffHeapStoredObject c2 = this.freeListManager.allocate(dataSize);
+    
+    assertThat(c2.getAddress()).isEqualTo(c.getAddress());
+    verify(this.stats).incThreadCacheHits();
+    validateChunkSizes(c2, dataSize);
+  }
+  
+  @Test
+  public void threadCachesAreOffByDefault() {
+    this.freeListManager = createFreeListManager(ma, new Slab[] {new SlabImpl(DEFAULT_SLAB_SIZE)});
+    OffHeapStoredObject c = this.freeListManager.allocate(10);
+    OffHeapStoredObject.release(c.getAddress(), this.freeListManager);
+
+    assertThat(this.freeListManager.getThreadCacheCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void fullThreadCacheFlushesToTinyFreeList() {
+    this.freeListManager = createFreeListManagerWithThreadCache(ma, new Slab[] {new SlabImpl(DEFAULT_SLAB_SIZE)}, 4);
+    int dataSize = 10;
+    OffHeapStoredObject[] chunks = new OffHeapStoredObject[5];
+    for (int i=0; i < chunks.length; i++) {
+      chunks[i] = this.freeListManager.allocate(dataSize);
+    }
+    for (int i=0; i < chunks.length; i++) {
+      OffHeapStoredObject.release(chunks[i].getAddress(), this.freeListManager);
+    }
+    
+    assertThat(this.freeListManager.getFreeTinyMemory()).isEqualTo(5*computeExpectedSize(dataSize));
+    this.freeListManager.flushThreadCaches();
+    assertThat(this.freeListManager.getFreeTinyMemory()).isEqualTo(5*computeExpectedSize(dataSize));
+  }
+  
+  @Test
+  public void threadCacheRefillsFromTinyFreeListOfOtherThread() throws Exception {
+    this.freeListManager = createFreeListManagerWithThreadCache(ma, new Slab[] {new SlabImpl(DEFAULT_SLAB_SIZE)}, 4);
+    final int dataSize = 10;
+    final OffHeapStoredObject c = this.freeListManager.allocate(dataSize);
+    Thread t = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        OffHeapStoredObject.release(c.getAddress(), freeListManager);
+      }
+    });
+    t.start();
+    t.join();
+    this.freeListManager.flushThreadCaches();
+    
+    OffHeapStoredObject c2 = this.freeListManager.allocate(dataSize);
+    assertThat(c2.getAddress()).isEqualTo(c.getAddress());
+  }
+  
+  @Test
+  public void allocationReclaimsCachesOfTerminatedThreads() throws Exception {
+    this.freeListManager = createFreeListManagerWithThreadCache(ma, new Slab[] {new SlabImpl(DEFAULT_SLAB_SIZE)}, 4);
+    final int dataSize = 10;
+    final Set<Long> cachedByDeadThreads = new HashSet<Long>();
+    Thread[] threads = new Thread[3];
+    for (int i=0; i < threads.length; i++) {
+      threads[i] = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          OffHeapStoredObject c = freeListManager.allocate(dataSize);
+          OffHeapStoredObject.release(c.getAddress(), freeListManager);
+          synchronized (cachedByDeadThreads) {
+            cachedByDeadThreads.add(c.getAddress());
+          }
+        }
+      });
+      threads[i].start();
+    }
+    for (Thread t: threads) {
+      t.join();
+    }
+    assertThat(this.freeListManager.getThreadCacheCount()).isEqualTo(threads.length);
+    assertThat(this.freeListManager.getFreeTinyMemory()).isEqualTo(threads.length*computeExpectedSize(dataSize));
+    
+    // Until the dead threads' caches are scanned each allocation misses
+    // this thread's cache and the empty tiny free list.
+    final Set<Long> allocated = new HashSet<Long>();
+    Awaitility.await().atMost(30, TimeUnit.SECONDS).until(new Callable<Boolean>() {
+      @Override
+      public Boolean call() {
+        allocated.add(freeListManager.allocate(dataSize).getAddress());
+        return allocated.containsAll(cachedByDeadThreads);
+      }
+    });
+    assertThat(this.freeListManager.getThreadCacheCount()).isEqualTo(1);
+  }
+  
+  @Test
+  public void defragmentReclaimsThreadCachedChunks() {
+    this.freeListManager = createFreeListManagerWithThreadCache(ma, new Slab[] {new SlabImpl(DEFAULT_SLAB_SIZE)}, 4);
+    Fragment originalFragment = this.freeListManager.getFragmentList().get(0);
+    OffHeapStoredObject c = freeListManager.allocate(16);
+    OffHeapStoredObject.release(c.getAddress(), this.freeListManager);
+    this.freeListManager.firstDefragmentation = false;
+    
+    assertThat(this.freeListManager.defragment(DEFAULT_SLAB_SIZE)).isTrue();
+    assertThat(this.freeListManager.getFragmentList()).hasSize(1);
+    assertThat(this.freeListManager.getFragmentList().get(0).getSize()).isEqualTo(originalFragment.getSize());
+    assertThat(this.freeListManager.getFreeTinyMemory()).isZero();
+  }
    
   @Test
   public void freeHugeMemoryDefault() {
@@ -440,6 +561,42 @@ public class FreeListManagerTest {
     assertThat(freeListManager.defragment(slabSize)).isTrue();
   }
   
+  @Test
+  public void largestFragmentShortfallIsZeroOnDefault() {
+    setUpSingleSlabManager();
+    assertThat(this.freeListManager.getLargestFragmentShortfall()).isZero();
+  }
+  
+  @Test
+  public void largestFragmentShortfallCountsFreeListMemory() {
+    int slabSize = 1024*3;
+    setUpSingleSlabManager(slabSize);
+    OffHeapStoredObject c = freeListManager.allocate(slabSize/2-8);
+    OffHeapStoredObject c2 = freeListManager.allocate(slabSize/2-8);
+    OffHeapStoredObject.release(c.getAddress(), this.freeListManager);
+    
+    assertThat(this.freeListManager.getLargestFragmentShortfall()).isEqualTo(100);
+    OffHeapStoredObject.release(c2.getAddress(), this.freeListManager);
+    this.freeListManager.firstDefragmentation = false;
+    this.freeListManager.defragment(1);
+    assertThat(this.freeListManager.getLargestFragmentShortfall()).isZero();
+  }
+  
+  @Test
+  public void allocateBelowOnlyUsesFragmentsBelowLimit() {
+    setUpSingleSlabManager();
+    OffHeapStoredObject low = freeListManager.allocate(100);
+    OffHeapStoredObject high = freeListManager.allocate(100);
+    
+    assertThat(this.freeListManager.allocateBelow(100, high.getAddress())).isNull();
+    OffHeapStoredObject.release(low.getAddress(), this.freeListManager);
+    this.freeListManager.firstDefragmentation = false;
+    this.freeListManager.defragment(1);
+    OffHeapStoredObject relocated = this.freeListManager.allocateBelow(100, high.getAddress());
+    assertThat(relocated.getAddress()).isEqualTo(low.getAddress());
+    validateChunkSizes(relocated, 100);
+  }
+  
   @Test
   public void defragmentWithEmptyTinyFreeList() {
     setUpSingleSlabManager();
@@ -910,6 +1067,11 @@ public class FreeListManagerTest {
       this.maxCombine = maxCombine;
     }
 
+    public TestableFreeListManager(MemoryAllocatorImpl ma, Slab[] slabs, int maxCombine, int threadCacheCapacity) {
+      super(ma, slabs, threadCacheCapacity);
+      this.maxCombine = maxCombine;
+    }
+
     @Override
     protected Fragment createFragment(long addr, int size) {
       return new TestableFragment(addr, size);
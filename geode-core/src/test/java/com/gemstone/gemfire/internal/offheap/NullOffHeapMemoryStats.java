@@ -91,6 +91,31 @@ public class NullOffHeapMemoryStats implements OffHeapMemoryStats {
     return 0;
   }
   @Override
+  public void incThreadCacheHits() {
+  }
+  @Override
+  public long getThreadCacheHits() {
+    return 0;
+  }
+  @Override
+  public void incThreadCacheMisses() {
+  }
+  @Override
+  public long getThreadCacheMisses() {
+    return 0;
+  }
+  @Override
+  public void incRelocations(long bytes) {
+  }
+  @Override
+  public long getRelocations() {
+    return 0;
+  }
+  @Override
+  public long getRelocatedBytes() {
+    return 0;
+  }
+  @Override
   public Statistics getStats() {
     return null;
   }
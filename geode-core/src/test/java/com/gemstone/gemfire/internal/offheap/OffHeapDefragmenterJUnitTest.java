@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.offheap;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.internal.cache.OffHeapRegionEntry;
+import com.gemstone.gemfire.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class OffHeapDefragmenterJUnitTest {
+
+  private MemoryAllocatorImpl ma;
+  private OffHeapDefragmenter defragmenter;
+
+  @Before
+  public void setUp() {
+    this.ma = MemoryAllocatorImpl.createForUnitTest(new NullOutOfOffHeapMemoryListener(), new NullOffHeapMemoryStats(), new SlabImpl[]{new SlabImpl(1024*1024)});
+    this.defragmenter = this.ma.getDefragmenter();
+  }
+
+  @After
+  public void tearDown() {
+    MemoryAllocatorImpl.freeOffHeapMemory();
+  }
+
+  private static byte[] data(int size) {
+    byte[] result = new byte[size];
+    for (int i=0; i < size; i++) {
+      result[i] = (byte) i;
+    }
+    return result;
+  }
+
+  @Test
+  public void relocateMovesValueIntoFreeMemoryBelowIt() {
+    OffHeapStoredObject low1 = (OffHeapStoredObject) this.ma.allocate(100);
+    OffHeapStoredObject low2 = (OffHeapStoredObject) this.ma.allocate(100);
+    OffHeapStoredObject value = (OffHeapStoredObject) this.ma.allocate(100);
+    value.setSerialized(true);
+    value.writeDataBytes(0, data(100));
+    long lowAddr = low1.getAddress();
+    long valueAddr = value.getAddress();
+    low1.release();
+    low2.release();
+    this.ma.getFreeListManager().defragment(0);
+
+    OffHeapRegionEntry re = mock(OffHeapRegionEntry.class);
+    when(re.getAddress()).thenReturn(valueAddr);
+    when(re.setAddress(eq(valueAddr), anyLong())).thenReturn(true);
+
+    assertTrue(this.defragmenter.relocate(re));
+    verify(re).setAddress(valueAddr, lowAddr);
+    OffHeapStoredObject relocated = new OffHeapStoredObject(lowAddr);
+    assertEquals(1, relocated.getRefCount());
+    assertEquals(100, relocated.getDataSize());
+    assertTrue(relocated.isSerialized());
+    byte[] bytes = new byte[100];
+    relocated.readDataBytes(0, bytes);
+    assertTrue(Arrays.equals(data(100), bytes));
+    assertEquals(0, OffHeapStoredObject.getRefCount(valueAddr));
+    relocated.release();
+  }
+
+  @Test
+  public void relocateSkipsValueWithNoFreeMemoryBelowIt() {
+    OffHeapStoredObject value = (OffHeapStoredObject) this.ma.allocate(100);
+    long usedMemory = this.ma.getUsedMemory();
+    OffHeapRegionEntry re = mock(OffHeapRegionEntry.class);
+    when(re.getAddress()).thenReturn(value.getAddress());
+
+    assertFalse(this.defragmenter.relocate(re));
+    verify(re, never()).setAddress(anyLong(), anyLong());
+    assertEquals(usedMemory, this.ma.getUsedMemory());
+    value.release();
+  }
+
+  @Test
+  public void relocateSkipsRetainedValue() {
+    OffHeapStoredObject low = (OffHeapStoredObject) this.ma.allocate(100);
+    OffHeapStoredObject value = (OffHeapStoredObject) this.ma.allocate(100);
+    low.release();
+    this.ma.getFreeListManager().defragment(0);
+    value.retain();
+    OffHeapRegionEntry re = mock(OffHeapRegionEntry.class);
+    when(re.getAddress()).thenReturn(value.getAddress());
+
+    assertFalse(this.defragmenter.relocate(re));
+    verify(re, never()).setAddress(anyLong(), anyLong());
+    value.release();
+    value.release();
+  }
+
+  @Test
+  public void relocateReleasesCopyIfEntryChanged() {
+    OffHeapStoredObject low = (OffHeapStoredObject) this.ma.allocate(100);
+    OffHeapStoredObject value = (OffHeapStoredObject) this.ma.allocate(100);
+    low.release();
+    this.ma.getFreeListManager().defragment(0);
+    long usedMemory = this.ma.getUsedMemory();
+    OffHeapRegionEntry re = mock(OffHeapRegionEntry.class);
+    when(re.getAddress()).thenReturn(value.getAddress());
+    when(re.setAddress(anyLong(), anyLong())).thenReturn(false);
+
+    assertFalse(this.defragmenter.relocate(re));
+    assertEquals(1, value.getRefCount());
+    assertEquals(usedMemory, this.ma.getUsedMemory());
+    value.release();
+  }
+
+  @Test
+  public void relocateSkipsEncodedValue() {
+    long encoded = OffHeapRegionEntryHelper.encodeDataAsAddress(new byte[] {1, 2}, false, false);
+    OffHeapRegionEntry re = mock(OffHeapRegionEntry.class);
+    when(re.getAddress()).thenReturn(encoded);
+
+    assertFalse(this.defragmenter.relocate(re));
+  }
+
+  @Test
+  public void disabledByDefault() {
+    assertEquals(0, OffHeapDefragmenter.THRESHOLD);
+    assertFalse(this.defragmenter.isRunning());
+  }
+
+  @Test
+  public void backsOffWhileShortfallDoesNotImprove() {
+    assertEquals(2, OffHeapDefragmenter.nextBackoff(1, 60, 60));
+    assertEquals(4, OffHeapDefragmenter.nextBackoff(2, 60, 70));
+    assertEquals(OffHeapDefragmenter.MAX_BACKOFF_INTERVALS,
+        OffHeapDefragmenter.nextBackoff(OffHeapDefragmenter.MAX_BACKOFF_INTERVALS, 60, 60));
+    assertEquals(1, OffHeapDefragmenter.nextBackoff(32, 60, 59));
+  }
+
+  @Test
+  public void canBeRestartedAfterStop() {
+    this.defragmenter.start();
+    assertTrue(this.defragmenter.isRunning());
+    this.defragmenter.stop();
+    assertFalse(this.defragmenter.isRunning());
+    this.defragmenter.start();
+    assertTrue(this.defragmenter.isRunning());
+    this.defragmenter.stop();
+    assertFalse(this.defragmenter.isRunning());
+  }
+}
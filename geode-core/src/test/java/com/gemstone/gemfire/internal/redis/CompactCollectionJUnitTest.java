@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.redis;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.Arrays;
+import java.util.Map;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class CompactCollectionJUnitTest {
+
+  private static byte[] bytes(String s) {
+    return Coder.stringToBytes(s);
+  }
+
+  @Test
+  public void emptySetHasNoMembers() {
+    CompactCollection set = CompactCollection.emptySet();
+    assertTrue(set.isEmpty());
+    assertFalse(set.isHash());
+    assertFalse(set.isPromoted());
+    assertEquals(0, set.members().size());
+    assertNull(set.get(bytes("a")));
+  }
+
+  @Test
+  public void setAddsMemberOnlyOnce() {
+    CompactCollection set = CompactCollection.emptySet().with(bytes("a"), null).with(bytes("b"), null);
+    assertSame(set, set.with(bytes("a"), null));
+    assertEquals(2, set.size());
+    assertEquals(Boolean.TRUE, set.get(bytes("a")));
+    assertEquals(Arrays.asList(new ByteArrayWrapper(bytes("a")), new ByteArrayWrapper(bytes("b"))), set.members());
+  }
+
+  @Test
+  public void hashReplacesValueInPlace() {
+    CompactCollection hash = CompactCollection.emptyHash().with(bytes("f1"), bytes("v1")).with(bytes("f2"), bytes("v2"));
+    hash = hash.with(bytes("f1"), bytes("longer value"));
+    assertEquals(2, hash.size());
+    assertEquals(new ByteArrayWrapper(bytes("longer value")), hash.get(bytes("f1")));
+    assertEquals(new ByteArrayWrapper(bytes("v2")), hash.get(bytes("f2")));
+    assertEquals(new ByteArrayWrapper(bytes("f1")), hash.members().get(0));
+  }
+
+  @Test
+  public void withoutRemovesOnlyTheMember() {
+    CompactCollection hash = CompactCollection.emptyHash().with(bytes("f1"), bytes("v1")).with(bytes("f2"), bytes("v2")).with(bytes("f3"), bytes("v3"));
+    CompactCollection removed = hash.without(bytes("f2"));
+    assertEquals(2, removed.size());
+    assertFalse(removed.contains(bytes("f2")));
+    assertEquals(new ByteArrayWrapper(bytes("v3")), removed.get(bytes("f3")));
+    assertSame(removed, removed.without(bytes("f2")));
+    assertEquals(3, hash.size());
+  }
+
+  @Test
+  public void membersLongerThanOneLengthByteAreEncoded() {
+    byte[] big = new byte[300];
+    Arrays.fill(big, (byte) 'x');
+    CompactCollection hash = CompactCollection.emptyHash().with(big, big).with(bytes("a"), bytes("b"));
+    assertEquals(new ByteArrayWrapper(big), hash.get(big));
+    assertEquals(new ByteArrayWrapper(bytes("b")), hash.get(bytes("a")));
+    assertEquals(2 + 300 + 2 + 300 + 1 + 1 + 1 + 1, hash.encodedLength());
+  }
+
+  @Test
+  public void toMapPreservesMemberOrder() {
+    CompactCollection hash = CompactCollection.emptyHash().with(bytes("z"), bytes("1")).with(bytes("a"), bytes("2"));
+    Map<ByteArrayWrapper, Object> map = hash.toMap();
+    assertEquals(Arrays.asList(new ByteArrayWrapper(bytes("z")), new ByteArrayWrapper(bytes("a"))), Arrays.asList(map.keySet().toArray()));
+    assertEquals(new ByteArrayWrapper(bytes("2")), map.get(new ByteArrayWrapper(bytes("a"))));
+  }
+
+  @Test
+  public void promotionKeepsMembersUntilMarked() {
+    CompactCollection set = CompactCollection.emptySet().with(bytes("a"), null);
+    CompactCollection promoted = set.toPromoted();
+    assertTrue(promoted.isPromoted());
+    assertTrue(promoted.isMigrating());
+    assertEquals(set.members(), promoted.members());
+    assertFalse(promoted.equals(set));
+
+    CompactCollection marker = promoted.toPromotedMarker();
+    assertTrue(marker.isPromoted());
+    assertFalse(marker.isMigrating());
+    assertFalse(marker.isHash());
+  }
+
+  @Test
+  public void equalEncodingsAreEqual() {
+    CompactCollection a = CompactCollection.emptySet().with(bytes("a"), null);
+    CompactCollection b = CompactCollection.emptySet().with(bytes("a"), null);
+    assertEquals(a, b);
+    assertEquals(a.hashCode(), b.hashCode());
+    assertFalse(CompactCollection.emptySet().equals(CompactCollection.emptyHash()));
+  }
+
+  @Test
+  public void serializationRoundTrips() throws Exception {
+    CompactCollection hash = CompactCollection.emptyHash().with(bytes("f"), bytes("v")).toPromoted();
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    hash.toData(new DataOutputStream(baos));
+    CompactCollection copy = new CompactCollection();
+    copy.fromData(new DataInputStream(new ByteArrayInputStream(baos.toByteArray())));
+    assertEquals(hash, copy);
+    assertTrue(copy.isHash());
+    assertTrue(copy.isMigrating());
+  }
+
+}
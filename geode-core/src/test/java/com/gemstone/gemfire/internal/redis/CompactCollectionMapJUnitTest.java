@@ -0,0 +1,222 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.redis;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class CompactCollectionMapJUnitTest {
+
+  private static final ByteArrayWrapper KEY = wrap("key");
+
+  private final ConcurrentMap<ByteArrayWrapper, CompactCollection> backing = new ConcurrentHashMap<ByteArrayWrapper, CompactCollection>();
+  private Region<ByteArrayWrapper, CompactCollection> compactRegion;
+  private RegionProvider regionProvider;
+  private Region<ByteArrayWrapper, Object> promotedRegion;
+  private int maxEntries = 3;
+  private int maxBytes = 1024;
+
+  private static ByteArrayWrapper wrap(String s) {
+    return new ByteArrayWrapper(Coder.stringToBytes(s));
+  }
+
+  @SuppressWarnings("unchecked")
+  @Before
+  public void setUp() {
+    this.compactRegion = mock(Region.class);
+    when(this.compactRegion.get(any())).thenAnswer(new Answer<CompactCollection>() {
+      @Override
+      public CompactCollection answer(InvocationOnMock invocation) {
+        return backing.get(invocation.getArguments()[0]);
+      }
+    });
+    when(this.compactRegion.putIfAbsent(any(ByteArrayWrapper.class), any(CompactCollection.class))).thenAnswer(new Answer<CompactCollection>() {
+      @Override
+      public CompactCollection answer(InvocationOnMock invocation) {
+        Object[] args = invocation.getArguments();
+        return backing.putIfAbsent((ByteArrayWrapper) args[0], (CompactCollection) args[1]);
+      }
+    });
+    when(this.compactRegion.replace(any(ByteArrayWrapper.class), any(CompactCollection.class), any(CompactCollection.class))).thenAnswer(new Answer<Boolean>() {
+      @Override
+      public Boolean answer(InvocationOnMock invocation) {
+        Object[] args = invocation.getArguments();
+        return backing.replace((ByteArrayWrapper) args[0], (CompactCollection) args[1], (CompactCollection) args[2]);
+      }
+    });
+
+    this.promotedRegion = mock(Region.class);
+    this.regionProvider = mock(RegionProvider.class);
+    when(this.regionProvider.exceedsCompactLimits(any(CompactCollection.class))).thenAnswer(new Answer<Boolean>() {
+      @Override
+      public Boolean answer(InvocationOnMock invocation) {
+        CompactCollection c = (CompactCollection) invocation.getArguments()[0];
+        return c.size() > maxEntries || c.encodedLength() > maxBytes;
+      }
+    });
+    when(this.regionProvider.completePromotion(eq(KEY), any(RedisDataType.class), any(CompactCollection.class), any(ExecutionHandlerContext.class))).thenAnswer(new Answer<Region<?, ?>>() {
+      @Override
+      public Region<?, ?> answer(InvocationOnMock invocation) {
+        CompactCollection promoted = (CompactCollection) invocation.getArguments()[2];
+        if (promoted.isMigrating())
+          backing.replace(KEY, promoted, promoted.toPromotedMarker());
+        return promotedRegion;
+      }
+    });
+  }
+
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  private CompactCollectionMap<Boolean> set() {
+    return new CompactCollectionMap(this.regionProvider, this.compactRegion, KEY, RedisDataType.REDIS_SET, null);
+  }
+
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  private CompactCollectionMap<ByteArrayWrapper> hash() {
+    return new CompactCollectionMap(this.regionProvider, this.compactRegion, KEY, RedisDataType.REDIS_HASH, null);
+  }
+
+  @Test
+  public void setOperationsUpdateTheCompactValue() {
+    CompactCollectionMap<Boolean> set = set();
+    assertTrue(set.isEmpty());
+    assertNull(set.putIfAbsent(wrap("a"), Boolean.TRUE));
+    assertEquals(Boolean.TRUE, set.putIfAbsent(wrap("a"), Boolean.TRUE));
+    assertNull(set.put(wrap("b"), Boolean.TRUE));
+    assertEquals(2, set.size());
+    assertTrue(set.containsKey(wrap("a")));
+    assertEquals(new HashSet<ByteArrayWrapper>(Arrays.asList(wrap("a"), wrap("b"))), set.keySet());
+    assertEquals(Boolean.TRUE, set.remove(wrap("a")));
+    assertNull(set.remove(wrap("a")));
+    assertFalse(set.containsKey(wrap("a")));
+    assertEquals(1, this.backing.get(KEY).size());
+    assertFalse(this.backing.get(KEY).isPromoted());
+  }
+
+  @Test
+  public void hashOperationsUpdateTheCompactValue() {
+    CompactCollectionMap<ByteArrayWrapper> hash = hash();
+    assertNull(hash.put(wrap("f"), wrap("1")));
+    assertEquals(wrap("1"), hash.put(wrap("f"), wrap("2")));
+    assertFalse(hash.replace(wrap("f"), wrap("1"), wrap("3")));
+    assertTrue(hash.replace(wrap("f"), wrap("2"), wrap("3")));
+    assertNull(hash.replace(wrap("g"), wrap("1")));
+    assertFalse(hash.containsKey(wrap("g")));
+    assertFalse(hash.remove(wrap("f"), wrap("2")));
+    assertEquals(wrap("3"), hash.get(wrap("f")));
+    assertTrue(hash.remove(wrap("f"), wrap("3")));
+    assertTrue(hash.isEmpty());
+  }
+
+  @Test
+  public void updateRetriesWhenAConcurrentWriterWins() {
+    CompactCollectionMap<Boolean> set = set();
+    set.put(wrap("a"), Boolean.TRUE);
+    final AtomicBoolean raced = new AtomicBoolean();
+    doAnswer(new Answer<Boolean>() {
+      @Override
+      public Boolean answer(InvocationOnMock invocation) {
+        Object[] args = invocation.getArguments();
+        if (raced.compareAndSet(false, true)) {
+          // another member adds "b" between our read and our compare and set
+          CompactCollection current = backing.get(KEY);
+          backing.put(KEY, current.with(Coder.stringToBytes("b"), null));
+        }
+        return backing.replace((ByteArrayWrapper) args[0], (CompactCollection) args[1], (CompactCollection) args[2]);
+      }
+    }).when(this.compactRegion).replace(any(ByteArrayWrapper.class), any(CompactCollection.class), any(CompactCollection.class));
+
+    assertNull(set.put(wrap("c"), Boolean.TRUE));
+
+    verify(this.compactRegion, times(2)).replace(eq(KEY), any(CompactCollection.class), any(CompactCollection.class));
+    assertEquals(3, set.size());
+    assertTrue(set.containsKey(wrap("a")));
+    assertTrue(set.containsKey(wrap("b")));
+    assertTrue(set.containsKey(wrap("c")));
+  }
+
+  @Test
+  public void growingPastMaxEntriesPromotesTheCollection() {
+    CompactCollectionMap<Boolean> set = set();
+    for (int i = 0; i < this.maxEntries; i++)
+      set.put(wrap("m" + i), Boolean.TRUE);
+    verify(this.regionProvider, never()).completePromotion(any(ByteArrayWrapper.class), any(RedisDataType.class), any(CompactCollection.class), any(ExecutionHandlerContext.class));
+
+    set.put(wrap("m" + this.maxEntries), Boolean.TRUE);
+
+    CompactCollection expected = CompactCollection.emptySet();
+    for (int i = 0; i <= this.maxEntries; i++)
+      expected = expected.with(Coder.stringToBytes("m" + i), null);
+    verify(this.regionProvider).completePromotion(KEY, RedisDataType.REDIS_SET, expected.toPromoted(), null);
+    assertTrue(this.backing.get(KEY).isPromoted());
+    assertFalse(this.backing.get(KEY).isMigrating());
+  }
+
+  @Test
+  public void growingPastMaxBytesPromotesTheCollection() {
+    this.maxBytes = 16;
+    CompactCollectionMap<ByteArrayWrapper> hash = hash();
+    hash.put(wrap("f"), wrap("small"));
+    assertFalse(this.backing.get(KEY).isPromoted());
+
+    hash.put(wrap("g"), wrap("a value that does not fit"));
+
+    ArgumentCaptor<CompactCollection> promoted = ArgumentCaptor.forClass(CompactCollection.class);
+    verify(this.regionProvider).completePromotion(eq(KEY), eq(RedisDataType.REDIS_HASH), promoted.capture(), any(ExecutionHandlerContext.class));
+    assertEquals(2, promoted.getValue().size());
+    assertTrue(promoted.getValue().isMigrating());
+    assertTrue(this.backing.get(KEY).isPromoted());
+  }
+
+  @Test
+  public void operationsOnAPromotedCollectionGoToItsRegion() {
+    this.backing.put(KEY, CompactCollection.emptySet().toPromotedMarker());
+    CompactCollectionMap<Boolean> set = set();
+    when(this.promotedRegion.size()).thenReturn(7);
+
+    assertNull(set.put(wrap("a"), Boolean.TRUE));
+    assertEquals(7, set.size());
+    set.containsKey(wrap("a"));
+    Map<ByteArrayWrapper, Boolean> all = new HashMap<ByteArrayWrapper, Boolean>();
+    all.put(wrap("b"), Boolean.TRUE);
+    set.putAll(all);
+
+    verify(this.promotedRegion).put(wrap("a"), Boolean.TRUE);
+    verify(this.promotedRegion).containsKey(wrap("a"));
+    verify(this.promotedRegion).putAll(all);
+    verify(this.compactRegion, never()).replace(any(ByteArrayWrapper.class), any(CompactCollection.class), any(CompactCollection.class));
+  }
+}
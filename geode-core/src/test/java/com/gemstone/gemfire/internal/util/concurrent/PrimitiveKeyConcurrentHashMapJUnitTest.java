@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.util.concurrent;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class PrimitiveKeyConcurrentHashMapJUnitTest {
+
+  @Test
+  public void integerAndLongKeysAreDistinct() {
+    PrimitiveKeyConcurrentHashMap<String> map = new PrimitiveKeyConcurrentHashMap<String>();
+    assertNull(map.put(Long.valueOf(7), "long"));
+    assertNull(map.put(Integer.valueOf(7), "int"));
+    assertNull(map.put("7", "string"));
+    assertEquals(3, map.size());
+    assertEquals("long", map.get(Long.valueOf(7)));
+    assertEquals("int", map.get(Integer.valueOf(7)));
+    assertEquals("string", map.get("7"));
+    assertNull(map.get(Short.valueOf((short)7)));
+  }
+
+  @Test
+  public void negativeAndExtremeKeys() {
+    PrimitiveKeyConcurrentHashMap<String> map = new PrimitiveKeyConcurrentHashMap<String>();
+    map.put(Integer.MIN_VALUE, "min");
+    map.put(-1, "minusOne");
+    map.put(Long.MAX_VALUE, "max");
+    map.put(0L, "zero");
+    assertEquals("min", map.get(Integer.MIN_VALUE));
+    assertEquals("minusOne", map.get(-1));
+    assertEquals("max", map.get(Long.MAX_VALUE));
+    assertEquals("zero", map.get(0L));
+    assertNull(map.get(0));
+    Map<Object, String> copy = new HashMap<Object, String>(map);
+    assertEquals(4, copy.size());
+    assertEquals("min", copy.get(Integer.MIN_VALUE));
+    assertEquals("max", copy.get(Long.MAX_VALUE));
+  }
+
+  @Test
+  public void conditionalOperations() {
+    PrimitiveKeyConcurrentHashMap<String> map = new PrimitiveKeyConcurrentHashMap<String>();
+    assertNull(map.putIfAbsent(1L, "a"));
+    assertEquals("a", map.putIfAbsent(1L, "b"));
+    assertFalse(map.replace(1L, "b", "c"));
+    assertTrue(map.replace(1L, "a", "c"));
+    assertEquals("c", map.replace(1L, "d"));
+    assertNull(map.replace(2L, "d"));
+    assertFalse(map.remove(1L, "c"));
+    assertTrue(map.remove(1L, "d"));
+    assertFalse(map.containsKey(1L));
+    assertTrue(map.isEmpty());
+    assertNull(map.putIfAbsent(1L, "e"));
+    assertEquals("e", map.get(1L));
+  }
+
+  @Test
+  public void growsAndReusesRemovedSlots() {
+    PrimitiveKeyConcurrentHashMap<Long> map = new PrimitiveKeyConcurrentHashMap<Long>(0, 4);
+    for (long i = 0; i < 100000; i++) {
+      map.put(i, i);
+    }
+    assertEquals(100000, map.size());
+    for (long i = 0; i < 100000; i += 2) {
+      assertEquals(Long.valueOf(i), map.remove(i));
+    }
+    assertEquals(50000, map.size());
+    for (long i = 0; i < 100000; i++) {
+      assertEquals(i % 2 == 0 ? null : Long.valueOf(i), map.get(i));
+    }
+    for (int round = 0; round < 10; round++) {
+      for (long i = 100000; i < 110000; i++) {
+        map.put(i, i);
+      }
+      for (long i = 100000; i < 110000; i++) {
+        map.remove(i);
+      }
+    }
+    assertEquals(50000, map.size());
+    map.clear();
+    assertTrue(map.isEmpty());
+    assertNull(map.get(1L));
+  }
+
+  @Test
+  public void iteratorVisitsAndRemovesAllKeyTypes() {
+    PrimitiveKeyConcurrentHashMap<String> map = new PrimitiveKeyConcurrentHashMap<String>();
+    for (int i = 0; i < 100; i++) {
+      map.put(i, "int");
+      map.put((long)i, "long");
+      map.put("k" + i, "string");
+    }
+    int count = 0;
+    Iterator<Map.Entry<Object, String>> it = map.entrySetWithReusableEntries().iterator();
+    while (it.hasNext()) {
+      Map.Entry<Object, String> e = it.next();
+      assertEquals(e.getValue(), map.get(e.getKey()));
+      it.remove();
+      count++;
+    }
+    assertEquals(300, count);
+    assertTrue(map.isEmpty());
+  }
+
+  @Test
+  public void concurrentWritersDoNotLoseMappings() throws Exception {
+    final PrimitiveKeyConcurrentHashMap<Long> map = new PrimitiveKeyConcurrentHashMap<Long>(0, 16);
+    final int threads = 4;
+    final int keysPerThread = 20000;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<Void>> futures = new ArrayList<Future<Void>>();
+      for (int t = 0; t < threads; t++) {
+        final long base = t * 1000000L;
+        futures.add(executor.submit(new Callable<Void>() {
+          public Void call() {
+            for (long i = base; i < base + keysPerThread; i++) {
+              map.put(i, i);
+              assertEquals(Long.valueOf(i), map.get(i));
+            }
+            return null;
+          }
+        }));
+      }
+      // rethrows any assertion that failed in a writer
+      for (Future<Void> future : futures) {
+        future.get(60, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertEquals(threads * keysPerThread, map.size());
+    for (int t = 0; t < threads; t++) {
+      long base = t * 1000000L;
+      for (long i = base; i < base + keysPerThread; i++) {
+        assertEquals(Long.valueOf(i), map.get(i));
+      }
+    }
+  }
+}
@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.redis;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import redis.clients.jedis.Jedis;
+
+import com.gemstone.gemfire.cache.CacheFactory;
+import com.gemstone.gemfire.cache.GemFireCache;
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.internal.AvailablePortHelper;
+import com.gemstone.gemfire.internal.redis.ByteArrayWrapper;
+import com.gemstone.gemfire.internal.redis.Coder;
+import com.gemstone.gemfire.internal.redis.CompactCollection;
+import com.gemstone.gemfire.internal.redis.RedisDataType;
+import com.gemstone.gemfire.test.junit.categories.IntegrationTest;
+
+/**
+ * Runs set and hash commands against collections that are stored compactly
+ * and against collections that grow past the compact limits while in use.
+ */
+@Category(IntegrationTest.class)
+public class CompactCollectionsJUnitTest {
+
+  private static final int MAX_ENTRIES = 4;
+
+  private static Jedis jedis;
+  private static GemFireRedisServer server;
+  private static GemFireCache cache;
+  private static int port = 6379;
+
+  @BeforeClass
+  public static void setUp() throws IOException {
+    System.setProperty(GemFireRedisServer.COMPACT_MAX_ENTRIES_SYS_PROP_NAME, String.valueOf(MAX_ENTRIES));
+    System.setProperty(GemFireRedisServer.COMPACT_MAX_BYTES_SYS_PROP_NAME, "256");
+    CacheFactory cf = new CacheFactory();
+    cf.set("log-level", "error");
+    cf.set("mcast-port", "0");
+    cf.set("locators", "");
+    cache = cf.create();
+    port = AvailablePortHelper.getRandomAvailableTCPPort();
+    server = new GemFireRedisServer("localhost", port);
+
+    server.start();
+    jedis = new Jedis("localhost", port, 10000000);
+  }
+
+  private static Region<ByteArrayWrapper, CompactCollection> compactRegion() {
+    return cache.getRegion(GemFireRedisServer.COMPACT_COLLECTIONS_REGION);
+  }
+
+  private static CompactCollection compactValue(String key) {
+    return compactRegion().get(new ByteArrayWrapper(Coder.stringToBytes(key)));
+  }
+
+  @Test
+  public void smallSetIsStoredCompactly() {
+    assertEquals(Long.valueOf(3), jedis.sadd("small", "a", "b", "c"));
+    assertEquals(Long.valueOf(0), jedis.sadd("small", "a"));
+    assertEquals(new HashSet<String>(Arrays.asList("a", "b", "c")), jedis.smembers("small"));
+    assertTrue(jedis.sismember("small", "b"));
+    assertEquals(Long.valueOf(1), jedis.srem("small", "b"));
+    assertEquals(Long.valueOf(2), jedis.scard("small"));
+
+    CompactCollection c = compactValue("small");
+    assertNotNull(c);
+    assertFalse(c.isPromoted());
+    assertEquals(2, c.size());
+    assertNull(cache.getRegion("small"));
+  }
+
+  @Test
+  public void setIsPromotedWhenItOutgrowsMaxEntries() {
+    Set<String> members = new HashSet<String>();
+    for (int i = 0; i < MAX_ENTRIES * 3; i++) {
+      String member = "member" + i;
+      members.add(member);
+      assertEquals(Long.valueOf(1), jedis.sadd("growing", member));
+      assertEquals(members, jedis.smembers("growing"));
+    }
+    assertEquals(Long.valueOf(members.size()), jedis.scard("growing"));
+
+    CompactCollection c = compactValue("growing");
+    assertTrue(c.isPromoted());
+    assertFalse(c.isMigrating());
+    assertEquals(members.size(), cache.getRegion("growing").size());
+
+    assertEquals(Long.valueOf(1), jedis.srem("growing", "member0"));
+    assertFalse(jedis.sismember("growing", "member0"));
+  }
+
+  @Test
+  public void hashIsPromotedWhenItOutgrowsMaxBytes() {
+    Map<String, String> expected = new HashMap<String, String>();
+    expected.put("f", "small");
+    jedis.hmset("wide", expected);
+    assertFalse(compactValue("wide").isPromoted());
+
+    char[] big = new char[300];
+    Arrays.fill(big, 'x');
+    expected.put("g", new String(big));
+    assertEquals(Long.valueOf(1), jedis.hset("wide", "g", new String(big)));
+
+    assertTrue(compactValue("wide").isPromoted());
+    assertEquals(expected, jedis.hgetAll("wide"));
+    assertEquals("small", jedis.hget("wide", "f"));
+    assertEquals(Long.valueOf(2), jedis.hlen("wide"));
+  }
+
+  @Test
+  public void hashCommandsWorkOnCompactHashes() {
+    assertEquals(Long.valueOf(1), jedis.hset("h", "f", "1"));
+    assertEquals(Long.valueOf(0), jedis.hsetnx("h", "f", "2"));
+    assertEquals(Long.valueOf(5), jedis.hincrBy("h", "f", 4));
+    assertTrue(jedis.hexists("h", "f"));
+    assertEquals(Arrays.asList("5", null), jedis.hmget("h", "f", "g"));
+    assertFalse(compactValue("h").isPromoted());
+    assertEquals(Long.valueOf(1), jedis.hdel("h", "f"));
+    assertEquals(Long.valueOf(0), jedis.hlen("h"));
+  }
+
+  @Test
+  public void interruptedMigrationIsCompletedOnNextAccess() {
+    // A member that promoted the set failed before copying its members
+    CompactCollection migrating = CompactCollection.emptySet();
+    for (String member : Arrays.asList("a", "b", "c", "d", "e"))
+      migrating = migrating.with(Coder.stringToBytes(member), null);
+    migrating = migrating.toPromoted();
+    cache.<String, RedisDataType> getRegion(GemFireRedisServer.REDIS_META_DATA_REGION).put("interrupted", RedisDataType.REDIS_SET);
+    compactRegion().put(new ByteArrayWrapper(Coder.stringToBytes("interrupted")), migrating);
+
+    assertEquals(new HashSet<String>(Arrays.asList("a", "b", "c", "d", "e")), jedis.smembers("interrupted"));
+
+    CompactCollection c = compactValue("interrupted");
+    assertTrue(c.isPromoted());
+    assertFalse(c.isMigrating());
+    assertEquals(5, cache.getRegion("interrupted").size());
+    assertEquals(Long.valueOf(1), jedis.sadd("interrupted", "f"));
+    assertEquals(Long.valueOf(6), jedis.scard("interrupted"));
+  }
+
+  @After
+  public void flushAll() {
+    jedis.flushAll();
+  }
+
+  @AfterClass
+  public static void tearDown() {
+    jedis.close();
+    cache.close();
+    server.shutdown();
+    System.clearProperty(GemFireRedisServer.COMPACT_MAX_ENTRIES_SYS_PROP_NAME);
+    System.clearProperty(GemFireRedisServer.COMPACT_MAX_BYTES_SYS_PROP_NAME);
+  }
+}